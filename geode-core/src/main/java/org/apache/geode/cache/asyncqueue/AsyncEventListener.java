@@ -55,6 +55,9 @@ import org.apache.geode.cache.CacheCallback;
  * }
  * </pre>
  * 
+ * Listeners that write events behind to an external data store can use a
+ * {@link WriteBehindBatch} to coalesce the events of a batch by key and write them in bulk.
+ * 
  * @since GemFire 7.0
  */
 public interface AsyncEventListener extends CacheCallback {
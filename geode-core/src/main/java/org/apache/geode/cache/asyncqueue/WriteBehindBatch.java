@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.asyncqueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.geode.cache.Operation;
+import org.apache.geode.cache.Region;
+
+/**
+ * A batch of <code>AsyncEvent</code>s prepared for writing behind to an external data store. The
+ * events are coalesced by region and key, so that each key is written once with its latest event,
+ * and grouped by region and by the operation to apply to the store. Each group can then be written
+ * with one bulk request, for example one JDBC batch per region and operation: <br>
+ *
+ * <pre>
+ * public boolean processEvents(List&lt;AsyncEvent&gt; events) {
+ *   WriteBehindBatch batch = new WriteBehindBatch(events);
+ *   for (Region region : batch.getRegions()) {
+ *     insert(region, batch.getEvents(region, Operation.CREATE));
+ *     update(region, batch.getEvents(region, Operation.UPDATE));
+ *     delete(region, batch.getEvents(region, Operation.DESTROY));
+ *   }
+ *   return true;
+ * }
+ * </pre>
+ *
+ * The operation of a key is the net effect of its events in the batch:
+ * <ul>
+ * <li>none if its first event created it and its last event destroyed it, so the key is left out
+ * of the batch since it was never written to the store</li>
+ * <li>{@link Operation#DESTROY} if its last event destroyed it</li>
+ * <li>{@link Operation#CREATE} if its first event created it</li>
+ * <li>{@link Operation#INVALIDATE} if its last event invalidated it</li>
+ * <li>{@link Operation#UPDATE} otherwise</li>
+ * </ul>
+ * The event of a key is its last event, whose own operation may differ from the operation of its
+ * group. Values are not deserialized by the batch; {@link AsyncEvent#getSerializedValue()} gives
+ * the bytes of a value without deserializing it.
+ *
+ * @since Geode 1.2
+ */
+public class WriteBehindBatch {
+
+  private final Map<Region, Map<Operation, List<AsyncEvent>>> eventsByRegion =
+      new LinkedHashMap<Region, Map<Operation, List<AsyncEvent>>>();
+
+  private int size;
+
+  /**
+   * Coalesces and groups the given events, which must be in the order they were delivered.
+   */
+  public WriteBehindBatch(List<AsyncEvent> events) {
+    Map<Region, Map<Object, AsyncEvent[]>> firstAndLastEvents =
+        new LinkedHashMap<Region, Map<Object, AsyncEvent[]>>();
+    for (AsyncEvent event : events) {
+      Map<Object, AsyncEvent[]> keys = firstAndLastEvents.get(event.getRegion());
+      if (keys == null) {
+        keys = new LinkedHashMap<Object, AsyncEvent[]>();
+        firstAndLastEvents.put(event.getRegion(), keys);
+      }
+      AsyncEvent[] firstAndLast = keys.get(event.getKey());
+      if (firstAndLast == null) {
+        keys.put(event.getKey(), new AsyncEvent[] {event, event});
+      } else {
+        firstAndLast[1] = event;
+      }
+    }
+    for (Map.Entry<Region, Map<Object, AsyncEvent[]>> entry : firstAndLastEvents.entrySet()) {
+      Map<Operation, List<AsyncEvent>> eventsByOperation =
+          new LinkedHashMap<Operation, List<AsyncEvent>>();
+      for (AsyncEvent[] firstAndLast : entry.getValue().values()) {
+        Operation operation = getNetOperation(firstAndLast[0], firstAndLast[1]);
+        if (operation == null) {
+          continue;
+        }
+        List<AsyncEvent> operationEvents = eventsByOperation.get(operation);
+        if (operationEvents == null) {
+          operationEvents = new ArrayList<AsyncEvent>();
+          eventsByOperation.put(operation, operationEvents);
+        }
+        operationEvents.add(firstAndLast[1]);
+        this.size++;
+      }
+      if (!eventsByOperation.isEmpty()) {
+        this.eventsByRegion.put(entry.getKey(), eventsByOperation);
+      }
+    }
+  }
+
+  /**
+   * Returns the net operation of a key with the given first and last events, or null if the key
+   * was created and then destroyed within the batch.
+   */
+  private static Operation getNetOperation(AsyncEvent first, AsyncEvent last) {
+    if (last.getOperation().isDestroy()) {
+      return first.getOperation().isCreate() ? null : Operation.DESTROY;
+    } else if (first.getOperation().isCreate()) {
+      return Operation.CREATE;
+    } else if (last.getOperation().isInvalidate()) {
+      return Operation.INVALIDATE;
+    } else {
+      return Operation.UPDATE;
+    }
+  }
+
+  /**
+   * Returns the regions of the events in this batch, in the order they first occurred. A region
+   * whose keys were all created and then destroyed within the batch is left out.
+   */
+  public Set<Region> getRegions() {
+    return Collections.unmodifiableSet(this.eventsByRegion.keySet());
+  }
+
+  /**
+   * Returns the last event of each key of the region whose net operation in this batch is the given
+   * operation, which is one of {@link Operation#CREATE}, {@link Operation#UPDATE},
+   * {@link Operation#INVALIDATE} or {@link Operation#DESTROY}. The events are in the order their
+   * keys first occurred.
+   */
+  public List<AsyncEvent> getEvents(Region region, Operation operation) {
+    Map<Operation, List<AsyncEvent>> eventsByOperation = this.eventsByRegion.get(region);
+    List<AsyncEvent> events = eventsByOperation == null ? null : eventsByOperation.get(operation);
+    if (events == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(events);
+  }
+
+  /**
+   * Returns the number of events in this batch after coalescing, not counting the keys that were
+   * created and then destroyed.
+   */
+  public int size() {
+    return this.size;
+  }
+}
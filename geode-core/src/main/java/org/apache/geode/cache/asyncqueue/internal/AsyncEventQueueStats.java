@@ -94,7 +94,18 @@ public class AsyncEventQueueStats extends GatewaySenderStats {
             f.createIntGauge(LOAD_BALANCES_IN_PROGRESS, "Number of load balances in progress",
                 "operations"),
             f.createLongCounter(LOAD_BALANCE_TIME, "Total time spent load balancing this sender",
-                "nanoseconds"),});
+                "nanoseconds"),
+            f.createIntGauge(BATCHES_IN_FLIGHT,
+                "Number of batches sent to receivers and not yet acknowledged.", "operations"),
+            f.createIntCounter(BATCHES_ACKED,
+                "Number of batches successfully acknowledged by receivers.", "operations"),
+            f.createLongCounter(BATCH_ACK_TIME,
+                "Total time between sending batches and receiving their acknowledgements.",
+                "nanoseconds"),
+            f.createLongCounter(UNCOMPRESSED_VALUE_BYTES,
+                "Total size of the values compressed in batches, before compression.", "bytes"),
+            f.createLongCounter(COMPRESSED_VALUE_BYTES,
+                "Total size of the values compressed in batches, after compression.", "bytes"),});
 
     // Initialize id fields
     eventsReceivedId = type.nameToId(EVENTS_RECEIVED);
@@ -123,6 +134,11 @@ public class AsyncEventQueueStats extends GatewaySenderStats {
     loadBalancesCompletedId = type.nameToId(LOAD_BALANCES_COMPLETED);
     loadBalancesInProgressId = type.nameToId(LOAD_BALANCES_IN_PROGRESS);
     loadBalanceTimeId = type.nameToId(LOAD_BALANCE_TIME);
+    batchesInFlightId = type.nameToId(BATCHES_IN_FLIGHT);
+    batchesAckedId = type.nameToId(BATCHES_ACKED);
+    batchAckTimeId = type.nameToId(BATCH_ACK_TIME);
+    uncompressedValueBytesId = type.nameToId(UNCOMPRESSED_VALUE_BYTES);
+    compressedValueBytesId = type.nameToId(COMPRESSED_VALUE_BYTES);
   }
 
   /**
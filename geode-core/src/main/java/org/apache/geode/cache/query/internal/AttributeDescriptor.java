@@ -38,7 +38,9 @@ import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.pdx.PdxInstance;
 import org.apache.geode.pdx.PdxSerializationException;
 import org.apache.geode.pdx.internal.FieldNotFoundInPdxVersion;
+import org.apache.geode.pdx.internal.PdxField;
 import org.apache.geode.pdx.internal.PdxInstanceImpl;
+import org.apache.geode.pdx.internal.PdxType;
 import org.apache.geode.pdx.JSONFormatter;
 
 /**
@@ -53,6 +55,12 @@ public class AttributeDescriptor {
   /** cache for remembering the correct Member for a class and attribute */
   private static final ConcurrentMap _cache = new ConcurrentHashMap();
 
+  /**
+   * the PdxField for this attribute in the PdxType last read through this descriptor. Descriptors
+   * held by a compiled query read the same field from every PdxInstance of a type, so this saves
+   * looking the field up by name for each instance.
+   */
+  private volatile ResolvedPdxField lastPdxField;
 
 
   public AttributeDescriptor(String name) {
@@ -255,42 +263,47 @@ public class AttributeDescriptor {
     if (target instanceof PdxInstanceImpl) {
       PdxInstanceImpl pdxInstance = (PdxInstanceImpl) target;
       // if the field is present in the pdxinstance
-      if (pdxInstance.hasField(_name)) {
-        // return PdxString if field is a String otherwise invoke readField
+      // return PdxString if field is a String otherwise invoke readField
+      if (target.getClass() == PdxInstanceImpl.class) {
+        // a WritablePdxInstanceImpl may read its fields through a different type once modified
+        PdxField field = getPdxField(pdxInstance.getPdxType());
+        if (field != null) {
+          return pdxInstance.getRawField(field);
+        }
+      } else if (pdxInstance.hasField(_name)) {
         return pdxInstance.getRawField(_name);
-      } else {
-        // field not found in the pdx instance, look for the field in any of the
-        // PdxTypes (versions of the pdxinstance) in the type registry
-        String className = pdxInstance.getClassName();
+      }
+      // field not found in the pdx instance, look for the field in any of the
+      // PdxTypes (versions of the pdxinstance) in the type registry
+      String className = pdxInstance.getClassName();
 
-        // don't look further for field or method or reflect on GemFire JSON data
-        if (className.equals(JSONFormatter.JSON_CLASSNAME)) {
-          return QueryService.UNDEFINED;
-        }
+      // don't look further for field or method or reflect on GemFire JSON data
+      if (className.equals(JSONFormatter.JSON_CLASSNAME)) {
+        return QueryService.UNDEFINED;
+      }
 
 
-        // check if the field was not found previously
-        if (!isFieldAlreadySearchedAndNotFound(className, _name)) {
-          try {
-            return pdxInstance.getDefaultValueIfFieldExistsInAnyPdxVersions(_name, className);
-          } catch (FieldNotFoundInPdxVersion e1) {
-            // remember the field that is not present in any version to avoid
-            // trips to the registry next time
-            updateClassToFieldsMap(className, _name);
-          }
+      // check if the field was not found previously
+      if (!isFieldAlreadySearchedAndNotFound(className, _name)) {
+        try {
+          return pdxInstance.getDefaultValueIfFieldExistsInAnyPdxVersions(_name, className);
+        } catch (FieldNotFoundInPdxVersion e1) {
+          // remember the field that is not present in any version to avoid
+          // trips to the registry next time
+          updateClassToFieldsMap(className, _name);
         }
-        // if the field is not present in any of the versions try to
-        // invoke implicit method call
-        if (!this.isMethodAlreadySearchedAndNotFound(className, _name)) {
-          try {
-            return readFieldFromDeserializedObject(pdxInstance, target);
-          } catch (NameNotFoundException ex) {
-            updateClassToMethodsMap(pdxInstance.getClassName(), _name);
-            throw ex;
-          }
-        } else
-          return QueryService.UNDEFINED;
       }
+      // if the field is not present in any of the versions try to
+      // invoke implicit method call
+      if (!this.isMethodAlreadySearchedAndNotFound(className, _name)) {
+        try {
+          return readFieldFromDeserializedObject(pdxInstance, target);
+        } catch (NameNotFoundException ex) {
+          updateClassToMethodsMap(pdxInstance.getClassName(), _name);
+          throw ex;
+        }
+      } else
+        return QueryService.UNDEFINED;
     } else {
       // target could be another implementation of PdxInstance like
       // PdxInstanceEnum, in this case getRawField and getCachedOjects methods are
@@ -304,6 +317,28 @@ public class AttributeDescriptor {
     }
   }
 
+  /**
+   * Returns the field for this attribute in the given type, or null if the type does not have it.
+   */
+  private PdxField getPdxField(PdxType pdxType) {
+    ResolvedPdxField resolved = this.lastPdxField;
+    if (resolved == null || resolved.pdxType != pdxType) {
+      resolved = new ResolvedPdxField(pdxType, pdxType.getPdxField(_name));
+      this.lastPdxField = resolved;
+    }
+    return resolved.field;
+  }
+
+  private static class ResolvedPdxField {
+    final PdxType pdxType;
+    final PdxField field;
+
+    ResolvedPdxField(PdxType pdxType, PdxField field) {
+      this.pdxType = pdxType;
+      this.field = field;
+    }
+  }
+
   private Object readFieldFromDeserializedObject(PdxInstanceImpl pdxInstance, Object target)
       throws NameNotFoundException, QueryInvocationTargetException {
     try {
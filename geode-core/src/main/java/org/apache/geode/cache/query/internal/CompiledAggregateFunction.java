@@ -22,10 +22,16 @@ import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.aggregate.AvgBucketNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinct;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinctPRQueryNode;
+import org.apache.geode.cache.query.internal.aggregate.AvgMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.Count;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinct;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimate;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimateBucketNode;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimateMemberNode;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimatePRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinctPRQueryNode;
+import org.apache.geode.cache.query.internal.aggregate.DistinctMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.SumDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.DistinctAggregator;
@@ -36,6 +42,7 @@ import org.apache.geode.cache.query.internal.aggregate.SumDistinct;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.ObjectTypeImpl;
 import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.distributed.internal.DistributionConfig;
 
 /**
  * 
@@ -43,6 +50,14 @@ import org.apache.geode.cache.query.types.ObjectType;
  */
 public class CompiledAggregateFunction extends AbstractCompiledValue {
 
+  /**
+   * If true, COUNT(DISTINCT) is estimated with a HyperLogLog counter, so that partitioned region
+   * buckets send a small fixed size counter to the query node instead of every distinct value. It
+   * must be set the same way on every member hosting the region.
+   */
+  public static boolean APPROXIMATE_COUNT_DISTINCT =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.APPROXIMATE_COUNT_DISTINCT");
+
   private final CompiledValue expr;
   private final int aggFuncType;
   private final boolean distinctOnly;
@@ -68,11 +83,14 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
     boolean isPRQueryNode = context.getIsPRQueryNode();
     boolean isBucketNode = context.getBucketList() != null;
+    boolean isMemberNode = context.getIsCombiningBucketResults();
     switch (this.aggFuncType) {
 
       case OQLLexerTokenTypes.SUM:
         if (isPRQueryNode) {
           return this.distinctOnly ? new SumDistinctPRQueryNode() : new Sum();
+        } else if (isMemberNode) {
+          return this.distinctOnly ? new DistinctMemberNode() : new Sum();
         } else {
           return this.distinctOnly ? (isBucketNode ? new DistinctAggregator() : new SumDistinct())
               : new Sum();
@@ -87,14 +105,28 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
       case OQLLexerTokenTypes.AVG:
         if (isPRQueryNode) {
           return this.distinctOnly ? new AvgDistinctPRQueryNode() : new AvgPRQueryNode();
+        } else if (isMemberNode) {
+          return this.distinctOnly ? new DistinctMemberNode() : new AvgMemberNode();
         } else {
           return this.distinctOnly ? (isBucketNode ? new DistinctAggregator() : new AvgDistinct())
               : (isBucketNode ? new AvgBucketNode() : new Avg());
         }
 
       case OQLLexerTokenTypes.COUNT:
+        if (this.distinctOnly && APPROXIMATE_COUNT_DISTINCT) {
+          if (isPRQueryNode) {
+            return new CountDistinctEstimatePRQueryNode();
+          } else if (isMemberNode) {
+            return new CountDistinctEstimateMemberNode();
+          } else {
+            return isBucketNode ? new CountDistinctEstimateBucketNode()
+                : new CountDistinctEstimate();
+          }
+        }
         if (isPRQueryNode) {
           return this.distinctOnly ? new CountDistinctPRQueryNode() : new CountPRQueryNode();
+        } else if (isMemberNode) {
+          return this.distinctOnly ? new DistinctMemberNode() : new CountPRQueryNode();
         } else {
           return this.distinctOnly ? (isBucketNode ? new DistinctAggregator() : new CountDistinct())
               : new Count();
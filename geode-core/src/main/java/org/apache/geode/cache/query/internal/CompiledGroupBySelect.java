@@ -38,6 +38,7 @@ import org.apache.geode.cache.query.internal.types.TypeUtils;
 import org.apache.geode.cache.query.internal.utils.PDXUtils;
 import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.cache.query.types.StructType;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 
 /**
@@ -46,6 +47,14 @@ import org.apache.geode.internal.i18n.LocalizedStrings;
  */
 public class CompiledGroupBySelect extends CompiledSelect {
 
+  /**
+   * If true, a data node combines the grouped rows of all the buckets it queried before sending
+   * them to the query node, so that it sends one row per group rather than one per bucket and
+   * group.
+   */
+  public static boolean COMBINE_BUCKET_RESULTS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.COMBINE_BUCKET_AGGREGATES");
+
   private final BitSet aggregateColsPos;
   private final CompiledAggregateFunction[] aggregateFunctions;
   private final boolean isDistinct;
@@ -197,6 +206,25 @@ public class CompiledGroupBySelect extends CompiledSelect {
     return newResults;
   }
 
+  /**
+   * Combines the partial aggregates computed for each bucket on this node into one partial
+   * aggregate per group, in the same form as the bucket results so that the query node can
+   * aggregate them in the usual way.
+   *
+   * @param bucketResults the results of all the buckets, sorted by the group by columns
+   * @param context a context whose bucket list is that of the buckets queried
+   */
+  public SelectResults combineBucketResults(SelectResults bucketResults, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    context.setIsCombiningBucketResults(true);
+    try {
+      return applyAggregateAndGroupBy(bucketResults, context);
+    } finally {
+      context.setIsCombiningBucketResults(false);
+    }
+  }
+
   private SelectResults createResultSet(ExecutionContext context, ObjectType elementType,
       boolean isStruct, boolean createOrderedResults) {
     elementType = createNewElementType(elementType, isStruct);
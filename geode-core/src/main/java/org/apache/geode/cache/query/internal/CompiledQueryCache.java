@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.CachePerfStats;
+
+/**
+ * A bounded cache of compiled queries keyed by query string, so that a query executed over and over
+ * is parsed only once per cache. Queries created by {@link DefaultQueryService#newQuery(String)}
+ * share the compiled tree, in the same way that executions of a prepared client query share one
+ * DefaultQuery.
+ * <p>
+ * When the cache is full, entries that have not been used since the previous eviction pass are
+ * removed. The whole cache is cleared whenever an index is created or removed, so queries are
+ * compiled afresh once the set of indexes changes.
+ * <p>
+ * The cache is enabled by setting <code>gemfire.Query.COMPILED_QUERY_CACHE_SIZE</code> to the
+ * maximum number of queries to keep.
+ *
+ * @since Geode 1.2
+ */
+public class CompiledQueryCache {
+
+  public static final int MAX_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.COMPILED_QUERY_CACHE_SIZE", 0)
+          .intValue();
+
+  private final ConcurrentHashMap<String, CompiledQuery> queries =
+      new ConcurrentHashMap<String, CompiledQuery>();
+
+  private final int maxSize;
+
+  private final CachePerfStats stats;
+
+  public CompiledQueryCache(int maxSize, CachePerfStats stats) {
+    this.maxSize = maxSize;
+    this.stats = stats;
+  }
+
+  /**
+   * Parses the given query string.
+   *
+   * @throws org.apache.geode.cache.query.QueryInvalidException if the query is not valid OQL
+   */
+  static CompiledQuery compile(String queryString) {
+    QCompiler compiler = new QCompiler();
+    CompiledValue compiledQuery = compiler.compileQuery(queryString);
+    return new CompiledQuery(compiledQuery, compiler.isTraceRequested());
+  }
+
+  /**
+   * Returns the cached compiled form of the given query, or null if it is not cached.
+   */
+  CompiledQuery get(String queryString) {
+    CompiledQuery compiled = this.queries.get(queryString);
+    if (compiled == null) {
+      this.stats.incCompiledQueryCacheMisses();
+      return null;
+    }
+    if (!compiled.lastUsed) {
+      compiled.lastUsed = true;
+    }
+    this.stats.incCompiledQueryCacheHits();
+    return compiled;
+  }
+
+  /**
+   * Caches the compiled form of a query. The compiled tree must not be modified once it is cached,
+   * so it should only be added after the DefaultQuery compiling it has been constructed.
+   */
+  void put(String queryString, CompiledQuery compiled) {
+    if (this.queries.size() >= this.maxSize) {
+      evict();
+    }
+    this.queries.putIfAbsent(queryString, compiled);
+  }
+
+  /**
+   * Removes the queries not used since the last time this was called. If every query has been used,
+   * removes arbitrary queries until there is room for one more.
+   */
+  private synchronized void evict() {
+    if (this.queries.size() < this.maxSize) {
+      return;
+    }
+    for (Iterator<Map.Entry<String, CompiledQuery>> it = this.queries.entrySet().iterator(); it
+        .hasNext();) {
+      CompiledQuery compiled = it.next().getValue();
+      if (compiled.lastUsed) {
+        compiled.lastUsed = false;
+      } else {
+        it.remove();
+      }
+    }
+    for (Iterator<String> it = this.queries.keySet().iterator(); it.hasNext()
+        && this.queries.size() >= this.maxSize;) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  /**
+   * Removes every cached query.
+   */
+  public void clear() {
+    this.queries.clear();
+  }
+
+  int size() {
+    return this.queries.size();
+  }
+
+  /**
+   * The result of compiling a query string.
+   */
+  static class CompiledQuery {
+
+    private final CompiledValue compiledQuery;
+
+    private final boolean traceRequested;
+
+    /** set when the query is used and cleared by each eviction pass */
+    private volatile boolean lastUsed;
+
+    CompiledQuery(CompiledValue compiledQuery, boolean traceRequested) {
+      this.compiledQuery = compiledQuery;
+      this.traceRequested = traceRequested;
+    }
+
+    CompiledValue getCompiledValue() {
+      return this.compiledQuery;
+    }
+
+    boolean isTraceRequested() {
+      return this.traceRequested;
+    }
+  }
+}
@@ -86,11 +86,16 @@ public class CompiledRegion extends AbstractCompiledValue {
           LocalizedStrings.CompiledRegion_REGION_NOT_FOUND_0.toLocalizedString(this.regionPath));
     }
 
+    QRegion qRegion;
     if (context.isCqQueryContext()) {
-      return new QRegion(rgn, true, context);
+      qRegion = new QRegion(rgn, true, context);
     } else {
-      return new QRegion(rgn, false, context);
+      qRegion = new QRegion(rgn, false, context);
     }
+    if (context.getStripedRegion() == this) {
+      qRegion.setStripe(context.getStripe(), context.getStripeCount());
+    }
+    return qRegion;
   }
 
   @Override
@@ -16,9 +16,13 @@ package org.apache.geode.cache.query.internal;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.geode.cache.Cache;
 import org.apache.geode.cache.CacheClosedException;
@@ -30,6 +34,7 @@ import org.apache.geode.cache.query.Index;
 import org.apache.geode.cache.query.NameNotFoundException;
 import org.apache.geode.cache.query.NameResolutionException;
 import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.QueryException;
 import org.apache.geode.cache.query.QueryInvalidException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.QueryService;
@@ -45,6 +50,7 @@ import org.apache.geode.cache.query.internal.types.TypeUtils;
 import org.apache.geode.cache.query.types.CollectionType;
 import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.cache.query.types.StructType;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.pdx.PdxInstance;
 import org.apache.geode.pdx.internal.PdxString;
@@ -91,6 +97,21 @@ public class CompiledSelect extends AbstractCompiledValue {
    */
   private final static String CLAUSE_EVALUATED = "Evaluated";
 
+  /**
+   * If true, a select over two independent collections that cannot use an index is evaluated by
+   * hashing the smaller collection on its side of an equality in the where clause, such as
+   * <code>x.id = y.aid</code>, and probing it with each element of the other collection.
+   */
+  public static boolean HASH_JOIN =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.HASH_JOIN");
+
+  /**
+   * The largest collection a hash join is built from. Larger joins use nested iterations.
+   */
+  public static final int HASH_JOIN_MAX_BUILD_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.HASH_JOIN_MAX_BUILD_SIZE", 1000000)
+      .intValue();
+
   public CompiledSelect(boolean distinct, boolean count, CompiledValue whereClause, List iterators,
       List projAttrs, List<CompiledSortCriterion> orderByAttrs, CompiledValue limit,
       List<String> hints, List<CompiledValue> groupByClause) {
@@ -141,6 +162,13 @@ public class CompiledSelect extends AbstractCompiledValue {
     return this.orderByAttrs != null;
   }
 
+  /**
+   * Returns true if an ORDER BY attribute is not one of the projected attributes.
+   */
+  boolean hasUnmappedOrderByCols() {
+    return this.hasUnmappedOrderByCols;
+  }
+
   public void setDistinct(boolean distinct) {
     this.distinct = distinct;
   }
@@ -709,6 +737,12 @@ public class CompiledSelect extends AbstractCompiledValue {
         }
         return results;
       }
+      if (HASH_JOIN) {
+        CompiledComparison joinCondition = getHashJoinCondition(context);
+        if (joinCondition != null && doHashJoin(joinCondition, results, context)) {
+          return results;
+        }
+      }
     }
     int numElementsInResult = 0;
     try {
@@ -719,6 +753,174 @@ public class CompiledSelect extends AbstractCompiledValue {
     return results;
   }
 
+  /**
+   * Returns an equality in the where clause between an expression of each of two independent
+   * iterators, or null if the where clause has no such equality.
+   */
+  private CompiledComparison getHashJoinCondition(ExecutionContext context) {
+    List iterList = context.getCurrentIterators();
+    if (iterList.size() != 2 || context.getAllIndependentIteratorsOfCurrentScope().size() != 2) {
+      return null;
+    }
+    List conditions;
+    if (this.whereClause instanceof CompiledComparison) {
+      conditions = Collections.singletonList(this.whereClause);
+    } else if (this.whereClause instanceof CompiledJunction
+        && ((CompiledJunction) this.whereClause).getOperator() == LITERAL_and) {
+      conditions = ((CompiledJunction) this.whereClause).getOperands();
+    } else {
+      return null;
+    }
+    RuntimeIterator first = (RuntimeIterator) iterList.get(0);
+    RuntimeIterator second = (RuntimeIterator) iterList.get(1);
+    for (Object condition : conditions) {
+      if (condition instanceof CompiledComparison
+          && ((CompiledComparison) condition).getOperator() == TOK_EQ) {
+        List operands = ((CompiledComparison) condition).getChildren();
+        CompiledValue left = (CompiledValue) operands.get(0);
+        CompiledValue right = (CompiledValue) operands.get(1);
+        if ((dependsOnlyOn(left, first, second, context)
+            && dependsOnlyOn(right, second, first, context))
+            || (dependsOnlyOn(left, second, first, context)
+                && dependsOnlyOn(right, first, second, context))) {
+          return (CompiledComparison) condition;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean dependsOnlyOn(CompiledValue cv, RuntimeIterator itr,
+      RuntimeIterator other, ExecutionContext context) {
+    return cv.isDependentOnIterator(itr, context) && !cv.isDependentOnIterator(other, context);
+  }
+
+  /**
+   * Evaluates a join of two iterators by hashing the elements of the smaller collection on their
+   * side of the join condition. Every pair with equal keys, and every pair whose keys cannot be
+   * hashed, is then checked against the whole where clause as nested iterations would.
+   *
+   * @return false if the join should be evaluated by nested iterations instead
+   */
+  private boolean doHashJoin(CompiledComparison condition, SelectResults results,
+      ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    List iterList = context.getCurrentIterators();
+    RuntimeIterator first = (RuntimeIterator) iterList.get(0);
+    RuntimeIterator second = (RuntimeIterator) iterList.get(1);
+    List operands = condition.getChildren();
+    CompiledValue firstKey = (CompiledValue) operands.get(0);
+    CompiledValue secondKey = (CompiledValue) operands.get(1);
+    if (!firstKey.isDependentOnIterator(first, context)) {
+      firstKey = secondKey;
+      secondKey = (CompiledValue) operands.get(0);
+    }
+    SelectResults firstValues = first.evaluateCollection(context);
+    SelectResults secondValues = second.evaluateCollection(context);
+    if (firstValues == null || secondValues == null) {
+      // nested iterations over an UNDEFINED collection produce no results
+      return true;
+    }
+
+    boolean buildFirst = firstValues.size() < secondValues.size();
+    RuntimeIterator buildIter = buildFirst ? first : second;
+    RuntimeIterator probeIter = buildFirst ? second : first;
+    CompiledValue buildKey = buildFirst ? firstKey : secondKey;
+    CompiledValue probeKey = buildFirst ? secondKey : firstKey;
+    SelectResults buildValues = buildFirst ? firstValues : secondValues;
+    SelectResults probeValues = buildFirst ? secondValues : firstValues;
+    if (buildValues.size() > HASH_JOIN_MAX_BUILD_SIZE) {
+      return false;
+    }
+
+    Map<Object, List<Object>> table = new HashMap<Object, List<Object>>();
+    List<Object> unhashed = new ArrayList<Object>();
+    Class keyClass = null;
+    for (Iterator itr = buildValues.iterator(); itr.hasNext();) {
+      QueryMonitor.isQueryExecutionCanceled();
+      Object currObj = itr.next();
+      buildIter.setCurrent(currObj);
+      Object key = evaluateHashJoinKey(buildKey, context);
+      if (key == null) {
+        unhashed.add(currObj);
+        continue;
+      }
+      if (keyClass == null) {
+        keyClass = key.getClass();
+      } else if (keyClass != key.getClass()) {
+        // keys of different kinds may not be comparable, so leave the errors to nested iterations
+        return false;
+      }
+      List<Object> objs = table.get(key);
+      if (objs == null) {
+        objs = new ArrayList<Object>(1);
+        table.put(key, objs);
+      }
+      objs.add(currObj);
+    }
+
+    int level = iterList.size();
+    int numElementsInResult = 0;
+    Integer limitValue = evaluateLimitValue(context, this.limit);
+    for (Iterator itr = probeValues.iterator(); itr.hasNext();) {
+      QueryMonitor.isQueryExecutionCanceled();
+      Object currObj = itr.next();
+      probeIter.setCurrent(currObj);
+      Object key = evaluateHashJoinKey(probeKey, context);
+      Collection candidates;
+      if (key == null || (keyClass != null && keyClass != key.getClass())) {
+        candidates = buildValues;
+      } else {
+        List<Object> matches = table.get(key);
+        if (matches == null) {
+          candidates = unhashed;
+        } else if (unhashed.isEmpty()) {
+          candidates = matches;
+        } else {
+          candidates = new ArrayList<Object>(matches);
+          candidates.addAll(unhashed);
+        }
+      }
+      for (Object candidate : candidates) {
+        buildIter.setCurrent(candidate);
+        try {
+          numElementsInResult =
+              doNestedIterations(level, results, context, true, numElementsInResult);
+        } catch (CompiledSelect.NullIteratorException e) {
+          // not thrown once every iterator has a current value
+        }
+        if (this.orderByAttrs == null && limitValue > -1 && numElementsInResult == limitValue) {
+          return true;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the hash key for one side of a join condition, or null if the value cannot be hashed
+   * consistently with how OQL compares it. Numbers of every type are compared by value, and
+   * PdxStrings equal Strings.
+   */
+  private static Object evaluateHashJoinKey(CompiledValue keyExpr, ExecutionContext context) {
+    Object value;
+    try {
+      value = keyExpr.evaluate(context);
+    } catch (QueryException e) {
+      // the pair is checked against the where clause, which raises the error if it matters
+      return null;
+    }
+    if (value instanceof Number) {
+      double d = ((Number) value).doubleValue();
+      return d == 0 ? Double.valueOf(0) : Double.valueOf(d);
+    } else if (value instanceof String || value instanceof PdxString) {
+      return value.toString();
+    } else if (value instanceof Boolean) {
+      return value;
+    }
+    return null;
+  }
+
   // @todo make this more general to work for any kind of map, not just regions
   /**
    * Check for the bulk-get pattern and if it applies do an optimized execution. The pattern is:
@@ -1156,6 +1358,7 @@ public class CompiledSelect extends AbstractCompiledValue {
     ArrayList evaluatedOrderByClause = null;
     OrderByComparator comparator = null;
     boolean applyOrderBy = false;
+    int topN = -1;
     if (this.orderByAttrs != null && !ignoreOrderBy) {
       // In case PR order-by will get applied on the coordinator node
       // on the cumulative results. Apply the order-by on PR only if
@@ -1165,6 +1368,9 @@ public class CompiledSelect extends AbstractCompiledValue {
         applyOrderBy = false;
       }
       applyOrderBy = true;
+      if (limitValue > 0 && !isLinkedStructure && !this.hasUnmappedOrderByCols && !isCount()) {
+        topN = limitValue;
+      }
     }
 
     if (this.orderByAttrs != null && !ignoreOrderBy) {
@@ -1373,9 +1579,25 @@ public class CompiledSelect extends AbstractCompiledValue {
         }
       }
     }
+    if (topN > 0 && resultSet.size() > topN) {
+      removeLastRow(resultSet);
+    }
     return occurence;
   }
 
+  /**
+   * Drops the row that sorts last from an ORDER BY result that has one row more than the LIMIT, so
+   * that the result never holds more than LIMIT + 1 rows however many rows match the query.
+   */
+  private void removeLastRow(SelectResults resultSet) {
+    if (resultSet instanceof TreeSet) {
+      // SortedResultSet and SortedStructSet
+      ((TreeSet) resultSet).pollLast();
+    } else if (resultSet instanceof SortedResultsBag) {
+      ((SortedResultsBag) resultSet).removeLast();
+    }
+  }
+
   private String generateProjectionName(CompiledValue projExpr, ExecutionContext context) {
     String name = null;
     if (projExpr instanceof RuntimeIterator) {
@@ -38,12 +38,14 @@ import org.apache.geode.cache.query.RegionNotFoundException;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.cq.InternalCqQuery;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.cache.BucketRegion;
 import org.apache.geode.internal.cache.CachePerfStats;
 import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.cache.LocalDataSet;
+import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PRQueryProcessor;
 import org.apache.geode.internal.cache.PartitionedRegion;
 import org.apache.geode.internal.cache.TXManagerImpl;
@@ -88,6 +90,15 @@ public class DefaultQuery implements Query {
   public static boolean QUERY_VERBOSE =
       Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.VERBOSE");
 
+  /**
+   * The number of milliseconds a local query waits for the asynchronous index updates already made
+   * to each region it reads to be applied, so that it sees earlier writes. By default queries do
+   * not wait.
+   */
+  public static long INDEX_MAINTENANCE_WAIT =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "Query.INDEX_MAINTENANCE_WAIT", 0)
+          .longValue();
+
   /**
    * System property to cleanup the compiled query. The compiled query will be removed if it is not
    * used for more than the set value. By default its set to 10 minutes, the time is set in
@@ -270,9 +281,16 @@ public class DefaultQuery implements Query {
    * @see QueryService#newQuery
    */
   public DefaultQuery(String queryString, Cache cache, boolean isForRemote) {
+    this(queryString, CompiledQueryCache.compile(queryString), cache, isForRemote);
+  }
+
+  /**
+   * Creates a query from an already compiled query string, possibly shared with other queries.
+   */
+  DefaultQuery(String queryString, CompiledQueryCache.CompiledQuery compiled, Cache cache,
+      boolean isForRemote) {
     this.queryString = queryString;
-    QCompiler compiler = new QCompiler();
-    this.compiledQuery = compiler.compileQuery(queryString);
+    this.compiledQuery = compiled.getCompiledValue();
     CompiledSelect cs = this.getSimpleSelect();
     if (cs != null && !isForRemote && (cs.isGroupBy() || cs.isOrderBy())) {
       QueryExecutionContext ctx = new QueryExecutionContext(null, cache);
@@ -282,7 +300,7 @@ public class DefaultQuery implements Query {
         throw new QueryInvalidException("", qe);
       }
     }
-    this.traceOn = (compiler.isTraceRequested() || QUERY_VERBOSE);
+    this.traceOn = (compiled.isTraceRequested() || QUERY_VERBOSE);
     this.cache = cache;
     this.stats = new DefaultQueryStatistics();
   }
@@ -388,6 +406,9 @@ public class DefaultQuery implements Query {
       }
 
       context.setCqQueryContext(this.isCqQuery);
+      if (INDEX_MAINTENANCE_WAIT > 0) {
+        waitForIndexMaintenance(parameters);
+      }
       result = executeUsingContext(context);
       // Only wrap/copy results when copy on read is set and an index is used
       // This is because when an index is used, the results are actual references to values in the
@@ -576,7 +597,12 @@ public class DefaultQuery implements Query {
         if (testHook != null) {
           testHook.doTestHook(1);
         }
-        results = this.compiledQuery.evaluate(context);
+        CompiledRegion scannedRegion = ParallelRegionScan.getRegionToScan(this, context);
+        if (scannedRegion != null) {
+          results = ParallelRegionScan.evaluate(this, context, scannedRegion);
+        } else {
+          results = this.compiledQuery.evaluate(context);
+        }
       } catch (QueryExecutionCanceledException e) {
         // query execution canceled exception will be thrown from the QueryMonitor
         // canceled exception should not be null at this point as it should be set
@@ -604,6 +630,47 @@ public class DefaultQuery implements Query {
   }
 
 
+  /**
+   * Evaluates this query in a context that scans one stripe of a region, on behalf of
+   * {@link ParallelRegionScan}.
+   */
+  SelectResults evaluateStripe(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    try {
+      this.compiledQuery.computeDependencies(context);
+      return (SelectResults) this.compiledQuery.evaluate(context);
+    } finally {
+      pdxClassToFieldsMap.remove();
+      pdxClassToMethodsMap.remove();
+    }
+  }
+
+  /**
+   * Waits for pending asynchronous index updates on the regions in this query.
+   */
+  private void waitForIndexMaintenance(Object[] parameters) {
+    for (Iterator itr = getRegionsInQuery(parameters).iterator(); itr.hasNext();) {
+      Region region = this.cache.getRegion((String) itr.next());
+      if (!(region instanceof LocalRegion)) {
+        continue;
+      }
+      IndexManager indexManager = ((LocalRegion) region).getIndexManager();
+      if (indexManager == null || indexManager.isIndexMaintenanceTypeSynchronous()) {
+        continue;
+      }
+      try {
+        if (!indexManager.waitForPendingUpdates(INDEX_MAINTENANCE_WAIT)
+            && this.cache.getLogger().fineEnabled()) {
+          this.cache.getLogger()
+              .fine("Timed out waiting for index updates on " + region.getFullPath());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
   private QueryExecutor checkQueryOnPR(Object[] parameters)
       throws RegionNotFoundException, PartitionOfflineException {
 
@@ -924,6 +991,7 @@ public class DefaultQuery implements Query {
     if (observer != null && observer instanceof IndexTrackingQueryObserver) {
       IndexTrackingQueryObserver indexObserver = (IndexTrackingQueryObserver) observer;
       Map usedIndexes = indexObserver.getUsedIndexes();
+      List<String> filtersChosen = indexObserver.getFiltersChosen();
       indexObserver.reset();
       StringBuffer buf = new StringBuffer();
       buf.append(" indexesUsed(");
@@ -939,6 +1007,7 @@ public class DefaultQuery implements Query {
           }
         }
       }
+      appendFiltersChosen(buf, filtersChosen);
       usedIndexesString = buf.toString();
     } else if (DefaultQuery.QUERY_VERBOSE) {
       usedIndexesString = " indexesUsed(NA due to other observer in the way: "
@@ -979,6 +1048,7 @@ public class DefaultQuery implements Query {
           }
         }
       }
+      appendFiltersChosen(buf, indexObserver.getFiltersChosen());
       usedIndexesString = buf.toString();
     } else if (DefaultQuery.QUERY_VERBOSE) {
       usedIndexesString =
@@ -991,6 +1061,23 @@ public class DefaultQuery implements Query {
         + (usedIndexesString != null ? usedIndexesString : "") + " \"" + query + "\"";
   }
 
+  /**
+   * Appends the filters the query's AND junctions chose to evaluate first, if any
+   */
+  private static void appendFiltersChosen(StringBuffer buf, List<String> filtersChosen) {
+    if (!filtersChosen.isEmpty()) {
+      buf.append(" filtersChosen(");
+      buf.append(filtersChosen.size());
+      buf.append("):");
+      for (Iterator<String> itr = filtersChosen.iterator(); itr.hasNext();) {
+        buf.append(itr.next());
+        if (itr.hasNext()) {
+          buf.append(",");
+        }
+      }
+    }
+  }
+
   @Override
   public Object execute(RegionFunctionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
@@ -30,6 +30,7 @@ import org.apache.geode.cache.query.internal.index.*;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.cache.ForceReattemptException;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PartitionedRegion;
@@ -103,11 +104,32 @@ public class DefaultQueryService implements QueryService {
           LocalizedStrings.DefaultQueryService_THE_QUERY_STRING_MUST_NOT_BE_EMPTY
               .toLocalizedString());
     ServerProxy serverProxy = pool == null ? null : new ServerProxy(pool);
-    DefaultQuery query = new DefaultQuery(queryString, this.cache, serverProxy != null);
-    query.setServerProxy(serverProxy);
+    CompiledQueryCache compiledQueries = serverProxy == null ? getCompiledQueryCache() : null;
+    if (compiledQueries == null) {
+      DefaultQuery query = new DefaultQuery(queryString, this.cache, serverProxy != null);
+      query.setServerProxy(serverProxy);
+      return query;
+    }
+    CompiledQueryCache.CompiledQuery compiled = compiledQueries.get(queryString);
+    if (compiled != null) {
+      return new DefaultQuery(queryString, compiled, this.cache, false);
+    }
+    compiled = CompiledQueryCache.compile(queryString);
+    DefaultQuery query = new DefaultQuery(queryString, compiled, this.cache, false);
+    compiledQueries.put(queryString, compiled);
     return query;
   }
 
+  /**
+   * @return the cache of compiled queries, or null if compiled queries are not cached
+   */
+  private CompiledQueryCache getCompiledQueryCache() {
+    if (this.cache instanceof GemFireCacheImpl) {
+      return ((GemFireCacheImpl) this.cache).getCompiledQueryCache();
+    }
+    return null;
+  }
+
   public Query newQuery(String queryString, ProxyCache proxyCache) {
     Query query = newQuery(queryString);
     ((DefaultQuery) query).setProxyCache(proxyCache);
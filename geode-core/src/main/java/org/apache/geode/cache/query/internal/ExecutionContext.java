@@ -82,6 +82,13 @@ public class ExecutionContext {
   private boolean distinct = false;
   private Object currentProjectionField = null;
   private boolean isPRQueryNode = false;
+  private boolean isCombiningBucketResults = false;
+
+  // used when a region is scanned in parallel: the region expression whose values are restricted
+  // to one stripe of its keys
+  private CompiledRegion stripedRegion = null;
+  private int stripe;
+  private int stripeCount;
 
   /**
    * Param specialIteratorVar name of special variable to use to denote the current iteration
@@ -637,6 +644,27 @@ public class ExecutionContext {
     return this.pr;
   }
 
+  /**
+   * Restricts the values of the given region expression to the keys in one of stripeCount stripes.
+   */
+  void setStripe(CompiledRegion stripedRegion, int stripe, int stripeCount) {
+    this.stripedRegion = stripedRegion;
+    this.stripe = stripe;
+    this.stripeCount = stripeCount;
+  }
+
+  CompiledRegion getStripedRegion() {
+    return this.stripedRegion;
+  }
+
+  int getStripe() {
+    return this.stripe;
+  }
+
+  int getStripeCount() {
+    return this.stripeCount;
+  }
+
   // General purpose caching methods for data that is only valid for one
   // query execution
   void cachePut(Object key, Object value) {
@@ -723,4 +751,16 @@ public class ExecutionContext {
     return this.isPRQueryNode;
   }
 
+  /**
+   * Set on a data node while the aggregates of the buckets it queried are combined before being
+   * sent to the query node.
+   */
+  public void setIsCombiningBucketResults(boolean isCombiningBucketResults) {
+    this.isCombiningBucketResults = isCombiningBucketResults;
+  }
+
+  public boolean getIsCombiningBucketResults() {
+    return this.isCombiningBucketResults;
+  }
+
 }
@@ -19,10 +19,15 @@ package org.apache.geode.cache.query.internal;
 
 import java.util.ArrayList;
 import java.util.List;
+
+import org.apache.logging.log4j.Logger;
+
 import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.Index;
 import org.apache.geode.cache.query.NameResolutionException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.internal.logging.LogService;
 
 /**
  * This structure contains the filter evaluable and iter evaluable conditions which are dependent on
@@ -34,6 +39,8 @@ import org.apache.geode.cache.query.TypeMismatchException;
  * 
  */
 public class GroupJunction extends AbstractGroupOrRangeJunction {
+  private static final Logger logger = LogService.getLogger();
+
   private List unevaluatedFilterOperands = null;
 
   GroupJunction(int operator, RuntimeIterator[] indpndntItr, boolean isCompleteExpansion,
@@ -102,6 +109,7 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
          */
 
         Filter currentBestFilter = null;
+        PlanInfo currentBestPlan = null;
         int currentBestFilterSize = -1;
         indexCount = 1;
 
@@ -134,12 +142,14 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
               }
               // new best
               currentBestFilter = (Filter) _operands[i];
+              currentBestPlan = pi;
               currentBestFilterSize = ((Filter) _operands[i]).getSizeEstimate(context);
               foundPreferredCondition = true;
               continue;
             }
             if (currentBestFilter == null) {
               currentBestFilter = (Filter) _operands[i];
+              currentBestPlan = pi;
               currentBestFilterSize = ((Filter) _operands[i]).getSizeEstimate(context);
             } else if (foundPreferredCondition || currentBestFilter
                 .isBetterFilter((Filter) _operands[i], context, currentBestFilterSize)) {
@@ -147,6 +157,7 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
             } else {
               evalOperands.add(currentBestFilter);
               currentBestFilter = (Filter) _operands[i];
+              currentBestPlan = pi;
               // TODO:Asif: Avoid this call. Let the function which is doing the
               // comparison return some how the size of comparedTo operand.
               currentBestFilterSize = ((Filter) _operands[i]).getSizeEstimate(context);
@@ -162,6 +173,23 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
           }
         }
         evalOperands.add(0, currentBestFilter);
+        if (logger.isDebugEnabled()) {
+          logger.debug("Chose filter {} with estimated size {} (preferred={}) out of {} operands",
+              currentBestFilter, currentBestFilterSize, foundPreferredCondition, _operands.length);
+        }
+        QueryObserver observer = QueryObserverHolder.getInstance();
+        if (currentBestPlan != null && observer instanceof IndexTrackingQueryObserver) {
+          // shown with the indexes used when the query is traced
+          StringBuilder indexNames = new StringBuilder();
+          for (Object index : currentBestPlan.indexes) {
+            if (indexNames.length() > 0) {
+              indexNames.append("+");
+            }
+            indexNames.append(((Index) index).getName());
+          }
+          ((IndexTrackingQueryObserver) observer).filterChosen(indexNames.toString(),
+              currentBestFilterSize, _operands.length);
+        }
       }
     } else {
       indexCount = _operands.length;
@@ -22,7 +22,9 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -42,6 +44,7 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
   private static final ThreadLocal indexInfo = new ThreadLocal();
   private static final ThreadLocal lastKeyUsed = new ThreadLocal();
   private static final ThreadLocal lastIndexUsed = new ThreadLocal();
+  private static final ThreadLocal filtersChosen = new ThreadLocal();
   private volatile TestHook th;
 
   public void beforeIndexLookup(Index index, int oper, Object key) {
@@ -137,6 +140,37 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       th.hook(4);
     }
     this.indexInfo.set(null);
+    this.filtersChosen.set(null);
+  }
+
+  /**
+   * Records the filter an AND junction chose to evaluate first out of the operands that could use
+   * an index, along with the estimated size of its results.
+   *
+   * @param indexNames the names of the indexes the chosen filter uses
+   * @param sizeEstimate the estimated number of results of the chosen filter, taken from the
+   *        index's key histogram if it has one
+   * @param numOperands the number of operands the filter was chosen from
+   */
+  public void filterChosen(String indexNames, int sizeEstimate, int numOperands) {
+    List<String> filters = (List<String>) this.filtersChosen.get();
+    if (filters == null) {
+      filters = new ArrayList<String>();
+      this.filtersChosen.set(filters);
+    }
+    filters.add(
+        indexNames + "(Estimate: " + sizeEstimate + ", Operands: " + numOperands + ")");
+  }
+
+  /**
+   * Returns a description of each filter chosen by {@link #filterChosen} since the last reset
+   */
+  public List<String> getFiltersChosen() {
+    List<String> filters = (List<String>) this.filtersChosen.get();
+    if (filters == null) {
+      return Collections.emptyList();
+    }
+    return filters;
   }
 
   public void setIndexInfo(Map indexInfoMap) {
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.InternalGemFireError;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.index.IndexUtils;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.AbstractRegionMap;
+import org.apache.geode.internal.cache.BucketRegion;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.RegionMap;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Evaluates a query that iterates over a single large replicated or local region on several
+ * threads. The region's entries are split into stripes by the segments of its entry map, every
+ * stripe is evaluated in its own {@link QueryExecutionContext} and the per-stripe results are
+ * merged, in order if the query has an ORDER BY clause. The stripes are scanned by the cache's
+ * query scan pool.
+ * <p>
+ * Only queries whose result is the union of the results for each stripe are split: SELECT queries
+ * with a WHERE clause over one region iterator that has no indexes, and no GROUP BY, aggregates or
+ * COUNT. Partitioned region queries already run on one thread per bucket and are never split here.
+ * <p>
+ * Parallel scans are enabled by setting <code>gemfire.Query.PARALLEL_SCAN_THREADS</code> to the
+ * number of threads to use. Regions with fewer entries than
+ * <code>gemfire.Query.PARALLEL_SCAN_MIN_ENTRIES</code> are always scanned by the thread executing
+ * the query.
+ *
+ * @since Geode 1.2
+ */
+public class ParallelRegionScan {
+
+  private static final Logger logger = LogService.getLogger();
+
+  public static final int NUM_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.PARALLEL_SCAN_THREADS", 0)
+          .intValue();
+
+  public static final int MIN_ENTRIES = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.PARALLEL_SCAN_MIN_ENTRIES", 10000)
+      .intValue();
+
+  private ParallelRegionScan() {}
+
+  /**
+   * Returns the region iterated over by the query if it should be scanned in parallel, otherwise
+   * null.
+   */
+  static CompiledRegion getRegionToScan(DefaultQuery query, ExecutionContext context) {
+    if (NUM_THREADS <= 1 || query.isCqQuery() || context.isCqQueryContext()
+        || context.getPartitionedRegion() != null || context.getBucketList() != null) {
+      return null;
+    }
+    CompiledValue compiled = query.getSimpleSelect();
+    if (!(compiled instanceof CompiledSelect) || compiled instanceof CompiledGroupBySelect) {
+      return null;
+    }
+    CompiledSelect select = (CompiledSelect) compiled;
+    if (select.getWhereClause() == null || select.isGroupBy() || select.isCount()
+        || select.hasUnmappedOrderByCols()) {
+      return null;
+    }
+    List iterators = select.getIterators();
+    if (iterators.size() != 1) {
+      return null;
+    }
+    CompiledValue collection = ((CompiledIteratorDef) iterators.get(0)).getCollectionExpr();
+    if (!(collection instanceof CompiledRegion)) {
+      return null;
+    }
+    Region region = context.getCache().getRegion(((CompiledRegion) collection).getRegionPath());
+    if (!(region instanceof LocalRegion) || region instanceof PartitionedRegion
+        || region instanceof BucketRegion || region.size() < MIN_ENTRIES) {
+      return null;
+    }
+    if (hasIndexes(region)) {
+      return null;
+    }
+    return (CompiledRegion) collection;
+  }
+
+  private static boolean hasIndexes(Region region) {
+    if (region == null) {
+      return false;
+    }
+    IndexManager indexManager = IndexUtils.getIndexManager(region, false);
+    return indexManager != null && !indexManager.getIndexes().isEmpty();
+  }
+
+  /**
+   * Evaluates the query with the region split into one stripe per thread, but no more stripes than
+   * the region's entry map has segments. The calling thread evaluates the first stripe.
+   */
+  static SelectResults evaluate(DefaultQuery query, ExecutionContext context, CompiledRegion region)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    int stripeCount = NUM_THREADS;
+    Region scanned = context.getCache().getRegion(region.getRegionPath());
+    if (scanned instanceof LocalRegion) {
+      RegionMap map = ((LocalRegion) scanned).getRegionMap();
+      if (map instanceof AbstractRegionMap) {
+        stripeCount = Math.min(stripeCount, ((AbstractRegionMap) map).getStripeLimit());
+      }
+    }
+    if (stripeCount <= 1) {
+      return (SelectResults) query.getSimpleSelect().evaluate(context);
+    }
+    return evaluate(query, context, region, stripeCount);
+  }
+
+  static SelectResults evaluate(DefaultQuery query, ExecutionContext context, CompiledRegion region,
+      int stripeCount) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    boolean pdxReadSerialized = DefaultQuery.getPdxReadSerialized();
+    ExecutorService executor =
+        ((GemFireCacheImpl) context.getCache()).getQueryScanPool(NUM_THREADS - 1);
+    List<Future<SelectResults>> futures = new ArrayList<Future<SelectResults>>(stripeCount - 1);
+    for (int i = 1; i < stripeCount; i++) {
+      futures.add(executor
+          .submit(new StripeTask(query, context, region, i, stripeCount, pdxReadSerialized)));
+    }
+    List<SelectResults> results = new ArrayList<SelectResults>(stripeCount);
+    try {
+      results.add(query.evaluateStripe(newStripeContext(query, context, region, 0, stripeCount)));
+      for (Future<SelectResults> future : futures) {
+        results.add(getStripeResult(future));
+      }
+    } finally {
+      for (Future<SelectResults> future : futures) {
+        future.cancel(true);
+      }
+    }
+    if (hasIndexes(context.getCache().getRegion(region.getRegionPath()))
+        || !results.get(0).isModifiable()) {
+      // an index created while the stripes were scanned may have been used for every stripe, or
+      // the results cannot be combined
+      if (logger.isDebugEnabled()) {
+        logger.debug("Evaluating {} again on a single thread", query.getQueryString());
+      }
+      return (SelectResults) query.getSimpleSelect().evaluate(context);
+    }
+    return merge((CompiledSelect) query.getSimpleSelect(), context, results);
+  }
+
+  private static SelectResults merge(CompiledSelect select, ExecutionContext context,
+      List<SelectResults> results) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    int limit = select.getLimitValue(context.bindArguments);
+    if (select.isOrderBy()) {
+      return new NWayMergeResults(results, select.isDistinct(), limit, select.getOrderByAttrs(),
+          context, select.getElementTypeForOrderByQueries());
+    }
+    SelectResults merged = results.get(0);
+    for (int i = 1; i < results.size(); i++) {
+      for (Iterator it = results.get(i).iterator(); it.hasNext();) {
+        if (limit >= 0 && merged.size() >= limit) {
+          return merged;
+        }
+        merged.add(it.next());
+      }
+    }
+    return merged;
+  }
+
+  private static SelectResults getStripeResult(Future<SelectResults> future)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryExecutionCanceledException("Query scan was interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof FunctionDomainException) {
+        throw (FunctionDomainException) cause;
+      } else if (cause instanceof TypeMismatchException) {
+        throw (TypeMismatchException) cause;
+      } else if (cause instanceof NameResolutionException) {
+        throw (NameResolutionException) cause;
+      } else if (cause instanceof QueryInvocationTargetException) {
+        throw (QueryInvocationTargetException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new InternalGemFireError("Unexpected exception scanning region", cause);
+    }
+  }
+
+  private static ExecutionContext newStripeContext(DefaultQuery query, ExecutionContext context,
+      CompiledRegion region, int stripe, int stripeCount) {
+    QueryExecutionContext stripeContext =
+        new QueryExecutionContext(context.bindArguments, context.getCache(), query);
+    stripeContext.setStripe(region, stripe, stripeCount);
+    return stripeContext;
+  }
+
+  /**
+   * Evaluates the query over one stripe of the region on a scan thread.
+   */
+  private static class StripeTask implements Callable<SelectResults> {
+
+    private final DefaultQuery query;
+    private final ExecutionContext context;
+    private final CompiledRegion region;
+    private final int stripe;
+    private final int stripeCount;
+    private final boolean pdxReadSerialized;
+
+    StripeTask(DefaultQuery query, ExecutionContext context, CompiledRegion region, int stripe,
+        int stripeCount, boolean pdxReadSerialized) {
+      this.query = query;
+      this.context = context;
+      this.region = region;
+      this.stripe = stripe;
+      this.stripeCount = stripeCount;
+      this.pdxReadSerialized = pdxReadSerialized;
+    }
+
+    @Override
+    public SelectResults call() throws Exception {
+      QueryMonitor queryMonitor = null;
+      if (GemFireCacheImpl.getInstance() != null) {
+        queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
+      }
+      DefaultQuery.setPdxReadSerialized(this.pdxReadSerialized);
+      try {
+        if (queryMonitor != null) {
+          queryMonitor.monitorQueryThread(Thread.currentThread(), this.query);
+        }
+        return this.query.evaluateStripe(
+            newStripeContext(this.query, this.context, this.region, this.stripe, this.stripeCount));
+      } finally {
+        if (queryMonitor != null) {
+          queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), this.query);
+        }
+        DefaultQuery.setPdxReadSerialized(false);
+      }
+    }
+  }
+}
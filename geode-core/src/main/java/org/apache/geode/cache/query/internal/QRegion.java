@@ -105,6 +105,15 @@ public class QRegion implements SelectResults {
     ((ResultsCollectionWrapper) (this.values)).setKeepSerialized(keepSerialized);
   }
 
+  /**
+   * Restricts the values to those whose keys fall in the given stripe.
+   * 
+   * @see org.apache.geode.internal.cache.EntriesSet#setStripe(int, int)
+   */
+  void setStripe(int stripe, int stripeCount) {
+    ((ResultsCollectionWrapper) (this.values)).setStripe(stripe, stripeCount);
+  }
+
   protected ObjectType getKeyType() {
     Class constraint = this.region.getAttributes().getKeyConstraint();
     if (constraint == null) {
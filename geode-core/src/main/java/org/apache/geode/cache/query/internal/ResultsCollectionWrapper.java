@@ -619,6 +619,15 @@ public final class ResultsCollectionWrapper implements SelectResults, DataSerial
     }
   }
 
+  public void setStripe(int stripe, int stripeCount) {
+    if (base instanceof EntriesSet) {
+      ((EntriesSet) base).setStripe(stripe, stripeCount);
+    } else {
+      throw new IllegalStateException("Can not restrict " + base.getClass().getName()
+          + " to a stripe of its keys");
+    }
+  }
+
   @Override
   public Version[] getSerializationVersions() {
     return null;
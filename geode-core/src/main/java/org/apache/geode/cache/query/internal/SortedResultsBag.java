@@ -150,6 +150,33 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
     return false;
   }
 
+  /**
+   * Removes one occurrence of the last element in sort order. Nulls are kept apart from the other
+   * elements and are last only if they are emitted at the end.
+   *
+   * @throws UnsupportedOperationException if this bag holds data added in order
+   */
+  void removeLast() {
+    if (this.orderedDataAddition) {
+      throw new UnsupportedOperationException("Elements are not sorted by this bag");
+    }
+    if (this.numNulls > 0 && (!this.emitNullAtStart || this.sortedMap.isEmpty())) {
+      this.numNulls--;
+      this.size--;
+      return;
+    }
+    Map.Entry<E, Integer> last = ((TreeMap<E, Integer>) this.sortedMap).lastEntry();
+    if (last == null) {
+      return;
+    }
+    if (last.getValue() == 1) {
+      this.sortedMap.remove(last.getKey());
+    } else {
+      this.sortedMap.put(last.getKey(), last.getValue() - 1);
+    }
+    this.size--;
+  }
+
   @Override
   protected int mapGet(Object element) {
     Integer count = this.sortedMap.get(element);
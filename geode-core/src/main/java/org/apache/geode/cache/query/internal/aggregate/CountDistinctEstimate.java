@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.aggregate;
+
+import java.io.IOException;
+
+import org.apache.geode.InternalGemFireException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.internal.hll.CardinalityMergeException;
+import org.apache.geode.internal.hll.HyperLogLog;
+import org.apache.geode.internal.hll.MurmurHash;
+
+/**
+ * Estimates the number of distinct values with a HyperLogLog counter instead of keeping every
+ * distinct value. Used for COUNT(DISTINCT) when approximate counts are enabled.
+ *
+ * @since Geode 1.2
+ */
+public class CountDistinctEstimate extends AbstractAggregator {
+
+  /** 2^12 registers, for a standard error of about 1.6% */
+  static final int LOG2M = 12;
+
+  protected final HyperLogLog hll = new HyperLogLog(LOG2M);
+
+  @Override
+  public void accumulate(Object value) {
+    if (value != null && value != QueryService.UNDEFINED) {
+      this.hll.offerHashed(hash(value));
+    }
+  }
+
+  /**
+   * Hashes a value so that values that are equal, and so are counted once by COUNT(DISTINCT), have
+   * the same hash. Strings, numbers and byte arrays are hashed from their contents; other values
+   * from their hashCode, mixed so that similar hash codes land in different registers. Enums are
+   * hashed by name because their hashCode differs from one member to another.
+   */
+  static int hash(Object value) {
+    if (value instanceof String || value instanceof Integer || value instanceof Long
+        || value instanceof Double || value instanceof Float || value instanceof byte[]) {
+      return MurmurHash.hash(value);
+    } else if (value instanceof Enum) {
+      return MurmurHash.hash(((Enum) value).name());
+    }
+    return MurmurHash.hashLong(value.hashCode());
+  }
+
+  @Override
+  public void init() {
+
+  }
+
+  @Override
+  public Object terminate() {
+    return Integer.valueOf((int) this.hll.cardinality());
+  }
+
+  /**
+   * Adds the values counted by a serialized counter received from another node.
+   */
+  protected void merge(byte[] serialized) {
+    try {
+      this.hll.addAll(HyperLogLog.Builder.build(serialized));
+    } catch (IOException e) {
+      throw new InternalGemFireException(e);
+    } catch (CardinalityMergeException e) {
+      throw new InternalGemFireException(e);
+    }
+  }
+
+  /**
+   * Serializes the counter so that it can be merged on the query node.
+   */
+  protected byte[] serialize() {
+    try {
+      return this.hll.getBytes();
+    } catch (IOException e) {
+      throw new InternalGemFireException(e);
+    }
+  }
+}
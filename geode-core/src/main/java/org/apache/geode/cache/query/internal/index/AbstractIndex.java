@@ -855,6 +855,10 @@ public abstract class AbstractIndex implements IndexProtocol {
       return 0;
     }
 
+    public long getMemorySize() {
+      return 0L;
+    }
+
     public void close() {}
 
     public void incNumValues(int delta) {}
@@ -873,6 +877,8 @@ public abstract class AbstractIndex implements IndexProtocol {
 
     public void incNumMapIndexKeys(long numKeys) {}
 
+    public void incMemorySize(long delta) {}
+
     public void incUpdateTime(long delta) {}
 
     public void incNumUses() {}
@@ -0,0 +1,1000 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A sorted concurrent map of index keys to the region entries indexed under them that keeps its
+ * keys in sorted arrays, up to {@link #MAX_PAGE_SIZE} keys to a page, instead of in a node per key
+ * as {@link ConcurrentSkipListMap} does. A page whose keys are all Integers or all Longs, as the
+ * keys of most numeric indexes are, holds them unboxed in a long[]. {@link MemoryIndexStore} uses
+ * this map instead of a skip list when {@link IndexManager#USE_COMPACT_INDEX_KEYS} is set.
+ * <p>
+ * A page is changed by replacing its arrays with changed copies while holding the page's lock, so
+ * readers never lock. A page that grows past {@link #MAX_PAGE_SIZE} keys is split in two and a page
+ * other than the first that becomes empty is dropped. Pages are not merged, so a map that loses
+ * most of its keys keeps sparse pages until it is cleared. As with a skip list, iterators and views
+ * are weakly consistent and null keys and values are not allowed.
+ */
+class CompactIndexKeyMap extends AbstractMap implements ConcurrentNavigableMap {
+
+  /** The most keys a page holds before it is split */
+  static final int MAX_PAGE_SIZE = 64;
+
+  /**
+   * Estimated bytes used by each key besides the key itself: its slots in the arrays of its page
+   * and its share of the page.
+   */
+  static final int KEY_OVERHEAD = 20;
+
+  /** The fence of the first page, lower than any key */
+  private static final Object LOWEST = new Object();
+
+  private static final Content EMPTY = new Content(null, new long[0], false, new Object[0]);
+
+  private final Pages pages;
+
+  /** The lowest key of this view in ascending order, or null if it has no lower bound */
+  private final Object lo;
+  private final boolean loInclusive;
+  /** The highest key of this view in ascending order, or null if it has no upper bound */
+  private final Object hi;
+  private final boolean hiInclusive;
+  private final boolean descending;
+
+  CompactIndexKeyMap(Comparator comparator) {
+    this(new Pages(comparator), null, false, null, false, false);
+  }
+
+  private CompactIndexKeyMap(Pages pages, Object lo, boolean loInclusive, Object hi,
+      boolean hiInclusive, boolean descending) {
+    this.pages = pages;
+    this.lo = lo;
+    this.loInclusive = loInclusive;
+    this.hi = hi;
+    this.hiInclusive = hiInclusive;
+    this.descending = descending;
+  }
+
+  /**
+   * Returns true if the key is held unboxed in the pages whose keys are all of its class
+   */
+  static boolean isUnboxed(Object key) {
+    return key instanceof Integer || key instanceof Long;
+  }
+
+  @Override
+  public Object get(Object key) {
+    return inRange(key) ? this.pages.get(key) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    checkPut(key, value);
+    return this.pages.put(key, value, false);
+  }
+
+  public Object putIfAbsent(Object key, Object value) {
+    checkPut(key, value);
+    return this.pages.put(key, value, true);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    return inRange(key) ? this.pages.remove(key, null) : null;
+  }
+
+  public boolean remove(Object key, Object value) {
+    return value != null && inRange(key) && this.pages.remove(key, value) != null;
+  }
+
+  public boolean replace(Object key, Object oldValue, Object newValue) {
+    if (oldValue == null || newValue == null) {
+      throw new NullPointerException();
+    }
+    return inRange(key) && this.pages.replace(key, oldValue, newValue);
+  }
+
+  public Object replace(Object key, Object value) {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    return inRange(key) ? this.pages.replace(key, value) : null;
+  }
+
+  @Override
+  public int size() {
+    long count = 0;
+    for (Iterator it = new EntryIterator(); it.hasNext();) {
+      it.next();
+      count++;
+    }
+    return count >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return !new EntryIterator().hasNext();
+  }
+
+  @Override
+  public void clear() {
+    if (this.lo == null && this.hi == null) {
+      this.pages.clear();
+    } else {
+      for (Iterator it = new EntryIterator(); it.hasNext();) {
+        it.next();
+        it.remove();
+      }
+    }
+  }
+
+  @Override
+  public Set entrySet() {
+    return new AbstractSet() {
+      @Override
+      public Iterator iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return CompactIndexKeyMap.this.size();
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return CompactIndexKeyMap.this.isEmpty();
+      }
+
+      @Override
+      public void clear() {
+        CompactIndexKeyMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public NavigableSet keySet() {
+    return new KeySet(this);
+  }
+
+  public NavigableSet navigableKeySet() {
+    return new KeySet(this);
+  }
+
+  public NavigableSet descendingKeySet() {
+    return new KeySet(descendingMap());
+  }
+
+  public Comparator comparator() {
+    return this.descending ? Collections.reverseOrder(this.pages.comparator)
+        : this.pages.comparator;
+  }
+
+  public Map.Entry firstEntry() {
+    Iterator it = new EntryIterator();
+    return it.hasNext() ? (Map.Entry) it.next() : null;
+  }
+
+  public Map.Entry lastEntry() {
+    return descendingMap().firstEntry();
+  }
+
+  public Object firstKey() {
+    Map.Entry entry = firstEntry();
+    if (entry == null) {
+      throw new NoSuchElementException();
+    }
+    return entry.getKey();
+  }
+
+  public Object lastKey() {
+    Map.Entry entry = lastEntry();
+    if (entry == null) {
+      throw new NoSuchElementException();
+    }
+    return entry.getKey();
+  }
+
+  public Map.Entry pollFirstEntry() {
+    for (;;) {
+      Map.Entry entry = firstEntry();
+      if (entry == null || remove(entry.getKey(), entry.getValue())) {
+        return entry;
+      }
+    }
+  }
+
+  public Map.Entry pollLastEntry() {
+    return descendingMap().pollFirstEntry();
+  }
+
+  public Map.Entry lowerEntry(Object key) {
+    return headMap(key, false).lastEntry();
+  }
+
+  public Object lowerKey(Object key) {
+    return keyOf(lowerEntry(key));
+  }
+
+  public Map.Entry floorEntry(Object key) {
+    return headMap(key, true).lastEntry();
+  }
+
+  public Object floorKey(Object key) {
+    return keyOf(floorEntry(key));
+  }
+
+  public Map.Entry ceilingEntry(Object key) {
+    return tailMap(key, true).firstEntry();
+  }
+
+  public Object ceilingKey(Object key) {
+    return keyOf(ceilingEntry(key));
+  }
+
+  public Map.Entry higherEntry(Object key) {
+    return tailMap(key, false).firstEntry();
+  }
+
+  public Object higherKey(Object key) {
+    return keyOf(higherEntry(key));
+  }
+
+  public ConcurrentNavigableMap descendingMap() {
+    return new CompactIndexKeyMap(this.pages, this.lo, this.loInclusive, this.hi,
+        this.hiInclusive, !this.descending);
+  }
+
+  public ConcurrentNavigableMap subMap(Object fromKey, boolean fromInclusive, Object toKey,
+      boolean toInclusive) {
+    if (fromKey == null || toKey == null) {
+      throw new NullPointerException();
+    }
+    if (this.descending) {
+      return view(toKey, toInclusive, fromKey, fromInclusive);
+    }
+    return view(fromKey, fromInclusive, toKey, toInclusive);
+  }
+
+  public ConcurrentNavigableMap headMap(Object toKey, boolean inclusive) {
+    if (toKey == null) {
+      throw new NullPointerException();
+    }
+    if (this.descending) {
+      return view(toKey, inclusive, null, false);
+    }
+    return view(null, false, toKey, inclusive);
+  }
+
+  public ConcurrentNavigableMap tailMap(Object fromKey, boolean inclusive) {
+    if (fromKey == null) {
+      throw new NullPointerException();
+    }
+    if (this.descending) {
+      return view(null, false, fromKey, inclusive);
+    }
+    return view(fromKey, inclusive, null, false);
+  }
+
+  public ConcurrentNavigableMap subMap(Object fromKey, Object toKey) {
+    return subMap(fromKey, true, toKey, false);
+  }
+
+  public ConcurrentNavigableMap headMap(Object toKey) {
+    return headMap(toKey, false);
+  }
+
+  public ConcurrentNavigableMap tailMap(Object fromKey) {
+    return tailMap(fromKey, true);
+  }
+
+  /**
+   * Returns a view of the keys of this map between the given bounds, in ascending order. A null
+   * bound is the bound of this map.
+   */
+  private CompactIndexKeyMap view(Object newLo, boolean newLoInclusive, Object newHi,
+      boolean newHiInclusive) {
+    if (newLo == null) {
+      newLo = this.lo;
+      newLoInclusive = this.loInclusive;
+    } else if (this.lo != null) {
+      int c = compare(newLo, this.lo);
+      if (c < 0 || c == 0 && newLoInclusive && !this.loInclusive) {
+        throw new IllegalArgumentException("key out of range");
+      }
+    }
+    if (newHi == null) {
+      newHi = this.hi;
+      newHiInclusive = this.hiInclusive;
+    } else if (this.hi != null) {
+      int c = compare(newHi, this.hi);
+      if (c > 0 || c == 0 && newHiInclusive && !this.hiInclusive) {
+        throw new IllegalArgumentException("key out of range");
+      }
+    }
+    if (newLo != null && newHi != null && compare(newLo, newHi) > 0) {
+      throw new IllegalArgumentException("inconsistent range");
+    }
+    return new CompactIndexKeyMap(this.pages, newLo, newLoInclusive, newHi, newHiInclusive,
+        this.descending);
+  }
+
+  private int compare(Object key1, Object key2) {
+    return this.pages.comparator.compare(key1, key2);
+  }
+
+  private boolean tooLow(Object key) {
+    if (this.lo == null) {
+      return false;
+    }
+    int c = compare(key, this.lo);
+    return c < 0 || c == 0 && !this.loInclusive;
+  }
+
+  private boolean tooHigh(Object key) {
+    if (this.hi == null) {
+      return false;
+    }
+    int c = compare(key, this.hi);
+    return c > 0 || c == 0 && !this.hiInclusive;
+  }
+
+  private boolean inRange(Object key) {
+    if (key == null) {
+      throw new NullPointerException();
+    }
+    return !tooLow(key) && !tooHigh(key);
+  }
+
+  private void checkPut(Object key, Object value) {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    if (!inRange(key)) {
+      throw new IllegalArgumentException("key out of range");
+    }
+  }
+
+  private static Object keyOf(Map.Entry entry) {
+    return entry == null ? null : entry.getKey();
+  }
+
+  /**
+   * The keys of a page, in order, and their values. Never changed once a page refers to it.
+   */
+  private static class Content {
+    /** The keys, or null if they are held unboxed */
+    final Object[] keys;
+    /** The unboxed keys, or null if they are held boxed */
+    final long[] longKeys;
+    /** Whether the unboxed keys are Integers rather than Longs */
+    final boolean intKeys;
+    final Object[] values;
+
+    Content(Object[] keys, long[] longKeys, boolean intKeys, Object[] values) {
+      this.keys = keys;
+      this.longKeys = longKeys;
+      this.intKeys = intKeys;
+      this.values = values;
+    }
+
+    /**
+     * Returns content for the given keys, holding them unboxed if they are all Integers or all
+     * Longs
+     */
+    static Content of(Object[] keys, Object[] values) {
+      if (keys.length == 0) {
+        return EMPTY;
+      }
+      Class type = keys[0].getClass();
+      if (type != Integer.class && type != Long.class) {
+        return new Content(keys, null, false, values);
+      }
+      long[] longKeys = new long[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i].getClass() != type) {
+          return new Content(keys, null, false, values);
+        }
+        longKeys[i] = ((Number) keys[i]).longValue();
+      }
+      return new Content(null, longKeys, type == Integer.class, values);
+    }
+
+    int size() {
+      return this.values.length;
+    }
+
+    Object key(int index) {
+      if (this.keys != null) {
+        return this.keys[index];
+      }
+      long key = this.longKeys[index];
+      return this.intKeys ? (Object) Integer.valueOf((int) key) : (Object) Long.valueOf(key);
+    }
+
+    /**
+     * Returns the index of the key, or (-(insertion point) - 1) if there is no such key, like
+     * {@link Arrays#binarySearch(long[], long)}.
+     */
+    int search(Object key, Comparator comparator) {
+      boolean unboxed = this.keys == null && isUnboxed(key);
+      long longKey = unboxed ? ((Number) key).longValue() : 0;
+      int low = 0;
+      int high = size() - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int c;
+        if (unboxed) {
+          long midKey = this.longKeys[mid];
+          c = longKey < midKey ? -1 : (longKey == midKey ? 0 : 1);
+        } else {
+          c = comparator.compare(key, key(mid));
+        }
+        if (c > 0) {
+          low = mid + 1;
+        } else if (c < 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -(low + 1);
+    }
+
+    /** Returns a copy of this content with the key and its value inserted at the index */
+    Content with(int index, Object key, Object value) {
+      int size = size();
+      Object[] newValues = new Object[size + 1];
+      System.arraycopy(this.values, 0, newValues, 0, index);
+      newValues[index] = value;
+      System.arraycopy(this.values, index, newValues, index + 1, size - index);
+      if (this.keys == null && size > 0
+          && key.getClass() == (this.intKeys ? Integer.class : Long.class)) {
+        long[] newKeys = new long[size + 1];
+        System.arraycopy(this.longKeys, 0, newKeys, 0, index);
+        newKeys[index] = ((Number) key).longValue();
+        System.arraycopy(this.longKeys, index, newKeys, index + 1, size - index);
+        return new Content(null, newKeys, this.intKeys, newValues);
+      }
+      Object[] newKeys = new Object[size + 1];
+      for (int i = 0; i < index; i++) {
+        newKeys[i] = key(i);
+      }
+      newKeys[index] = key;
+      for (int i = index; i < size; i++) {
+        newKeys[i + 1] = key(i);
+      }
+      return of(newKeys, newValues);
+    }
+
+    /** Returns a copy of this content with the value at the index replaced */
+    Content withValue(int index, Object value) {
+      Object[] newValues = this.values.clone();
+      newValues[index] = value;
+      return new Content(this.keys, this.longKeys, this.intKeys, newValues);
+    }
+
+    /** Returns a copy of this content without the key at the index */
+    Content without(int index) {
+      int size = size();
+      if (size == 1) {
+        return EMPTY;
+      }
+      Object[] newValues = new Object[size - 1];
+      System.arraycopy(this.values, 0, newValues, 0, index);
+      System.arraycopy(this.values, index + 1, newValues, index, size - index - 1);
+      if (this.keys == null) {
+        long[] newKeys = new long[size - 1];
+        System.arraycopy(this.longKeys, 0, newKeys, 0, index);
+        System.arraycopy(this.longKeys, index + 1, newKeys, index, size - index - 1);
+        return new Content(null, newKeys, this.intKeys, newValues);
+      }
+      Object[] newKeys = new Object[size - 1];
+      System.arraycopy(this.keys, 0, newKeys, 0, index);
+      System.arraycopy(this.keys, index + 1, newKeys, index, size - index - 1);
+      // the key removed may have been the only one keeping the others boxed
+      return of(newKeys, newValues);
+    }
+
+    /** Returns the keys and values from the start index up to but excluding the end index */
+    Content range(int start, int end) {
+      Object[] newValues = Arrays.copyOfRange(this.values, start, end);
+      if (this.keys == null) {
+        return new Content(null, Arrays.copyOfRange(this.longKeys, start, end), this.intKeys,
+            newValues);
+      }
+      return of(Arrays.copyOfRange(this.keys, start, end), newValues);
+    }
+  }
+
+  /**
+   * A page of keys. Holds the keys from its fence up to but excluding the fence of the next page.
+   * The lock is held while the page is changed.
+   */
+  private static class Page extends ReentrantLock {
+    private static final long serialVersionUID = 6532787373232357094L;
+
+    final Object fence;
+
+    volatile Content content;
+
+    /** Set once the page has been dropped from the map; guarded by the lock */
+    boolean dropped;
+
+    Page(Object fence, Content content) {
+      this.fence = fence;
+      this.content = content;
+    }
+  }
+
+  /**
+   * The pages of a map, shared by the map and all its views
+   */
+  private static class Pages {
+    final Comparator comparator;
+
+    /** The pages by fence. The first page, whose fence is {@link #LOWEST}, is never dropped */
+    final ConcurrentSkipListMap<Object, Page> byFence;
+
+    Pages(final Comparator comparator) {
+      this.comparator = comparator;
+      this.byFence = new ConcurrentSkipListMap<Object, Page>(new Comparator<Object>() {
+        public int compare(Object fence1, Object fence2) {
+          if (fence1 == fence2) {
+            return 0;
+          } else if (fence1 == LOWEST) {
+            return -1;
+          } else if (fence2 == LOWEST) {
+            return 1;
+          }
+          return comparator.compare(fence1, fence2);
+        }
+      });
+      this.byFence.put(LOWEST, new Page(LOWEST, EMPTY));
+    }
+
+    Page pageFor(Object key) {
+      return this.byFence.floorEntry(key).getValue();
+    }
+
+    Object get(Object key) {
+      for (;;) {
+        Page page = pageFor(key);
+        Content content = page.content;
+        // if the page was split or dropped since it was looked up, its content may be missing
+        // the key, so look again
+        if (pageFor(key) == page) {
+          int index = content.search(key, this.comparator);
+          return index >= 0 ? content.values[index] : null;
+        }
+      }
+    }
+
+    /** Returns the locked page that holds the key */
+    private Page lock(Object key) {
+      for (;;) {
+        Page page = pageFor(key);
+        page.lock();
+        if (!page.dropped && pageFor(key) == page) {
+          return page;
+        }
+        page.unlock();
+      }
+    }
+
+    Object put(Object key, Object value, boolean onlyIfAbsent) {
+      Page page = lock(key);
+      try {
+        Content content = page.content;
+        int index = content.search(key, this.comparator);
+        if (index >= 0) {
+          Object oldValue = content.values[index];
+          if (!onlyIfAbsent) {
+            page.content = content.withValue(index, value);
+          }
+          return oldValue;
+        }
+        update(page, content.with(-(index + 1), key, value));
+        return null;
+      } finally {
+        page.unlock();
+      }
+    }
+
+    boolean replace(Object key, Object oldValue, Object newValue) {
+      Page page = lock(key);
+      try {
+        Content content = page.content;
+        int index = content.search(key, this.comparator);
+        if (index < 0 || !content.values[index].equals(oldValue)) {
+          return false;
+        }
+        page.content = content.withValue(index, newValue);
+        return true;
+      } finally {
+        page.unlock();
+      }
+    }
+
+    Object replace(Object key, Object value) {
+      Page page = lock(key);
+      try {
+        Content content = page.content;
+        int index = content.search(key, this.comparator);
+        if (index < 0) {
+          return null;
+        }
+        Object oldValue = content.values[index];
+        page.content = content.withValue(index, value);
+        return oldValue;
+      } finally {
+        page.unlock();
+      }
+    }
+
+    /**
+     * Removes the key if it is mapped to the given value, or to any value if the value is null.
+     * Returns the value removed, or null if nothing was removed.
+     */
+    Object remove(Object key, Object value) {
+      Page page = lock(key);
+      try {
+        Content content = page.content;
+        int index = content.search(key, this.comparator);
+        if (index < 0) {
+          return null;
+        }
+        Object oldValue = content.values[index];
+        if (value != null && !oldValue.equals(value)) {
+          return null;
+        }
+        update(page, content.without(index));
+        return oldValue;
+      } finally {
+        page.unlock();
+      }
+    }
+
+    void clear() {
+      for (Page page : this.byFence.values()) {
+        page.lock();
+        try {
+          if (!page.dropped) {
+            update(page, EMPTY);
+          }
+        } finally {
+          page.unlock();
+        }
+      }
+    }
+
+    /**
+     * Gives the locked page new content, splitting the page if it has too many keys and dropping it
+     * if it has none
+     */
+    private void update(Page page, Content content) {
+      int size = content.size();
+      if (size > MAX_PAGE_SIZE) {
+        Content upper = content.range(size / 2, size);
+        Page split = new Page(upper.key(0), upper);
+        // readers find the new page before the keys leave this one
+        this.byFence.put(split.fence, split);
+        page.content = content.range(0, size / 2);
+      } else if (size == 0 && page.fence != LOWEST) {
+        page.content = content;
+        page.dropped = true;
+        this.byFence.remove(page.fence, page);
+      } else {
+        page.content = content;
+      }
+    }
+  }
+
+  /**
+   * Iterates over the entries of this view in its order, a page at a time. Each page is read once
+   * and only its keys below the fence of the next page are returned, so a key is never returned
+   * twice when a page is split during the iteration.
+   */
+  private class EntryIterator implements Iterator {
+    private Page page;
+    private Content content;
+    /** The index in the content of the next key to look at */
+    private int index;
+    /**
+     * The fence above which the keys of the page are not returned: the fence of the next page when
+     * ascending, of the previous page when descending. Null for none.
+     */
+    private Object limit;
+    private Map.Entry next;
+    private Object lastKey;
+
+    EntryIterator() {
+      if (descending) {
+        startDescending();
+      } else {
+        startAscending();
+      }
+      advance();
+    }
+
+    private void startAscending() {
+      this.page = lo == null ? pages.byFence.firstEntry().getValue() : pages.pageFor(lo);
+      this.content = this.page.content;
+      this.limit = pages.byFence.higherKey(this.page.fence);
+      if (lo == null) {
+        this.index = 0;
+      } else {
+        int found = this.content.search(lo, pages.comparator);
+        this.index = found >= 0 ? (loInclusive ? found : found + 1) : -(found + 1);
+      }
+    }
+
+    private void startDescending() {
+      for (;;) {
+        this.page = hi == null ? pages.byFence.lastEntry().getValue() : pages.pageFor(hi);
+        this.content = this.page.content;
+        Page current = hi == null ? pages.byFence.lastEntry().getValue() : pages.pageFor(hi);
+        if (current == this.page) {
+          break;
+        }
+      }
+      this.limit = null;
+      if (hi == null) {
+        this.index = this.content.size() - 1;
+      } else {
+        int found = this.content.search(hi, pages.comparator);
+        this.index = found >= 0 ? (hiInclusive ? found : found - 1) : -(found + 1) - 1;
+      }
+    }
+
+    private void advance() {
+      this.next = null;
+      while (this.page != null) {
+        if (descending) {
+          while (this.index >= 0) {
+            Object key = this.content.key(this.index);
+            Object value = this.content.values[this.index--];
+            if (this.limit != null && compare(key, this.limit) >= 0) {
+              continue;
+            }
+            if (tooLow(key)) {
+              this.page = null;
+              return;
+            }
+            this.next = new SimpleImmutableEntry(key, value);
+            return;
+          }
+          nextPageDescending();
+        } else {
+          while (this.index < this.content.size()) {
+            Object key = this.content.key(this.index);
+            Object value = this.content.values[this.index++];
+            if (this.limit != null && compare(key, this.limit) >= 0) {
+              break;
+            }
+            if (tooHigh(key)) {
+              this.page = null;
+              return;
+            }
+            this.next = new SimpleImmutableEntry(key, value);
+            return;
+          }
+          nextPageAscending();
+        }
+      }
+    }
+
+    private void nextPageAscending() {
+      if (this.limit == null || hi != null && compare(this.limit, hi) > 0) {
+        this.page = null;
+        return;
+      }
+      Map.Entry<Object, Page> entry = pages.byFence.ceilingEntry(this.limit);
+      if (entry == null) {
+        this.page = null;
+        return;
+      }
+      this.page = entry.getValue();
+      this.content = this.page.content;
+      this.limit = pages.byFence.higherKey(this.page.fence);
+      this.index = 0;
+    }
+
+    private void nextPageDescending() {
+      Object fence = this.page.fence;
+      if (fence == LOWEST || lo != null && compare(fence, lo) <= 0) {
+        this.page = null;
+        return;
+      }
+      for (;;) {
+        this.page = pages.byFence.lowerEntry(fence).getValue();
+        this.content = this.page.content;
+        // if the page was split since it was looked up, its content may be missing keys
+        if (pages.byFence.lowerEntry(fence).getValue() == this.page) {
+          break;
+        }
+      }
+      this.limit = fence;
+      this.index = this.content.size() - 1;
+    }
+
+    public boolean hasNext() {
+      return this.next != null;
+    }
+
+    public Object next() {
+      if (this.next == null) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry entry = this.next;
+      this.lastKey = entry.getKey();
+      advance();
+      return entry;
+    }
+
+    public void remove() {
+      if (this.lastKey == null) {
+        throw new IllegalStateException();
+      }
+      CompactIndexKeyMap.this.remove(this.lastKey);
+      this.lastKey = null;
+    }
+  }
+
+  /**
+   * The keys of a map, as a view of the map
+   */
+  private static class KeySet extends AbstractSet implements NavigableSet {
+    private final NavigableMap map;
+
+    KeySet(NavigableMap map) {
+      this.map = map;
+    }
+
+    @Override
+    public Iterator iterator() {
+      final Iterator entries = this.map.entrySet().iterator();
+      return new Iterator() {
+        public boolean hasNext() {
+          return entries.hasNext();
+        }
+
+        public Object next() {
+          return ((Map.Entry) entries.next()).getKey();
+        }
+
+        public void remove() {
+          entries.remove();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return this.map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return this.map.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+      return this.map.containsKey(key);
+    }
+
+    @Override
+    public boolean remove(Object key) {
+      return this.map.remove(key) != null;
+    }
+
+    @Override
+    public void clear() {
+      this.map.clear();
+    }
+
+    public Comparator comparator() {
+      return this.map.comparator();
+    }
+
+    public Object first() {
+      return this.map.firstKey();
+    }
+
+    public Object last() {
+      return this.map.lastKey();
+    }
+
+    public Object lower(Object key) {
+      return this.map.lowerKey(key);
+    }
+
+    public Object floor(Object key) {
+      return this.map.floorKey(key);
+    }
+
+    public Object ceiling(Object key) {
+      return this.map.ceilingKey(key);
+    }
+
+    public Object higher(Object key) {
+      return this.map.higherKey(key);
+    }
+
+    public Object pollFirst() {
+      return keyOf(this.map.pollFirstEntry());
+    }
+
+    public Object pollLast() {
+      return keyOf(this.map.pollLastEntry());
+    }
+
+    public NavigableSet descendingSet() {
+      return new KeySet(this.map.descendingMap());
+    }
+
+    public Iterator descendingIterator() {
+      return descendingSet().iterator();
+    }
+
+    public NavigableSet subSet(Object fromKey, boolean fromInclusive, Object toKey,
+        boolean toInclusive) {
+      return new KeySet(this.map.subMap(fromKey, fromInclusive, toKey, toInclusive));
+    }
+
+    public NavigableSet headSet(Object toKey, boolean inclusive) {
+      return new KeySet(this.map.headMap(toKey, inclusive));
+    }
+
+    public NavigableSet tailSet(Object fromKey, boolean inclusive) {
+      return new KeySet(this.map.tailMap(fromKey, inclusive));
+    }
+
+    public SortedSet subSet(Object fromKey, Object toKey) {
+      return subSet(fromKey, true, toKey, false);
+    }
+
+    public SortedSet headSet(Object toKey) {
+      return headSet(toKey, false);
+    }
+
+    public SortedSet tailSet(Object fromKey) {
+      return tailSet(fromKey, true);
+    }
+  }
+}
@@ -23,6 +23,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.cache.Cache;
 import org.apache.geode.cache.CacheException;
@@ -68,6 +72,7 @@ import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.VMThinRegionEntryHeap;
 import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
 import org.apache.geode.internal.i18n.LocalizedStrings;
+import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.pdx.internal.PdxString;
 
 // @todo Extend to support the keys or entries of a region.
@@ -84,6 +89,8 @@ import org.apache.geode.pdx.internal.PdxString;
  * @since GemFire 6.0
  */
 public class CompactRangeIndex extends AbstractIndex {
+  private static final Logger logger = LogService.getLogger();
+
 
   private static TestHook testHook;
 
@@ -91,6 +98,12 @@ public class CompactRangeIndex extends AbstractIndex {
 
   private IndexStore indexStore;
 
+  /** estimates range sizes when {@link IndexManager#USE_KEY_HISTOGRAMS} is set */
+  private volatile IndexKeyHistogram keyHistogram;
+
+  /** true while a rebuild of the key histogram is scheduled or running */
+  private final AtomicBoolean keyHistogramRebuilding = new AtomicBoolean();
+
   static boolean TEST_ALWAYS_UPDATE_IN_PROGRESS = false;
 
   public CompactRangeIndex(String indexName, Region region, String fromClause,
@@ -317,6 +330,11 @@ public class CompactRangeIndex extends AbstractIndex {
         case OQLLexerTokenTypes.TOK_LE:
         case OQLLexerTokenTypes.TOK_LT:
           if (matchLevel <= 0 && (key instanceof Number)) {
+            IndexKeyHistogram histogram = getKeyHistogram();
+            if (histogram != null) {
+              size = toIntSize(histogram.estimateLessThan(((Number) key).doubleValue()));
+              break;
+            }
 
             int totalSize = indexStore.size();
             if (CompactRangeIndex.testHook != null) {
@@ -381,6 +399,12 @@ public class CompactRangeIndex extends AbstractIndex {
         case OQLLexerTokenTypes.TOK_GE:
         case OQLLexerTokenTypes.TOK_GT:
           if (matchLevel <= 0 && (key instanceof Number)) {
+            IndexKeyHistogram histogram = getKeyHistogram();
+            if (histogram != null) {
+              size = toIntSize(histogram.estimateGreaterThan(((Number) key).doubleValue()));
+              break;
+            }
+
             int totalSize = indexStore.size();
             if (CompactRangeIndex.testHook != null) {
               CompactRangeIndex.testHook.hook(2);
@@ -445,6 +469,57 @@ public class CompactRangeIndex extends AbstractIndex {
     return size;
   }
 
+  /**
+   * Returns the histogram of this index's keys. If the index has changed enough since it was built,
+   * a rebuild is started in the background and the current histogram is returned until the new one
+   * is ready. Returns null if histograms are disabled, the index is not held in memory, no
+   * histogram has been built yet, or its keys are not all numbers.
+   */
+  IndexKeyHistogram getKeyHistogram() {
+    if (!IndexManager.USE_KEY_HISTOGRAMS || !(this.indexStore instanceof MemoryIndexStore)) {
+      return null;
+    }
+    IndexKeyHistogram histogram = this.keyHistogram;
+    if ((histogram == null || histogram.isStale(this.internalIndexStats.getNumUpdates()))
+        && this.keyHistogramRebuilding.compareAndSet(false, true)) {
+      scheduleKeyHistogramRebuild();
+    }
+    return histogram != null && histogram.isUsable() ? histogram : null;
+  }
+
+  private void scheduleKeyHistogramRebuild() {
+    try {
+      ((LocalRegion) this.region).getDistributionManager().getWaitingThreadPool()
+          .execute(new Runnable() {
+            public void run() {
+              try {
+                rebuildKeyHistogram();
+              } finally {
+                keyHistogramRebuilding.set(false);
+              }
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // shutting down
+      this.keyHistogramRebuilding.set(false);
+    }
+  }
+
+  /** Builds a new histogram of this index's keys and makes it the current one */
+  void rebuildKeyHistogram() {
+    long updates = this.internalIndexStats.getNumUpdates();
+    IndexKeyHistogram histogram = IndexKeyHistogram.build(
+        ((MemoryIndexStore) this.indexStore).valueToEntriesMap, this.indexStore.size(), updates);
+    this.keyHistogram = histogram;
+    if (logger.isDebugEnabled()) {
+      logger.debug("Built {} for index {}", histogram, getName());
+    }
+  }
+
+  private static int toIntSize(long size) {
+    return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+  }
+
   /** Method called while appropriate lock held on index */
   private void lockedQueryPrivate(Object key, int operator, Collection results,
       CompiledValue iterOps, RuntimeIterator runtimeItr, ExecutionContext context, Set keysToRemove,
@@ -1004,6 +1079,10 @@ public class CompactRangeIndex extends AbstractIndex {
     if (numValues > 0) {
       this.internalIndexStats.incNumValues(-numValues);
     }
+    long memorySize = this.internalIndexStats.getMemorySize();
+    if (memorySize > 0) {
+      this.internalIndexStats.incMemorySize(-memorySize);
+    }
     int updates = (int) this.internalIndexStats.getNumUpdates();
     if (updates > 0) {
       this.internalIndexStats.incNumUpdates(updates);
@@ -1077,6 +1156,10 @@ public class CompactRangeIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incMemorySize(long delta) {
+      this.vsdStats.incMemorySize(delta);
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this index.
      */
@@ -1119,6 +1202,13 @@ public class CompactRangeIndex extends AbstractIndex {
       return this.vsdStats.getReadLockCount();
     }
 
+    /**
+     * Returns the estimated number of bytes used by the keys and values of this index.
+     */
+    public long getMemorySize() {
+      return this.vsdStats.getMemorySize();
+    }
+
     public void close() {
       this.vsdStats.close();
     }
@@ -1127,6 +1217,7 @@ public class CompactRangeIndex extends AbstractIndex {
       StringBuffer sb = new StringBuffer();
       sb.append("No Keys = ").append(getNumberOfKeys()).append("\n");
       sb.append("No Values = ").append(getNumberOfValues()).append("\n");
+      sb.append("Memory Size = ").append(getMemorySize()).append("\n");
       sb.append("No Uses = ").append(getTotalUses()).append("\n");
       sb.append("No Updates = ").append(getNumUpdates()).append("\n");
       sb.append("Total Update time = ").append(getTotalUpdateTime()).append("\n");
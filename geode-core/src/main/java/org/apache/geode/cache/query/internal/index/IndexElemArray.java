@@ -28,11 +28,13 @@ import java.util.NoSuchElementException;
 public class IndexElemArray implements Iterable, Collection {
 
   private Object[] elementData;
+  /*
+   * size and data changes are made atomically while synchronized on this array, which is also
+   * the monitor the index store holds while it replaces a full array with a set. Using the array
+   * itself rather than a separate lock object saves an object for every multi-valued index key.
+   */
   private volatile byte size;
 
-  /* lock for making size and data changes atomically. */
-  private Object lock = new Object();
-
   public IndexElemArray(int initialCapacity) {
     if (initialCapacity < 0) {
       throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
@@ -105,7 +107,7 @@ public class IndexElemArray implements Iterable, Collection {
    * such index.
    */
   public int indexOf(Object o) {
-    synchronized (lock) {
+    synchronized (this) {
       if (o == null) {
         for (int i = 0; i < size; i++)
           if (elementData[i] == null)
@@ -128,7 +130,7 @@ public class IndexElemArray implements Iterable, Collection {
    * 
    */
   public Object get(int index) {
-    synchronized (lock) {
+    synchronized (this) {
       RangeCheck(index);
       return elementData[index];
     }
@@ -144,7 +146,7 @@ public class IndexElemArray implements Iterable, Collection {
    * 
    */
   public Object set(int index, Object element) {
-    synchronized (lock) {
+    synchronized (this) {
       RangeCheck(index);
 
       Object oldValue = (Object) elementData[index];
@@ -162,7 +164,7 @@ public class IndexElemArray implements Iterable, Collection {
    * @throws ArrayIndexOutOfBoundsException
    */
   public boolean add(Object e) {
-    synchronized (lock) {
+    synchronized (this) {
       ensureCapacity(size + 1);
       elementData[size] = e;
       ++size;
@@ -182,7 +184,7 @@ public class IndexElemArray implements Iterable, Collection {
    * @return <tt>true</tt> if this list contained the specified element
    */
   public boolean remove(Object o) {
-    synchronized (lock) {
+    synchronized (this) {
       if (o == null) {
         for (int index = 0; index < size; index++)
           if (elementData[index] == null) {
@@ -220,7 +222,7 @@ public class IndexElemArray implements Iterable, Collection {
    */
   public void clear() {
     // Let gc do its work
-    synchronized (lock) {
+    synchronized (this) {
       for (int i = 0; i < size; i++) {
         elementData[i] = null;
       }
@@ -243,7 +245,7 @@ public class IndexElemArray implements Iterable, Collection {
   public boolean addAll(Collection c) {
     Object[] a = c.toArray();
     int numNew = a.length;
-    synchronized (lock) {
+    synchronized (this) {
       ensureCapacity(size + numNew);
       System.arraycopy(a, 0, elementData, size, numNew);
       size += numNew;
@@ -268,7 +270,7 @@ public class IndexElemArray implements Iterable, Collection {
     private int len;
 
     IndexArrayListIterator() {
-      synchronized (lock) {
+      synchronized (IndexElemArray.this) {
         elements = elementData;
         len = size;
       }
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.internal.cache.RegionEntry;
+
+/**
+ * An equi-depth histogram over the numeric keys of a range index. Every bucket holds about the same
+ * number of index entries, so skewed key distributions are described as well as uniform ones. It is
+ * used to estimate how many entries a range condition selects, which the query engine uses to pick
+ * between indexes.
+ * <p>
+ * A histogram is a snapshot. Once the number of updates made to the index since it was built
+ * exceeds a fraction of the entries it describes, the owning index rebuilds it in the background
+ * and keeps using the old one until the new one is ready, so queries never wait for a rebuild.
+ *
+ * @since Geode 1.2
+ */
+class IndexKeyHistogram {
+
+  static final int MAX_BUCKETS = 64;
+
+  /** the histogram is rebuilt after this fraction of its entries has been updated */
+  private static final int REBUILD_DIVISOR = 10;
+
+  /** the minimum number of updates before a histogram is rebuilt */
+  private static final int MIN_UPDATES_BEFORE_REBUILD = 100;
+
+  /** the smallest numeric key */
+  private final double min;
+
+  /** the largest key in each bucket */
+  private final double[] upperBounds;
+
+  /** the number of entries whose key is less than or equal to the upper bound of each bucket */
+  private final long[] cumulativeCounts;
+
+  /** the value of the index's update counter when this histogram was built */
+  private final long updatesWhenBuilt;
+
+  private IndexKeyHistogram(double min, double[] upperBounds, long[] cumulativeCounts,
+      long updatesWhenBuilt) {
+    this.min = min;
+    this.upperBounds = upperBounds;
+    this.cumulativeCounts = cumulativeCounts;
+    this.updatesWhenBuilt = updatesWhenBuilt;
+  }
+
+  /**
+   * Builds a histogram from the map of index keys to the region entries indexed under them, as kept
+   * by {@link MemoryIndexStore}.
+   *
+   * @param keysToEntries sorted map whose values are a RegionEntry or a Collection of them
+   * @param approximateSize the approximate number of entries in the map, used to size buckets
+   * @param updates the current value of the index's update counter
+   * @return the histogram, which is not usable if the index has a key that is not a number
+   */
+  static IndexKeyHistogram build(NavigableMap keysToEntries, int approximateSize, long updates) {
+    long depth = Math.max(1, approximateSize / MAX_BUCKETS);
+    double[] bounds = new double[MAX_BUCKETS];
+    long[] counts = new long[MAX_BUCKETS];
+    int bucket = 0;
+    long total = 0;
+    long inBucket = 0;
+    double min = 0;
+    boolean first = true;
+    for (Iterator it = keysToEntries.entrySet().iterator(); it.hasNext();) {
+      Map.Entry entry = (Map.Entry) it.next();
+      if (entry.getKey() == IndexManager.NULL || entry.getKey() == QueryService.UNDEFINED) {
+        // never matched by a range condition
+        continue;
+      }
+      if (!(entry.getKey() instanceof Number)) {
+        return unusable(updates);
+      }
+      double key = ((Number) entry.getKey()).doubleValue();
+      Object value = entry.getValue();
+      int count = value instanceof RegionEntry ? 1 : ((Collection) value).size();
+      if (count == 0) {
+        continue;
+      }
+      if (first) {
+        min = key;
+        first = false;
+      }
+      total += count;
+      inBucket += count;
+      bounds[bucket] = key;
+      counts[bucket] = total;
+      if (inBucket >= depth && bucket < MAX_BUCKETS - 1) {
+        bucket++;
+        inBucket = 0;
+      }
+    }
+    if (first) {
+      return unusable(updates);
+    }
+    int numBuckets = inBucket == 0 ? bucket : bucket + 1;
+    double[] upperBounds = new double[numBuckets];
+    long[] cumulativeCounts = new long[numBuckets];
+    System.arraycopy(bounds, 0, upperBounds, 0, numBuckets);
+    System.arraycopy(counts, 0, cumulativeCounts, 0, numBuckets);
+    return new IndexKeyHistogram(min, upperBounds, cumulativeCounts, updates);
+  }
+
+  private static IndexKeyHistogram unusable(long updates) {
+    return new IndexKeyHistogram(0, new double[0], new long[0], updates);
+  }
+
+  /**
+   * Returns false if the index has no numeric keys or has keys that are not numbers, in which case
+   * nothing can be estimated.
+   */
+  boolean isUsable() {
+    return this.upperBounds.length > 0;
+  }
+
+  /**
+   * Returns true if the index has changed enough since this histogram was built that it should be
+   * rebuilt.
+   */
+  boolean isStale(long updates) {
+    long threshold = Math.max(MIN_UPDATES_BEFORE_REBUILD, getTotal() / REBUILD_DIVISOR);
+    return updates - this.updatesWhenBuilt > threshold;
+  }
+
+  long getTotal() {
+    if (!isUsable()) {
+      return 0;
+    }
+    return this.cumulativeCounts[this.cumulativeCounts.length - 1];
+  }
+
+  int getNumBuckets() {
+    return this.upperBounds.length;
+  }
+
+  /**
+   * Estimates the number of entries whose key is less than the given key. Keys within a bucket are
+   * assumed to be spread evenly between the bucket's bounds.
+   */
+  long estimateLessThan(double key) {
+    if (key <= this.min) {
+      return 0;
+    }
+    int bucket = findBucket(key);
+    if (bucket == this.upperBounds.length) {
+      return getTotal();
+    }
+    double lower = bucket == 0 ? this.min : this.upperBounds[bucket - 1];
+    long below = bucket == 0 ? 0 : this.cumulativeCounts[bucket - 1];
+    long inBucket = this.cumulativeCounts[bucket] - below;
+    double upper = this.upperBounds[bucket];
+    double fraction = upper > lower ? (key - lower) / (upper - lower) : 0.5;
+    return below + (long) (inBucket * fraction);
+  }
+
+  /**
+   * Estimates the number of entries whose key is greater than the given key.
+   */
+  long estimateGreaterThan(double key) {
+    return Math.max(0, getTotal() - estimateLessThan(key));
+  }
+
+  /** returns the index of the first bucket whose upper bound is at least key */
+  private int findBucket(double key) {
+    int low = 0;
+    int high = this.upperBounds.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.upperBounds[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public String toString() {
+    if (!isUsable()) {
+      return "IndexKeyHistogram(unusable)";
+    }
+    return "IndexKeyHistogram(buckets=" + getNumBuckets() + "; entries=" + getTotal() + "; min="
+        + this.min + "; max=" + this.upperBounds[this.upperBounds.length - 1] + ")";
+  }
+}
@@ -20,6 +20,7 @@
 package org.apache.geode.cache.query.internal.index;
 
 import org.apache.geode.SystemFailure;
+import org.apache.geode.cache.Cache;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.query.*;
 import org.apache.geode.cache.query.internal.*;
@@ -65,16 +66,65 @@ public class IndexManager {
   private final ConcurrentMap indexes = new ConcurrentHashMap();
   // TODO Asif : Fix the appropriate size of the Map & the concurrency level
   private ConcurrentMap canonicalizedIteratorNameMap = new ConcurrentHashMap();
-  private IndexUpdaterThread updater;
+  private IndexUpdaterThread[] updaters;
 
   // Threshold for Queue.
   private final int INDEX_MAINTENANCE_BUFFER =
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "AsynchIndexMaintenanceThreshold", -1)
           .intValue();
 
+  /**
+   * Number of threads applying asynchronous index updates for each region. Updates of the same
+   * entry are always applied by the same thread, in the order they were made.
+   */
+  public static int ASYNC_UPDATE_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "IndexManager.ASYNC_UPDATE_THREADS", 1)
+          .intValue();
+
+  /**
+   * Maximum number of asynchronous index updates an updater thread takes from its queue at once.
+   */
+  public static final int ASYNC_UPDATE_BATCH_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "IndexManager.ASYNC_UPDATE_BATCH_SIZE", 100)
+      .intValue();
+
+  /**
+   * If true, an asynchronous index update is dropped when the same update of the same entry is
+   * still waiting to be applied, since the waiting update will index the entry's latest value.
+   */
+  public static boolean COALESCE_ASYNC_UPDATES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "IndexManager.COALESCE_ASYNC_UPDATES");
+
+  /**
+   * Number of threads used to populate new indexes from the entries of a region, or from the local
+   * buckets of a partitioned region. Indexes are populated by the creating thread when this is 1.
+   */
+  public static int INDEX_POPULATION_THREADS = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "IndexManager.INDEX_POPULATION_THREADS", 1)
+      .intValue();
+
+  /**
+   * Number of entries added to the indexes by each index population task.
+   */
+  static final int INDEX_POPULATION_CHUNK_SIZE = 1000;
+
   public static boolean JOIN_OPTIMIZATION =
       !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.DisableJoinOptimization");
 
+  /**
+   * If true, range indexes estimate the size of range conditions from a histogram of their keys
+   * instead of assuming the keys are spread evenly between the smallest and largest.
+   */
+  public static boolean USE_KEY_HISTOGRAMS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.UseKeyHistograms");
+
+  /**
+   * If true, range indexes kept in memory hold their keys in sorted pages, with Integer and Long
+   * keys unboxed, instead of in a skip list node per key. See {@link CompactIndexKeyMap}.
+   */
+  public static boolean USE_COMPACT_INDEX_KEYS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.UseCompactKeys");
+
   // Added for test purposes only.
   public static boolean INPLACE_OBJECT_MODIFICATION_FOR_TEST = false;
 
@@ -136,9 +186,15 @@ public class IndexManager {
     if (!indexMaintenanceSynchronous) {
       final LoggingThreadGroup group =
           LoggingThreadGroup.createThreadGroup("QueryMonitor Thread Group", logger);
-      updater = new IndexUpdaterThread(group, this.INDEX_MAINTENANCE_BUFFER,
-          "OqlIndexUpdater:" + region.getFullPath());
-      updater.start();
+      updaters = new IndexUpdaterThread[Math.max(1, ASYNC_UPDATE_THREADS)];
+      for (int i = 0; i < updaters.length; i++) {
+        String threadName = "OqlIndexUpdater:" + region.getFullPath();
+        if (i > 0) {
+          threadName += ":" + i;
+        }
+        updaters[i] = new IndexUpdaterThread(group, this.INDEX_MAINTENANCE_BUFFER, threadName);
+        updaters[i].start();
+      }
     }
   }
 
@@ -221,10 +277,41 @@ public class IndexManager {
   }
 
   /**
-   * Used by tests to access the updater thread to determine its progress
+   * Used by tests to access the first updater thread to determine its progress
    */
   public IndexUpdaterThread getUpdaterThread() {
-    return this.updater;
+    return this.updaters == null ? null : this.updaters[0];
+  }
+
+  private IndexUpdaterThread getUpdaterThread(RegionEntry entry) {
+    if (entry == null || this.updaters.length == 1) {
+      return this.updaters[0];
+    }
+    return this.updaters[(entry.hashCode() & 0x7fffffff) % this.updaters.length];
+  }
+
+  /**
+   * Waits until the asynchronous index updates made before this call have been applied. Returns
+   * immediately if index maintenance is synchronous.
+   * 
+   * @param timeoutMs the maximum number of milliseconds to wait
+   * @return true if the updates have been applied, false if the timeout elapsed first
+   */
+  public boolean waitForPendingUpdates(long timeoutMs) throws InterruptedException {
+    if (this.updaters == null) {
+      return true;
+    }
+    long[] targets = new long[this.updaters.length];
+    for (int i = 0; i < targets.length; i++) {
+      targets[i] = this.updaters[i].getTasksAdded();
+    }
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    for (int i = 0; i < targets.length; i++) {
+      if (!this.updaters[i].waitForTasks(targets[i], deadline)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   // @todo need more specific list of exceptions
@@ -397,6 +484,7 @@ public class IndexManager {
         }
       }
       assert (index != null);
+      clearCompiledQueries();
       if (logger.isDebugEnabled()) {
         logger.debug("Completed creating index with indexName: {} On region: {}", indexName,
             region.getFullPath());
@@ -826,6 +914,7 @@ public class IndexManager {
     if (this.indexes.remove(indexTask) != null) {
       AbstractIndex indexHandle = (AbstractIndex) index;
       indexHandle.destroy();
+      clearCompiledQueries();
     }
   }
 
@@ -849,9 +938,24 @@ public class IndexManager {
       IndexTask indexTask = (IndexTask) entry.getKey();
       this.indexes.remove(indexTask);
     }
+    if (numIndexes > 0) {
+      clearCompiledQueries();
+    }
     return numIndexes;
   }
 
+  /**
+   * Clears the cache's compiled queries so that they are compiled again for the new set of
+   * indexes.
+   */
+  private void clearCompiledQueries() {
+    CompiledQueryCache compiledQueries =
+        ((GemFireCacheImpl) this.region.getCache()).getCompiledQueryCache();
+    if (compiledQueries != null) {
+      compiledQueries.clear();
+    }
+  }
+
 
   /**
    * Asif : This function is invoked during clear operation on Region. It causes re execution of
@@ -876,8 +980,12 @@ public class IndexManager {
     if (isIndexMaintenanceTypeSynchronous()) {
       recreateAllIndexesForRegion();
     } else {
-      // System.out.println("Aynchronous update");
-      updater.addTask(RECREATE_INDEX, null, IndexProtocol.OTHER_OP);
+      // every updater applies the updates queued before the recreate, then waits while the
+      // indexes are recreated
+      RecreateIndexBarrier barrier = new RecreateIndexBarrier(this.updaters.length);
+      for (IndexUpdaterThread updater : this.updaters) {
+        updater.addRecreateTask(barrier);
+      }
     }
   }
 
@@ -889,48 +997,29 @@ public class IndexManager {
     if (region.getCache().getLogger().infoEnabled()) {
       region.getCache().getLogger().info("Populating indexes for region " + region.getName());
     }
-    boolean throwException = false;
-    HashMap<String, Exception> exceptionsMap = new HashMap<String, Exception>();
+    Map<String, Exception> exceptionsMap = new ConcurrentHashMap<String, Exception>();
     boolean oldReadSerialized = DefaultQuery.getPdxReadSerialized();
     DefaultQuery.setPdxReadSerialized(true);
     try {
       Iterator entryIter = ((LocalRegion) region).getBestIterator(true);
-      while (entryIter.hasNext()) {
-        RegionEntry entry = (RegionEntry) entryIter.next();
-        if (entry == null || entry.isInvalidOrRemoved()) {
-          continue;
+      // buckets populated concurrently by a partitioned region are each populated by one thread
+      if (INDEX_POPULATION_THREADS > 1 && !ForkJoinTask.inForkJoinPool()) {
+        addEntriesInParallel(entryIter, indexSet, exceptionsMap);
+      } else {
+        while (entryIter.hasNext()) {
+          addEntryToIndexes((RegionEntry) entryIter.next(), indexSet, exceptionsMap);
         }
-        // Fault in the value once before index update so that every index
-        // update does not have
-        // to read the value from disk every time.
-        entry.getValue((LocalRegion) this.region);
-        Iterator<Index> indexSetIterator = indexSet.iterator();
-        while (indexSetIterator.hasNext()) {
-          AbstractIndex index = (AbstractIndex) indexSetIterator.next();
-          if (!index.isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
-            if (logger.isDebugEnabled()) {
-              logger.debug("Adding to index :{}{} value :{}", index.getName(),
-                  this.region.getFullPath(), entry.getKey());
-            }
-            long start = ((AbstractIndex) index).updateIndexUpdateStats();
-            try {
-              index.addIndexMapping(entry);
-            } catch (IMQException e) {
-              if (logger.isDebugEnabled()) {
-                logger.debug("Adding to index failed for: {}, {}", index.getName(), e.getMessage(),
-                    e);
-              }
-              exceptionsMap.put(index.indexName, e);
-              indexSetIterator.remove();
-              throwException = true;
-            }
-            ((AbstractIndex) index).updateIndexUpdateStats(start);
+      }
+      if (!exceptionsMap.isEmpty()) {
+        for (Iterator<Index> indexSetIterator = indexSet.iterator(); indexSetIterator.hasNext();) {
+          if (exceptionsMap.containsKey(indexSetIterator.next().getName())) {
+            indexSetIterator.remove();
           }
         }
       }
       setPopulateFlagForIndexes(indexSet);
-      if (throwException) {
-        throw new MultiIndexCreationException(exceptionsMap);
+      if (!exceptionsMap.isEmpty()) {
+        throw new MultiIndexCreationException(new HashMap<String, Exception>(exceptionsMap));
       }
     } finally {
       DefaultQuery.setPdxReadSerialized(oldReadSerialized);
@@ -938,6 +1027,81 @@ public class IndexManager {
     }
   }
 
+  /**
+   * Adds an entry to each of the given indexes that is still being populated and has not failed.
+   */
+  private void addEntryToIndexes(RegionEntry entry, Collection<Index> indexSet,
+      Map<String, Exception> exceptionsMap) {
+    if (entry == null || entry.isInvalidOrRemoved()) {
+      return;
+    }
+    // Fault in the value once before index update so that every index
+    // update does not have
+    // to read the value from disk every time.
+    entry.getValue((LocalRegion) this.region);
+    for (Index ind : indexSet) {
+      AbstractIndex index = (AbstractIndex) ind;
+      if (!index.isPopulated() && index.getType() != IndexType.PRIMARY_KEY
+          && !exceptionsMap.containsKey(index.indexName)) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Adding to index :{}{} value :{}", index.getName(),
+              this.region.getFullPath(), entry.getKey());
+        }
+        long start = ((AbstractIndex) index).updateIndexUpdateStats();
+        try {
+          index.addIndexMapping(entry);
+        } catch (IMQException e) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Adding to index failed for: {}, {}", index.getName(), e.getMessage(), e);
+          }
+          exceptionsMap.put(index.indexName, e);
+        }
+        ((AbstractIndex) index).updateIndexUpdateStats(start);
+      }
+    }
+  }
+
+  /**
+   * Adds the entries to the indexes in chunks on the index population pool. The calling thread
+   * reads the entries and waits for every chunk to be added.
+   */
+  private void addEntriesInParallel(Iterator entryIter, final Collection<Index> indexSet,
+      final Map<String, Exception> exceptionsMap) {
+    ForkJoinPool pool = getIndexPopulationPool(this.region.getCache());
+    List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+    while (entryIter.hasNext()) {
+      final List<RegionEntry> chunk = new ArrayList<RegionEntry>(INDEX_POPULATION_CHUNK_SIZE);
+      while (entryIter.hasNext() && chunk.size() < INDEX_POPULATION_CHUNK_SIZE) {
+        chunk.add((RegionEntry) entryIter.next());
+      }
+      tasks.add(pool.submit(new Runnable() {
+        @Override
+        public void run() {
+          boolean oldReadSerialized = DefaultQuery.getPdxReadSerialized();
+          DefaultQuery.setPdxReadSerialized(true);
+          try {
+            for (RegionEntry entry : chunk) {
+              addEntryToIndexes(entry, indexSet, exceptionsMap);
+            }
+          } finally {
+            DefaultQuery.setPdxReadSerialized(oldReadSerialized);
+          }
+        }
+      }));
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+  }
+
+  /**
+   * Returns the cache's pool used to populate indexes when {@link #INDEX_POPULATION_THREADS} is
+   * greater than 1.
+   */
+  public static ForkJoinPool getIndexPopulationPool(Cache cache) {
+    return ((GemFireCacheImpl) cache).getIndexPopulationPool(INDEX_POPULATION_THREADS);
+  }
+
   /**
    * Sets the {@link AbstractIndex#isPopulated} after populating all the indexes in this region
    */
@@ -981,7 +1145,7 @@ public class IndexManager {
       processAction(entry, action, opCode);
     } else {
       // System.out.println("Aynchronous update");
-      updater.addTask(action, entry, opCode);
+      getUpdaterThread(entry).addTask(action, entry, opCode);
     }
   }
 
@@ -1271,8 +1435,11 @@ public class IndexManager {
    */
   public void destroy() throws QueryException {
     this.indexes.clear();
-    if (!isIndexMaintenanceTypeSynchronous())
-      updater.shutdown();
+    if (!isIndexMaintenanceTypeSynchronous()) {
+      for (IndexUpdaterThread updater : this.updaters) {
+        updater.shutdown();
+      }
+    }
   }
 
   /**
@@ -1382,6 +1549,20 @@ public class IndexManager {
 
     private volatile BlockingQueue pendingTasks;
 
+    /**
+     * The latest task added for each entry while it waits to be applied. Only used when
+     * {@link #COALESCE_ASYNC_UPDATES} is set.
+     */
+    private final ConcurrentMap<RegionEntry, Object[]> pendingEntryTasks =
+        new ConcurrentHashMap<RegionEntry, Object[]>();
+
+    private final AtomicLong tasksAdded = new AtomicLong();
+
+    /* guarded by completionLock */
+    private long tasksCompleted;
+
+    private final Object completionLock = new Object();
+
     /**
      * Creates instance of IndexUpdaterThread
      * 
@@ -1406,9 +1587,55 @@ public class IndexManager {
       task[0] = Integer.valueOf(action);
       task[1] = entry;
       task[2] = Integer.valueOf(opCode); // !!!:ezoerner:20081029 change to valueOf jdk 1.5+
+      if (COALESCE_ASYNC_UPDATES && entry != null) {
+        // callers hold the entry's lock, so tasks for one entry are never added concurrently
+        Object[] pending = pendingEntryTasks.get(entry);
+        if (pending != null && pending[0].equals(task[0]) && pending[2].equals(task[2])) {
+          return;
+        }
+        pendingEntryTasks.put(entry, task);
+      }
+      tasksAdded.incrementAndGet();
       pendingTasks.add(task);
     }
 
+    /**
+     * Adds a task that waits at the barrier until every updater has reached it.
+     */
+    void addRecreateTask(RecreateIndexBarrier barrier) {
+      Object[] task = new Object[] {Integer.valueOf(RECREATE_INDEX), null,
+          Integer.valueOf(IndexProtocol.OTHER_OP), barrier};
+      tasksAdded.incrementAndGet();
+      pendingTasks.add(task);
+    }
+
+    long getTasksAdded() {
+      return tasksAdded.get();
+    }
+
+    /**
+     * Waits until the given number of tasks have been applied, or the deadline has passed.
+     */
+    boolean waitForTasks(long count, long deadline) throws InterruptedException {
+      synchronized (completionLock) {
+        while (tasksCompleted < count && this.running) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            return false;
+          }
+          completionLock.wait(remaining);
+        }
+        return tasksCompleted >= count || !this.running;
+      }
+    }
+
+    private void tasksCompleted(int count) {
+      synchronized (completionLock) {
+        tasksCompleted += count;
+        completionLock.notifyAll();
+      }
+    }
+
     /**
      * Stops this thread. Does not return until it has stopped.
      */
@@ -1431,6 +1658,7 @@ public class IndexManager {
       // async writers main loop
       // logger.debug("DiskRegion writer started (writer=" + this + ")");
       org.apache.geode.CancelCriterion stopper = ((LocalRegion) region).getCancelCriterion();
+      List<Object[]> batch = new ArrayList<Object[]>();
       try {
         while (!this.shutdownRequested) {
           // Termination checks
@@ -1439,17 +1667,25 @@ public class IndexManager {
             break;
           }
           try {
-            Object[] task = (Object[]) pendingTasks.take();
+            batch.add((Object[]) pendingTasks.take());
+            pendingTasks.drainTo(batch, ASYNC_UPDATE_BATCH_SIZE - 1);
             if (this.shutdownRequested) {
               break;
             }
-            updateIndexes(task);
+            for (Object[] task : batch) {
+              updateIndexes(task);
+            }
+            tasksCompleted(batch.size());
+            batch.clear();
           } catch (InterruptedException ignore) {
             return; // give up (exit the thread)
           }
         }
       } finally {
         this.running = false;
+        synchronized (completionLock) {
+          completionLock.notifyAll();
+        }
       }
     }
 
@@ -1457,11 +1693,20 @@ public class IndexManager {
       int action = ((Integer) task[0]).intValue();
       RegionEntry entry = (RegionEntry) task[1];
       int opCode = ((Integer) task[2]).intValue();
+      if (COALESCE_ASYNC_UPDATES && entry != null) {
+        // removed before the entry is read so that a later update is either coalesced into this
+        // task or queued again
+        pendingEntryTasks.remove(entry, task);
+      }
       // System.out.println("entry = "+entry.getKey());
       if (entry != null || action == RECREATE_INDEX) {
         try {
           if (action == RECREATE_INDEX) {
-            recreateAllIndexesForRegion();
+            if (task.length > 3) {
+              ((RecreateIndexBarrier) task[3]).await();
+            } else {
+              recreateAllIndexesForRegion();
+            }
           } else {
             if (entry != null) {
               entry.setUpdateInProgress(true);
@@ -1479,16 +1724,50 @@ public class IndexManager {
     }
 
     /**
-     * Used by tests to determine if the updater thread has finished updating its indexes. The list
-     * is cleared without synchronization, which makes this methods somewhat unsafe from a threading
-     * point of view.
+     * Used by tests to determine if the updater thread has finished updating its indexes, including
+     * the tasks it has already taken from its queue.
      */
-    public synchronized boolean isDone() {
-      return this.pendingTasks.size() == 0;
+    public boolean isDone() {
+      synchronized (completionLock) {
+        return tasksCompleted >= tasksAdded.get();
+      }
     }
 
   }
 
+  /**
+   * Recreates the indexes of the region once every updater thread has reached the barrier, so that
+   * no updater applies an update while the indexes are recreated. The last updater to arrive
+   * recreates the indexes and the others wait until it is done.
+   */
+  private class RecreateIndexBarrier {
+
+    private final CyclicBarrier barrier;
+
+    RecreateIndexBarrier(int updaters) {
+      this.barrier = new CyclicBarrier(updaters, new Runnable() {
+        public void run() {
+          try {
+            recreateAllIndexesForRegion();
+          } catch (RuntimeException e) {
+            logger.warn("Exception recreating indexes for region {}", region.getFullPath(), e);
+          }
+        }
+      });
+    }
+
+    void await() {
+      try {
+        this.barrier.await();
+      } catch (InterruptedException e) {
+        // the updater is being stopped; it exits when it next takes a task
+        Thread.currentThread().interrupt();
+      } catch (BrokenBarrierException e) {
+        // another updater was stopped while waiting; the region is being destroyed
+      }
+    }
+  }
+
   /**
    * Index Task used to create the index. This is used along with the FutureTask to take care of,
    * same index creation request from multiple threads. At any time only one thread succeeds and
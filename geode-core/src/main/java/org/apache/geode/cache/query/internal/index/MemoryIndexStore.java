@@ -16,6 +16,7 @@ package org.apache.geode.cache.query.internal.index;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -53,10 +54,11 @@ import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
 public class MemoryIndexStore implements IndexStore {
   /**
    * Map for valueOf(indexedExpression)=>RegionEntries. SortedMap<Object, (RegionEntry |
-   * List<RegionEntry>)>. Package access for unit tests.
+   * List<RegionEntry>)>. A {@link CompactIndexKeyMap} if
+   * {@link IndexManager#USE_COMPACT_INDEX_KEYS} is set, otherwise a skip list. Package access for
+   * unit tests.
    */
-  final ConcurrentNavigableMap valueToEntriesMap =
-      new ConcurrentSkipListMap(TypeUtils.getExtendedNumericComparator());
+  final ConcurrentNavigableMap valueToEntriesMap;
 
   // number of keys
   protected volatile AtomicInteger numIndexKeys = new AtomicInteger(0);
@@ -80,12 +82,30 @@ public class MemoryIndexStore implements IndexStore {
   // new collection
   private Object TRANSITIONING_TOKEN = new IndexElemArray(1);
 
+  /**
+   * Estimated bytes used by each key of a skip list forward map besides the key itself: the skip
+   * list node and its share of the skip list index nodes.
+   */
+  static final int KEY_OVERHEAD = 48;
+
+  /**
+   * Estimated bytes used to refer to each value, averaged over the single entry, array and set
+   * forms a key's values may take.
+   */
+  static final int VALUE_OVERHEAD = 16;
+
   public MemoryIndexStore(Region region, InternalIndexStatistics internalIndexStats) {
     this(region, internalIndexStats, GemFireCacheImpl.getInstance());
   }
 
   public MemoryIndexStore(Region region, InternalIndexStatistics internalIndexStats, Cache cache) {
     this.region = region;
+    if (IndexManager.USE_COMPACT_INDEX_KEYS) {
+      this.valueToEntriesMap = new CompactIndexKeyMap(TypeUtils.getExtendedNumericComparator());
+    } else {
+      this.valueToEntriesMap =
+          new ConcurrentSkipListMap(TypeUtils.getExtendedNumericComparator());
+    }
     RegionAttributes ra = region.getAttributes();
     // Initialize the reverse-map if in-place modification is set by the
     // application.
@@ -146,6 +166,7 @@ public class MemoryIndexStore implements IndexStore {
           continue;
         } else if (regionEntries == null) {
           internalIndexStats.incNumKeys(1);
+          internalIndexStats.incMemorySize(keyFootprint(newKey));
           numIndexKeys.incrementAndGet();
         } else if (regionEntries instanceof RegionEntry) {
           IndexElemArray elemArray = new IndexElemArray();
@@ -241,6 +262,7 @@ public class MemoryIndexStore implements IndexStore {
       throw new IMQException("Could not add object of type " + newKey.getClass().getName(), ex);
     }
     internalIndexStats.incNumValues(1);
+    internalIndexStats.incMemorySize(VALUE_OVERHEAD);
   }
 
   /**
@@ -314,6 +336,7 @@ public class MemoryIndexStore implements IndexStore {
               if (this.valueToEntriesMap.remove(newKey, regionEntries)) {
                 numIndexKeys.decrementAndGet();
                 internalIndexStats.incNumKeys(-1);
+                internalIndexStats.incMemorySize(-keyFootprint(newKey));
               } else {
                 // is another thread has since done an add and shifted us into a collection
                 retry = true;
@@ -347,6 +370,7 @@ public class MemoryIndexStore implements IndexStore {
                   if (valueToEntriesMap.remove(newKey, entries)) {
                     numIndexKeys.decrementAndGet();
                     internalIndexStats.incNumKeys(-1);
+                    internalIndexStats.incMemorySize(-keyFootprint(newKey));
                   }
                 }
               }
@@ -363,6 +387,7 @@ public class MemoryIndexStore implements IndexStore {
     if (found) {
       // Update stats if entry was actually removed
       internalIndexStats.incNumValues(-1);
+      internalIndexStats.incMemorySize(-VALUE_OVERHEAD);
     } else if ((!found && !possiblyAlreadyRemoved) && !IndexManager.isObjectModificationInplace()
         && key != null) {
       // if there is an inplace-modification find old key by iterating
@@ -385,6 +410,33 @@ public class MemoryIndexStore implements IndexStore {
     return found;
   }
 
+  /**
+   * Returns the estimated bytes used by a key of the forward map, including the key itself unless
+   * the map holds it unboxed.
+   */
+  long keyFootprint(Object key) {
+    if (this.valueToEntriesMap instanceof CompactIndexKeyMap) {
+      return CompactIndexKeyMap.KEY_OVERHEAD
+          + (CompactIndexKeyMap.isUnboxed(key) ? 0 : estimateKeySize(key));
+    }
+    return KEY_OVERHEAD + estimateKeySize(key);
+  }
+
+  /**
+   * Returns a rough estimate of the heap used by an index key. Keys are usually boxed numbers,
+   * strings or dates; anything else is counted as a small object.
+   */
+  static long estimateKeySize(Object key) {
+    if (key instanceof String) {
+      return 40 + 2 * ((String) key).length();
+    } else if (key instanceof Long || key instanceof Double || key instanceof Date) {
+      return 24;
+    } else if (key instanceof Number || key instanceof Boolean || key instanceof Character) {
+      return 16;
+    }
+    return 32;
+  }
+
   private Object convertToIndexKey(Object key, RegionEntry entry) throws TypeMismatchException {
     Object newKey;
     if (IndexManager.isObjectModificationInplace() && this.entryToValuesMap.containsKey(entry)) {
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.geode.DataSerializer;
+
+/**
+ * A single message carrying plain acknowledgements for several reply processors waiting in the
+ * same member. It is sent by a {@link ReplyBatcher} in place of one {@link ReplyMessage} per
+ * processor and is unpacked here into the equivalent ReplyMessages.
+ *
+ * @since Geode 1.2
+ */
+public class BatchedReplyMessage extends HighPriorityDistributionMessage {
+
+  /** the ids of the reply processors being acknowledged */
+  private int[] processorIds;
+
+  public BatchedReplyMessage() {
+    // for serialization
+  }
+
+  BatchedReplyMessage(int[] processorIds) {
+    this.processorIds = processorIds;
+  }
+
+  /** BatchedReplyMessages are always processed in-line, like ReplyMessages */
+  @Override
+  public boolean getInlineProcess() {
+    return true;
+  }
+
+  @Override
+  protected void process(DistributionManager dm) {
+    final long startTime = getTimestamp();
+    RuntimeException failure = null;
+    for (int processorId : this.processorIds) {
+      ReplyProcessor21 processor = ReplyProcessor21.getProcessor(processorId);
+      if (processor == null) {
+        continue;
+      }
+      ReplyMessage reply = new ReplyMessage();
+      reply.setProcessorId(processorId);
+      reply.setSender(getSender());
+      try {
+        reply.process(dm, processor);
+      } catch (RuntimeException ex) {
+        // keep releasing the other waiters
+        processor.cancel(getSender(), ex);
+        if (failure == null) {
+          failure = ex;
+        }
+      }
+    }
+    if (DistributionStats.enableClockStats) {
+      dm.getStats().incReplyMessageTime(DistributionStats.getStatTime() - startTime);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  int[] getProcessorIds() {
+    return this.processorIds;
+  }
+
+  public int getDSFID() {
+    return BATCHED_REPLY_MESSAGE;
+  }
+
+  @Override
+  public void toData(DataOutput out) throws IOException {
+    super.toData(out);
+    DataSerializer.writeIntArray(this.processorIds, out);
+  }
+
+  @Override
+  public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    super.fromData(in);
+    this.processorIds = DataSerializer.readIntArray(in);
+  }
+
+  @Override
+  public String toString() {
+    return getShortClassName() + " processorIds=" + Arrays.toString(this.processorIds) + " from "
+        + getSender();
+  }
+}
@@ -508,6 +508,14 @@ public interface DMStats {
    */
   public void endAsyncThread(long start);
 
+  public int getAsyncCongestedReceivers();
+
+  public void incAsyncCongestedReceivers(int inc);
+
+  public int getAsyncCongestionsDetected();
+
+  public void incAsyncCongestionsDetected();
+
   /**
    * @since GemFire 4.2.2
    */
@@ -699,4 +707,22 @@ public interface DMStats {
   public long getUdpFinalCheckResponsesReceived();
 
   public void incUdpFinalCheckResponsesReceived();
+
+  public long getIndirectCheckRequestsSent();
+
+  public void incIndirectCheckRequestsSent(int inc);
+
+  public long getIndirectCheckRequestsReceived();
+
+  public void incIndirectCheckRequestsReceived();
+
+  public long getIndirectCheckResponsesReceived();
+
+  public void incIndirectCheckResponsesReceived();
+
+  /**
+   * Records the time, in milliseconds, from the last contact with a member until the health
+   * monitor suspected it.
+   */
+  public void recordFailureDetectionTime(long millis);
 }
@@ -290,6 +290,9 @@ public class DistributionManager implements DM {
   /** Used to invoke registered membership listeners in the background. */
   private Thread memberEventThread;
 
+  /** Coalesces acks going to the same member, or null if reply batching is disabled */
+  private ReplyBatcher replyBatcher;
+
 
   /** A brief description of this DistributionManager */
   protected final String description;
@@ -1095,6 +1098,10 @@ public class DistributionManager implements DM {
         this.memberEventThread.setDaemon(true);
       }
 
+      if (ReplyBatcher.BATCH_REPLIES) {
+        this.replyBatcher = new ReplyBatcher(this, group);
+      }
+
       StringBuffer sb = new StringBuffer(" (took ");
 
       long start = System.currentTimeMillis();
@@ -1817,6 +1824,14 @@ public class DistributionManager implements DM {
     return sendMessage(message);
   }
 
+  /**
+   * Returns the batcher that coalesces acks going to the same member, or null if reply batching is
+   * disabled.
+   */
+  ReplyBatcher getReplyBatcher() {
+    return this.replyBatcher;
+  }
+
   /**
    * Send outgoing data; message is guaranteed to be serialized.
    * 
@@ -1983,6 +1998,10 @@ public class DistributionManager implements DM {
     Thread th = this.memberEventThread;
     if (th != null)
       th.interrupt();
+
+    if (this.replyBatcher != null) {
+      this.replyBatcher.stop();
+    }
   }
 
   private void waitForThreadsToStop(long timeInMillis) throws InterruptedException {
@@ -3450,6 +3469,12 @@ public class DistributionManager implements DM {
       // avoid race condition during startup
       waitUntilReadyToSendMsgs(message);
 
+      final ReplyBatcher batcher = this.replyBatcher;
+      if (batcher != null) {
+        // acks queued earlier must not be overtaken by this message
+        batcher.flushBefore(message);
+      }
+
       result = sendOutgoing(message);
     } catch (NotSerializableException ex) {
       throw ex; // serialization error in user data
@@ -21,6 +21,7 @@ import org.apache.geode.Statistics;
 import org.apache.geode.StatisticsFactory;
 import org.apache.geode.StatisticsType;
 import org.apache.geode.StatisticsTypeFactory;
+import org.apache.geode.internal.HistogramStats;
 import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.statistics.StatisticsTypeFactoryImpl;
 import org.apache.geode.internal.logging.LogService;
@@ -184,6 +185,9 @@ public class DistributionStats implements DMStats {
   private static final int asyncThreadCompletedId;
   private static final int asyncThreadTimeId;
 
+  private static final int asyncCongestedReceiversId;
+  private static final int asyncCongestionsDetectedId;
+
   private static final int receiverDirectBufferSizeId;
   private static final int receiverHeapBufferSizeId;
   private static final int senderDirectBufferSizeId;
@@ -235,6 +239,9 @@ public class DistributionStats implements DMStats {
   private final static int udpFinalCheckRequestsReceivedId;
   private final static int udpFinalCheckResponsesSentId;
   private final static int udpFinalCheckResponsesReceivedId;
+  private final static int indirectCheckRequestsSentId;
+  private final static int indirectCheckRequestsReceivedId;
+  private final static int indirectCheckResponsesReceivedId;
 
   static {
     String statName = "DistributionStats";
@@ -364,6 +371,10 @@ public class DistributionStats implements DMStats {
         "Total number of iterations of work performed by asynchronous message queue threads.";
     final String asyncThreadTimeDesc =
         "Total time spent by asynchronous message queue threads performing iterations.";
+    final String asyncCongestedReceiversDesc =
+        "Current number of receivers that adaptive flow control considers congested. Messages to these receivers are queued as soon as a socket write would block.";
+    final String asyncCongestionsDetectedDesc =
+        "Total number of times adaptive flow control has detected that a receiver became congested.";
     final String receiverDirectBufferSizeDesc =
         "Current number of bytes allocated from direct memory as buffers for incoming messages.";
     final String receiverHeapBufferSizeDesc =
@@ -439,6 +450,12 @@ public class DistributionStats implements DMStats {
         "UDP final check responses that this member has sent.";
     final String udpFinalCheckResponsesReceivedDesc =
         "UDP final check responses that this member has received.";
+    final String indirectCheckRequestsSentDesc =
+        "Requests that this member has sent asking other members to check on an unresponsive member.";
+    final String indirectCheckRequestsReceivedDesc =
+        "Requests that this member has received to check on another member.";
+    final String indirectCheckResponsesReceivedDesc =
+        "Responses that this member has received confirming that an unresponsive member is alive.";
 
     StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
 
@@ -637,6 +654,10 @@ public class DistributionStats implements DMStats {
         f.createIntCounter("asyncThreadCompleted", asyncThreadCompletedDesc, "operations"),
         f.createLongCounter("asyncThreadTime", asyncThreadTimeDesc, "nanoseconds", false),
 
+        f.createIntGauge("asyncCongestedReceivers", asyncCongestedReceiversDesc, "receivers"),
+        f.createIntCounter("asyncCongestionsDetected", asyncCongestionsDetectedDesc,
+            "operations"),
+
         f.createLongGauge("receiversTO",
             "Number of receiver threads owned by non-receiver threads in other members.",
             "threads"),
@@ -739,6 +760,12 @@ public class DistributionStats implements DMStats {
         f.createLongCounter("udpFinalCheckResponsesSent", udpFinalCheckResponsesSentDesc,
             "messages"),
         f.createLongCounter("udpFinalCheckResponsesReceived", udpFinalCheckResponsesReceivedDesc,
+            "messages"),
+        f.createLongCounter("indirectCheckRequestsSent", indirectCheckRequestsSentDesc,
+            "messages"),
+        f.createLongCounter("indirectCheckRequestsReceived", indirectCheckRequestsReceivedDesc,
+            "messages"),
+        f.createLongCounter("indirectCheckResponsesReceived", indirectCheckResponsesReceivedDesc,
             "messages"),});
 
     // Initialize id fields
@@ -868,6 +895,9 @@ public class DistributionStats implements DMStats {
     asyncThreadCompletedId = type.nameToId("asyncThreadCompleted");
     asyncThreadTimeId = type.nameToId("asyncThreadTime");
 
+    asyncCongestedReceiversId = type.nameToId("asyncCongestedReceivers");
+    asyncCongestionsDetectedId = type.nameToId("asyncCongestionsDetected");
+
     threadOwnedReceiversId = type.nameToId("receiversTO");
     threadOwnedReceiversId2 = type.nameToId("receiversTO2");
 
@@ -929,11 +959,20 @@ public class DistributionStats implements DMStats {
     udpFinalCheckRequestsReceivedId = type.nameToId("udpFinalCheckRequestsReceived");
     udpFinalCheckResponsesSentId = type.nameToId("udpFinalCheckResponsesSent");
     udpFinalCheckResponsesReceivedId = type.nameToId("udpFinalCheckResponsesReceived");
+    indirectCheckRequestsSentId = type.nameToId("indirectCheckRequestsSent");
+    indirectCheckRequestsReceivedId = type.nameToId("indirectCheckRequestsReceived");
+    indirectCheckResponsesReceivedId = type.nameToId("indirectCheckResponsesReceived");
   }
 
   /** The Statistics object that we delegate most behavior to */
   private final Statistics stats;
 
+  /**
+   * Time, in milliseconds, from the last contact with a member until it was suspected by this
+   * member's health monitor
+   */
+  private final HistogramStats failureDetectionHistogram;
+
   // private final HistogramStats replyHandoffHistogram;
   // private final HistogramStats replyWaitHistogram;
 
@@ -951,6 +990,8 @@ public class DistributionStats implements DMStats {
     // this.replyWaitHistogram = new HistogramStats("ReplyWait", "nanoseconds", f,
     // new long[] {100000, 200000, 300000, 400000, 500000, 600000, 700000, 800000, 900000, 1000000},
     // false);
+    this.failureDetectionHistogram = new HistogramStats("FailureDetectionTime", "milliseconds", f,
+        new long[] {1000, 2000, 5000, 10000, 20000, 30000, 60000, 120000}, false);
     Buffers.initBufferStats(this);
   }
 
@@ -961,6 +1002,7 @@ public class DistributionStats implements DMStats {
     this.stats = stats;
     // this.replyHandoffHistogram = null;
     // this.replyWaitHistogram = null;
+    this.failureDetectionHistogram = null;
   }
 
   /**
@@ -976,6 +1018,9 @@ public class DistributionStats implements DMStats {
 
   public void close() {
     this.stats.close();
+    if (this.failureDetectionHistogram != null) {
+      this.failureDetectionHistogram.close();
+    }
   }
 
   /**
@@ -1774,6 +1819,22 @@ public class DistributionStats implements DMStats {
     }
   }
 
+  public int getAsyncCongestedReceivers() {
+    return stats.getInt(asyncCongestedReceiversId);
+  }
+
+  public void incAsyncCongestedReceivers(int inc) {
+    stats.incInt(asyncCongestedReceiversId, inc);
+  }
+
+  public int getAsyncCongestionsDetected() {
+    return stats.getInt(asyncCongestionsDetectedId);
+  }
+
+  public void incAsyncCongestionsDetected() {
+    stats.incInt(asyncCongestionsDetectedId, 1);
+  }
+
   /**
    * Returns a helper object so that the overflow queue can record its stats to the proper
    * distribution stats.
@@ -2426,4 +2487,34 @@ public class DistributionStats implements DMStats {
     this.stats.incLong(udpFinalCheckResponsesReceivedId, 1L);
   }
 
+  public long getIndirectCheckRequestsSent() {
+    return this.stats.getLong(indirectCheckRequestsSentId);
+  }
+
+  public void incIndirectCheckRequestsSent(int inc) {
+    this.stats.incLong(indirectCheckRequestsSentId, inc);
+  }
+
+  public long getIndirectCheckRequestsReceived() {
+    return this.stats.getLong(indirectCheckRequestsReceivedId);
+  }
+
+  public void incIndirectCheckRequestsReceived() {
+    this.stats.incLong(indirectCheckRequestsReceivedId, 1L);
+  }
+
+  public long getIndirectCheckResponsesReceived() {
+    return this.stats.getLong(indirectCheckResponsesReceivedId);
+  }
+
+  public void incIndirectCheckResponsesReceived() {
+    this.stats.incLong(indirectCheckResponsesReceivedId, 1L);
+  }
+
+  public void recordFailureDetectionTime(long millis) {
+    if (this.failureDetectionHistogram != null) {
+      this.failureDetectionHistogram.endOp(millis);
+    }
+  }
+
 }
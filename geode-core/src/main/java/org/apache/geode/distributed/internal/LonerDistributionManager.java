@@ -752,6 +752,22 @@ public class LonerDistributionManager implements DM {
     @Override
     public void endAsyncThread(long start) {}
 
+    @Override
+    public int getAsyncCongestedReceivers() {
+      return 0;
+    }
+
+    @Override
+    public void incAsyncCongestedReceivers(int inc) {}
+
+    @Override
+    public int getAsyncCongestionsDetected() {
+      return 0;
+    }
+
+    @Override
+    public void incAsyncCongestionsDetected() {}
+
     @Override
     public long getAsyncQueueAddTime() {
       return 0;
@@ -971,6 +987,33 @@ public class LonerDistributionManager implements DM {
     @Override
     public void incUdpFinalCheckResponsesReceived() {}
 
+    @Override
+    public long getIndirectCheckRequestsSent() {
+      return 0;
+    }
+
+    @Override
+    public void incIndirectCheckRequestsSent(int inc) {}
+
+    @Override
+    public long getIndirectCheckRequestsReceived() {
+      return 0;
+    }
+
+    @Override
+    public void incIndirectCheckRequestsReceived() {}
+
+    @Override
+    public long getIndirectCheckResponsesReceived() {
+      return 0;
+    }
+
+    @Override
+    public void incIndirectCheckResponsesReceived() {}
+
+    @Override
+    public void recordFailureDetectionTime(long millis) {}
+
     @Override
     public long startUDPMsgEncryption() {
       return 0;
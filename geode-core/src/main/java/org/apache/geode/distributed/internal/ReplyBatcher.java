@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelException;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * ReplyBatcher coalesces plain acknowledgements going to the same member into a single
+ * {@link BatchedReplyMessage}. Each member's acks are flushed by their own task, which sends
+ * whatever has accumulated for the member as soon as it runs, so an idle member replies without
+ * added delay while a busy one sends one message for many acks. A member whose connection is slow
+ * or blocked only holds up its own acks.
+ * <p>
+ * Acks still pending for a member are flushed by the sending thread before any other message is
+ * sent to that member, so an ack never overtakes a message sent after it.
+ * <p>
+ * Reply batching is enabled with the <code>gemfire.BATCH_REPLIES</code> system property and must
+ * be enabled on members that all understand BatchedReplyMessage.
+ *
+ * @since Geode 1.2
+ */
+public class ReplyBatcher {
+
+  private static final Logger logger = LogService.getLogger();
+
+  public static final boolean BATCH_REPLIES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "BATCH_REPLIES");
+
+  /** the maximum number of acks sent in one BatchedReplyMessage */
+  static final int MAX_BATCH_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "BATCH_REPLIES_MAX_SIZE", 1000)
+          .intValue();
+
+  private final ReplySender sender;
+
+  /** runs the flush tasks; owned by this batcher when it is an ExecutorService */
+  private final Executor flushers;
+
+  /** the acks waiting to be sent, keyed by recipient */
+  private final ConcurrentMap<InternalDistributedMember, PendingAcks> pending =
+      new ConcurrentHashMap<InternalDistributedMember, PendingAcks>();
+
+  private volatile boolean stopped;
+
+  ReplyBatcher(ReplySender sender, ThreadGroup group) {
+    this(sender, createFlushers(group));
+  }
+
+  ReplyBatcher(ReplySender sender, Executor flushers) {
+    this.sender = sender;
+    this.flushers = flushers;
+  }
+
+  private static ExecutorService createFlushers(final ThreadGroup group) {
+    ThreadFactory tf = new ThreadFactory() {
+      private final AtomicInteger threadNum = new AtomicInteger();
+
+      public Thread newThread(Runnable command) {
+        Thread thread =
+            new Thread(group, command, "Reply Batcher Thread " + this.threadNum.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    // a flush blocked on one member must not hold up the others, so threads are added as needed
+    return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+        new SynchronousQueue<Runnable>(), tf);
+  }
+
+  void stop() {
+    this.stopped = true;
+    if (this.flushers instanceof ExecutorService) {
+      // flushes already scheduled still run
+      ((ExecutorService) this.flushers).shutdown();
+    }
+  }
+
+  /**
+   * Queues a plain acknowledgement for the given processor in the recipient.
+   *
+   * @return false if the caller must send the ack itself
+   */
+  boolean add(InternalDistributedMember recipient, int processorId) {
+    if (this.stopped || recipient.getVersionObject().compareTo(Version.CURRENT) < 0) {
+      return false;
+    }
+    PendingAcks acks = this.pending.get(recipient);
+    if (acks == null) {
+      acks = new PendingAcks(recipient);
+      PendingAcks existing = this.pending.putIfAbsent(recipient, acks);
+      if (existing != null) {
+        acks = existing;
+      }
+    }
+    boolean schedule;
+    synchronized (acks) {
+      acks.ids.add(processorId);
+      schedule = !acks.scheduled;
+      acks.scheduled = true;
+    }
+    if (schedule) {
+      final PendingAcks toFlush = acks;
+      try {
+        this.flushers.execute(new Runnable() {
+          public void run() {
+            try {
+              flush(toFlush);
+            } catch (CancelException e) {
+              // shutting down
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // stopped after the ack was queued; send it now
+        flush(acks);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sends the acks still pending for the recipients of the given message. Called by the sending
+   * thread before the message is sent, so that an ack queued earlier is not overtaken by it.
+   */
+  void flushBefore(DistributionMessage message) {
+    if (this.pending.isEmpty()) {
+      return;
+    }
+    if (message.forAll()) {
+      for (PendingAcks acks : this.pending.values()) {
+        flushBefore(acks);
+      }
+    } else {
+      for (InternalDistributedMember recipient : message.getRecipients()) {
+        PendingAcks acks = this.pending.get(recipient);
+        if (acks != null) {
+          flushBefore(acks);
+        }
+      }
+    }
+  }
+
+  private void flushBefore(PendingAcks acks) {
+    if (acks.sendLock.isHeldByCurrentThread()) {
+      // this is one of our own batches being sent
+      return;
+    }
+    synchronized (acks) {
+      if (acks.ids.isEmpty()) {
+        return;
+      }
+    }
+    flush(acks);
+  }
+
+  /**
+   * Sends all acks pending for a member. Acks are taken and sent while holding the member's send
+   * lock, so they go out in the order they were queued.
+   */
+  private void flush(PendingAcks acks) {
+    acks.sendLock.lock();
+    try {
+      int[] ids;
+      synchronized (acks) {
+        ids = acks.ids.toIntArray();
+        acks.ids.clear();
+        acks.scheduled = false;
+      }
+      send(acks.recipient, ids);
+    } finally {
+      acks.sendLock.unlock();
+    }
+  }
+
+  private void send(InternalDistributedMember recipient, int[] ids) {
+    for (int start = 0; start < ids.length; start += MAX_BATCH_SIZE) {
+      int size = Math.min(MAX_BATCH_SIZE, ids.length - start);
+      DistributionMessage m;
+      if (size == 1) {
+        ReplyMessage reply = new ReplyMessage();
+        reply.setProcessorId(ids[start]);
+        m = reply;
+      } else {
+        int[] batch = new int[size];
+        System.arraycopy(ids, start, batch, 0, size);
+        m = new BatchedReplyMessage(batch);
+      }
+      m.setRecipient(recipient);
+      if (logger.isTraceEnabled()) {
+        logger.trace("Sending {} batched acks to {}", size, recipient);
+      }
+      this.sender.putOutgoing(m);
+    }
+  }
+
+  /**
+   * The acks waiting to be sent to one member. The ids and the scheduled flag are guarded by the
+   * PendingAcks; sending is serialized by the send lock.
+   */
+  private static class PendingAcks {
+    final InternalDistributedMember recipient;
+
+    final IntArrayList ids = new IntArrayList();
+
+    /** true while a flush task for this member is scheduled and has not taken the ids yet */
+    boolean scheduled;
+
+    final ReentrantLock sendLock = new ReentrantLock();
+
+    PendingAcks(InternalDistributedMember recipient) {
+      this.recipient = recipient;
+    }
+  }
+}
@@ -89,6 +89,9 @@ public class ReplyMessage extends HighPriorityDistributionMessage {
   public static void send(InternalDistributedMember recipient, int processorId,
       ReplyException exception, ReplySender dm, boolean internal) {
     Assert.assertTrue(recipient != null, "Sending a ReplyMessage to ALL");
+    if (exception == null && !internal && batchAck(recipient, processorId, dm)) {
+      return;
+    }
     ReplyMessage m = new ReplyMessage();
 
     m.processorId = processorId;
@@ -115,6 +118,9 @@ public class ReplyMessage extends HighPriorityDistributionMessage {
   public static void send(InternalDistributedMember recipient, int processorId, Object returnValue,
       ReplySender dm) {
     Assert.assertTrue(recipient != null, "Sending a ReplyMessage to ALL");
+    if (returnValue == null && batchAck(recipient, processorId, dm)) {
+      return;
+    }
     ReplyMessage m = new ReplyMessage();
 
     m.processorId = processorId;
@@ -172,7 +178,21 @@ public class ReplyMessage extends HighPriorityDistributionMessage {
     dm.putOutgoing(m);
   }
 
-
+  /**
+   * Hands a plain ack to the distribution manager's {@link ReplyBatcher}, if reply batching is
+   * enabled. Direct acks are never batched since they must go back on the socket the message was
+   * received on.
+   * 
+   * @return true if the ack will be sent by the batcher
+   */
+  private static boolean batchAck(InternalDistributedMember recipient, int processorId,
+      ReplySender dm) {
+    if (processorId == 0 || !(dm instanceof DistributionManager)) {
+      return false;
+    }
+    ReplyBatcher batcher = ((DistributionManager) dm).getReplyBatcher();
+    return batcher != null && batcher.add(recipient, processorId);
+  }
 
   /**
    * Processes this message. This method is invoked by the receiver of the message if the message is
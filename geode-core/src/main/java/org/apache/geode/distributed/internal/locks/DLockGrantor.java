@@ -2496,6 +2496,7 @@ public class DLockGrantor {
       }
       this.pendingRequests.add(request);
       this.dlock.getStats().incPendingRequests(1);
+      this.dlock.getStats().incRequestsQueued();
       return true;
     }
 
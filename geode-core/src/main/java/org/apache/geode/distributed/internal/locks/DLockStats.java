@@ -80,6 +80,7 @@ public class DLockStats implements DistributedLockStats {
   private final static int grantorThreadRemoveUnusedTokensTimeId;
   private final static int grantorThreadTimeId;
   private final static int pendingRequestsId;
+  private final static int requestsQueuedId;
   private final static int destroyReadWaitsInProgressId;
   private final static int destroyReadWaitsCompletedId;
   private final static int destroyReadWaitTimeId;
@@ -199,6 +200,8 @@ public class DLockStats implements DistributedLockStats {
         "Total time spent by grantor thread(s) performing all grantor tasks.";
     final String pendingRequestsDesc =
         "The current number of pending lock requests queued by grantors in this process.";
+    final String requestsQueuedDesc =
+        "Total number of lock requests that grantors in this process queued because the lock was held.";
     final String destroyReadWaitsInProgressDesc =
         "Current number of threads waiting for a DLockService destroy read lock.";
     final String destroyReadWaitsCompletedDesc =
@@ -295,6 +298,7 @@ public class DLockStats implements DistributedLockStats {
             grantorThreadRemoveUnusedTokensTimeDesc, "nanoseconds", false),
         f.createLongCounter("grantorThreadTime", grantorThreadTimeDesc, "nanoseconds", false),
         f.createIntGauge("pendingRequests", pendingRequestsDesc, "pendingRequests"),
+        f.createLongCounter("requestsQueued", requestsQueuedDesc, "requests"),
         f.createIntGauge("destroyReadWaitsInProgress", destroyReadWaitsInProgressDesc,
             "operations"),
         f.createIntCounter("destroyReadWaitsCompleted", destroyReadWaitsCompletedDesc,
@@ -370,6 +374,7 @@ public class DLockStats implements DistributedLockStats {
     grantorThreadRemoveUnusedTokensTimeId = type.nameToId("grantorThreadRemoveUnusedTokensTime");
     grantorThreadTimeId = type.nameToId("grantorThreadTime");
     pendingRequestsId = type.nameToId("pendingRequests");
+    requestsQueuedId = type.nameToId("requestsQueued");
     destroyReadWaitsInProgressId = type.nameToId("destroyReadWaitsInProgress");
     destroyReadWaitsCompletedId = type.nameToId("destroyReadWaitsCompleted");
     destroyReadWaitTimeId = type.nameToId("destroyReadWaitTime");
@@ -811,6 +816,15 @@ public class DLockStats implements DistributedLockStats {
     this.stats.incInt(pendingRequestsId, val);
   }
 
+  // total number of requests that had to wait in lock grantor queues
+  public long getRequestsQueued() {
+    return this.stats.getLong(requestsQueuedId);
+  }
+
+  public void incRequestsQueued() {
+    this.stats.incLong(requestsQueuedId, 1);
+  }
+
   // acquisition of destroyReadLock in DLockService
   public int getDestroyReadWaitsInProgress() {
     return stats.getInt(destroyReadWaitsInProgressId);
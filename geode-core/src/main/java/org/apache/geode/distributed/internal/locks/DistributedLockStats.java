@@ -188,6 +188,11 @@ public interface DistributedLockStats {
 
   public void incPendingRequests(int val);
 
+  // total number of requests that had to wait in lock grantor queues
+  public long getRequestsQueued();
+
+  public void incRequestsQueued();
+
   // acquisition of destroyReadLock in DLockService
   public int getDestroyReadWaitsInProgress();
 
@@ -250,6 +250,12 @@ public class DummyDLockStats implements DistributedLockStats {
 
   public void incPendingRequests(int val) {}
 
+  public long getRequestsQueued() {
+    return -1;
+  }
+
+  public void incRequestsQueued() {}
+
   public int getDestroyReadWaitsInProgress() {
     return -1;
   }
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal.locks;
+
+import org.apache.geode.distributed.DistributedLockService;
+import org.apache.geode.distributed.LeaseExpiredException;
+import org.apache.geode.distributed.internal.InternalDistributedSystem;
+
+/**
+ * A DistributedLockService that hash-partitions lock names across several underlying
+ * {@link DLockService}s called stripes. Every stripe has its own grantor. As with any DLockService,
+ * the elder makes the first member to request a lock in a stripe that stripe's grantor; the elder
+ * does not assign stripes to members. Grantors, and the work of granting, are therefore spread
+ * across the members only to the extent that different members are the first to lock in different
+ * stripes. A member can take over a stripe with {@link DLockService#becomeLockGrantor()} on the
+ * stripe returned by {@link #getStripe(Object)}.
+ * <p>
+ * Each stripe is registered as an ordinary DLockService named
+ * <code>serviceName + STRIPE_SEPARATOR + index</code>. All members using the service must use the
+ * same number of stripes.
+ * <p>
+ * Suspending locking suspends every stripe in index order, so two threads suspending concurrently
+ * cannot deadlock each other. The striped service is the lock grantor only if it is the grantor of
+ * every stripe.
+ *
+ * @since Geode 1.2
+ */
+public class StripedDLockService extends DistributedLockService {
+
+  public static final String STRIPE_SEPARATOR = "#stripe";
+
+  private final String serviceName;
+
+  private final DLockService[] stripes;
+
+  private StripedDLockService(String serviceName, DLockService[] stripes) {
+    this.serviceName = serviceName;
+    this.stripes = stripes;
+  }
+
+  /**
+   * Creates a striped lock service. Stripes already created in this process under the same name
+   * are reused.
+   *
+   * @param serviceName name of the service
+   * @param ds InternalDistributedSystem
+   * @param stripeCount the number of stripes, which must be the same in every member
+   * @param distributed true if lock service will be distributed; false will be local only
+   * @param destroyOnDisconnect true if lock service should destroy itself using system disconnect
+   *        listener
+   * @param automateFreeResources true if freeResources should be automatically called during unlock
+   *
+   * @throws IllegalArgumentException if stripeCount is less than one
+   * @throws IllegalStateException if system is in process of disconnecting
+   */
+  public static StripedDLockService create(String serviceName, InternalDistributedSystem ds,
+      int stripeCount, boolean distributed, boolean destroyOnDisconnect,
+      boolean automateFreeResources) {
+    if (stripeCount < 1) {
+      throw new IllegalArgumentException("stripeCount must be at least 1 but was " + stripeCount);
+    }
+    DLockService[] stripes = new DLockService[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      String stripeName = getStripeName(serviceName, i);
+      synchronized (DLockService.creationLock) {
+        DLockService stripe = DLockService.getInternalServiceNamed(stripeName);
+        if (stripe == null) {
+          stripe = (DLockService) DLockService.create(stripeName, ds, distributed,
+              destroyOnDisconnect, automateFreeResources);
+        }
+        stripes[i] = stripe;
+      }
+    }
+    return new StripedDLockService(serviceName, stripes);
+  }
+
+  static String getStripeName(String serviceName, int index) {
+    return serviceName + STRIPE_SEPARATOR + index;
+  }
+
+  public String getName() {
+    return this.serviceName;
+  }
+
+  /**
+   * Returns the stripe that grants the lock for the given name.
+   */
+  public DLockService getStripe(Object name) {
+    return this.stripes[(name.hashCode() & 0x7fffffff) % this.stripes.length];
+  }
+
+  int getStripeCount() {
+    return this.stripes.length;
+  }
+
+  /**
+   * Queries the stripe that grants the named lock for the current lease holder.
+   *
+   * @see DLockService#queryLock(Object)
+   */
+  public DLockRemoteToken queryLock(Object name) {
+    return getStripe(name).queryLock(name);
+  }
+
+  @Override
+  public boolean lock(Object name, long waitTimeMillis, long leaseTimeMillis) {
+    return getStripe(name).lock(name, waitTimeMillis, leaseTimeMillis);
+  }
+
+  @Override
+  public boolean lockInterruptibly(Object name, long waitTimeMillis, long leaseTimeMillis)
+      throws InterruptedException {
+    return getStripe(name).lockInterruptibly(name, waitTimeMillis, leaseTimeMillis);
+  }
+
+  @Override
+  public void unlock(Object name) throws LeaseExpiredException {
+    getStripe(name).unlock(name);
+  }
+
+  @Override
+  public boolean isHeldByCurrentThread(Object name) {
+    return getStripe(name).isHeldByCurrentThread(name);
+  }
+
+  @Override
+  public boolean suspendLockingInterruptibly(long waitTimeMillis) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + waitTimeMillis;
+    int suspended = 0;
+    boolean success = false;
+    try {
+      for (; suspended < this.stripes.length; suspended++) {
+        if (!this.stripes[suspended]
+            .suspendLockingInterruptibly(remainingWaitMillis(waitTimeMillis, deadline))) {
+          return false;
+        }
+      }
+      success = true;
+      return true;
+    } finally {
+      if (!success) {
+        resumeLocking(suspended);
+      }
+    }
+  }
+
+  @Override
+  public boolean suspendLocking(long waitTimeMillis) {
+    final long deadline = System.currentTimeMillis() + waitTimeMillis;
+    int suspended = 0;
+    boolean success = false;
+    try {
+      for (; suspended < this.stripes.length; suspended++) {
+        if (!this.stripes[suspended]
+            .suspendLocking(remainingWaitMillis(waitTimeMillis, deadline))) {
+          return false;
+        }
+      }
+      success = true;
+      return true;
+    } finally {
+      if (!success) {
+        resumeLocking(suspended);
+      }
+    }
+  }
+
+  /**
+   * Returns the wait time for the next stripe, where a negative waitTimeMillis means wait forever.
+   */
+  private static long remainingWaitMillis(long waitTimeMillis, long deadline) {
+    if (waitTimeMillis < 0) {
+      return waitTimeMillis;
+    }
+    return Math.max(0, deadline - System.currentTimeMillis());
+  }
+
+  @Override
+  public void resumeLocking() {
+    resumeLocking(this.stripes.length);
+  }
+
+  /**
+   * Resumes locking on the first count stripes, in reverse order.
+   */
+  private void resumeLocking(int count) {
+    for (int i = count - 1; i >= 0; i--) {
+      this.stripes[i].resumeLocking();
+    }
+  }
+
+  @Override
+  public boolean isLockingSuspendedByCurrentThread() {
+    for (DLockService stripe : this.stripes) {
+      if (!stripe.isLockingSuspendedByCurrentThread()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void freeResources(Object name) {
+    getStripe(name).freeResources(name);
+  }
+
+  @Override
+  public void becomeLockGrantor() {
+    for (DLockService stripe : this.stripes) {
+      stripe.becomeLockGrantor();
+    }
+  }
+
+  @Override
+  public boolean isLockGrantor() {
+    for (DLockService stripe : this.stripes) {
+      if (!stripe.isLockGrantor()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Destroys every stripe and removes it from the map of services.
+   *
+   * @see DLockService#destroyAndRemove()
+   */
+  public void destroyAndRemove() {
+    for (DLockService stripe : this.stripes) {
+      stripe.destroyAndRemove();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "StripedDLockService@" + Integer.toHexString(hashCode()) + " named " + this.serviceName
+        + " with " + this.stripes.length + " stripes";
+  }
+}
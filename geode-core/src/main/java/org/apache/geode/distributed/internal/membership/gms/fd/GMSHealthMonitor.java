@@ -123,6 +123,17 @@ public class GMSHealthMonitor implements HealthMonitor, MessageHandler {
   public static final int LOGICAL_INTERVAL =
       Integer.getInteger("geode.logical-message-received-interval", 2);
 
+  /**
+   * The number of other members asked to check on a member whenever this member sends it a
+   * heartbeat request because it has been silent. A report from any of them that the member
+   * responded within member-timeout counts as a response, which keeps a member that is only
+   * unreachable from here, or that dropped one heartbeat, from being sent to the coordinator for a
+   * final check. The indirect checks run alongside the direct one, so they do not add to the time
+   * it takes to suspect a member. Zero disables indirect checks.
+   */
+  public static int INDIRECT_CHECK_MEMBERS =
+      Integer.getInteger("geode.indirect-check-members", 0);
+
   /**
    * stall time to wait for members leaving concurrently
    */
@@ -409,12 +420,16 @@ public class GMSHealthMonitor implements HealthMonitor, MessageHandler {
     checkExecutor.execute(() -> {
       boolean pinged = false;
       try {
-        pinged = GMSHealthMonitor.this.doCheckMember(mbr, true);
+        pinged = GMSHealthMonitor.this.doCheckMember(mbr, true, INDIRECT_CHECK_MEMBERS > 0);
       } catch (CancelException e) {
         return;
       }
 
       if (!pinged) {
+        TimeStamp ts = memberTimeStamps.get(mbr);
+        if (ts != null) {
+          stats.recordFailureDetectionTime(System.currentTimeMillis() - ts.getTime());
+        }
         suspectedMemberInView.put(mbr, currentView);
         String reason = "Member isn't responding to heartbeat requests";
         GMSHealthMonitor.this.initiateSuspicion(mbr, reason);
@@ -443,6 +458,18 @@ public class GMSHealthMonitor implements HealthMonitor, MessageHandler {
    * response. If it doesn't see response then it returns false.
    */
   private boolean doCheckMember(InternalDistributedMember member, boolean waitForResponse) {
+    return doCheckMember(member, waitForResponse, false);
+  }
+
+  /**
+   * This method sends heartbeat request to other member and waits for member-timeout time for
+   * response. If it doesn't see response then it returns false. If indirectCheck is true, other
+   * members are asked to check on the member at the same time, and a report from any of them that
+   * the member responded counts as a response, so an indirect check does not add to the time it
+   * takes to suspect a member.
+   */
+  private boolean doCheckMember(InternalDistributedMember member, boolean waitForResponse,
+      boolean indirectCheck) {
     if (playingDead || beingSick) {
       // a member playingDead should not be sending messages to other
       // members, so we avoid sending heartbeat requests or suspect
@@ -453,6 +480,7 @@ public class GMSHealthMonitor implements HealthMonitor, MessageHandler {
     logger.trace("Checking member {}", member);
     final HeartbeatRequestMessage hrm = constructHeartbeatRequestMessage(member);
     Response pingResp = null;
+    int indirectRequestId = -1;
     if (waitForResponse) {
       pingResp = new Response();
       requestIdVsResponse.put(hrm.getRequestId(), pingResp);
@@ -466,29 +494,10 @@ public class GMSHealthMonitor implements HealthMonitor, MessageHandler {
         // member is not part of current view.
         logger.trace("Member {} is not part of current view.", member);
       } else if (waitForResponse) {
-        synchronized (pingResp) {
-          if (pingResp.getResponseMsg() == null) {
-            pingResp.wait(memberTimeout);
-          }
-          TimeStamp ts = memberTimeStamps.get(member);
-          if (ts != null && ts.getTime() > startTime) {
-            return true;
-          }
-          if (pingResp.getResponseMsg() == null) {
-            if (isStopping) {
-              return true;
-            }
-            logger.trace("no heartbeat response received from {} and no recent activity", member);
-            return false;
-          } else {
-            logger.trace("received heartbeat from {}", member);
-            this.stats.incHeartbeatsReceived();
-            if (ts != null) {
-              ts.setTime(System.currentTimeMillis());
-            }
-            return true;
-          }
+        if (indirectCheck) {
+          indirectRequestId = sendIndirectCheckRequest(member, pingResp);
         }
+        return waitForHeartbeat(member, pingResp, startTime);
       }
     } catch (InterruptedException e) {
       logger.debug(
@@ -498,10 +507,85 @@ public class GMSHealthMonitor implements HealthMonitor, MessageHandler {
       if (waitForResponse) {
         requestIdVsResponse.remove(hrm.getRequestId());
       }
+      if (indirectRequestId >= 0) {
+        requestIdVsResponse.remove(indirectRequestId);
+      }
     }
     return false;
   }
 
+  /**
+   * Waits for member-timeout for a heartbeat response from the given member, or for a report from
+   * another member that it responded to an indirect check.
+   *
+   * @return true if a response was received or the member contacted this member since startTime
+   */
+  private boolean waitForHeartbeat(InternalDistributedMember member, Response resp,
+      long startTime) throws InterruptedException {
+    synchronized (resp) {
+      if (resp.getResponseMsg() == null) {
+        resp.wait(memberTimeout);
+      }
+      TimeStamp ts = memberTimeStamps.get(member);
+      if (ts != null && ts.getTime() > startTime) {
+        return true;
+      }
+      if (resp.getResponseMsg() == null) {
+        if (isStopping) {
+          return true;
+        }
+        logger.trace("no heartbeat response received from {} and no recent activity", member);
+        return false;
+      } else {
+        InternalDistributedMember responder = resp.getResponseMsg().getSender();
+        if (member.equals(responder)) {
+          logger.trace("received heartbeat from {}", member);
+          this.stats.incHeartbeatsReceived();
+        } else {
+          logger.trace("{} reports that {} is alive", responder, member);
+          this.stats.incIndirectCheckResponsesReceived();
+        }
+        if (ts != null) {
+          ts.setTime(System.currentTimeMillis());
+        }
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Asks up to INDIRECT_CHECK_MEMBERS other members to send a heartbeat request to the given member
+   * and to report to this member if it responds. Their reports are delivered to the given Response.
+   *
+   * @return the id of the request, which the caller must unregister, or -1 if no request was sent
+   */
+  private int sendIndirectCheckRequest(InternalDistributedMember member, Response resp) {
+    NetView cv = currentView;
+    if (cv == null) {
+      return -1;
+    }
+    List<InternalDistributedMember> helpers = new ArrayList<>(cv.getMembers());
+    helpers.remove(localAddress);
+    helpers.remove(member);
+    helpers.removeAll(suspectedMemberInView.keySet());
+    if (helpers.isEmpty()) {
+      return -1;
+    }
+    Collections.shuffle(helpers);
+    if (helpers.size() > INDIRECT_CHECK_MEMBERS) {
+      helpers = helpers.subList(0, INDIRECT_CHECK_MEMBERS);
+    }
+
+    logger.trace("Asking {} to check member {}", helpers, member);
+    final int reqId = requestId.getAndIncrement();
+    final HeartbeatRequestMessage hrm = new HeartbeatRequestMessage(member, reqId);
+    hrm.setRecipients(helpers);
+    requestIdVsResponse.put(reqId, resp);
+    this.services.getMessenger().send(hrm);
+    this.stats.incIndirectCheckRequestsSent(helpers.size());
+    return reqId;
+  }
+
   /**
    * During final check, establish TCP connection between current member and suspect member. And
    * exchange PING/PONG message to see if the suspect member is still alive.
@@ -1098,11 +1182,53 @@ public class GMSHealthMonitor implements HealthMonitor, MessageHandler {
       if (membersNotReceivedMsg != null && membersNotReceivedMsg.contains(m.getSender())) {
         logger.debug("Unable to send heartbeat to member: {}", m.getSender());
       }
+    } else if (isIndirectCheckRequest(m, me)) {
+      processIndirectCheckRequest(m);
     } else {
       logger.debug("Ignoring heartbeat request intended for {}.  My ID is {}", m.getTarget(), me);
     }
   }
 
+  /**
+   * A heartbeat request for another member in the view is a request to check on that member for
+   * the sender. Requests for an old incarnation of this member are not, since checking them would
+   * just send the request back here.
+   */
+  private boolean isIndirectCheckRequest(HeartbeatRequestMessage m, InternalDistributedMember me) {
+    InternalDistributedMember target = m.getTarget();
+    NetView cv = currentView;
+    return m.getRequestId() >= 0 && me.getVmViewId() >= 0 && cv != null && cv.contains(target)
+        && !target.equals(m.getSender())
+        && !(target.getInetAddress().equals(me.getInetAddress())
+            && target.getPort() == me.getPort());
+  }
+
+  private void processIndirectCheckRequest(HeartbeatRequestMessage m) {
+    this.stats.incIndirectCheckRequestsReceived();
+    final InternalDistributedMember target = m.getTarget();
+    final InternalDistributedMember requester = m.getSender();
+    final int reqId = m.getRequestId();
+    try {
+      checkExecutor.execute(() -> {
+        boolean pinged;
+        try {
+          pinged = doCheckMember(target, true);
+        } catch (CancelException e) {
+          return;
+        }
+        if (pinged && !isStopping) {
+          logger.trace("Telling {} that {} is alive", requester, target);
+          HeartbeatMessage hm = new HeartbeatMessage(reqId);
+          hm.setRecipient(requester);
+          services.getMessenger().send(hm);
+          this.stats.incHeartbeatsSent();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // shutting down
+    }
+  }
+
   private void processHeartbeat(HeartbeatMessage m) {
     this.stats.incHeartbeatsReceived();
     if (m.getRequestId() >= 0) {
@@ -81,4 +81,8 @@ public class HistogramStats {
     this.stats.incInt(this.statCounterIndex[index], 1);
     this.stats.incLong(this.statCounterIndex[index + 1], delta);
   }
+
+  public void close() {
+    this.stats.close();
+  }
 }
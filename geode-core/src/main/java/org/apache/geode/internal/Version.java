@@ -59,7 +59,7 @@ public final class Version implements Comparable<Version> {
   /** byte used as ordinal to represent this <code>Version</code> */
   private final short ordinal;
 
-  public static final int HIGHEST_VERSION = 50;
+  public static final int HIGHEST_VERSION = 55;
 
   private static final Version[] VALUES = new Version[HIGHEST_VERSION + 1];
 
@@ -185,11 +185,18 @@ public final class Version implements Comparable<Version> {
   public static final Version GFE_91 =
       new Version("GFE", "9.1", (byte) 9, (byte) 1, (byte) 0, (byte) 0, GFE_91_ORDINAL);
 
+  // 51-54 available for 9.1.x variants
+
+  private static final byte GEODE_120_ORDINAL = 55;
+
+  public static final Version GEODE_120 =
+      new Version("GEODE", "1.2.0", (byte) 1, (byte) 2, (byte) 0, (byte) 0, GEODE_120_ORDINAL);
+
   /**
    * This constant must be set to the most current version of the product. !!! NOTE: update
    * HIGHEST_VERSION when changing CURRENT !!!
    */
-  public static final Version CURRENT = GFE_91;
+  public static final Version CURRENT = GEODE_120;
 
   /**
    * A lot of versioning code needs access to the current version's ordinal
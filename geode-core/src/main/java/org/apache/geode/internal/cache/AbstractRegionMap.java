@@ -199,6 +199,24 @@ public abstract class AbstractRegionMap implements RegionMap {
     return (Collection) _getMap().values();
   }
 
+  /**
+   * Returns an iterator over the entries in one stripe of this map's segments.
+   * 
+   * @see CustomEntryConcurrentHashMap#valuesInStripe(int, int)
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public Iterator<RegionEntry> regionEntriesInStripe(int stripe, int stripeCount) {
+    return (Iterator) _getMap().valuesInStripe(stripe, stripeCount);
+  }
+
+  /**
+   * Returns the largest number of stripes that {@link #regionEntriesInStripe(int, int)} can
+   * usefully split this map into.
+   */
+  public int getStripeLimit() {
+    return _getMap().getSegmentCount();
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
   public Collection<RegionEntry> regionEntriesInVM() {
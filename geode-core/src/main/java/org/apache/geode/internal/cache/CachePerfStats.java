@@ -51,6 +51,10 @@ public class CachePerfStats {
   protected static final int deltaGetInitialImagesCompletedId;
   protected static final int getInitialImageTimeId;
   protected static final int getInitialImageKeysReceivedId;
+  protected static final int profileExchangesInProgressId;
+  protected static final int profileExchangesCompletedId;
+  protected static final int profileExchangeTimeId;
+  protected static final int profileExchangesBatchedId;
   protected static final int regionsId;
   protected static final int partitionedRegionsId;
   protected static final int destroysId;
@@ -76,6 +80,8 @@ public class CachePerfStats {
   protected final static int queryResultsHashCollisionsId;
   protected final static int queryResultsHashCollisionProbeTimeId;
   protected final static int partitionedRegionQueryRetriesId;
+  protected final static int compiledQueryCacheHitsId;
+  protected final static int compiledQueryCacheMissesId;
 
   protected static final int txSuccessLifeTimeId;
   protected static final int txFailedLifeTimeId;
@@ -196,6 +202,14 @@ public class CachePerfStats {
         "Total time spent doing getInitialImages for region creation.";
     final String getInitialImageKeysReceivedDesc =
         "Total number of keys received while doing getInitialImage operations.";
+    final String profileExchangesInProgressDesc =
+        "Current number of region profile exchanges with other members in progress.";
+    final String profileExchangesCompletedDesc =
+        "Total number of region profile exchanges initiated by this cache that have completed.";
+    final String profileExchangeTimeDesc =
+        "Total time spent exchanging region profiles with other members for region creation.";
+    final String profileExchangesBatchedDesc =
+        "Total number of region profile exchange requests sent to other members batched with requests for other regions.";
     final String regionsDesc = "The current number of regions in the cache.";
     final String partitionedRegionsDesc = "The current number of partitioned regions in the cache.";
     final String destroysDesc =
@@ -238,6 +252,10 @@ public class CachePerfStats {
         "Total time spent probing the hashtable in an OQL result set due to hash code collisions, includes reads, writes, and rehashes";
     final String partitionedRegionOQLQueryRetriesDesc =
         "Total number of times an OQL Query on a Partitioned Region had to be retried";
+    final String compiledQueryCacheHitsDesc =
+        "Total number of times a new query was created from an already compiled query string";
+    final String compiledQueryCacheMissesDesc =
+        "Total number of times a new query had to be compiled because its query string was not in the compiled query cache";
     final String txSuccessLifeTimeDesc =
         "The total amount of time, in nanoseconds, spent in a transaction before a successful commit. The time measured starts at transaction begin and ends when commit is called.";
     final String txFailedLifeTimeDesc =
@@ -385,6 +403,13 @@ public class CachePerfStats {
             f.createLongCounter("getInitialImageTime", getInitialImageTimeDesc, "nanoseconds"),
             f.createIntCounter("getInitialImageKeysReceived", getInitialImageKeysReceivedDesc,
                 "keys"),
+            f.createIntGauge("profileExchangesInProgress", profileExchangesInProgressDesc,
+                "operations"),
+            f.createIntCounter("profileExchangesCompleted", profileExchangesCompletedDesc,
+                "operations"),
+            f.createLongCounter("profileExchangeTime", profileExchangeTimeDesc, "nanoseconds"),
+            f.createIntCounter("profileExchangesBatched", profileExchangesBatchedDesc,
+                "messages"),
             f.createIntGauge("regions", regionsDesc, "regions"),
             f.createIntGauge("partitionedRegions", partitionedRegionsDesc, "partitionedRegions"),
             f.createIntCounter("destroys", destroysDesc, "operations"),
@@ -414,6 +439,9 @@ public class CachePerfStats {
                 queryResultsHashCollisionProbeTimeDesc, "nanoseconds"),
             f.createLongCounter("partitionedRegionQueryRetries",
                 partitionedRegionOQLQueryRetriesDesc, "retries"),
+            f.createLongCounter("compiledQueryCacheHits", compiledQueryCacheHitsDesc, "queries"),
+            f.createLongCounter("compiledQueryCacheMisses", compiledQueryCacheMissesDesc,
+                "queries"),
 
             f.createIntCounter("txCommits", txCommitsDesc, "commits"),
             f.createIntCounter("txCommitChanges", txCommitChangesDesc, "changes"),
@@ -533,6 +561,10 @@ public class CachePerfStats {
     deltaGetInitialImagesCompletedId = type.nameToId("deltaGetInitialImagesCompleted");
     getInitialImageTimeId = type.nameToId("getInitialImageTime");
     getInitialImageKeysReceivedId = type.nameToId("getInitialImageKeysReceived");
+    profileExchangesInProgressId = type.nameToId("profileExchangesInProgress");
+    profileExchangesCompletedId = type.nameToId("profileExchangesCompleted");
+    profileExchangeTimeId = type.nameToId("profileExchangeTime");
+    profileExchangesBatchedId = type.nameToId("profileExchangesBatched");
     regionsId = type.nameToId("regions");
     partitionedRegionsId = type.nameToId("partitionedRegions");
     destroysId = type.nameToId("destroys");
@@ -558,6 +590,8 @@ public class CachePerfStats {
     queryResultsHashCollisionsId = type.nameToId("queryResultsHashCollisions");
     queryResultsHashCollisionProbeTimeId = type.nameToId("queryResultsHashCollisionProbeTime");
     partitionedRegionQueryRetriesId = type.nameToId("partitionedRegionQueryRetries");
+    compiledQueryCacheHitsId = type.nameToId("compiledQueryCacheHits");
+    compiledQueryCacheMissesId = type.nameToId("compiledQueryCacheMisses");
 
     txSuccessLifeTimeId = type.nameToId("txSuccessLifeTime");
     txFailedLifeTimeId = type.nameToId("txFailedLifeTime");
@@ -720,6 +754,22 @@ public class CachePerfStats {
     return stats.getInt(getInitialImageKeysReceivedId);
   }
 
+  public int getProfileExchangesInProgress() {
+    return stats.getInt(profileExchangesInProgressId);
+  }
+
+  public int getProfileExchangesCompleted() {
+    return stats.getInt(profileExchangesCompletedId);
+  }
+
+  public long getProfileExchangeTime() {
+    return stats.getLong(profileExchangeTimeId);
+  }
+
+  public int getProfileExchangesBatched() {
+    return stats.getInt(profileExchangesBatchedId);
+  }
+
   public int getRegions() {
     return stats.getInt(regionsId);
   }
@@ -1062,6 +1112,29 @@ public class CachePerfStats {
     stats.incInt(getInitialImageKeysReceivedId, 1);
   }
 
+  /**
+   * @return the timestamp that marks the start of the operation
+   */
+  public long startProfileExchange() {
+    stats.incInt(profileExchangesInProgressId, 1);
+    return getStatTime();
+  }
+
+  /**
+   * @param start the timestamp taken when the operation started
+   */
+  public void endProfileExchange(long start) {
+    if (enableClockStats) {
+      stats.incLong(profileExchangeTimeId, getStatTime() - start);
+    }
+    stats.incInt(profileExchangesInProgressId, -1);
+    stats.incInt(profileExchangesCompletedId, 1);
+  }
+
+  public void incProfileExchangesBatched(int messages) {
+    stats.incInt(profileExchangesBatchedId, messages);
+  }
+
   public long startIndexUpdate() {
     stats.incInt(indexUpdateInProgressId, 1);
     return getStatTime();
@@ -1479,6 +1552,22 @@ public class CachePerfStats {
     return this.stats.getLong(partitionedRegionQueryRetriesId);
   }
 
+  public void incCompiledQueryCacheHits() {
+    this.stats.incLong(compiledQueryCacheHitsId, 1);
+  }
+
+  public long getCompiledQueryCacheHits() {
+    return this.stats.getLong(compiledQueryCacheHitsId);
+  }
+
+  public void incCompiledQueryCacheMisses() {
+    this.stats.incLong(compiledQueryCacheMissesId, 1);
+  }
+
+  public long getCompiledQueryCacheMisses() {
+    return this.stats.getLong(compiledQueryCacheMissesId);
+  }
+
   public QueueStatHelper getEvictionQueueStatHelper() {
     return new QueueStatHelper() {
       public void add() {
@@ -572,6 +572,9 @@ public class CacheServerImpl extends AbstractCacheServer implements Distribution
       factory.setDiskSynchronous(true);
     }
     factory.setDataPolicy(DataPolicy.NORMAL);
+    if (HARegionQueue.OFF_HEAP_CLIENT_MESSAGES && cache.getOffHeapStore() != null) {
+      factory.setOffHeap(true);
+    }
     // enable statistics
     factory.setStatisticsEnabled(true);
     /* setting LIFO related eviction attributes */
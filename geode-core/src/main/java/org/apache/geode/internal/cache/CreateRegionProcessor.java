@@ -73,7 +73,16 @@ public class CreateRegionProcessor implements ProfileExchangeProcessor {
 
   /** this method tells other members that the region is being created */
   public void initializeRegion() {
-    InternalDistributedSystem system = this.newRegion.getSystem();
+    CachePerfStats stats = ((LocalRegion) this.newRegion).getCachePerfStats();
+    long start = stats.startProfileExchange();
+    try {
+      exchangeProfiles();
+    } finally {
+      stats.endProfileExchange(start);
+    }
+  }
+
+  private void exchangeProfiles() {
     // try 5 times, see CreateRegionMessage#skipDuringInitialization
     for (int retry = 0; retry < 5; retry++) {
       Set recps = getRecipients();
@@ -107,7 +116,13 @@ public class CreateRegionProcessor implements ProfileExchangeProcessor {
         msg.severeAlertCompatible = true;
       }
 
-      this.newRegion.getDistributionManager().putOutgoing(msg);
+      ProfileExchangeBatcher batcher =
+          ((GemFireCacheImpl) this.newRegion.getCache()).getProfileExchangeBatcher();
+      if (batcher != null) {
+        batcher.send(msg);
+      } else {
+        this.newRegion.getDistributionManager().putOutgoing(msg);
+      }
       // this was in a while() loop, which is incorrect use of a reply processor.
       // Reply procs are deregistered when they return from waitForReplies
       try {
@@ -918,4 +933,86 @@ public class CreateRegionProcessor implements ProfileExchangeProcessor {
       return buff.toString();
     }
   }
+
+  /**
+   * Carries the CreateRegionMessages for several regions that are being created concurrently to a
+   * single member. Sent by a {@link ProfileExchangeBatcher}. Each of the carried messages is
+   * scheduled as if it had been received separately, and each sends its own reply.
+   */
+  public static final class BatchedCreateRegionMessage extends HighPriorityDistributionMessage {
+
+    private List<CreateRegionMessage> messages;
+
+    public BatchedCreateRegionMessage() {
+      // for serialization
+    }
+
+    BatchedCreateRegionMessage(List<CreateRegionMessage> messages) {
+      this.messages = messages;
+    }
+
+    /** the carried messages are scheduled by the reader thread */
+    @Override
+    public boolean getInlineProcess() {
+      return true;
+    }
+
+    @Override
+    public boolean isSevereAlertCompatible() {
+      for (CreateRegionMessage msg : this.messages) {
+        if (msg.isSevereAlertCompatible()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean sendViaUDP() {
+      return true;
+    }
+
+    @Override
+    protected void process(final DistributionManager dm) {
+      for (CreateRegionMessage msg : this.messages) {
+        msg.setSender(getSender());
+        dm.handleIncomingDMsg(msg);
+      }
+    }
+
+    List<CreateRegionMessage> getMessages() {
+      return this.messages;
+    }
+
+    public int getDSFID() {
+      return BATCHED_CREATE_REGION_MESSAGE;
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+      super.fromData(in);
+      int size = in.readInt();
+      this.messages = new ArrayList<CreateRegionMessage>(size);
+      for (int i = 0; i < size; i++) {
+        CreateRegionMessage msg = new CreateRegionMessage();
+        msg.fromData(in);
+        this.messages.add(msg);
+      }
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      super.toData(out);
+      out.writeInt(this.messages.size());
+      for (CreateRegionMessage msg : this.messages) {
+        msg.toData(out);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "BatchedCreateRegionMessage (sender=" + getSender() + "; messages=" + this.messages
+          + ")";
+    }
+  }
 }
@@ -36,6 +36,7 @@ import org.apache.geode.distributed.internal.DistributionAdvisor.Profile;
 import org.apache.geode.distributed.internal.DistributionAdvisor.ProfileVisitor;
 import org.apache.geode.distributed.internal.locks.DLockRemoteToken;
 import org.apache.geode.distributed.internal.locks.DLockService;
+import org.apache.geode.distributed.internal.locks.StripedDLockService;
 import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
 import org.apache.geode.i18n.StringId;
 import org.apache.geode.internal.Assert;
@@ -85,6 +86,14 @@ public class DistributedRegion extends LocalRegion implements CacheDistributionA
   /** causes cache profile to be added to afterRemoteRegionCreate notification for testing */
   public static boolean TEST_HOOK_ADD_PROFILE = false;
 
+  /**
+   * The number of lock services, each with its own grantor, that the entry locks of a region are
+   * hash-partitioned across. Must be the same in every member.
+   */
+  static final int LOCK_SERVICE_STRIPES = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "DistributedRegion.LOCK_SERVICE_STRIPES", 1)
+      .intValue();
+
   /** Used to sync accesses to this.dlockService to allow lazy construction */
   private final Object dlockMonitor = new Object();
 
@@ -2191,7 +2200,13 @@ public class DistributedRegion extends LocalRegion implements CacheDistributionA
       String svcName = getFullPath();
 
       if (this.dlockService == null) {
-        this.dlockService = DistributedLockService.getServiceNamed(svcName);
+        if (LOCK_SERVICE_STRIPES > 1) {
+          this.dlockService = StripedDLockService.create(svcName, getSystem(),
+              LOCK_SERVICE_STRIPES, true /* distributed */, false /* destroyOnDisconnect */,
+              false /* automateFreeResources */);
+        } else {
+          this.dlockService = DistributedLockService.getServiceNamed(svcName);
+        }
         if (this.dlockService == null) {
           this.dlockService = DLockService.create(getFullPath(), getSystem(),
               true /* distributed */, false /* destroyOnDisconnect */, // region destroy will
@@ -2211,6 +2226,17 @@ public class DistributedRegion extends LocalRegion implements CacheDistributionA
     }
   }
 
+  /**
+   * Queries the lock service for the current holder of the entry lock for the given key.
+   */
+  private DLockRemoteToken queryLock(Object key) {
+    DistributedLockService dls = getLockService();
+    if (dls instanceof StripedDLockService) {
+      return ((StripedDLockService) dls).queryLock(key);
+    }
+    return ((DLockService) dls).queryLock(key);
+  }
+
   /**
    * @see LocalRegion#isCurrentlyLockGrantor()
    */
@@ -2472,7 +2498,7 @@ public class DistributedRegion extends LocalRegion implements CacheDistributionA
       this.persistenceAdvisor.close(); // fix for bug 41094
     }
     this.distAdvisor.close();
-    DLockService dls = null;
+    DistributedLockService dls = null;
 
     // Fix for bug 46338. Wait for in progress clears before destroying the
     // lock service, because destroying the service immediately releases the dlock
@@ -2480,12 +2506,16 @@ public class DistributedRegion extends LocalRegion implements CacheDistributionA
 
     synchronized (this.dlockMonitor) {
       if (this.dlockService != null) {
-        dls = (DLockService) this.dlockService;
+        dls = this.dlockService;
       }
     }
     if (dls != null) {
       try {
-        dls.destroyAndRemove();
+        if (dls instanceof StripedDLockService) {
+          ((StripedDLockService) dls).destroyAndRemove();
+        } else {
+          ((DLockService) dls).destroyAndRemove();
+        }
       } catch (CancelException e) {
         // bug 37118
         if (logger.isDebugEnabled()) {
@@ -3179,7 +3209,7 @@ public class DistributedRegion extends LocalRegion implements CacheDistributionA
                 suspected = true;
                 severeAlertIssued = false; // in case this is a new lock holder
                 waitInterval = ackSAThreshold;
-                DLockRemoteToken remoteToken = ((DLockService) getLockService()).queryLock(key);
+                DLockRemoteToken remoteToken = queryLock(key);
                 lockHolder = remoteToken.getLessee();
                 if (lockHolder != null) {
                   dm.getMembershipManager().suspectMember(lockHolder,
@@ -3187,7 +3217,7 @@ public class DistributedRegion extends LocalRegion implements CacheDistributionA
                           + ackWaitThreshold / 1000 + " seconds");
                 }
               } else if (elapsed > ackSAThreshold) {
-                DLockRemoteToken remoteToken = ((DLockService) getLockService()).queryLock(key);
+                DLockRemoteToken remoteToken = queryLock(key);
                 if (lockHolder != null && remoteToken.getLessee() != null
                     && lockHolder.equals(remoteToken.getLessee())) {
                   if (!severeAlertIssued) {
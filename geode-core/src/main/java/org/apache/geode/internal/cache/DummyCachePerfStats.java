@@ -96,6 +96,26 @@ public class DummyCachePerfStats extends CachePerfStats {
     return 0;
   }
 
+  @Override
+  public int getProfileExchangesInProgress() {
+    return 0;
+  }
+
+  @Override
+  public int getProfileExchangesCompleted() {
+    return 0;
+  }
+
+  @Override
+  public long getProfileExchangeTime() {
+    return 0;
+  }
+
+  @Override
+  public int getProfileExchangesBatched() {
+    return 0;
+  }
+
   @Override
   public int getRegions() {
     return 0;
@@ -282,6 +302,17 @@ public class DummyCachePerfStats extends CachePerfStats {
   @Override
   public void incGetInitialImageKeysReceived() {}
 
+  @Override
+  public long startProfileExchange() {
+    return 0;
+  }
+
+  @Override
+  public void endProfileExchange(long start) {}
+
+  @Override
+  public void incProfileExchangesBatched(int messages) {}
+
   @Override
   public void incRegions(int inc) {}
 
@@ -316,6 +347,22 @@ public class DummyCachePerfStats extends CachePerfStats {
   @Override
   public void endQueryExecution(long executionTime) {}
 
+  @Override
+  public void incCompiledQueryCacheHits() {}
+
+  @Override
+  public long getCompiledQueryCacheHits() {
+    return 0;
+  }
+
+  @Override
+  public void incCompiledQueryCacheMisses() {}
+
+  @Override
+  public long getCompiledQueryCacheMisses() {
+    return 0;
+  }
+
   @Override
   public int getTxCommits() {
     return 0;
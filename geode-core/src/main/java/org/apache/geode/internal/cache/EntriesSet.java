@@ -50,6 +50,14 @@ public class EntriesSet extends AbstractSet {
 
   protected boolean ignoreCopyOnReadForQuery = false;
 
+  /**
+   * if stripeCount is greater than one, only keys in this stripe are iterated. A region's entries
+   * are striped by segment of its map; keys a transaction sees are striped by hash code.
+   */
+  private int stripe;
+
+  private int stripeCount;
+
   EntriesSet(LocalRegion region, boolean recursive, IteratorType viewType,
       boolean allowTombstones) {
     this.topRegion = region;
@@ -101,6 +109,9 @@ public class EntriesSet extends AbstractSet {
 
     Collection<?> additionalKeysFromView;
 
+    /** true if currItr only returns the entries in this set's stripe */
+    boolean currItrIsStriped;
+
     /** reusable KeyInfo */
     protected final KeyInfo keyInfo = new KeyInfo(null, null, null);
 
@@ -154,6 +165,9 @@ public class EntriesSet extends AbstractSet {
               this.additionalKeysFromView.remove(currKey);
             }
           }
+          if (stripeCount > 1 && !this.currItrIsStriped && !isInStripe(currKey)) {
+            continue;
+          }
           if (iterType == IteratorType.KEYS) {
             result =
                 view.getKeyForIterator(this.keyInfo, this.currRgn, rememberReads, allowTombstones);
@@ -195,6 +209,7 @@ public class EntriesSet extends AbstractSet {
           }
         } else if (this.additionalKeysFromView != null) {
           this.currItr = this.additionalKeysFromView.iterator();
+          this.currItrIsStriped = false;
           this.additionalKeysFromView = null;
         } else if (this.regionsIndex < this.numSubRegions) {
           // advance to next region
@@ -210,17 +225,31 @@ public class EntriesSet extends AbstractSet {
       // TX iterates over KEYS.
       // NonTX iterates over RegionEntry instances
       this.currRgn = rgn;
-      this.currItr = view.getRegionKeysForIteration(rgn).iterator();
+      RegionMap map = rgn.getRegionMap();
+      if (stripeCount > 1 && myTX == null && map instanceof AbstractRegionMap) {
+        // read only this stripe's segments rather than skipping the other stripes' keys
+        this.currItr = ((AbstractRegionMap) map).regionEntriesInStripe(stripe, stripeCount);
+        this.currItrIsStriped = true;
+      } else {
+        this.currItr = view.getRegionKeysForIteration(rgn).iterator();
+        this.currItrIsStriped = false;
+      }
       this.additionalKeysFromView = view.getAdditionalKeysForIterator(rgn);
     }
   }
 
+  private boolean isInStripe(Object keyOrEntry) {
+    Object key = keyOrEntry instanceof RegionEntry ? ((RegionEntry) keyOrEntry).getKey()
+        : keyOrEntry;
+    return (key.hashCode() & 0x7fffffff) % this.stripeCount == this.stripe;
+  }
+
   @Override
   public int size() {
     checkTX();
-    if (this.iterType == IteratorType.VALUES) {
+    if (this.iterType == IteratorType.VALUES || this.stripeCount > 1) {
       // if this is a values-view, then we have to filter out nulls to
-      // determine the correct size
+      // determine the correct size. The keys in a stripe also have to be counted
       int s = 0;
       for (Iterator<Object> itr = new EntriesIterator(); itr.hasNext(); itr.next()) {
         s++;
@@ -267,6 +296,17 @@ public class EntriesSet extends AbstractSet {
     this.ignoreCopyOnReadForQuery = ignoreCopyOnReadForQuery;
   }
 
+  /**
+   * Restricts iteration to the given stripe of the keys, so that stripeCount threads, each
+   * iterating its own stripe, together see every key once. Outside a transaction each stripe reads
+   * only its own segments of the region map, so stripeCount should not exceed
+   * {@link AbstractRegionMap#getStripeLimit()}.
+   */
+  public void setStripe(int stripe, int stripeCount) {
+    this.stripe = stripe;
+    this.stripeCount = stripeCount;
+  }
+
   public boolean isIgnoreCopyOnReadForQuery() {
     return this.ignoreCopyOnReadForQuery;
   }
@@ -17,6 +17,7 @@ package org.apache.geode.internal.cache;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -48,6 +49,7 @@ import org.apache.geode.cache.query.internal.cq.CqServiceProvider;
 import org.apache.geode.cache.query.internal.cq.ServerCQ;
 import org.apache.geode.distributed.DistributedMember;
 import org.apache.geode.distributed.internal.DistributionAdvisor.Profile;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.DistributionManager;
 import org.apache.geode.distributed.internal.HighPriorityDistributionMessage;
 import org.apache.geode.distributed.internal.MessageWithReply;
@@ -129,6 +131,23 @@ public class FilterProfile implements DataSerializableFixedID {
 
   private final Map<Object, Set> keysOfInterestInv = new CopyOnWriteHashMap<>();
 
+  /**
+   * Whether profiles index the keys of interest of their clients by key, so the clients interested
+   * in an event's key are found with one lookup instead of checking the key list of every client.
+   * False by default.
+   */
+  public static boolean INDEX_KEYS_OF_INTEREST = Boolean
+      .getBoolean(DistributionConfig.GEMFIRE_PREFIX + "FilterProfile.INDEX_KEYS_OF_INTEREST");
+
+  /**
+   * The clients in keysOfInterest for each key, or null if keys of interest are not indexed
+   */
+  final KeyInterestIndex keysOfInterestIndex =
+      INDEX_KEYS_OF_INTEREST ? new KeyInterestIndex() : null;
+
+  final KeyInterestIndex keysOfInterestInvIndex =
+      INDEX_KEYS_OF_INTEREST ? new KeyInterestIndex() : null;
+
   /**
    * The patterns in which clients are interested. This is a map keyed on client id, with a HashMap
    * (key name to compiled pattern) as the values.
@@ -337,6 +356,10 @@ public class FilterProfile implements DataSerializableFixedID {
     }
     interestList.add(interest);
     keysRegistered.add(interest);
+    KeyInterestIndex index = getKeyInterestIndex(koi);
+    if (index != null) {
+      index.add(interest, clientID);
+    }
   }
 
   /**
@@ -489,6 +512,10 @@ public class FilterProfile implements DataSerializableFixedID {
       boolean removed = interestList.remove(interest);
       if (removed) {
         keysUnregistered.add(interest);
+        KeyInterestIndex index = getKeyInterestIndex(map);
+        if (index != null) {
+          index.remove(interest, clientID);
+        }
       }
       if (interestList.isEmpty()) {
         map.remove(clientID);
@@ -519,9 +546,15 @@ public class FilterProfile implements DataSerializableFixedID {
         keysRegistered.removeAll(interestList.getSnapshot());
       }
       interestList.addAll(keys);
+      KeyInterestIndex index = getKeyInterestIndex(koi);
+      if (index != null) {
+        index.addAll(keys, clientID);
+      }
 
       if (this.region != null && this.isLocalProfile) {
-        sendProfileOperation(clientID, operationType.REGISTER_KEYS, keys, updatesAsInvalidates);
+        // peers already have the keys that were registered before, so only send the new ones
+        sendProfileOperation(clientID, operationType.REGISTER_KEYS,
+            new ArrayList(keysRegistered), updatesAsInvalidates);
       }
     } // synchronized
     return keysRegistered;
@@ -544,6 +577,9 @@ public class FilterProfile implements DataSerializableFixedID {
         // Get the list of keys that are not registered but in unregister set.
         keysNotUnregistered.removeAll(interestList.getSnapshot());
         interestList.removeAll(keys);
+        if (this.keysOfInterestIndex != null) {
+          this.keysOfInterestIndex.removeAll(keys, clientID);
+        }
 
         if (interestList.isEmpty()) {
           getKeysOfInterest().remove(clientID);
@@ -553,18 +589,23 @@ public class FilterProfile implements DataSerializableFixedID {
       if (interestList != null) {
         keysNotUnregistered.removeAll(interestList.getSnapshot());
         interestList.removeAll(keys);
+        if (this.keysOfInterestInvIndex != null) {
+          this.keysOfInterestInvIndex.removeAll(keys, clientID);
+        }
 
         if (interestList.isEmpty()) {
           getKeysOfInterestInv().remove(clientID);
         }
       }
+      // Get the keys that are not unregistered.
+      keysUnregistered.removeAll(keysNotUnregistered);
 
       if (this.region != null && this.isLocalProfile) {
-        sendProfileOperation(clientID, operationType.UNREGISTER_KEYS, keys, false);
+        // peers only have the keys that were registered, so only send those
+        sendProfileOperation(clientID, operationType.UNREGISTER_KEYS,
+            new ArrayList(keysUnregistered), false);
       }
     } // synchronized
-    // Get the keys that are not unregistered.
-    keysUnregistered.removeAll(keysNotUnregistered);
     return keysUnregistered;
   }
 
@@ -703,13 +744,19 @@ public class FilterProfile implements DataSerializableFixedID {
       {
         Map<Object, Set> keys = this.getKeysOfInterest();
         if (keys.containsKey(clientID)) {
-          keys.remove(clientID);
+          Set removed = keys.remove(clientID);
+          if (removed != null && this.keysOfInterestIndex != null) {
+            this.keysOfInterestIndex.removeAll(removed, clientID);
+          }
         }
       }
       {
         Map<Object, Set> keys = this.getKeysOfInterestInv();
         if (keys.containsKey(clientID)) {
-          keys.remove(clientID);
+          Set removed = keys.remove(clientID);
+          if (removed != null && this.keysOfInterestInvIndex != null) {
+            this.keysOfInterestInvIndex.removeAll(removed, clientID);
+          }
         }
       }
       {
@@ -1383,7 +1430,18 @@ public class FilterProfile implements DataSerializableFixedID {
         logger.debug("these clients matched for all-keys: {}", akc);
       }
     }
-    if (koi != null) {
+    KeyInterestIndex index = koi == null ? null : getKeyInterestIndex(koi);
+    if (index != null) {
+      Set<Long> clientIDs = index.getClients(event.getKey());
+      if (clientIDs != null) {
+        if (result == null)
+          result = new HashSet();
+        result.addAll(clientIDs);
+        if (logger.isDebugEnabled()) {
+          logger.debug("clients {} matched for key index", clientIDs);
+        }
+      }
+    } else if (koi != null) {
       for (Iterator it = koi.entrySet().iterator(); it.hasNext();) {
         Map.Entry entry = (Map.Entry) it.next();
         Set keys = (Set) entry.getValue();
@@ -1471,6 +1529,10 @@ public class FilterProfile implements DataSerializableFixedID {
     this.keysOfInterestInv.putAll(DataSerializer.readHashMap(in));
     this.patternsOfInterestInv.putAll(DataSerializer.readHashMap(in));
     this.filtersOfInterestInv.putAll(DataSerializer.readHashMap(in));
+    if (this.keysOfInterestIndex != null) {
+      this.keysOfInterestIndex.addAll(this.keysOfInterest);
+      this.keysOfInterestInvIndex.addAll(this.keysOfInterestInv);
+    }
 
     // Read CQ Info.
     int numCQs = InternalDataSerializer.readArrayLength(in);
@@ -1524,6 +1586,13 @@ public class FilterProfile implements DataSerializableFixedID {
     }
   }
 
+  /**
+   * Returns the index of the given keys of interest map, or null if it is not indexed
+   */
+  private KeyInterestIndex getKeyInterestIndex(Map<Object, Set> koi) {
+    return koi == this.keysOfInterest ? this.keysOfInterestIndex : this.keysOfInterestInvIndex;
+  }
+
   /**
    * @return the keysOfInterest
    */
@@ -2002,6 +2071,64 @@ public class FilterProfile implements DataSerializableFixedID {
     }
   }
 
+  /**
+   * An index from each key of interest to the ids of the clients that registered interest in it.
+   * It is only changed while holding the interestListLock. The client sets are replaced instead of
+   * modified so that lookups need no locking.
+   */
+  static class KeyInterestIndex {
+    private final Map<Object, Set<Long>> clientsByKey = new ConcurrentHashMap<>();
+
+    void add(Object key, Long clientID) {
+      Set<Long> clients = this.clientsByKey.get(key);
+      if (clients == null) {
+        this.clientsByKey.put(key, Collections.singleton(clientID));
+      } else if (!clients.contains(clientID)) {
+        Set<Long> newClients = new HashSet<>(clients);
+        newClients.add(clientID);
+        this.clientsByKey.put(key, Collections.unmodifiableSet(newClients));
+      }
+    }
+
+    void addAll(Collection keys, Long clientID) {
+      for (Object key : keys) {
+        add(key, clientID);
+      }
+    }
+
+    void addAll(Map<Object, Set> keysOfInterest) {
+      for (Map.Entry<Object, Set> entry : keysOfInterest.entrySet()) {
+        addAll(entry.getValue(), (Long) entry.getKey());
+      }
+    }
+
+    void remove(Object key, Long clientID) {
+      Set<Long> clients = this.clientsByKey.get(key);
+      if (clients == null || !clients.contains(clientID)) {
+        return;
+      }
+      if (clients.size() == 1) {
+        this.clientsByKey.remove(key);
+      } else {
+        Set<Long> newClients = new HashSet<>(clients);
+        newClients.remove(clientID);
+        this.clientsByKey.put(key, Collections.unmodifiableSet(newClients));
+      }
+    }
+
+    void removeAll(Collection keys, Long clientID) {
+      for (Object key : keys) {
+        remove(key, clientID);
+      }
+    }
+
+    /**
+     * Returns the ids of the clients interested in the key, or null if there are none
+     */
+    Set<Long> getClients(Object key) {
+      return this.clientsByKey.get(key);
+    }
+  }
 
   class IDMap {
     long nextID = 1;
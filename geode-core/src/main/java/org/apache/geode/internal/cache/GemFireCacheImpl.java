@@ -69,6 +69,7 @@ import org.apache.geode.cache.client.internal.ClientRegionFactoryImpl;
 import org.apache.geode.cache.client.internal.PoolImpl;
 import org.apache.geode.cache.execute.FunctionService;
 import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.CompiledQueryCache;
 import org.apache.geode.cache.query.internal.DefaultQuery;
 import org.apache.geode.cache.query.internal.DefaultQueryService;
 import org.apache.geode.cache.query.internal.QueryMonitor;
@@ -218,6 +219,9 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -371,6 +375,18 @@ public class GemFireCacheImpl
 
   private final CachePerfStats cachePerfStats;
 
+  /** batches region profile exchange messages; null unless enabled */
+  private ProfileExchangeBatcher profileExchangeBatcher;
+
+  /** caches compiled queries by query string; null unless enabled */
+  private CompiledQueryCache compiledQueryCache;
+
+  /** scans stripes of regions for queries evaluated in parallel; created on first use */
+  private ExecutorService queryScanPool;
+
+  /** populates new indexes in parallel; created on first use */
+  private ForkJoinPool indexPopulationPool;
+
   /** Date on which this instances was created */
   private final Date creationDate;
 
@@ -882,6 +898,15 @@ public class GemFireCacheImpl
       this.cachePerfStats = new CachePerfStats(system);
       CachePerfStats.enableClockStats = this.system.getConfig().getEnableTimeStatistics();
 
+      if (ProfileExchangeBatcher.ENABLED) {
+        this.profileExchangeBatcher = new ProfileExchangeBatcher(this.dm, this.cachePerfStats);
+      }
+
+      if (CompiledQueryCache.MAX_SIZE > 0) {
+        this.compiledQueryCache =
+            new CompiledQueryCache(CompiledQueryCache.MAX_SIZE, this.cachePerfStats);
+      }
+
       this.txMgr = new TXManagerImpl(this.cachePerfStats, this);
       dm.addMembershipListener(this.txMgr);
 
@@ -2219,6 +2244,9 @@ public class GemFireCacheImpl
           this.eventThreadPool.shutdown();
         }
 
+        stopQueryScanPool();
+        stopIndexPopulationPool();
+
         /*
          * IMPORTANT: any operation during shut down that can time out (create a CancelException)
          * must be inside of this try block. If all else fails, we *must* ensure that the cache gets
@@ -2961,6 +2989,90 @@ public class GemFireCacheImpl
     return this.cachePerfStats;
   }
 
+  /**
+   * @return the batcher for region profile exchange, or null if profile exchange is not batched
+   */
+  ProfileExchangeBatcher getProfileExchangeBatcher() {
+    return this.profileExchangeBatcher;
+  }
+
+  /**
+   * Returns the pool that scans stripes of a region for queries evaluated in parallel, creating it
+   * with the given number of threads on first use. The pool is shut down when the cache is closed.
+   */
+  public ExecutorService getQueryScanPool(int threads) {
+    synchronized (this.queryScanPoolLock) {
+      this.stopper.checkCancelInProgress(null);
+      if (this.queryScanPool == null) {
+        final ThreadGroup group =
+            LoggingThreadGroup.createThreadGroup("Query Scan Threads", logger);
+        ThreadFactory tf = new ThreadFactory() {
+          private final AtomicInteger threadNum = new AtomicInteger();
+
+          public Thread newThread(Runnable command) {
+            Thread thread =
+                new Thread(group, command, "Query Scan Thread " + this.threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        };
+        this.queryScanPool = Executors.newFixedThreadPool(Math.max(1, threads), tf);
+      }
+      return this.queryScanPool;
+    }
+  }
+
+  private final Object queryScanPoolLock = new Object();
+
+  private void stopQueryScanPool() {
+    synchronized (this.queryScanPoolLock) {
+      if (this.queryScanPool != null) {
+        this.queryScanPool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Returns the pool that populates new indexes in parallel, creating it with the given parallelism
+   * on first use. The pool is shut down when the cache is closed.
+   */
+  public ForkJoinPool getIndexPopulationPool(int parallelism) {
+    synchronized (this.indexPopulationPoolLock) {
+      this.stopper.checkCancelInProgress(null);
+      if (this.indexPopulationPool == null) {
+        ForkJoinWorkerThreadFactory tf = new ForkJoinWorkerThreadFactory() {
+          private final AtomicInteger threadNum = new AtomicInteger();
+
+          public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Index Population Thread " + this.threadNum.incrementAndGet());
+            return thread;
+          }
+        };
+        this.indexPopulationPool = new ForkJoinPool(Math.max(1, parallelism), tf, null, false);
+      }
+      return this.indexPopulationPool;
+    }
+  }
+
+  private final Object indexPopulationPoolLock = new Object();
+
+  private void stopIndexPopulationPool() {
+    synchronized (this.indexPopulationPoolLock) {
+      if (this.indexPopulationPool != null) {
+        this.indexPopulationPool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * @return the cache of compiled queries, or null if compiled queries are not cached
+   */
+  public CompiledQueryCache getCompiledQueryCache() {
+    return this.compiledQueryCache;
+  }
+
   public String getName() {
     return this.system.getName();
   }
@@ -333,7 +333,7 @@ public class PRQueryProcessor {
   }
 
   private Collection coalesceOrderedResults(Collection<Collection> results,
-      ExecutionContext context, CompiledSelect cs, int limit) {
+      ExecutionContext context, CompiledSelect cs, int limit) throws QueryException {
     List<Collection> sortedResults = new ArrayList<Collection>(results.size());
     // TODO :Asif : Deal with UNDEFINED
     for (Object o : results) {
@@ -344,6 +344,12 @@ public class PRQueryProcessor {
 
     NWayMergeResults mergedResults = new NWayMergeResults(sortedResults, cs.isDistinct(), limit,
         cs.getOrderByAttrs(), context, cs.getElementTypeForOrderByQueries());
+    if (cs.getType() == CompiledValue.GROUP_BY_SELECT
+        && CompiledGroupBySelect.COMBINE_BUCKET_RESULTS) {
+      // send one row per group instead of one per group and bucket
+      context.setBucketList(this._bucketsToQuery);
+      return ((CompiledGroupBySelect) cs).combineBucketResults(mergedResults, context);
+    }
     return mergedResults;
 
   }
@@ -8835,6 +8835,9 @@ public class PartitionedRegion extends LocalRegion
     boolean throwException = false;
     if (getDataStore() != null && indexes.size() > 0) {
       Set localBuckets = getDataStore().getAllLocalBuckets();
+      if (IndexManager.INDEX_POPULATION_THREADS > 1) {
+        return populateBucketIndexesInParallel(localBuckets, indexes, exceptionsMap);
+      }
       Iterator it = localBuckets.iterator();
       while (it.hasNext()) {
         Map.Entry entry = (Map.Entry) it.next();
@@ -8856,6 +8859,41 @@ public class PartitionedRegion extends LocalRegion
     return throwException;
   }
 
+  /**
+   * Populates the indexes of each local bucket on the index population pool, one bucket per task.
+   */
+  private boolean populateBucketIndexesInParallel(Set localBuckets, final Set<Index> indexes,
+      final HashMap<String, Exception> exceptionsMap) {
+    final AtomicBoolean throwException = new AtomicBoolean();
+    ForkJoinPool pool = IndexManager.getIndexPopulationPool(getCache());
+    List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+    for (Iterator it = localBuckets.iterator(); it.hasNext();) {
+      final Region bucket = (Region) ((Map.Entry) it.next()).getValue();
+      if (bucket == null) {
+        continue;
+      }
+      tasks.add(pool.submit(new Runnable() {
+        @Override
+        public void run() {
+          IndexManager bucketIndexManager = IndexUtils.getIndexManager(bucket, true);
+          Set<Index> bucketIndexes = getBucketIndexesForPRIndexes(bucket, indexes);
+          try {
+            bucketIndexManager.populateIndexes(bucketIndexes);
+          } catch (MultiIndexCreationException ex) {
+            synchronized (exceptionsMap) {
+              exceptionsMap.putAll(ex.getExceptionsMap());
+            }
+            throwException.set(true);
+          }
+        }
+      }));
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+    return throwException.get();
+  }
+
   private Set<Index> getBucketIndexesForPRIndexes(Region bucket, Set<Index> indexes) {
     Set<Index> bucketIndexes = new HashSet<Index>();
     for (Index ind : indexes) {
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DM;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.CreateRegionProcessor.BatchedCreateRegionMessage;
+import org.apache.geode.internal.cache.CreateRegionProcessor.CreateRegionMessage;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * ProfileExchangeBatcher combines the CreateRegionMessages of regions that are being created at
+ * the same time, for instance buckets being recovered in parallel, into one
+ * {@link BatchedCreateRegionMessage} per member. There is no flusher thread: the first caller to
+ * find the batcher idle sends its own message along with everything that other callers queue while
+ * it is sending, so a lone region creation is sent without delay.
+ * <p>
+ * Batching is enabled with the <code>gemfire.BATCH_PROFILE_EXCHANGE</code> system property and is
+ * only used for members that understand BatchedCreateRegionMessage.
+ *
+ * @since Geode 1.2
+ */
+public class ProfileExchangeBatcher {
+
+  private static final Logger logger = LogService.getLogger();
+
+  public static final boolean ENABLED =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "BATCH_PROFILE_EXCHANGE");
+
+  private final DM dm;
+
+  private final CachePerfStats stats;
+
+  /** messages waiting to be sent. Guarded by this. */
+  private List<CreateRegionMessage> pending = new ArrayList<CreateRegionMessage>();
+
+  /** true while some thread is sending pending messages. Guarded by this. */
+  private boolean sending;
+
+  ProfileExchangeBatcher(DM dm, CachePerfStats stats) {
+    this.dm = dm;
+    this.stats = stats;
+  }
+
+  /**
+   * Sends the given message to its recipients, possibly batched with messages for other regions.
+   */
+  void send(CreateRegionMessage msg) {
+    synchronized (this) {
+      this.pending.add(msg);
+      if (this.sending) {
+        // the sending thread will pick it up
+        return;
+      }
+      this.sending = true;
+    }
+    boolean done = false;
+    List<CreateRegionMessage> batch = null;
+    try {
+      while (!done) {
+        synchronized (this) {
+          if (this.pending.isEmpty()) {
+            this.sending = false;
+            done = true;
+            continue;
+          }
+          batch = this.pending;
+          this.pending = new ArrayList<CreateRegionMessage>();
+        }
+        sendBatch(batch);
+      }
+    } finally {
+      if (!done) {
+        // we are throwing; other callers' messages must not be stranded. A message may reach a
+        // member twice, which is harmless since profiles are simply replaced and the reply
+        // processor ignores a second reply from the same member.
+        List<CreateRegionMessage> stranded = new ArrayList<CreateRegionMessage>(batch);
+        synchronized (this) {
+          this.sending = false;
+          stranded.addAll(this.pending);
+          this.pending = new ArrayList<CreateRegionMessage>();
+        }
+        for (CreateRegionMessage m : stranded) {
+          try {
+            this.dm.putOutgoing(m);
+          } catch (RuntimeException e) {
+            logger.debug("Unable to send {}", m, e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * A message can only be batched if all of its recipients understand BatchedCreateRegionMessage.
+   * Otherwise it is sent on its own, which only happens while members are being upgraded.
+   */
+  private boolean canBatch(CreateRegionMessage msg) {
+    for (InternalDistributedMember recipient : msg.getRecipients()) {
+      if (recipient.getVersionObject().compareTo(Version.CURRENT) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void sendBatch(List<CreateRegionMessage> batch) {
+    if (batch.size() == 1) {
+      this.dm.putOutgoing(batch.get(0));
+      return;
+    }
+    Map<InternalDistributedMember, List<CreateRegionMessage>> byMember =
+        new HashMap<InternalDistributedMember, List<CreateRegionMessage>>();
+    for (CreateRegionMessage msg : batch) {
+      if (!canBatch(msg)) {
+        // sent unchanged, so that the caller's message keeps its recipients
+        this.dm.putOutgoing(msg);
+        continue;
+      }
+      for (InternalDistributedMember recipient : msg.getRecipients()) {
+        List<CreateRegionMessage> messages = byMember.get(recipient);
+        if (messages == null) {
+          messages = new ArrayList<CreateRegionMessage>();
+          byMember.put(recipient, messages);
+        }
+        messages.add(msg);
+      }
+    }
+    for (Map.Entry<InternalDistributedMember, List<CreateRegionMessage>> entry : byMember
+        .entrySet()) {
+      List<CreateRegionMessage> messages = entry.getValue();
+      BatchedCreateRegionMessage batched = new BatchedCreateRegionMessage(messages);
+      batched.setRecipient(entry.getKey());
+      if (logger.isDebugEnabled()) {
+        logger.debug("Sending {} batched CreateRegionMessages to {}", messages.size(),
+            entry.getKey());
+      }
+      this.dm.putOutgoing(batched);
+      this.stats.incProfileExchangesBatched(messages.size());
+    }
+  }
+}
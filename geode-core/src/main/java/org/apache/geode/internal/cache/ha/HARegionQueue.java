@@ -205,6 +205,15 @@ public class HARegionQueue implements RegionQueue {
 
   public static final String HA_EVICTION_POLICY_ENTRY = "entry";
 
+  /**
+   * Whether the client messages region, which holds the messages shared by all the subscription
+   * queues of a cache server, keeps them in off-heap memory. Only the queues' positions and
+   * {@link HAEventWrapper} keys stay on heap. Applies when the cache has off-heap memory and the
+   * queues have an eviction policy, so that messages still overflow to disk past its capacity.
+   */
+  public static boolean OFF_HEAP_CLIENT_MESSAGES = Boolean
+      .getBoolean(DistributionConfig.GEMFIRE_PREFIX + "HARegionQueue.OFF_HEAP_CLIENT_MESSAGES");
+
   public static final long INIT_OF_SEQUENCEID = -1L;
 
   /**
@@ -1421,6 +1430,76 @@ public class HARegionQueue implements RegionQueue {
     return peek(batchSize, -1);
   }
 
+  /**
+   * Peeks the next event like {@link #peek()}, waiting for one if this is a blocking queue,
+   * followed by up to <code>maxSize - 1</code> events that are already available. All the events
+   * peeked are removed from the queue by the next call to {@link #remove()}.
+   * 
+   * @param maxSize the maximum number of events to peek
+   * 
+   * @return the list of events peeked, empty if there is none
+   */
+  public List peekAvailable(int maxSize) throws InterruptedException {
+    List batch = new ArrayList(maxSize);
+    Object first = peek();
+    if (first != null) {
+      batch.add(first);
+      if (maxSize > 1) {
+        peekAvailable(batch, maxSize);
+      }
+    }
+    return batch;
+  }
+
+  /**
+   * Adds the events that are available after those already peeked by this thread to the batch,
+   * without waiting, until it holds <code>maxSize</code> events.
+   */
+  protected void peekAvailable(List batch, int maxSize) throws InterruptedException {
+    List peekedEvents = (List) HARegionQueue.peekedEventsContext.get();
+    Set peekedIds = new HashSet(peekedEvents);
+    acquireReadLock();
+    try {
+      Iterator itr = this.idsAvailable.iterator();
+      while (batch.size() < maxSize && itr.hasNext()) {
+        Long counter = (Long) itr.next();
+        if (peekedIds.contains(counter)) {
+          continue;
+        }
+        Object object = this.region.get(counter);
+        if (object instanceof HAEventWrapper) {
+          object = this.haContainer.get(object);
+        }
+        if (object != null) {
+          batch.add(object);
+          peekedEvents.add(counter);
+        }
+      }
+    } finally {
+      releaseReadLock();
+    }
+  }
+
+  /**
+   * Forgets the last <code>count</code> events peeked by this thread, so that the next call to
+   * {@link #remove()} does not remove them. Used when peeked events could not be dispatched. A
+   * durable queue gets them back in its available ids when it is reinitialized.
+   * 
+   * @param count the number of events to forget
+   */
+  public void unpeek(int count) {
+    List peekedEvents = (List) HARegionQueue.peekedEventsContext.get();
+    if (peekedEvents == null) {
+      return;
+    }
+    for (int i = 0; i < count && !peekedEvents.isEmpty(); i++) {
+      peekedEvents.remove(peekedEvents.size() - 1);
+    }
+    if (peekedEvents.isEmpty()) {
+      HARegionQueue.peekedEventsContext.set(null);
+    }
+  }
+
   /**
    * Return a batch of minimum specified size
    * 
@@ -2478,6 +2557,21 @@ public class HARegionQueue implements RegionQueue {
       return this.getAndRemoveNextAvailableID();
     }
 
+    /**
+     * Peeked ids are removed from the available ids of a durable queue, so the next ones are peeked
+     * one by one like {@link #peek()} does.
+     */
+    @Override
+    protected void peekAvailable(List batch, int maxSize) throws InterruptedException {
+      while (batch.size() < maxSize && !this.internalIsEmpty()) {
+        Object object = peek();
+        if (object == null) {
+          break;
+        }
+        batch.add(object);
+      }
+    }
+
     /**
      * It is different from its super implementation only in not invoking
      * incrementTakeSidePutPermits(). Fix for #41521.
@@ -3594,8 +3688,24 @@ public class HARegionQueue implements RegionQueue {
     }
   }
 
+  /**
+   * Adds the CQs and interest of the queue's client in the given event to the message already in
+   * the haContainer for that event. The caller must hold the lock on the container's key for the
+   * event.
+   */
   public static void addClientCQsAndInterestList(ClientUpdateMessageImpl msg,
       HAEventWrapper haEventWrapper, Map haContainer, String regionName) {
+    boolean offHeap = OFF_HEAP_CLIENT_MESSAGES && haContainer instanceof HAContainerRegion;
+    if (offHeap) {
+      // An off-heap container returns a copy of the message, which may predate the lists another
+      // queue has merged since, so merge into the message stored now.
+      Object original = ((HAContainerWrapper) haContainer).getKey(haEventWrapper);
+      ClientUpdateMessageImpl current = original == null ? null
+          : (ClientUpdateMessageImpl) haContainer.get(original);
+      if (current != null) {
+        msg = current;
+      }
+    }
 
     ClientProxyMembershipID proxyID = ((HAContainerWrapper) haContainer).getProxyID(regionName);
     if (haEventWrapper.getClientCqs() != null) {
@@ -3617,6 +3727,12 @@ public class HARegionQueue implements RegionQueue {
     } else if (clientMsg.isClientInterestedInInvalidates(proxyID)) {
       msg.addClientInterestList(proxyID, false);
     }
+
+    if (offHeap) {
+      // Store the updated copy back.
+      // The entry keeps its original HAEventWrapper key.
+      haContainer.put(haEventWrapper, msg);
+    }
   }
 
   /**
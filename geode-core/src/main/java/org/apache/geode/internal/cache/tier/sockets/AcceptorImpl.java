@@ -46,6 +46,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -112,6 +113,14 @@ public class AcceptorImpl extends Acceptor implements Runnable {
    */
   private final ThreadPoolExecutor hsPool;
 
+  /**
+   * A pool used by a gateway receiver to apply the events of a batch concurrently. Created when
+   * first used.
+   */
+  private ThreadPoolExecutor applyPool;
+
+  private final Object applyPoolLock = new Object();
+
   /** The port on which this acceptor listens for client connections */
   private final int localPort;
 
@@ -1587,6 +1596,45 @@ public class AcceptorImpl extends Acceptor implements Runnable {
     }
   }
 
+  /**
+   * Returns the pool used to apply the events of gateway batches concurrently, creating it with the
+   * given number of threads if needed, or null if this acceptor is closed.
+   */
+  public ExecutorService getGatewayApplyPool(int threads) {
+    synchronized (this.applyPoolLock) {
+      if (this.applyPool == null) {
+        if (!isRunning()) {
+          return null;
+        }
+        final ThreadGroup applyThreadGroup = LoggingThreadGroup
+            .createThreadGroup("Gateway Receiver Apply on port " + this.localPort, logger);
+        ThreadFactory applyThreadFactory = new ThreadFactory() {
+          private final AtomicInteger threadNum = new AtomicInteger();
+
+          public Thread newThread(final Runnable command) {
+            Runnable r = new Runnable() {
+              public void run() {
+                try {
+                  command.run();
+                } finally {
+                  ConnectionTable.releaseThreadsSockets();
+                }
+              }
+            };
+            Thread thread = new Thread(applyThreadGroup, r,
+                applyThreadGroup.getName() + " Thread " + this.threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        };
+        this.applyPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), applyThreadFactory);
+        this.applyPool.allowCoreThreadTimeOut(true);
+      }
+      return this.applyPool;
+    }
+  }
+
   private void shutdownSelectorIfIsSelector() {
     if (isSelector()) {
       this.hsTimer.cancel();
@@ -1621,6 +1669,11 @@ public class AcceptorImpl extends Acceptor implements Runnable {
       this.pool.shutdownNow();
     }
     this.hsPool.shutdownNow();
+    synchronized (this.applyPoolLock) {
+      if (this.applyPool != null) {
+        this.applyPool.shutdownNow();
+      }
+    }
   }
 
   private void shutdownSCs() {
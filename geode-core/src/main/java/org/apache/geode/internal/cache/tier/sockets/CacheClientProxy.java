@@ -199,6 +199,14 @@ public class CacheClientProxy implements ClientSession {
   protected static final int MAXIMUM_SHUTDOWN_PEEKS = Integer
       .getInteger(DistributionConfig.GEMFIRE_PREFIX + "MAXIMUM_SHUTDOWN_PEEKS", 50).intValue();
 
+  /**
+   * The maximum number of queued messages the dispatcher sends to its client in one socket write
+   * before removing them from the queue together. The default, 1, sends and removes each message on
+   * its own.
+   */
+  protected static final int DISPATCH_BATCH_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "CacheClientProxy.DISPATCH_BATCH_SIZE", 1);
+
   /**
    * The number of milliseconds to wait for an offering to the message queue
    */
@@ -2528,6 +2536,20 @@ public class CacheClientProxy implements ClientSession {
             }
             waitForResumption();
           }
+          if (DISPATCH_BATCH_SIZE > 1) {
+            List clientMessages;
+            try {
+              clientMessages = this._messageQueue.peekAvailable(DISPATCH_BATCH_SIZE);
+            } catch (RegionDestroyedException skipped) {
+              break;
+            }
+            getStatistics().setQueueSize(this._messageQueue.size());
+            if (isStopped()) {
+              break;
+            }
+            dispatchBatch(clientMessages);
+            continue;
+          }
           try {
             clientMessage = (ClientMessage) this._messageQueue.peek();
           } catch (RegionDestroyedException skipped) {
@@ -2747,37 +2769,7 @@ public class CacheClientProxy implements ClientSession {
      */
     protected boolean dispatchMessage(ClientMessage clientMessage) throws IOException {
       boolean isDispatched = false;
-      if (logger.isTraceEnabled(LogMarker.BRIDGE_SERVER)) {
-        logger.trace(LogMarker.BRIDGE_SERVER, "Dispatching {}", clientMessage);
-      }
-      Message message = null;
-
-      // byte[] latestValue =
-      // this._eventConflator.getLatestValue(clientMessage);
-
-      if (clientMessage instanceof ClientUpdateMessage) {
-        byte[] latestValue = (byte[]) ((ClientUpdateMessage) clientMessage).getValue();
-        if (logger.isTraceEnabled()) {
-          StringBuilder msg = new StringBuilder(100);
-          msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
-          if (((ClientUpdateMessage) clientMessage).valueIsObject()) {
-            if (latestValue != null) {
-              msg.append(" (").append(deserialize(latestValue)).append(")");
-            }
-            msg.append(" for ").append(clientMessage);
-          }
-          logger.trace(msg.toString());
-        }
-
-        message = ((ClientUpdateMessageImpl) clientMessage).getMessage(getProxy(), latestValue);
-
-        if (AFTER_MESSAGE_CREATION_FLAG) {
-          ClientServerObserver bo = ClientServerObserverHolder.getInstance();
-          bo.afterMessageCreation(message);
-        }
-      } else {
-        message = clientMessage.getMessage(getProxy(), true /* notify */);
-      }
+      Message message = createMessage(clientMessage);
 
       // //////////////////////////////
       // TEST CODE BEGIN (Throws exception to test closing proxy)
@@ -2825,6 +2817,102 @@ public class CacheClientProxy implements ClientSession {
       return isDispatched;
     }
 
+    /**
+     * Sends a batch of messages peeked from the queue to the client attached to this proxy and
+     * removes them from the queue. The messages are written to the socket together, holding the
+     * socket lock so that no direct message is written between them. A message too large to be
+     * sent is skipped.
+     *
+     * @param clientMessages The <code>ClientMessage</code>s to send to the client
+     */
+    private void dispatchBatch(List clientMessages) throws IOException, InterruptedException {
+      if (!clientMessages.isEmpty()) {
+        if (this._proxy.isPaused()) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Message Dispatcher of a Paused CCProxy is trying to dispatch messages");
+          }
+          // the messages were not sent, so the next remove() must leave them in the queue
+          this._messageQueue.unpeek(clientMessages.size());
+          return;
+        }
+        Message lastMessage = null;
+        this.socketWriteLock.lock();
+        try {
+          for (Object object : clientMessages) {
+            ClientMessage clientMessage = (ClientMessage) object;
+            long start = getStatistics().startTime();
+            Message message = createMessage(clientMessage);
+            if (message != null) {
+              message.setComms(getSocket(), getCommBuffer(), getStatistics());
+              try {
+                message.sendBuffered(lastMessage == null);
+              } catch (MessageTooLargeException e) {
+                logger.warn("Message too large to send to client: {}, {}", clientMessage,
+                    e.getMessage());
+                continue;
+              }
+              lastMessage = message;
+            }
+            getStatistics().endMessage(start);
+            this._messageQueue.getStatistics().incEventsDispatched();
+          }
+          if (lastMessage != null) {
+            lastMessage.flushBuffered();
+            getProxy().resetPingCounter();
+          }
+        } finally {
+          this.socketWriteLock.unlock();
+        }
+        if (logger.isTraceEnabled()) {
+          logger.trace("{}: Dispatched {}", this, clientMessages);
+        }
+      }
+      this._messageQueue.remove();
+      for (Object clientMessage : clientMessages) {
+        if (clientMessage instanceof ClientMarkerMessageImpl) {
+          getProxy().markerEnqueued = false;
+        }
+      }
+    }
+
+    /**
+     * Creates the message sent to the client attached to this proxy for a queued message
+     */
+    private Message createMessage(ClientMessage clientMessage) throws IOException {
+      if (logger.isTraceEnabled(LogMarker.BRIDGE_SERVER)) {
+        logger.trace(LogMarker.BRIDGE_SERVER, "Dispatching {}", clientMessage);
+      }
+      Message message = null;
+
+      // byte[] latestValue =
+      // this._eventConflator.getLatestValue(clientMessage);
+
+      if (clientMessage instanceof ClientUpdateMessage) {
+        byte[] latestValue = (byte[]) ((ClientUpdateMessage) clientMessage).getValue();
+        if (logger.isTraceEnabled()) {
+          StringBuilder msg = new StringBuilder(100);
+          msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
+          if (((ClientUpdateMessage) clientMessage).valueIsObject()) {
+            if (latestValue != null) {
+              msg.append(" (").append(deserialize(latestValue)).append(")");
+            }
+            msg.append(" for ").append(clientMessage);
+          }
+          logger.trace(msg.toString());
+        }
+
+        message = ((ClientUpdateMessageImpl) clientMessage).getMessage(getProxy(), latestValue);
+
+        if (AFTER_MESSAGE_CREATION_FLAG) {
+          ClientServerObserver bo = ClientServerObserverHolder.getInstance();
+          bo.afterMessageCreation(message);
+        }
+      } else {
+        message = clientMessage.getMessage(getProxy(), true /* notify */);
+      }
+      return message;
+    }
+
     private void sendMessage(Message message) throws IOException {
       if (message == null) {
         return;
@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.logging.log4j.Logger;
 
@@ -36,6 +37,7 @@ import org.apache.geode.InternalGemFireError;
 import org.apache.geode.cache.query.CqQuery;
 import org.apache.geode.cache.query.internal.cq.InternalCqQuery;
 import org.apache.geode.cache.util.ObjectSizer;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.InternalDataSerializer;
 import org.apache.geode.internal.Sendable;
@@ -56,6 +58,7 @@ import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.internal.cache.versions.VersionTag;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.apache.geode.internal.util.BlobHelper;
 
 
 /**
@@ -69,6 +72,27 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
   private static final long serialVersionUID = 7037106666445312400L;
   private static final Logger logger = LogService.getLogger();
 
+  /**
+   * Whether the key, callback argument, version tag and event id of a message are serialized once
+   * per client version and shared by the messages sent to all the clients of that version, instead
+   * of being serialized again for each client. False by default.
+   */
+  public static boolean SHARE_SERIALIZED_PARTS = Boolean.getBoolean(
+      DistributionConfig.GEMFIRE_PREFIX + "ClientUpdateMessage.SHARE_SERIALIZED_PARTS");
+
+  private static final int KEY_PART = 0;
+  private static final int CALLBACK_ARGUMENT_PART = 1;
+  private static final int VERSION_TAG_PART = 2;
+  private static final int EVENT_ID_PART = 3;
+  private static final int SHARED_PARTS = 4;
+
+  /**
+   * Estimated bytes used by the parts serialized for one client version besides the bytes
+   * themselves: the map entry, the AtomicReferenceArray and the array it wraps.
+   */
+  private static final int SERIALIZED_PARTS_OVERHEAD =
+      3 * Sizeable.PER_OBJECT_OVERHEAD + 24 + 4 * SHARED_PARTS;
+
   /**
    * The operation performed (e.g. AFTER_CREATE, AFTER_UPDATE, AFTER_DESTROY, AFTER_INVALIDATE,
    * AFTER_REGION_DESTROY)
@@ -137,6 +161,13 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
    */
   private volatile Set<ClientProxyMembershipID> _clientInterestListInv;
 
+  /**
+   * The serialized key, callback argument, version tag and event id of this message for each
+   * client version it has been sent to. Only used when {@link #SHARE_SERIALIZED_PARTS} is set.
+   */
+  private transient volatile ConcurrentHashMap<Version, AtomicReferenceArray<byte[]>>
+      serializedParts;
+
   /**
    * To determine if the message is result of netLoad. If its net load the message is not delivered
    * to the client that has requested the load.
@@ -842,21 +873,21 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         message = getMessage(7 + cqMsgParts, clientVersion);
         message.setMessageType(MessageType.LOCAL_INVALIDATE);
         message.addStringPart(this._regionName, true);
-        message.addStringOrObjPart(this._keyOfInterest);
+        addSharedPart(message, KEY_PART, this._keyOfInterest, clientVersion);
       } else {
         // Notify by subscription - send the value
         message = getMessage(9 + cqMsgParts, clientVersion);
         if (isCreate()) {
           message.setMessageType(MessageType.LOCAL_CREATE);
           message.addStringPart(this._regionName, true);
-          message.addStringOrObjPart(this._keyOfInterest);
+          addSharedPart(message, KEY_PART, this._keyOfInterest, clientVersion);
           message.addObjPart(Boolean.FALSE); // NO delta
           // Add the value (which has already been serialized)
           message.addRawPart(latestValue, (this._valueIsObject == 0x01));
         } else {
           message.setMessageType(MessageType.LOCAL_UPDATE);
           message.addStringPart(this._regionName, true);
-          message.addStringOrObjPart(this._keyOfInterest);
+          addSharedPart(message, KEY_PART, this._keyOfInterest, clientVersion);
 
           if (this.deltaBytes != null && !conflation && !proxy.isMarkerEnqueued()
               && !proxy.getRegionsWithEmptyDataPolicy().containsKey(_regionName)) {
@@ -877,11 +908,11 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         }
       }
 
-      message.addObjPart(this._callbackArgument);
+      addSharedPart(message, CALLBACK_ARGUMENT_PART, this._callbackArgument, clientVersion);
       if (this.versionTag != null) {
         this.versionTag.setCanonicalIDs(proxy.getCache().getDistributionManager());
       }
-      message.addObjPart(this.versionTag);
+      addSharedPart(message, VERSION_TAG_PART, this.versionTag, clientVersion);
       message.addObjPart(Boolean.valueOf(isClientInterested(proxyId)));
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
@@ -904,9 +935,9 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         message.setMessageType(MessageType.LOCAL_INVALIDATE);
       }
       message.addStringPart(this._regionName, true);
-      message.addStringOrObjPart(this._keyOfInterest);
-      message.addObjPart(this._callbackArgument);
-      message.addObjPart(this.versionTag);
+      addSharedPart(message, KEY_PART, this._keyOfInterest, clientVersion);
+      addSharedPart(message, CALLBACK_ARGUMENT_PART, this._callbackArgument, clientVersion);
+      addSharedPart(message, VERSION_TAG_PART, this.versionTag, clientVersion);
       message.addObjPart(Boolean.valueOf(isClientInterested(proxyId)));
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
@@ -922,7 +953,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
       message = getMessage(4 + cqMsgParts, clientVersion);
       message.setMessageType(MessageType.LOCAL_DESTROY_REGION);
       message.addStringPart(this._regionName, true);
-      message.addObjPart(this._callbackArgument);
+      addSharedPart(message, CALLBACK_ARGUMENT_PART, this._callbackArgument, clientVersion);
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
       if (clientHasCq) {
@@ -932,7 +963,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
       message = getMessage(4 + cqMsgParts, clientVersion);
       message.setMessageType(MessageType.CLEAR_REGION);
       message.addStringPart(this._regionName, true);
-      message.addObjPart(this._callbackArgument);
+      addSharedPart(message, CALLBACK_ARGUMENT_PART, this._callbackArgument, clientVersion);
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
       if (clientHasCq) {
@@ -942,7 +973,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
       message = getMessage(4 + cqMsgParts, clientVersion);
       message.setMessageType(MessageType.INVALIDATE_REGION);
       message.addStringPart(this._regionName, true);
-      message.addObjPart(this._callbackArgument);
+      addSharedPart(message, CALLBACK_ARGUMENT_PART, this._callbackArgument, clientVersion);
 
       // Add CQ status.
       message.addObjPart(Boolean.valueOf(clientHasCq));
@@ -957,10 +988,58 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     message.setTransactionId(0);
     // Add the EventId since 5.1 (used to prevent duplicate events
     // received on the client side after a failover)
-    message.addObjPart(this._eventIdentifier);
+    addSharedPart(message, EVENT_ID_PART, this._eventIdentifier, clientVersion);
     return message;
   }
 
+  /**
+   * Adds the key, callback argument, version tag or event id of this message to a message for a
+   * client of the given version. If {@link #SHARE_SERIALIZED_PARTS} is set, a part that needs to be
+   * serialized is serialized only for the first client of each version and its bytes are reused
+   * for every other client.
+   */
+  private void addSharedPart(Message message, int index, Object o, Version clientVersion)
+      throws IOException {
+    if (!SHARE_SERIALIZED_PARTS || o == null || o instanceof byte[] || o instanceof Boolean
+        || (index == KEY_PART && o instanceof String)) {
+      if (index == KEY_PART) {
+        message.addStringOrObjPart(o);
+      } else {
+        message.addObjPart(o);
+      }
+      return;
+    }
+    ConcurrentHashMap<Version, AtomicReferenceArray<byte[]>> parts = this.serializedParts;
+    if (parts == null) {
+      synchronized (this) {
+        parts = this.serializedParts;
+        if (parts == null) {
+          parts = new ConcurrentHashMap<Version, AtomicReferenceArray<byte[]>>(1);
+          this.serializedParts = parts;
+        }
+      }
+    }
+    AtomicReferenceArray<byte[]> versionParts = parts.get(clientVersion);
+    if (versionParts == null) {
+      versionParts = new AtomicReferenceArray<byte[]>(SHARED_PARTS);
+      AtomicReferenceArray<byte[]> existing = parts.putIfAbsent(clientVersion, versionParts);
+      if (existing != null) {
+        versionParts = existing;
+      }
+    }
+    // the bytes are published through the array, so other dispatchers see them fully written
+    byte[] serialized = versionParts.get(index);
+    if (serialized == null) {
+      // racing dispatchers may both serialize the part, which is harmless
+      serialized = BlobHelper.serializeToBlob(o,
+          clientVersion.equals(Version.CURRENT) ? null : clientVersion);
+      if (!versionParts.compareAndSet(index, null, serialized)) {
+        serialized = versionParts.get(index);
+      }
+    }
+    message.addRawPart(serialized, true);
+  }
+
   private static final ThreadLocal<Map<Integer, Message>> CACHED_MESSAGES =
       new ThreadLocal<Map<Integer, Message>>() {
         protected Map<Integer, Message> initialValue() {
@@ -1103,6 +1182,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
   public void setEventIdentifier(EventID eventId) {
     if (this._eventIdentifier == null) {
       this._eventIdentifier = eventId;
+      this.serializedParts = null;
     }
   }
 
@@ -1378,6 +1458,19 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
     // The sizeOf call gets the size of the input callback argument.
     size += sizeOf(getOriginalCallbackArgument());
+
+    // The parts serialized for the client versions this message has been sent to, which are kept
+    // until the message leaves every queue
+    ConcurrentHashMap<Version, AtomicReferenceArray<byte[]>> parts = this.serializedParts;
+    if (parts != null) {
+      size += Sizeable.PER_OBJECT_OVERHEAD + 48; // the map and its table
+      for (AtomicReferenceArray<byte[]> versionParts : parts.values()) {
+        size += SERIALIZED_PARTS_OVERHEAD;
+        for (int i = 0; i < versionParts.length(); i++) {
+          size += CachedDeserializableFactory.calcMemSize(versionParts.get(i));
+        }
+      }
+    }
     return size;
   }
 
@@ -547,6 +547,18 @@ public class Message {
    * Sends this message out on its socket.
    */
   protected void sendBytes(boolean clearMessage) throws IOException {
+    sendBytes(clearMessage, false, true);
+  }
+
+  /**
+   * Sends this message out on its socket.
+   * 
+   * @param append whether to write this message after the bytes left in the comm buffer by the
+   *        previous message instead of clearing the buffer
+   * @param flush whether to write all of this message to the socket, or leave its last bytes in the
+   *        comm buffer
+   */
+  private void sendBytes(boolean clearMessage, boolean append, boolean flush) throws IOException {
     if (this.sc != null) {
       // Keep track of the fact that we are making progress.
       this.sc.updateProcessingMessage();
@@ -593,7 +605,11 @@ public class Message {
               + ") exceeds gemfire.client.max-message-size setting (" + MAX_MESSAGE_SIZE + ")");
         }
 
-        cb.clear();
+        if (!append) {
+          cb.clear();
+        } else if (cb.remaining() < FIXED_LENGTH) {
+          flushBuffer();
+        }
         packHeaderInfoForSending(msgLen, (securityPart != null));
         for (int i = 0; i < partsToTransmit; i++) {
           Part part = (i == this.numberOfParts) ? securityPart : partsList[i];
@@ -619,13 +635,15 @@ public class Message {
             }
           }
         }
-        if (cb.position() != 0) {
-          flushBuffer();
+        if (flush) {
+          if (cb.position() != 0) {
+            flushBuffer();
+          }
+          if (this.sockCh == null) {
+            this.os.flush();
+          }
         }
         this.messageModified = false;
-        if (this.sockCh == null) {
-          this.os.flush();
-        }
       }
     } finally {
       if (clearMessage) {
@@ -1096,6 +1114,36 @@ public class Message {
     sendBytes(clearMessage);
   }
 
+  /**
+   * Sends this message as one of several messages written to the same socket back to back. The
+   * message is written to the comm buffer after the bytes left there by the previous message, and
+   * the buffer is only written to the socket when it fills up. {@link #flushBuffered} must be
+   * called once the last message has been sent.
+   * 
+   * @param first whether this is the first message written to the comm buffer
+   */
+  public void sendBuffered(boolean first) throws IOException {
+    sendBytes(true, !first, false);
+  }
+
+  /**
+   * Writes the bytes left in the comm buffer by {@link #sendBuffered} to the socket.
+   */
+  public void flushBuffered() throws IOException {
+    if (this.socket == null) {
+      throw new IOException(LocalizedStrings.Message_DEAD_CONNECTION.toLocalizedString());
+    }
+    final ByteBuffer cb = getCommBuffer();
+    synchronized (cb) {
+      if (cb.position() != 0) {
+        flushBuffer();
+      }
+      if (this.sockCh == null) {
+        this.os.flush();
+      }
+    }
+  }
+
   /**
    * Populates the stats of this <code>Message</code> with information received via its socket
    */
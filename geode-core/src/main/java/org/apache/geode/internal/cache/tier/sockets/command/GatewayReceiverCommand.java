@@ -19,7 +19,16 @@ package org.apache.geode.internal.cache.tier.sockets.command;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.util.ThreadState;
 
 import org.apache.geode.CancelException;
 import org.apache.geode.cache.CacheClosedException;
@@ -29,6 +38,7 @@ import org.apache.geode.cache.operations.DestroyOperationContext;
 import org.apache.geode.cache.operations.PutOperationContext;
 import org.apache.geode.cache.wan.GatewayReceiver;
 import org.apache.geode.distributed.DistributedSystem;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.DistributionStats;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.i18n.LogWriterI18n;
@@ -38,6 +48,8 @@ import org.apache.geode.internal.cache.EventID;
 import org.apache.geode.internal.cache.EventIDHolder;
 import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.PartitionedRegionHelper;
 import org.apache.geode.internal.cache.tier.CachedRegionHelper;
 import org.apache.geode.internal.cache.tier.Command;
 import org.apache.geode.internal.cache.tier.MessageType;
@@ -48,6 +60,7 @@ import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
 import org.apache.geode.internal.cache.versions.VersionTag;
 import org.apache.geode.internal.cache.wan.BatchException70;
 import org.apache.geode.internal.cache.wan.GatewayReceiverStats;
+import org.apache.geode.internal.cache.wan.GatewaySenderBatchEncoding;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.log4j.LocalizedMessage;
 import org.apache.geode.internal.security.AuthorizeRequest;
@@ -64,6 +77,17 @@ public class GatewayReceiverCommand extends BaseCommand {
 
   private final static GatewayReceiverCommand singleton = new GatewayReceiverCommand();
 
+  /**
+   * Number of threads used to apply the events of a batch. When this is greater than 1, the events
+   * are split by bucket for partitioned regions, or by key for other regions, and the groups are
+   * applied concurrently by the receiving connection thread and a pool of this many threads shared
+   * by the receiver's connections. Events of the same bucket or key are applied in the order they
+   * were sent. Batches are applied by the receiving connection thread when this is 1.
+   */
+  public static int APPLY_THREADS = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "GatewayReceiver.APPLY_THREADS", 1)
+      .intValue();
+
   public static Command getCommand() {
     return singleton;
   }
@@ -84,23 +108,14 @@ public class GatewayReceiverCommand extends BaseCommand {
   @Override
   public void cmdExecute(Message msg, ServerConnection servConn, long start)
       throws IOException, InterruptedException {
-    Part regionNamePart = null, keyPart = null, valuePart = null, callbackArgPart = null;
-    String regionName = null;
-    Object callbackArg = null, key = null;
     int partNumber = 0;
-    CachedRegionHelper crHelper = servConn.getCachedRegionHelper();
     GatewayReceiverStats stats = (GatewayReceiverStats) servConn.getCacheServerStats();
-    EventID eventId = null;
-    LocalRegion region = null;
-    List<BatchException70> exceptions = new ArrayList<BatchException70>();
-    Throwable fatalException = null;
     // requiresResponse = true;// let PROCESS_BATCH deal with this itself
     {
       long oldStart = start;
       start = DistributionStats.getStatTime();
       stats.incReadProcessBatchRequestTime(start - oldStart);
     }
-    Part callbackArgExistsPart;
     // Get early ack flag. This test should eventually be moved up above this switch
     // statement so that all messages can take advantage of it.
     boolean earlyAck = false;// msg.getEarlyAck();
@@ -190,19 +205,96 @@ public class GatewayReceiverCommand extends BaseCommand {
     partNumber = 2;
     int dsid = msg.getPart(partNumber++).getInt();
 
-    boolean removeOnException =
-        msg.getPart(partNumber++).getSerializedForm()[0] == 1 ? true : false;
+    byte batchFlags = msg.getPart(partNumber).getSerializedForm()[0];
+    boolean removeOnException = (batchFlags & 0x01) == 1;
+
+    // A compact batch refers to region paths and member ids through its dictionaries
+    GatewaySenderBatchEncoding encoding = readBatchEncoding(msg, partNumber++);
+    if (encoding != null) {
+      partNumber += GatewaySenderBatchEncoding.DICTIONARY_PARTS;
+    }
 
     // Keep track of whether a response has been written for
     // exceptions
     boolean wroteResponse = earlyAck;
+    BatchResult batchResult = new BatchResult();
+    EventGroup[] groups = null;
+    if (APPLY_THREADS > 1 && numberOfEvents > 1 && !wroteResponse) {
+      groups = groupEvents(msg, servConn, numberOfEvents, partNumber, encoding);
+    }
+    if (groups == null) {
+      processEvents(msg, servConn, batchId, numberOfEvents, dsid, removeOnException,
+          wroteResponse, encoding, partNumber, null, batchResult);
+    } else {
+      processGroups(msg, servConn, batchId, numberOfEvents, dsid, removeOnException, encoding,
+          groups, batchResult);
+    }
+    if (batchResult.noReply) {
+      return;
+    }
+
+    {
+      long oldStart = start;
+      start = DistributionStats.getStatTime();
+      stats.incProcessBatchTime(start - oldStart);
+    }
+    if (batchResult.fatalException != null) {
+      servConn.incrementLatestBatchIdReplied(batchId);
+      writeFatalException(msg, batchResult.fatalException, servConn, batchId);
+      servConn.setAsTrue(RESPONDED);
+    } else if (!batchResult.exceptions.isEmpty()) {
+      servConn.incrementLatestBatchIdReplied(batchId);
+      writeBatchException(msg, batchResult.exceptions, servConn, batchId);
+      servConn.setAsTrue(RESPONDED);
+    } else if (!wroteResponse) {
+      // Increment the batch id unless the received batch id is -1 (a failover
+      // batch)
+      servConn.incrementLatestBatchIdReplied(batchId);
+
+      writeReply(msg, servConn, batchId, numberOfEvents);
+      servConn.setAsTrue(RESPONDED);
+      stats.incWriteProcessBatchResponseTime(DistributionStats.getStatTime() - start);
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "{}: Sent process batch normal response for batch {} containing {} events ({} bytes) with {} acknowledgement on {}",
+            servConn.getName(), batchId, numberOfEvents, msg.getPayloadLength(),
+            (earlyAck ? "early" : "normal"), servConn.getSocketString());
+      }
+      // logger.warn("Sent process batch normal response for batch " +
+      // batchId + " containing " + numberOfEvents + " events (" +
+      // msg.getPayloadLength() + " bytes) with " + (earlyAck ? "early" :
+      // "normal") + " acknowledgement on " + getSocketString());
+    }
+  }
+
+  /**
+   * Applies events of a batch in order, either all the events of the batch starting at the given
+   * part number or, if a group is given, the events of that group.
+   */
+  private void processEvents(Message msg, ServerConnection servConn, int batchId,
+      int numberOfEvents, int dsid, boolean removeOnException, boolean wroteResponse,
+      GatewaySenderBatchEncoding encoding, int partNumber, EventGroup group,
+      BatchResult batchResult) throws IOException, InterruptedException {
+    Part regionNamePart = null, keyPart = null, valuePart = null, callbackArgPart = null;
+    String regionName = null;
+    Object callbackArg = null, key = null;
+    CachedRegionHelper crHelper = servConn.getCachedRegionHelper();
+    GatewayReceiverStats stats = (GatewayReceiverStats) servConn.getCacheServerStats();
+    EventID eventId = null;
+    LocalRegion region = null;
+    Part callbackArgExistsPart;
     // event received in batch also have PDX events at the start of the batch,to
     // represent correct index on which the exception occurred, number of PDX
     // events need to be subtratced.
     int indexWithoutPDXEvent = -1; //
-    for (int i = 0; i < numberOfEvents; i++) {
+    int count = group == null ? numberOfEvents : group.size;
+    for (int i = 0; i < count && !batchResult.stopped; i++) {
       boolean isPdxEvent = false;
       indexWithoutPDXEvent++;
+      if (group != null) {
+        partNumber = group.partNumbers[i];
+        indexWithoutPDXEvent = group.indexes[i];
+      }
       // System.out.println("Processing event " + i + " in batch " + batchId + "
       // starting with part number " + partNumber);
       Part actionTypePart = msg.getPart(partNumber);
@@ -226,7 +318,8 @@ public class GatewayReceiverCommand extends BaseCommand {
               e);
           throw e;
         }
-        boolean possibleDuplicate = possibleDuplicatePartBytes[0] == 0x01;
+        boolean possibleDuplicate = (possibleDuplicatePartBytes[0] & 0x01) == 0x01;
+        boolean valueCompressed = isValueCompressed(possibleDuplicatePartBytes, encoding);
 
         // Make sure instance variables are null before each iteration
         regionName = null;
@@ -235,7 +328,7 @@ public class GatewayReceiverCommand extends BaseCommand {
 
         // Retrieve the region name from the message parts
         regionNamePart = msg.getPart(partNumber + 2);
-        regionName = regionNamePart.getString();
+        regionName = readRegionPath(regionNamePart, encoding);
         if (regionName.equals(PeerTypeRegistration.REGION_FULL_PATH)) {
           indexWithoutPDXEvent--;
           isPdxEvent = true;
@@ -250,7 +343,7 @@ public class GatewayReceiverCommand extends BaseCommand {
         eventIdPart.setVersion(servConn.getClientVersion());
         // String eventId = eventIdPart.getString();
         try {
-          eventId = (EventID) eventIdPart.getObject();
+          eventId = readEventId(eventIdPart, encoding);
         } catch (Exception e) {
           logger.warn(LocalizedMessage.create(
               LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
@@ -263,7 +356,7 @@ public class GatewayReceiverCommand extends BaseCommand {
         // Retrieve the key from the message parts
         keyPart = msg.getPart(partNumber + 4);
         try {
-          key = keyPart.getStringOrObject();
+          key = group == null ? keyPart.getStringOrObject() : group.keys[i];
         } catch (Exception e) {
           logger.warn(LocalizedMessage.create(
               LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
@@ -285,6 +378,9 @@ public class GatewayReceiverCommand extends BaseCommand {
 
             // Retrieve the value from the message parts (do not deserialize it)
             valuePart = msg.getPart(partNumber + 5);
+            if (valueCompressed) {
+              encoding.decompress(valuePart);
+            }
             // try {
             // logger.warn(getName() + ": Creating key " + key + " value " +
             // valuePart.getObject());
@@ -351,7 +447,7 @@ public class GatewayReceiverCommand extends BaseCommand {
                 boolean isObject = valuePart.isObject();
                 // [sumedh] This should be done on client while sending
                 // since that is the WAN gateway
-                AuthorizeRequest authzRequest = servConn.getAuthzRequest();
+                AuthorizeRequest authzRequest = getAuthzRequest(servConn, group);
                 if (authzRequest != null) {
                   PutOperationContext putContext =
                       authzRequest.putAuthorize(regionName, key, value, isObject, callbackArg);
@@ -374,7 +470,7 @@ public class GatewayReceiverCommand extends BaseCommand {
                 }
 
                 if (result || clientEvent.isConcurrencyConflict()) {
-                  servConn.setModificationInfo(true, regionName, key);
+                  setModificationInfo(servConn, group, indexWithoutPDXEvent, regionName, key);
                   stats.incCreateRequest();
                 } else {
                   // This exception will be logged in the catch block below
@@ -404,6 +500,9 @@ public class GatewayReceiverCommand extends BaseCommand {
 
             // Retrieve the value from the message parts (do not deserialize it)
             valuePart = msg.getPart(partNumber + 5);
+            if (valueCompressed) {
+              encoding.decompress(valuePart);
+            }
             // try {
             // logger.warn(getName() + ": Updating key " + key + " value " +
             // valuePart.getObject());
@@ -468,7 +567,7 @@ public class GatewayReceiverCommand extends BaseCommand {
               try {
                 byte[] value = valuePart.getSerializedForm();
                 boolean isObject = valuePart.isObject();
-                AuthorizeRequest authzRequest = servConn.getAuthzRequest();
+                AuthorizeRequest authzRequest = getAuthzRequest(servConn, group);
                 if (authzRequest != null) {
                   PutOperationContext putContext = authzRequest.putAuthorize(regionName, key, value,
                       isObject, callbackArg, PutOperationContext.UPDATE);
@@ -483,7 +582,7 @@ public class GatewayReceiverCommand extends BaseCommand {
                       servConn.getProxyID(), false, clientEvent);
                 }
                 if (result || clientEvent.isConcurrencyConflict()) {
-                  servConn.setModificationInfo(true, regionName, key);
+                  setModificationInfo(servConn, group, indexWithoutPDXEvent, regionName, key);
                   stats.incUpdateRequest();
                 } else {
                   final Object[] msgArgs =
@@ -579,7 +678,7 @@ public class GatewayReceiverCommand extends BaseCommand {
               handleMessageRetry(region, clientEvent);
               // Destroy the entry
               try {
-                AuthorizeRequest authzRequest = servConn.getAuthzRequest();
+                AuthorizeRequest authzRequest = getAuthzRequest(servConn, group);
                 if (authzRequest != null) {
                   DestroyOperationContext destroyContext =
                       authzRequest.destroyAuthorize(regionName, key, callbackArg);
@@ -587,7 +686,7 @@ public class GatewayReceiverCommand extends BaseCommand {
                 }
                 region.basicBridgeDestroy(key, callbackArg, servConn.getProxyID(), false,
                     clientEvent);
-                servConn.setModificationInfo(true, regionName, key);
+                setModificationInfo(servConn, group, indexWithoutPDXEvent, regionName, key);
                 stats.incDestroyRequest();
               } catch (EntryNotFoundException e) {
                 logger.info(LocalizedMessage.create(
@@ -602,11 +701,11 @@ public class GatewayReceiverCommand extends BaseCommand {
             try {
               // Region name
               regionNamePart = msg.getPart(partNumber + 2);
-              regionName = regionNamePart.getString();
+              regionName = readRegionPath(regionNamePart, encoding);
 
               // Retrieve the event id from the message parts
               eventIdPart = msg.getPart(partNumber + 3);
-              eventId = (EventID) eventIdPart.getObject();
+              eventId = readEventId(eventIdPart, encoding);
 
               // Retrieve the key from the message parts
               keyPart = msg.getPart(partNumber + 4);
@@ -700,6 +799,8 @@ public class GatewayReceiverCommand extends BaseCommand {
         }
         servConn.setFlagProcessMessagesAsFalse();
         servConn.setClientDisconnectedException(e);
+        batchResult.noReply = true;
+        batchResult.stopped = true;
         return;
       } catch (Exception e) {
         // If an interrupted exception is thrown , rethrow it
@@ -707,9 +808,10 @@ public class GatewayReceiverCommand extends BaseCommand {
 
         // If we have an issue with the PDX registry, stop processing more data
         if (e.getCause() instanceof PdxRegistryMismatchException) {
-          fatalException = e.getCause();
+          batchResult.fatalException = e.getCause();
           logger.fatal(LocalizedMessage.create(LocalizedStrings.GatewayReceiver_PDX_CONFIGURATION,
               new Object[] {servConn.getMembershipID()}), e.getCause());
+          batchResult.stopped = true;
           break;
         }
 
@@ -730,8 +832,9 @@ public class GatewayReceiverCommand extends BaseCommand {
                       .getDistributedSystemId(), ds.getDistributedMember()});
           BatchException70 be =
               new BatchException70(exceptionMessage, e, indexWithoutPDXEvent, batchId);
-          exceptions.add(be);
+          batchResult.addException(be);
           if (!removeOnException) {
+            batchResult.stopped = true;
             break;
           }
 
@@ -743,6 +846,8 @@ public class GatewayReceiverCommand extends BaseCommand {
           // in the batch.
           // This could be problematic depending on where the exception
           // occurred.
+          batchResult.noReply = true;
+          batchResult.stopped = true;
           return;
         }
       } finally {
@@ -768,38 +873,262 @@ public class GatewayReceiverCommand extends BaseCommand {
         }
       }
     }
+  }
 
-    {
-      long oldStart = start;
-      start = DistributionStats.getStatTime();
-      stats.incProcessBatchTime(start - oldStart);
+  /**
+   * Returns the encoding of a compact batch, read from the dictionary parts that follow the batch's
+   * flags part, or null if the batch uses the original encoding.
+   */
+  public static GatewaySenderBatchEncoding readBatchEncoding(Message msg, int flagsPartNumber)
+      throws IOException {
+    byte batchFlags = msg.getPart(flagsPartNumber).getSerializedForm()[0];
+    if ((batchFlags & GatewaySenderBatchEncoding.COMPACT_BATCH) == 0) {
+      return null;
     }
-    if (fatalException != null) {
-      servConn.incrementLatestBatchIdReplied(batchId);
-      writeFatalException(msg, fatalException, servConn, batchId);
-      servConn.setAsTrue(RESPONDED);
-    } else if (!exceptions.isEmpty()) {
-      servConn.incrementLatestBatchIdReplied(batchId);
-      writeBatchException(msg, exceptions, servConn, batchId);
-      servConn.setAsTrue(RESPONDED);
-    } else if (!wroteResponse) {
-      // Increment the batch id unless the received batch id is -1 (a failover
-      // batch)
-      servConn.incrementLatestBatchIdReplied(batchId);
+    return GatewaySenderBatchEncoding.read(msg.getPart(flagsPartNumber + 1),
+        msg.getPart(flagsPartNumber + 2));
+  }
 
-      writeReply(msg, servConn, batchId, numberOfEvents);
-      servConn.setAsTrue(RESPONDED);
-      stats.incWriteProcessBatchResponseTime(DistributionStats.getStatTime() - start);
-      if (logger.isDebugEnabled()) {
-        logger.debug(
-            "{}: Sent process batch normal response for batch {} containing {} events ({} bytes) with {} acknowledgement on {}",
-            servConn.getName(), batchId, numberOfEvents, msg.getPayloadLength(),
-            (earlyAck ? "early" : "normal"), servConn.getSocketString());
+  public static String readRegionPath(Part regionNamePart, GatewaySenderBatchEncoding encoding) {
+    return encoding == null ? regionNamePart.getString() : encoding.getRegionPath(regionNamePart);
+  }
+
+  public static EventID readEventId(Part eventIdPart, GatewaySenderBatchEncoding encoding)
+      throws IOException, ClassNotFoundException {
+    return encoding == null ? (EventID) eventIdPart.getObject()
+        : encoding.getEventID(eventIdPart);
+  }
+
+  /**
+   * Returns true if the value of the event whose possible duplicate part is given was compressed
+   * by the sender.
+   */
+  public static boolean isValueCompressed(byte[] possibleDuplicatePartBytes,
+      GatewaySenderBatchEncoding encoding) {
+    return encoding != null
+        && (possibleDuplicatePartBytes[0] & GatewaySenderBatchEncoding.VALUE_COMPRESSED) != 0;
+  }
+
+  /**
+   * Splits the events of a batch into groups that can be applied concurrently. The first group
+   * holds the PDX type events at the start of the batch, which are applied before the other groups.
+   * Returns null if the batch should be applied in order by the calling thread.
+   */
+  private EventGroup[] groupEvents(Message msg, ServerConnection servConn, int numberOfEvents,
+      int partNumber, GatewaySenderBatchEncoding encoding) {
+    CachedRegionHelper crHelper = servConn.getCachedRegionHelper();
+    EventGroup[] groups = new EventGroup[APPLY_THREADS + 1];
+    for (int g = 0; g < groups.length; g++) {
+      groups[g] = new EventGroup(numberOfEvents);
+    }
+    int index = 0;
+    try {
+      for (int i = 0; i < numberOfEvents; i++) {
+        int actionType = msg.getPart(partNumber).getInt();
+        int parts;
+        if (actionType == 0 /* create */ || actionType == 1 /* update */) {
+          parts = 8;
+        } else if (actionType == 2 /* destroy */ || actionType == 3 /* update-version */) {
+          parts = 7;
+        } else {
+          return null;
+        }
+        Part regionNamePart = msg.getPart(partNumber + 2);
+        String regionName = readRegionPath(regionNamePart, encoding);
+        Object key = msg.getPart(partNumber + 4).getStringOrObject();
+        if (regionName == null || key == null) {
+          return null;
+        }
+        byte[] callbackArgExists = (byte[]) msg.getPart(partNumber + parts - 2).getObject();
+        if (callbackArgExists[0] == 0x01) {
+          parts++;
+        }
+
+        if (regionName.equals(PeerTypeRegistration.REGION_FULL_PATH)) {
+          if (index > 0) {
+            // PDX types must be added before the events that use them
+            return null;
+          }
+          groups[0].add(partNumber, 0, key);
+        } else {
+          LocalRegion region = (LocalRegion) crHelper.getRegion(regionName);
+          int hash;
+          if (region instanceof PartitionedRegion
+              && ((PartitionedRegion) region).getPartitionResolver() == null) {
+            hash = PartitionedRegionHelper.getHashKey((PartitionedRegion) region, key);
+          } else {
+            hash = key.hashCode();
+          }
+          groups[1 + (hash & 0x7fffffff) % APPLY_THREADS].add(partNumber, index++, key);
+        }
+        partNumber += parts;
+      }
+      // the authorization is read from the connection's current request, so take it here
+      AuthorizeRequest authzRequest = servConn.getAuthzRequest();
+      for (EventGroup group : groups) {
+        group.authzRequest = authzRequest;
+      }
+    } catch (Exception e) {
+      // the batch is applied in order, which reports the exception against its event
+      return null;
+    }
+    return groups;
+  }
+
+  /**
+   * Applies the PDX type events of a batch and then its other groups of events concurrently. The
+   * last group is applied by the calling thread and the others by the acceptor's apply pool.
+   */
+  private void processGroups(Message msg, ServerConnection servConn, int batchId,
+      int numberOfEvents, int dsid, boolean removeOnException, GatewaySenderBatchEncoding encoding,
+      EventGroup[] groups, BatchResult batchResult) throws IOException, InterruptedException {
+    // the subject is bound to the connection thread only
+    Subject subject = ThreadContext.getSubject();
+
+    processEvents(msg, servConn, batchId, numberOfEvents, dsid, removeOnException, false,
+        encoding, 0, groups[0], batchResult);
+    int last = groups.length - 1;
+    while (last > 0 && groups[last].size == 0) {
+      last--;
+    }
+    ExecutorService pool = servConn.getAcceptor().getGatewayApplyPool(APPLY_THREADS);
+    List<Future<?>> tasks = new ArrayList<Future<?>>();
+    try {
+      for (int g = 1; g <= last && !batchResult.stopped; g++) {
+        EventGroup group = groups[g];
+        if (group.size == 0) {
+          continue;
+        }
+        if (g == last || pool == null) {
+          processEvents(msg, servConn, batchId, numberOfEvents, dsid, removeOnException, false,
+              encoding, 0, group, batchResult);
+        } else {
+          tasks.add(pool.submit(() -> {
+            ThreadState threadState = subject == null ? null : securityService.bindSubject(subject);
+            try {
+              processEvents(msg, servConn, batchId, numberOfEvents, dsid, removeOnException, false,
+                  encoding, 0, group, batchResult);
+            } finally {
+              if (threadState != null) {
+                threadState.clear();
+              }
+            }
+            return null;
+          }));
+        }
+      }
+    } finally {
+      // the message and connection must not be used by a task once this returns
+      waitForGroups(tasks);
+    }
+
+    // the sender expects the exceptions in the order of their events
+    Collections.sort(batchResult.exceptions, new Comparator<BatchException70>() {
+      public int compare(BatchException70 e1, BatchException70 e2) {
+        return Integer.compare(e1.getIndex(), e2.getIndex());
+      }
+    });
+    EventGroup lastModified = null;
+    for (EventGroup group : groups) {
+      if (group.modRegion != null
+          && (lastModified == null || group.modIndex >= lastModified.modIndex)) {
+        lastModified = group;
+      }
+    }
+    if (lastModified != null) {
+      servConn.setModificationInfo(true, lastModified.modRegion, lastModified.modKey);
+    }
+  }
+
+  private static void waitForGroups(List<Future<?>> tasks)
+      throws IOException, InterruptedException {
+    Throwable failure = null;
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+    }
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof InterruptedException) {
+      throw (InterruptedException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new IOException(failure);
+    }
+  }
+
+  private static AuthorizeRequest getAuthzRequest(ServerConnection servConn, EventGroup group)
+      throws IOException {
+    return group == null ? servConn.getAuthzRequest() : group.authzRequest;
+  }
+
+  private static void setModificationInfo(ServerConnection servConn, EventGroup group, int index,
+      String regionName, Object key) {
+    if (group == null) {
+      servConn.setModificationInfo(true, regionName, key);
+    } else {
+      group.modIndex = index;
+      group.modRegion = regionName;
+      group.modKey = key;
+    }
+  }
+
+  /**
+   * Events of a batch that are applied in order by one thread, with the state that thread keeps
+   * while applying them
+   */
+  private static class EventGroup {
+    final int[] partNumbers;
+    /** the index of each event in the batch, not counting the PDX type events */
+    final int[] indexes;
+    final Object[] keys;
+    int size;
+
+    /** the authorization of the connection, taken before the groups are applied */
+    AuthorizeRequest authzRequest;
+
+    /** the index, region and key of the last event of this group that modified an entry */
+    int modIndex;
+    String modRegion;
+    Object modKey;
+
+    EventGroup(int capacity) {
+      this.partNumbers = new int[capacity];
+      this.indexes = new int[capacity];
+      this.keys = new Object[capacity];
+    }
+
+    void add(int partNumber, int index, Object key) {
+      this.partNumbers[this.size] = partNumber;
+      this.indexes[this.size] = index;
+      this.keys[this.size] = key;
+      this.size++;
+    }
+  }
+
+  /**
+   * The outcome of applying the events of a batch, shared by the threads applying them
+   */
+  private static class BatchResult {
+    final List<BatchException70> exceptions = new ArrayList<BatchException70>();
+    volatile Throwable fatalException;
+    /** set when no more events of the batch should be applied */
+    volatile boolean stopped;
+    /** set when the batch must not be replied to */
+    volatile boolean noReply;
+
+    void addException(BatchException70 exception) {
+      synchronized (this.exceptions) {
+        this.exceptions.add(exception);
       }
-      // logger.warn("Sent process batch normal response for batch " +
-      // batchId + " containing " + numberOfEvents + " events (" +
-      // msg.getPayloadLength() + " bytes) with " + (earlyAck ? "early" :
-      // "normal") + " acknowledgement on " + getSocketString());
     }
   }
 
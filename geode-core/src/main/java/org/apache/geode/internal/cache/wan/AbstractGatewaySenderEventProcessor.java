@@ -106,6 +106,22 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
   private Map<Integer, List<GatewaySenderEventImpl>> batchIdToPDXEventsMap =
       Collections.synchronizedMap(new HashMap<Integer, List<GatewaySenderEventImpl>>());
 
+  /**
+   * The time each batch in {@link #batchIdToEventsMap} was sent, used to measure how long the
+   * receiver takes to acknowledge it.
+   */
+  private final Map<Integer, Long> batchIdToDispatchTime = new ConcurrentHashMap<Integer, Long>();
+
+  /**
+   * The maximum number of batches this processor sends before it waits for the oldest one to be
+   * acknowledged. Zero (the default) does not limit the number of unacknowledged batches.
+   */
+  public static int MAX_IN_FLIGHT_BATCHES = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.MAX_IN_FLIGHT_BATCHES", 0);
+
+  /** Notified whenever a batch stops being in flight */
+  private final Object inFlightLock = new Object();
+
   private List<GatewaySenderEventImpl> pdxSenderEventsList =
       new ArrayList<GatewaySenderEventImpl>();
   private Map<Object, GatewaySenderEventImpl> pdxEventsMap =
@@ -430,6 +446,7 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
           // sleep a little bit, look for events
           boolean interrupted = Thread.interrupted();
           try {
+            waitForInFlightBatches();
             if (resetLastPeekedEvents) {
               resetLastPeekedEvents();
               resetLastPeekedEvents = false;
@@ -567,7 +584,7 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
             List<GatewaySenderEventImpl>[] eventsArr = (List<GatewaySenderEventImpl>[]) new List[2];
             eventsArr[0] = events;
             eventsArr[1] = filteredList;
-            this.batchIdToEventsMap.put(getBatchId(), eventsArr);
+            addBatchInFlight(getBatchId(), eventsArr);
             // find out PDX event and append it in front of the list
             pdxEventsToBeDispatched = addPDXEvent();
             eventsToBeDispatched.addAll(pdxEventsToBeDispatched);
@@ -848,8 +865,61 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
     }
   }
 
+  /**
+   * Records a batch that is about to be sent, so that it can be retrieved by the ack thread.
+   */
+  void addBatchInFlight(int batchId, List<GatewaySenderEventImpl>[] eventsArr) {
+    if (this.batchIdToEventsMap.put(batchId, eventsArr) == null) {
+      this.sender.getStatistics().incBatchesInFlight();
+    }
+    this.batchIdToDispatchTime.put(batchId, this.sender.getStatistics().startTime());
+  }
+
+  /**
+   * Waits while {@link #MAX_IN_FLIGHT_BATCHES} batches are awaiting acknowledgement. Returns early
+   * if the processor is stopped or the peeked events need to be reset.
+   */
+  void waitForInFlightBatches() throws InterruptedException {
+    if (MAX_IN_FLIGHT_BATCHES <= 0
+        || this.dispatcher instanceof GatewaySenderEventCallbackDispatcher) {
+      return;
+    }
+    synchronized (this.inFlightLock) {
+      while (this.batchIdToEventsMap.size() >= MAX_IN_FLIGHT_BATCHES && !this.resetLastPeekedEvents
+          && !stopped()) {
+        this.inFlightLock.wait(100);
+      }
+    }
+  }
+
+  /**
+   * Removes batches from the sender's batchesInFlight stat, which all of the sender's processors
+   * share, and wakes a processor waiting in {@link #waitForInFlightBatches()}.
+   */
+  private void batchesNoLongerInFlight(int batches) {
+    if (batches > 0) {
+      this.sender.getStatistics().decBatchesInFlight(batches);
+    }
+    synchronized (this.inFlightLock) {
+      this.inFlightLock.notifyAll();
+    }
+  }
+
+  /**
+   * Forgets every batch awaiting acknowledgement.
+   */
+  void clearBatchesInFlight() {
+    int cleared;
+    synchronized (this.batchIdToEventsMap) {
+      cleared = this.batchIdToEventsMap.size();
+      this.batchIdToEventsMap.clear();
+    }
+    this.batchIdToDispatchTime.clear();
+    batchesNoLongerInFlight(cleared);
+  }
+
   private void resetLastPeekedEvents() {
-    this.batchIdToEventsMap.clear();
+    clearBatchesInFlight();
     // make sure that when there is problem while receiving ack, pdx gateway
     // sender events isDispatched is set to false so that same events will be
     // dispatched in next batch
@@ -945,6 +1015,9 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
     final GatewaySenderStats statistics = this.sender.getStatistics();
     statistics.incBatchesRedistributed();
     this.resetLastPeekedEvents = true;
+    synchronized (this.inFlightLock) {
+      this.inFlightLock.notifyAll();
+    }
   }
 
   public void handleSuccessBatchAck(int batchId) {
@@ -957,6 +1030,10 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
     }
 
     List<GatewaySenderEventImpl>[] eventsArr = this.batchIdToEventsMap.remove(batchId);
+    Long dispatchTime = this.batchIdToDispatchTime.remove(batchId);
+    if (dispatchTime != null) {
+      this.sender.getStatistics().endBatchAck(dispatchTime);
+    }
     if (eventsArr != null) {
       List<GatewaySenderEventImpl> filteredEvents = eventsArr[1];
       for (GatewayEventFilter filter : sender.getGatewayEventFilters()) {
@@ -975,6 +1052,7 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
         logger.debug("Removing events from the queue {}", events.size());
       }
       eventQueueRemove(events.size());
+      batchesNoLongerInFlight(1);
     }
 
   }
@@ -1148,7 +1226,7 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
           // the connections later
           // try to stop it again
           dispatcher.stop();
-          this.batchIdToEventsMap.clear();
+          clearBatchesInFlight();
         }
       } catch (InterruptedException ex) {
         Thread.currentThread().interrupt();
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.wan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.geode.compression.Compressor;
+import org.apache.geode.compression.SnappyCompressor;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.Part;
+
+/**
+ * The compact encoding of a batch sent from a <code>GatewaySender</code> to a
+ * <code>GatewayReceiver</code>. A compact batch starts with a dictionary of the region paths and a
+ * dictionary of the member ids used by its events. Each event then refers to its region and member
+ * by index instead of repeating them, and values larger than {@link #COMPRESSION_THRESHOLD} bytes
+ * are Snappy compressed.
+ * <p>
+ * A compact batch is flagged with {@link #COMPACT_BATCH} in the batch's flags part and a compressed
+ * value with {@link #VALUE_COMPRESSED} in its event's possible duplicate part. Receivers older than
+ * {@link #MIN_RECEIVER_VERSION} do not know these flags, so batches sent to them always use the
+ * original encoding.
+ *
+ * @since Geode 1.2
+ */
+public class GatewaySenderBatchEncoding {
+
+  /**
+   * Whether senders send compact batches. False by default.
+   */
+  public static boolean ENABLED =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.COMPACT_BATCHES");
+
+  /**
+   * The size in bytes above which a value in a compact batch is compressed. A negative value
+   * disables compression.
+   */
+  public static final int COMPRESSION_THRESHOLD = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.BATCH_COMPRESSION_THRESHOLD", 1024);
+
+  /**
+   * The oldest receiver version that can read compact batches. Receivers of earlier releases,
+   * including those reporting {@link Version#GFE_91}, read the flags part as a plain boolean.
+   */
+  public static final Version MIN_RECEIVER_VERSION = Version.GEODE_120;
+
+  /** Set in the batch's flags part when the batch uses this encoding */
+  public static final byte COMPACT_BATCH = 0x02;
+
+  /** Set in an event's possible duplicate part when its value is compressed */
+  public static final byte VALUE_COMPRESSED = 0x02;
+
+  /** The number of dictionary parts a compact batch adds after the batch's flags part */
+  public static final int DICTIONARY_PARTS = 2;
+
+  private static final int EVENT_ID_LENGTH = 4 + 8 + 8 + 4;
+
+  private final Compressor compressor = new SnappyCompressor();
+
+  private final List<String> regionPaths;
+
+  private final List<byte[]> memberIds;
+
+  private final Map<String, Integer> regionPathIndexes = new HashMap<String, Integer>();
+
+  private final Map<ByteBuffer, Integer> memberIdIndexes = new HashMap<ByteBuffer, Integer>();
+
+  private long uncompressedBytes;
+
+  private long compressedBytes;
+
+  /**
+   * Creates the encoding of a batch containing the given events.
+   */
+  public GatewaySenderBatchEncoding(List<GatewaySenderEventImpl> events) {
+    this.regionPaths = new ArrayList<String>();
+    this.memberIds = new ArrayList<byte[]>();
+    for (GatewaySenderEventImpl event : events) {
+      int action = event.getAction();
+      if (action >= 0 && action <= 3) {
+        String regionPath = event.getRegionPath();
+        if (!this.regionPathIndexes.containsKey(regionPath)) {
+          this.regionPathIndexes.put(regionPath, this.regionPaths.size());
+          this.regionPaths.add(regionPath);
+        }
+        byte[] memberId = event.getEventId().getMembershipID();
+        ByteBuffer memberIdKey = ByteBuffer.wrap(memberId);
+        if (!this.memberIdIndexes.containsKey(memberIdKey)) {
+          this.memberIdIndexes.put(memberIdKey, this.memberIds.size());
+          this.memberIds.add(memberId);
+        }
+      }
+    }
+  }
+
+  private GatewaySenderBatchEncoding(String[] regionPaths, byte[][] memberIds) {
+    this.regionPaths = Arrays.asList(regionPaths);
+    this.memberIds = Arrays.asList(memberIds);
+  }
+
+  /**
+   * Returns true if batches sent to a receiver of the given version should use the compact
+   * encoding.
+   */
+  public static boolean useFor(short receiverVersion) {
+    return ENABLED && MIN_RECEIVER_VERSION.compareTo(receiverVersion) <= 0;
+  }
+
+  /**
+   * Reads the dictionaries of a received compact batch.
+   */
+  public static GatewaySenderBatchEncoding read(Part regionPathsPart, Part memberIdsPart)
+      throws IOException {
+    try {
+      return new GatewaySenderBatchEncoding((String[]) regionPathsPart.getObject(),
+          (byte[][]) memberIdsPart.getObject());
+    } catch (ClassNotFoundException e) {
+      // dictionaries only contain strings and byte arrays
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Adds the dictionary parts of this batch to the message.
+   */
+  public void addDictionaryParts(Message message) {
+    message.addObjPart(this.regionPaths.toArray(new String[this.regionPaths.size()]));
+    message.addObjPart(this.memberIds.toArray(new byte[this.memberIds.size()][]));
+  }
+
+  public void addRegionPathPart(Message message, String regionPath) {
+    message.addIntPart(this.regionPathIndexes.get(regionPath));
+  }
+
+  public void addEventIdPart(Message message, EventID eventId) {
+    ByteBuffer buffer = ByteBuffer.allocate(EVENT_ID_LENGTH);
+    buffer.putInt(this.memberIdIndexes.get(ByteBuffer.wrap(eventId.getMembershipID())));
+    buffer.putLong(eventId.getThreadID());
+    buffer.putLong(eventId.getSequenceID());
+    buffer.putInt(eventId.getBucketID());
+    message.addBytesPart(buffer.array());
+  }
+
+  /**
+   * Returns the compressed form of a serialized value, or null if the value should be sent as is.
+   */
+  public byte[] compress(byte[] value) {
+    if (COMPRESSION_THRESHOLD < 0 || value == null || value.length <= COMPRESSION_THRESHOLD) {
+      return null;
+    }
+    byte[] compressed = this.compressor.compress(value);
+    if (compressed.length >= value.length) {
+      return null;
+    }
+    this.uncompressedBytes += value.length;
+    this.compressedBytes += compressed.length;
+    return compressed;
+  }
+
+  /**
+   * Returns the total size of the values compressed by {@link #compress}, before compression.
+   */
+  public long getUncompressedBytes() {
+    return this.uncompressedBytes;
+  }
+
+  /**
+   * Returns the total size of the values compressed by {@link #compress}, after compression.
+   */
+  public long getCompressedBytes() {
+    return this.compressedBytes;
+  }
+
+  public String getRegionPath(Part regionPathPart) {
+    return this.regionPaths.get(regionPathPart.getInt());
+  }
+
+  public EventID getEventID(Part eventIdPart) {
+    ByteBuffer buffer = ByteBuffer.wrap(eventIdPart.getSerializedForm());
+    byte[] memberId = this.memberIds.get(buffer.getInt());
+    return new EventID(memberId, buffer.getLong(), buffer.getLong(), buffer.getInt());
+  }
+
+  /**
+   * Replaces the compressed contents of a received value part with the original value.
+   */
+  public void decompress(Part valuePart) {
+    valuePart.setPartState(this.compressor.decompress(valuePart.getSerializedForm()),
+        valuePart.isObject());
+  }
+}
@@ -89,6 +89,12 @@ public class GatewaySenderStats {
   protected static final String LOAD_BALANCES_IN_PROGRESS = "loadBalancesInProgress";
   protected static final String LOAD_BALANCE_TIME = "loadBalanceTime";
 
+  protected static final String BATCHES_IN_FLIGHT = "batchesInFlight";
+  protected static final String BATCHES_ACKED = "batchesAcked";
+  protected static final String BATCH_ACK_TIME = "batchAckTime";
+  protected static final String UNCOMPRESSED_VALUE_BYTES = "uncompressedValueBytes";
+  protected static final String COMPRESSED_VALUE_BYTES = "compressedValueBytes";
+
   /** Id of the events queued statistic */
   protected static int eventsReceivedId;
   /** Id of the events queued statistic */
@@ -140,6 +146,16 @@ public class GatewaySenderStats {
   protected static int loadBalancesInProgressId;
   /** Id of load balance time */
   protected static int loadBalanceTimeId;
+  /** Id of the batches in flight statistic */
+  protected static int batchesInFlightId;
+  /** Id of the batches acked statistic */
+  protected static int batchesAckedId;
+  /** Id of the batch ack time statistic */
+  protected static int batchAckTimeId;
+  /** Id of the uncompressed value bytes statistic */
+  protected static int uncompressedValueBytesId;
+  /** Id of the compressed value bytes statistic */
+  protected static int compressedValueBytesId;
 
   /**
    * Static initializer to create and initialize the <code>StatisticsType</code>
@@ -213,7 +229,18 @@ public class GatewaySenderStats {
             f.createIntGauge(LOAD_BALANCES_IN_PROGRESS, "Number of load balances in progress",
                 "operations"),
             f.createLongCounter(LOAD_BALANCE_TIME, "Total time spent load balancing this sender",
-                "nanoseconds"),});
+                "nanoseconds"),
+            f.createIntGauge(BATCHES_IN_FLIGHT,
+                "Number of batches sent to receivers and not yet acknowledged.", "operations"),
+            f.createIntCounter(BATCHES_ACKED,
+                "Number of batches successfully acknowledged by receivers.", "operations"),
+            f.createLongCounter(BATCH_ACK_TIME,
+                "Total time between sending batches and receiving their acknowledgements.",
+                "nanoseconds"),
+            f.createLongCounter(UNCOMPRESSED_VALUE_BYTES,
+                "Total size of the values compressed in batches, before compression.", "bytes"),
+            f.createLongCounter(COMPRESSED_VALUE_BYTES,
+                "Total size of the values compressed in batches, after compression.", "bytes"),});
 
     // Initialize id fields
     eventsReceivedId = type.nameToId(EVENTS_RECEIVED);
@@ -243,6 +270,11 @@ public class GatewaySenderStats {
     loadBalancesCompletedId = type.nameToId(LOAD_BALANCES_COMPLETED);
     loadBalancesInProgressId = type.nameToId(LOAD_BALANCES_IN_PROGRESS);
     loadBalanceTimeId = type.nameToId(LOAD_BALANCE_TIME);
+    batchesInFlightId = type.nameToId(BATCHES_IN_FLIGHT);
+    batchesAckedId = type.nameToId(BATCHES_ACKED);
+    batchAckTimeId = type.nameToId(BATCH_ACK_TIME);
+    uncompressedValueBytesId = type.nameToId(UNCOMPRESSED_VALUE_BYTES);
+    compressedValueBytesId = type.nameToId(COMPRESSED_VALUE_BYTES);
   }
 
   ////////////////////// Instance Fields //////////////////////
@@ -712,6 +744,85 @@ public class GatewaySenderStats {
     this.stats.incLong(batchDistributionTimeId, elapsed);
   }
 
+  /**
+   * Increments the "batchesInFlight" stat by 1.
+   */
+  public void incBatchesInFlight() {
+    this.stats.incInt(batchesInFlightId, 1);
+  }
+
+  /**
+   * Decrements the "batchesInFlight" stat by given delta.
+   *
+   * @param delta the number of batches no longer awaiting acknowledgement
+   */
+  public void decBatchesInFlight(int delta) {
+    this.stats.incInt(batchesInFlightId, -delta);
+  }
+
+  /**
+   * Returns the current value of the "batchesInFlight" stat.
+   *
+   * @return the current value of the "batchesInFlight" stat
+   */
+  public int getBatchesInFlight() {
+    return this.stats.getInt(batchesInFlightId);
+  }
+
+  /**
+   * Returns the current value of the "batchesAcked" stat.
+   *
+   * @return the current value of the "batchesAcked" stat
+   */
+  public int getBatchesAcked() {
+    return this.stats.getInt(batchesAckedId);
+  }
+
+  /**
+   * Returns the current value of the "batchAckTime" stat.
+   *
+   * @return the current value of the "batchAckTime" stat
+   */
+  public long getBatchAckTime() {
+    return this.stats.getLong(batchAckTimeId);
+  }
+
+  /**
+   * Increments the "batchesAcked" and "batchAckTime" stats.
+   *
+   * @param start The time the batch was sent (which is decremented from the current time to
+   *        determine the acknowledgement latency).
+   */
+  public void endBatchAck(long start) {
+    this.stats.incInt(batchesAckedId, 1);
+    this.stats.incLong(batchAckTimeId, DistributionStats.getStatTime() - start);
+  }
+
+  /**
+   * Increments the "uncompressedValueBytes" and "compressedValueBytes" stats.
+   *
+   * @param uncompressed The size of the values compressed in a batch, before compression
+   * @param compressed The size of the same values after compression
+   */
+  public void incValueBytesCompressed(long uncompressed, long compressed) {
+    this.stats.incLong(uncompressedValueBytesId, uncompressed);
+    this.stats.incLong(compressedValueBytesId, compressed);
+  }
+
+  /**
+   * Returns the ratio of the compressed to the uncompressed size of the values compressed in
+   * batches, or 1 if no value has been compressed.
+   *
+   * @return the compression ratio of batch values
+   */
+  public double getValueCompressionRatio() {
+    long uncompressed = this.stats.getLong(uncompressedValueBytesId);
+    if (uncompressed == 0) {
+      return 1;
+    }
+    return (double) this.stats.getLong(compressedValueBytesId) / uncompressed;
+  }
+
   /**
    * Increments the "eventsQueued" and "eventQueueTime" stats.
    * 
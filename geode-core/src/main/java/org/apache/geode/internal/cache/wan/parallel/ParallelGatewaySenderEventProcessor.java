@@ -176,6 +176,7 @@ public class ParallelGatewaySenderEventProcessor extends AbstractGatewaySenderEv
    */
 
   public void notifyEventProcessorIfRequired(int bucketId) {
+    ((ParallelGatewaySenderQueue) this.queue).markBucketReady(bucketId);
     ((ParallelGatewaySenderQueue) this.queue).notifyEventProcessorIfRequired();
   }
 
@@ -16,6 +16,7 @@ package org.apache.geode.internal.cache.wan.parallel;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -54,6 +55,7 @@ import org.apache.geode.cache.RegionAttributes;
 import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.asyncqueue.internal.AsyncEventQueueImpl;
 import org.apache.geode.distributed.internal.DM;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
 import org.apache.geode.internal.Version;
@@ -119,6 +121,30 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
 
   protected volatile boolean resetLastPeeked = false;
 
+  /**
+   * The interval in milliseconds after which {@link #peek(int, int)} rescans all the local buckets
+   * of a shadow PR for events. In between, it only visits the buckets in its ready bucket index.
+   * The rescan picks up buckets that received events without a put through this queue, for example
+   * by GII.
+   */
+  private static final long READY_BUCKET_RESCAN_INTERVAL = Long.getLong(
+      DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.READY_BUCKET_RESCAN_INTERVAL", 1000);
+
+  /**
+   * The index of the buckets that may have events to peek, keyed by shadow PR path. A bucket is
+   * added when an event is put into it or it becomes primary, and removed when peek finds it empty.
+   */
+  private final ConcurrentMap<String, ReadyBuckets> readyBucketsMap =
+      new ConcurrentHashMap<String, ReadyBuckets>();
+
+  /**
+   * The ready buckets visited by the current {@link #peek(int, int)}. Only used by the processor
+   * thread and reused across peeks.
+   */
+  private int[] peekBucketIds = new int[16];
+  private int peekBucketCount;
+  private int peekBucketCursor;
+
 
 
   /**
@@ -873,6 +899,9 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
     try {
       if (brq != null) {
         addedValueToQueue = brq.addToQueue(key, value);
+        if (addedValueToQueue) {
+          getReadyBuckets(brq.getPartitionedRegion().getFullPath()).bucketIds.add(brq.getId());
+        }
         // TODO : Kishor : During merge, ParallelWANstats test failed. On
         // comment below code test passed. cheetha does not have below code.
         // need to find out from hcih revision this code came
@@ -962,28 +991,6 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
     throw new UnsupportedOperationException();
   }
 
-  /**
-   * TODO: Optimization needed. We are creating 1 array list for each peek!!
-   *
-   * @return BucketRegionQueue
-   */
-  private final BucketRegionQueue getRandomBucketRegionQueue() {
-    PartitionedRegion prQ = getRandomShadowPR();
-    if (prQ != null) {
-      final PartitionedRegionDataStore ds = prQ.getDataStore();
-      final List<Integer> buckets = new ArrayList<Integer>(ds.getAllLocalPrimaryBucketIds());
-      if (buckets.isEmpty())
-        return null;
-      final int index = new Random().nextInt(buckets.size());
-      final int brqId = buckets.get(index);
-      final BucketRegionQueue brq = (BucketRegionQueue) ds.getLocalBucketById(brqId);
-      if (brq.isReadyForPeek()) {
-        return brq;
-      }
-    }
-    return null;
-  }
-
   protected boolean areLocalBucketQueueRegionsPresent() {
     boolean bucketsAvailable = false;
     for (PartitionedRegion prQ : this.userRegionNameToshadowPRMap.values()) {
@@ -993,49 +1000,18 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
     return false;
   }
 
-  private int pickBucketId;
-
-  protected int getRandomPrimaryBucket(PartitionedRegion prQ) {
-    if (prQ != null) {
-      Set<Map.Entry<Integer, BucketRegion>> allBuckets = prQ.getDataStore().getAllLocalBuckets();
-      List<Integer> thisProcessorBuckets = new ArrayList<Integer>();
-
-      for (Map.Entry<Integer, BucketRegion> bucketEntry : allBuckets) {
-        BucketRegion bucket = bucketEntry.getValue();
-        if (bucket.getBucketAdvisor().isPrimary()) {
-          int bId = bucket.getId();
-          if (bId % this.nDispatcher == this.index) {
-            thisProcessorBuckets.add(bId);
-          }
-        }
-      }
-
-      if (logger.isDebugEnabled()) {
-        logger.debug("getRandomPrimaryBucket: total {} for this processor: {}", allBuckets.size(),
-            thisProcessorBuckets.size());
-      }
-
-      int nTry = thisProcessorBuckets.size();
-
-      while (nTry-- > 0) {
-        if (pickBucketId >= thisProcessorBuckets.size())
-          pickBucketId = 0;
-        BucketRegionQueue br =
-            getBucketRegionQueueByBucketId(prQ, thisProcessorBuckets.get(pickBucketId++));
-        if (br != null && br.isReadyForPeek()) {
-          return br.getId();
+  /**
+   * Returns one of this processor's primary buckets that is ready for peek, or -1 if there is none.
+   */
+  private int getAnyReadyPrimaryBucket(PartitionedRegion prQ) {
+    for (BucketRegion bucket : prQ.getDataStore().getAllLocalBucketRegions()) {
+      int bucketId = bucket.getId();
+      if (bucketId % this.nDispatcher == this.index) {
+        BucketRegionQueue brq = getBucketRegionQueueByBucketId(prQ, bucketId);
+        if (brq != null && brq.isReadyForPeek()) {
+          return bucketId;
         }
       }
-
-      // TODO:REF: instead of shuffle use random number, in this method we are
-      // returning id instead we should return BRQ itself
-      /*
-       * Collections.shuffle(thisProcessorBuckets); for (Integer bucketId : thisProcessorBuckets) {
-       * BucketRegionQueue br = (BucketRegionQueue)prQ.getDataStore()
-       * .getBucketRegionQueueByBucketId(bucketId);
-       *
-       * if (br != null && br.isReadyForPeek()) { return br.getId(); } }
-       */
     }
     return -1;
   }
@@ -1140,6 +1116,7 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
 
   public void resetLastPeeked() {
     this.resetLastPeeked = true;
+    rescanReadyBuckets();
 
     // Reset the in progress boolean and queue for peeked events in progress
     this.peekedEventsProcessingInProgress = false;
@@ -1154,7 +1131,7 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
     int bucketId = -1;
     PartitionedRegion prQ = getRandomShadowPR();
     if (prQ != null && prQ.getDataStore().getAllLocalBucketRegions().size() > 0
-        && ((bucketId = getRandomPrimaryBucket(prQ)) != -1)) {
+        && ((bucketId = getAnyReadyPrimaryBucket(prQ)) != -1)) {
       BucketRegionQueue brq;
       try {
         brq = ((BucketRegionQueue) prQ.getDataStore().getInitializedBucketForId(null, bucketId));
@@ -1274,6 +1251,7 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
     addPeekedEvents(batch, batchSize);
 
     int bId = -1;
+    this.peekBucketCount = 0;
     while (batch.size() < batchSize) {
       if (areLocalBucketQueueRegionsPresent() && ((bId = getRandomPrimaryBucket(prQ)) != -1)) {
         GatewaySenderEventImpl object = (GatewaySenderEventImpl) peekAhead(prQ, bId);
@@ -1347,6 +1325,101 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
     return batch;
   }
 
+  /**
+   * Returns the next of this processor's primary buckets that is ready for peek, or -1 if there is
+   * none. The buckets are visited round robin from the ready bucket index so that a peek never
+   * scans empty buckets, except for the periodic rescan in {@link #fillPeekBuckets}. Only called
+   * by the processor thread from {@link #peek(int, int)}.
+   */
+  protected int getRandomPrimaryBucket(PartitionedRegion prQ) {
+    ReadyBuckets readyBuckets = getReadyBuckets(prQ.getFullPath());
+    if (this.peekBucketCount == 0) {
+      fillPeekBuckets(prQ, readyBuckets);
+    }
+    while (this.peekBucketCount > 0) {
+      if (this.peekBucketCursor >= this.peekBucketCount) {
+        this.peekBucketCursor = 0;
+      }
+      int bucketId = this.peekBucketIds[this.peekBucketCursor];
+      BucketRegionQueue brq = getBucketRegionQueueByBucketId(prQ, bucketId);
+      if (brq != null && brq.isReadyForPeek()) {
+        this.peekBucketCursor++;
+        return bucketId;
+      }
+      // Drop the empty bucket from this peek and from the index. Check again after removing it
+      // so that an event put concurrently is not missed.
+      this.peekBucketIds[this.peekBucketCursor] = this.peekBucketIds[--this.peekBucketCount];
+      readyBuckets.bucketIds.remove(bucketId);
+      if (brq != null && brq.isReadyForPeek()) {
+        readyBuckets.bucketIds.add(bucketId);
+      }
+    }
+    return -1;
+  }
+
+  private void fillPeekBuckets(PartitionedRegion prQ, ReadyBuckets readyBuckets) {
+    long now = System.currentTimeMillis();
+    if (now - readyBuckets.lastScanTime >= READY_BUCKET_RESCAN_INTERVAL) {
+      readyBuckets.lastScanTime = now;
+      for (BucketRegion bucket : prQ.getDataStore().getAllLocalBucketRegions()) {
+        int bucketId = bucket.getId();
+        if (bucketId % this.nDispatcher == this.index && bucket.getBucketAdvisor().isPrimary()) {
+          readyBuckets.bucketIds.add(bucketId);
+        }
+      }
+    }
+    int count = 0;
+    for (Integer bucketId : readyBuckets.bucketIds) {
+      if (count == this.peekBucketIds.length) {
+        this.peekBucketIds = Arrays.copyOf(this.peekBucketIds, count * 2);
+      }
+      this.peekBucketIds[count++] = bucketId;
+    }
+    this.peekBucketCount = count;
+    this.peekBucketCursor = 0;
+  }
+
+  private ReadyBuckets getReadyBuckets(String shadowPRPath) {
+    ReadyBuckets readyBuckets = this.readyBucketsMap.get(shadowPRPath);
+    if (readyBuckets == null) {
+      readyBuckets = new ReadyBuckets();
+      ReadyBuckets existing = this.readyBucketsMap.putIfAbsent(shadowPRPath, readyBuckets);
+      if (existing != null) {
+        readyBuckets = existing;
+      }
+    }
+    return readyBuckets;
+  }
+
+  /**
+   * Adds the bucket to the ready bucket index of every shadow PR, for example when it becomes
+   * primary.
+   */
+  public void markBucketReady(int bucketId) {
+    for (PartitionedRegion prQ : this.userRegionNameToshadowPRMap.values()) {
+      getReadyBuckets(prQ.getFullPath()).bucketIds.add(bucketId);
+    }
+  }
+
+  /**
+   * Makes the next peek rescan all the local buckets.
+   */
+  private void rescanReadyBuckets() {
+    for (ReadyBuckets readyBuckets : this.readyBucketsMap.values()) {
+      readyBuckets.lastScanTime = 0;
+    }
+  }
+
+  /**
+   * The ready bucket index of one shadow PR.
+   */
+  private static class ReadyBuckets {
+    final Set<Integer> bucketIds =
+        Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    volatile long lastScanTime;
+  }
+
   private void addPeekedEvents(List<GatewaySenderEventImpl> batch, int batchSize) {
     if (this.resetLastPeeked) {
 
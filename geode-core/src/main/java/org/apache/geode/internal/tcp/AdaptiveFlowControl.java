@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import org.apache.geode.distributed.internal.DMStats;
+
+/**
+ * AdaptiveFlowControl tracks how long non-blocking writes on a sender {@link Connection} stall
+ * because the receiver is not draining its socket. A receiver whose smoothed stall time exceeds
+ * the congestion threshold is considered congested, and the connection then starts async queuing
+ * as soon as a socket write would block instead of waiting out the full
+ * async-distribution-timeout. Once the receiver catches up the configured timeout is used again.
+ * <p>
+ * Only applies to receivers that allow async queuing (a non-zero async-distribution-timeout). It
+ * is enabled with the <code>p2p.adaptiveFlowControl</code> system property.
+ *
+ * @since Geode 1.2
+ */
+class AdaptiveFlowControl {
+
+  static final boolean ENABLED = Boolean.getBoolean("p2p.adaptiveFlowControl");
+
+  /**
+   * The smoothed stall time, in milliseconds, above which a receiver is considered congested. A
+   * receiver is no longer considered congested once it drops below half of this value.
+   */
+  static final long CONGESTION_THRESHOLD_MS =
+      Long.getLong("p2p.adaptiveFlowControl.stallThresholdMs", 10).longValue();
+
+  /** weight of a new sample is 1/(2^SMOOTHING_SHIFT), as in TCP's round trip estimator */
+  private static final int SMOOTHING_SHIFT = 3;
+
+  private final DMStats stats;
+
+  /** the smoothed stall time, scaled by 2^SMOOTHING_SHIFT */
+  private long scaledStallMs;
+
+  private volatile boolean congested;
+
+  AdaptiveFlowControl(DMStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Records the number of milliseconds a single write to the receiver was blocked.
+   */
+  void recordWrite(long stalledMs) {
+    recordWrite(stalledMs, false);
+  }
+
+  /**
+   * Records the number of milliseconds a single write to the receiver was blocked before it
+   * completed or, if <code>queued</code>, before it was handed to the async queue.
+   */
+  synchronized void recordWrite(long stalledMs, boolean queued) {
+    if (queued && this.congested) {
+      // A congested receiver is queued for as soon as a write would block, so the stall time of
+      // such a write says nothing about the receiver and would pull the average down until the
+      // congestion ends on the next cycle.
+      return;
+    }
+    this.scaledStallMs += stalledMs - (this.scaledStallMs >> SMOOTHING_SHIFT);
+    long smoothedStallMs = getSmoothedStallMs();
+    if (!this.congested) {
+      if (smoothedStallMs > CONGESTION_THRESHOLD_MS) {
+        this.congested = true;
+        this.stats.incAsyncCongestedReceivers(1);
+        this.stats.incAsyncCongestionsDetected();
+      }
+    } else if (smoothedStallMs <= CONGESTION_THRESHOLD_MS / 2) {
+      this.congested = false;
+      this.stats.incAsyncCongestedReceivers(-1);
+    }
+  }
+
+  /**
+   * Returns the async-distribution-timeout to use for the next write given the one the receiver
+   * sent in its handshake.
+   */
+  int getDistributionTimeout(int configuredTimeout) {
+    if (configuredTimeout == 0) {
+      // the receiver does not allow queuing
+      return 0;
+    }
+    if (this.congested) {
+      // start queuing as soon as a write would block
+      return 1;
+    }
+    return configuredTimeout;
+  }
+
+  long getSmoothedStallMs() {
+    return this.scaledStallMs >> SMOOTHING_SHIFT;
+  }
+
+  boolean isCongested() {
+    return this.congested;
+  }
+
+  /**
+   * Called when the connection is closed so that the congested receivers gauge stays accurate.
+   */
+  synchronized void close() {
+    if (this.congested) {
+      this.congested = false;
+      this.stats.incAsyncCongestedReceivers(-1);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveFlowControl(smoothedStallMs=" + getSmoothedStallMs() + "; congested="
+        + this.congested + ")";
+  }
+}
@@ -254,6 +254,13 @@ public class Connection implements Runnable {
    * @since GemFire 4.2.2
    */
   private long asyncMaxQueueSize = 0;
+  /**
+   * Adjusts asyncDistributionTimeout based on how quickly the receiver drains its socket. Null
+   * unless adaptive flow control is enabled and the receiver allows async queuing.
+   * 
+   * @since Geode 1.2
+   */
+  private volatile AdaptiveFlowControl flowControl;
   /**
    * True if an async queue is already being filled.
    */
@@ -1597,6 +1604,10 @@ public class Connection implements Runnable {
                 stats.decSenders(this.sharedResource, this.preserveOrder);
               }
             }
+            final AdaptiveFlowControl fc = this.flowControl;
+            if (fc != null) {
+              fc.close();
+            }
           }
           if (logger.isDebugEnabled()) {
             logger.debug("Closing socket for {}", this);
@@ -2318,6 +2329,7 @@ public class Connection implements Runnable {
                 this.asyncQueueTimeout = dis.readInt();
                 this.asyncMaxQueueSize = (long) dis.readInt() * (1024 * 1024);
                 if (this.asyncDistributionTimeout != 0) {
+                  initFlowControl();
                   logger.info(LocalizedMessage.create(
                       LocalizedStrings.Connection_0_ASYNC_CONFIGURATION_RECEIVED_1,
                       new Object[] {p2pReaderName(),
@@ -3193,6 +3205,9 @@ public class Connection implements Runnable {
     long startSocketWrite = 0;
     int retries = 0;
     int totalAmtWritten = 0;
+    long stalledMs = 0;
+    boolean queued = false;
+    final AdaptiveFlowControl fc = this.flowControl;
     try {
       synchronized (this.outLock) {
         if (!forceAsync) {
@@ -3209,11 +3224,14 @@ public class Connection implements Runnable {
         long now = System.currentTimeMillis();
         int waitTime = 1;
         long distributionTimeoutTarget = 0;
+        final int distributionTimeout = fc == null ? this.asyncDistributionTimeout
+            : fc.getDistributionTimeout(this.asyncDistributionTimeout);
         // if asyncDistributionTimeout == 1 then we want to start queuing
         // as soon as we do a non blocking socket write that returns 0
-        if (this.asyncDistributionTimeout != 1) {
-          distributionTimeoutTarget = now + this.asyncDistributionTimeout;
+        if (distributionTimeout != 1) {
+          distributionTimeoutTarget = now + distributionTimeout;
         }
+        final long writeStart = now;
         long queueTimeoutTarget = now + this.asyncQueueTimeout;
         channel.configureBlocking(false);
         try {
@@ -3237,10 +3255,10 @@ public class Connection implements Runnable {
                           "Starting async pusher to handle async queue because distribution-timeout is 1 and the last socket write would have blocked.");
                     } else {
                       long blockedMs = now - distributionTimeoutTarget;
-                      blockedMs += this.asyncDistributionTimeout;
+                      blockedMs += distributionTimeout;
                       logger.debug(
                           "Blocked for {}ms which is longer than the max of {}ms so starting async pusher to handle async queue.",
-                          blockedMs, this.asyncDistributionTimeout);
+                          blockedMs, distributionTimeout);
                     }
                   }
                   stats.incAsyncDistributionTimeoutExceeded();
@@ -3252,6 +3270,8 @@ public class Connection implements Runnable {
                     msg = null;
                   }
                   if (handleBlockedWrite(buffer, msg)) {
+                    stalledMs = now - writeStart;
+                    queued = true;
                     return;
                   }
                 }
@@ -3326,6 +3346,9 @@ public class Connection implements Runnable {
               waitTime = 1;
             }
           } while (buffer.remaining() > 0);
+          if (retries > 1) {
+            stalledMs = System.currentTimeMillis() - writeStart;
+          }
         } finally {
           channel.configureBlocking(true);
         }
@@ -3336,10 +3359,23 @@ public class Connection implements Runnable {
           retries--;
         }
         stats.endSocketWrite(false, startSocketWrite, totalAmtWritten, retries);
+        if (fc != null) {
+          fc.recordWrite(stalledMs, queued);
+        }
       }
     }
   }
 
+  /**
+   * Creates the adaptive flow control for this sender, if enabled, once the receiver has told us
+   * in its handshake that it allows async queuing.
+   */
+  private void initFlowControl() {
+    if (AdaptiveFlowControl.ENABLED && this.flowControl == null) {
+      this.flowControl = new AdaptiveFlowControl(this.owner.getConduit().stats);
+    }
+  }
+
   /**
    * nioWriteFully implements a blocking write on a channel that is in non-blocking mode.
    * 
@@ -3790,6 +3826,7 @@ public class Connection implements Runnable {
                   this.asyncQueueTimeout = dis.readInt();
                   this.asyncMaxQueueSize = (long) dis.readInt() * (1024 * 1024);
                   if (this.asyncDistributionTimeout != 0) {
+                    initFlowControl();
                     logger.info(LocalizedMessage.create(
                         LocalizedStrings.Connection_0_ASYNC_CONFIGURATION_RECEIVED_1,
                         new Object[] {p2pReaderName(),
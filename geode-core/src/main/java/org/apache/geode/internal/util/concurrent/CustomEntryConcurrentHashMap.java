@@ -1938,6 +1938,27 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
     return new ValueIterator();
   }
 
+  /**
+   * Returns an iterator over the values in the segments whose index modulo stripeCount is stripe.
+   * stripeCount iterators, one for each stripe, together return every value once, so the map can
+   * be read by several threads without each of them walking the whole map. There is at most one
+   * non-empty stripe per segment.
+   * 
+   * @see #getSegmentCount()
+   */
+  public final Iterator<V> valuesInStripe(int stripe, int stripeCount) {
+    return new ValueIterator(stripe, stripeCount);
+  }
+
+  /**
+   * Returns the number of segments, which is the largest useful number of stripes.
+   * 
+   * @see #valuesInStripe(int, int)
+   */
+  public final int getSegmentCount() {
+    return this.segments.length;
+  }
+
   /* ---------------- Iterator Support -------------- */
 
   abstract class HashIterator {
@@ -1957,7 +1978,18 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
 
     int currentListIndex;
 
+    /** if stripeCount is greater than one, only segments whose index is in this stripe are read */
+    final int stripe;
+
+    final int stripeCount;
+
     HashIterator() {
+      this(0, 1);
+    }
+
+    HashIterator(int stripe, int stripeCount) {
+      this.stripe = stripe;
+      this.stripeCount = stripeCount;
       this.currentSegmentIndex = CustomEntryConcurrentHashMap.this.segments.length;
       this.nextTableIndex = -1;
       this.currentList = new ArrayList<HashEntry<K, V>>(5);
@@ -2005,6 +2037,9 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
       while (this.currentSegmentIndex > 0) {
         final Segment<K, V> seg =
             CustomEntryConcurrentHashMap.this.segments[--this.currentSegmentIndex];
+        if (this.stripeCount > 1 && this.currentSegmentIndex % this.stripeCount != this.stripe) {
+          continue;
+        }
         if (seg.count != 0) {
           this.currentTable = seg.table;
           final ReentrantReadWriteLock.ReadLock listLock = seg.listUpdateLock.readLock();
@@ -2077,6 +2112,14 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
 
   final class ValueIterator extends HashIterator implements Iterator<V>, Enumeration<V> {
 
+    ValueIterator() {
+      super();
+    }
+
+    ValueIterator(int stripe, int stripeCount) {
+      super(stripe, stripeCount);
+    }
+
     public V next() {
       return super.nextEntry().getMapValue();
     }
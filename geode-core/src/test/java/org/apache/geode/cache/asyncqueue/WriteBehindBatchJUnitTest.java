@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.asyncqueue;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Operation;
+import org.apache.geode.cache.Region;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class WriteBehindBatchJUnitTest {
+
+  private final Region region1 = mock(Region.class);
+  private final Region region2 = mock(Region.class);
+
+  @Test
+  public void eventsAreCoalescedByKeyAndGroupedByNetOperation() {
+    AsyncEvent create1 = event(this.region1, "k1", Operation.CREATE);
+    AsyncEvent update1 = event(this.region1, "k1", Operation.UPDATE);
+    AsyncEvent update2 = event(this.region1, "k2", Operation.UPDATE);
+    AsyncEvent update3 = event(this.region1, "k3", Operation.UPDATE);
+    AsyncEvent destroy3 = event(this.region1, "k3", Operation.DESTROY);
+    AsyncEvent destroy4 = event(this.region1, "k4", Operation.DESTROY);
+    AsyncEvent create4 = event(this.region1, "k4", Operation.CREATE);
+    AsyncEvent otherRegion = event(this.region2, "k1", Operation.INVALIDATE);
+
+    WriteBehindBatch batch = new WriteBehindBatch(Arrays.asList(create1, update1, update2,
+        update3, otherRegion, destroy3, destroy4, create4));
+
+    assertEquals(5, batch.size());
+    assertEquals(Arrays.asList(this.region1, this.region2),
+        Arrays.asList(batch.getRegions().toArray()));
+    assertEquals(Collections.singletonList(update1),
+        batch.getEvents(this.region1, Operation.CREATE));
+    assertEquals(Arrays.asList(update2, create4),
+        batch.getEvents(this.region1, Operation.UPDATE));
+    assertEquals(Collections.singletonList(destroy3),
+        batch.getEvents(this.region1, Operation.DESTROY));
+    assertEquals(Collections.singletonList(otherRegion),
+        batch.getEvents(this.region2, Operation.INVALIDATE));
+    assertTrue(batch.getEvents(this.region2, Operation.UPDATE).isEmpty());
+  }
+
+  @Test
+  public void keysCreatedAndThenDestroyedAreLeftOut() {
+    AsyncEvent create1 = event(this.region1, "k1", Operation.CREATE);
+    AsyncEvent update1 = event(this.region1, "k1", Operation.UPDATE);
+    AsyncEvent destroy1 = event(this.region1, "k1", Operation.DESTROY);
+    AsyncEvent update2 = event(this.region1, "k2", Operation.UPDATE);
+    AsyncEvent create3 = event(this.region2, "k3", Operation.CREATE);
+    AsyncEvent destroy3 = event(this.region2, "k3", Operation.DESTROY);
+
+    WriteBehindBatch batch = new WriteBehindBatch(
+        Arrays.asList(create1, create3, update1, update2, destroy1, destroy3));
+
+    assertEquals(1, batch.size());
+    assertEquals(Collections.singleton(this.region1), batch.getRegions());
+    assertEquals(Collections.singletonList(update2),
+        batch.getEvents(this.region1, Operation.UPDATE));
+    assertTrue(batch.getEvents(this.region1, Operation.CREATE).isEmpty());
+    assertTrue(batch.getEvents(this.region1, Operation.DESTROY).isEmpty());
+    assertTrue(batch.getEvents(this.region2, Operation.DESTROY).isEmpty());
+  }
+
+  private AsyncEvent event(Region region, Object key, Operation operation) {
+    AsyncEvent event = mock(AsyncEvent.class);
+    when(event.getRegion()).thenReturn(region);
+    when(event.getKey()).thenReturn(key);
+    when(event.getOperation()).thenReturn(operation);
+    return event;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.pdx.PdxInstanceFactory;
+import org.apache.geode.pdx.WritablePdxInstance;
+import org.apache.geode.pdx.internal.PdxInstanceFactoryImpl;
+import org.apache.geode.pdx.internal.PdxString;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class AttributeDescriptorJUnitTest {
+
+  private GemFireCacheImpl cache;
+
+  @Before
+  public void setUp() {
+    this.cache = (GemFireCacheImpl) new CacheFactory().set(MCAST_PORT, "0")
+        .setPdxReadSerialized(true).create();
+  }
+
+  @After
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  @Test
+  public void sameDescriptorReadsFieldFromInstancesOfDifferentTypes() throws Exception {
+    AttributeDescriptor id = new AttributeDescriptor("ID");
+    PdxInstanceFactory first = PdxInstanceFactoryImpl.newCreator("Portfolio", false);
+    first.writeInt("ID", 1);
+    first.writeString("status", "active");
+    PdxInstanceFactory second = PdxInstanceFactoryImpl.newCreator("Position", false);
+    second.writeString("secId", "IBM");
+    second.writeLong("ID", 2L);
+
+    assertEquals(1, id.read(first.create()));
+    assertEquals(2L, id.read(second.create()));
+
+    PdxInstanceFactory third = PdxInstanceFactoryImpl.newCreator("Portfolio", false);
+    third.writeInt("ID", 3);
+    third.writeString("status", "inactive");
+    assertEquals(3, id.read(third.create()));
+  }
+
+  @Test
+  public void stringFieldIsReadAsPdxString() throws Exception {
+    PdxInstanceFactory factory = PdxInstanceFactoryImpl.newCreator("Portfolio", false);
+    factory.writeString("status", "active");
+    assertEquals(new PdxString("active"),
+        new AttributeDescriptor("status").read(factory.create()));
+  }
+
+  @Test
+  public void modifiedFieldIsReadFromWritableInstance() throws Exception {
+    PdxInstanceFactory factory = PdxInstanceFactoryImpl.newCreator("Portfolio", false);
+    factory.writeInt("ID", 1);
+    AttributeDescriptor id = new AttributeDescriptor("ID");
+    assertEquals(1, id.read(factory.create()));
+
+    WritablePdxInstance writable = factory.create().createWriter();
+    writable.setField("ID", 5);
+    assertEquals(5, id.read(writable));
+  }
+}
@@ -32,12 +32,18 @@ import org.apache.geode.cache.query.internal.aggregate.Avg;
 import org.apache.geode.cache.query.internal.aggregate.AvgBucketNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinct;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinctPRQueryNode;
+import org.apache.geode.cache.query.internal.aggregate.AvgMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.Count;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinct;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimate;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimateBucketNode;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimateMemberNode;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctEstimatePRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.DistinctAggregator;
+import org.apache.geode.cache.query.internal.aggregate.DistinctMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.MaxMin;
 import org.apache.geode.cache.query.internal.aggregate.Sum;
 import org.apache.geode.cache.query.internal.aggregate.SumDistinct;
@@ -181,4 +187,48 @@ public class CompiledAggregateFunctionJUnitTest {
     MaxMin maxMin1 = (MaxMin) agg1;
     assertFalse(((Boolean) findMax.get(maxMin1)).booleanValue());
   }
+
+  @Test
+  public void testMemberNode() throws Exception {
+    QueryExecutionContext context1 = new QueryExecutionContext(null, cache);
+    context1.setBucketList(this.bucketList);
+    context1.setIsCombiningBucketResults(true);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.COUNT)
+        .evaluate(context1) instanceof CountPRQueryNode);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.COUNT, true)
+        .evaluate(context1) instanceof DistinctMemberNode);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.SUM)
+        .evaluate(context1) instanceof Sum);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.SUM, true)
+        .evaluate(context1) instanceof DistinctMemberNode);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.AVG)
+        .evaluate(context1) instanceof AvgMemberNode);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.AVG, true)
+        .evaluate(context1) instanceof DistinctMemberNode);
+  }
+
+  @Test
+  public void testApproximateCountDistinct() throws Exception {
+    CompiledAggregateFunction caf =
+        new CompiledAggregateFunction(null, OQLLexerTokenTypes.COUNT, true);
+    boolean oldValue = CompiledAggregateFunction.APPROXIMATE_COUNT_DISTINCT;
+    CompiledAggregateFunction.APPROXIMATE_COUNT_DISTINCT = true;
+    try {
+      ExecutionContext context1 = new ExecutionContext(null, cache);
+      assertTrue(caf.evaluate(context1) instanceof CountDistinctEstimate);
+
+      QueryExecutionContext context2 = new QueryExecutionContext(null, cache);
+      context2.setBucketList(this.bucketList);
+      assertTrue(caf.evaluate(context2) instanceof CountDistinctEstimateBucketNode);
+
+      context2.setIsCombiningBucketResults(true);
+      assertTrue(caf.evaluate(context2) instanceof CountDistinctEstimateMemberNode);
+
+      ExecutionContext context3 = new ExecutionContext(null, cache);
+      context3.setIsPRQueryNode(true);
+      assertTrue(caf.evaluate(context3) instanceof CountDistinctEstimatePRQueryNode);
+    } finally {
+      CompiledAggregateFunction.APPROXIMATE_COUNT_DISTINCT = oldValue;
+    }
+  }
 }
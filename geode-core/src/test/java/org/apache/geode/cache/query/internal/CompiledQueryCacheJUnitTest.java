@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryInvalidException;
+import org.apache.geode.cache.query.internal.CompiledQueryCache.CompiledQuery;
+import org.apache.geode.internal.cache.CachePerfStats;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompiledQueryCacheJUnitTest {
+
+  private static final String QUERY = "select * from /portfolios p where p.ID = $1";
+
+  private CachePerfStats stats;
+  private CompiledQueryCache cache;
+
+  @Before
+  public void setUp() {
+    stats = mock(CachePerfStats.class);
+    cache = new CompiledQueryCache(3, stats);
+  }
+
+  @Test
+  public void compiledQueryIsReturnedFromCache() {
+    assertNull(cache.get(QUERY));
+    verify(stats).incCompiledQueryCacheMisses();
+
+    CompiledQuery compiled = CompiledQueryCache.compile(QUERY);
+    assertTrue(compiled.getCompiledValue() instanceof CompiledSelect);
+    cache.put(QUERY, compiled);
+
+    assertSame(compiled, cache.get(QUERY));
+    verify(stats).incCompiledQueryCacheHits();
+  }
+
+  @Test
+  public void traceRequestIsKept() {
+    assertTrue(CompiledQueryCache.compile("<trace> " + QUERY).isTraceRequested());
+    assertFalse(CompiledQueryCache.compile(QUERY).isTraceRequested());
+  }
+
+  @Test(expected = QueryInvalidException.class)
+  public void invalidQueryIsRejected() {
+    CompiledQueryCache.compile("select from where");
+  }
+
+  @Test
+  public void unusedQueriesAreEvictedFirst() {
+    for (int i = 0; i < 3; i++) {
+      cache.put(QUERY + i, CompiledQueryCache.compile(QUERY + i));
+    }
+    cache.get(QUERY + 0);
+    cache.get(QUERY + 2);
+
+    cache.put(QUERY + 3, CompiledQueryCache.compile(QUERY + 3));
+
+    assertEquals(3, cache.size());
+    assertNotNull(cache.get(QUERY + 0));
+    assertNull(cache.get(QUERY + 1));
+    assertNotNull(cache.get(QUERY + 2));
+    assertNotNull(cache.get(QUERY + 3));
+  }
+
+  @Test
+  public void cacheNeverExceedsMaxSize() {
+    for (int i = 0; i < 10; i++) {
+      cache.put(QUERY + i, CompiledQueryCache.compile(QUERY + i));
+      cache.get(QUERY + i);
+      assertTrue(cache.size() <= 3);
+    }
+  }
+
+  @Test
+  public void clearRemovesEveryQuery() {
+    cache.put(QUERY, CompiledQueryCache.compile(QUERY));
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNull(cache.get(QUERY));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class HashJoinJUnitTest {
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    this.cache = new CacheFactory().set(MCAST_PORT, "0").create();
+    Region<Integer, Portfolio> portfolios =
+        this.cache.<Integer, Portfolio>createRegionFactory(RegionShortcut.REPLICATE)
+            .create("portfolios");
+    Region<Integer, Portfolio> others =
+        this.cache.<Integer, Portfolio>createRegionFactory(RegionShortcut.REPLICATE)
+            .create("others");
+    Region<Integer, Object> ids =
+        this.cache.<Integer, Object>createRegionFactory(RegionShortcut.REPLICATE).create("ids");
+    for (int i = 0; i < 200; i++) {
+      portfolios.put(i, new Portfolio(i));
+    }
+    for (int i = 0; i < 50; i++) {
+      others.put(i, new Portfolio(i * 3));
+      ids.put(i, i % 2 == 0 ? Long.valueOf(i) : (Object) Double.valueOf(i));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    CompiledSelect.HASH_JOIN = false;
+    this.cache.close();
+  }
+
+  @Test
+  public void hashJoinMatchesNestedIterations() throws Exception {
+    assertSameResults("select * from /portfolios p, /others o where p.ID = o.ID", 50);
+    assertSameResults("select p.ID, o.status from /portfolios p, /others o"
+        + " where o.ID = p.ID and p.status = 'active'", 25);
+    assertSameResults("select distinct p.status from /portfolios p, /others o where p.ID = o.ID",
+        2);
+  }
+
+  @Test
+  public void numbersOfDifferentTypesAreJoinedByValue() throws Exception {
+    assertSameResults("select * from /portfolios p, /ids i where p.ID = i", 50);
+  }
+
+  @Test
+  public void limitStopsTheJoin() throws Exception {
+    assertSameSize("select * from /portfolios p, /others o where p.ID = o.ID limit 10", 10);
+  }
+
+  private void assertSameResults(String queryString, int expectedSize) throws Exception {
+    SelectResults nested = execute(queryString, false);
+    SelectResults hashed = execute(queryString, true);
+    assertEquals(expectedSize, nested.size());
+    assertEquals(nested.size(), hashed.size());
+    assertEquals(new HashSet(nested.asList()), new HashSet(hashed.asList()));
+  }
+
+  private void assertSameSize(String queryString, int expectedSize) throws Exception {
+    assertEquals(expectedSize, execute(queryString, false).size());
+    assertEquals(expectedSize, execute(queryString, true).size());
+  }
+
+  private SelectResults execute(String queryString, boolean hashJoin) throws Exception {
+    CompiledSelect.HASH_JOIN = hashJoin;
+    return (SelectResults) this.cache.getQueryService().newQuery(queryString).execute();
+  }
+}
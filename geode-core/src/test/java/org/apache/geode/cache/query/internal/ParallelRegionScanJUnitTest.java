@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.internal.cache.EntriesSet;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class ParallelRegionScanJUnitTest {
+
+  private static final int ENTRIES = 1000;
+
+  private GemFireCacheImpl cache;
+  private Region<Integer, Integer> region;
+
+  @Before
+  public void setUp() {
+    this.cache = (GemFireCacheImpl) new CacheFactory().set(MCAST_PORT, "0").create();
+    this.region = this.cache.<Integer, Integer>createRegionFactory(RegionShortcut.REPLICATE)
+        .create("numbers");
+    for (int i = 0; i < ENTRIES; i++) {
+      this.region.put(i, i % 100);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  @Test
+  public void stripesCoverEveryKeyOnce() {
+    Set keys = new HashSet();
+    int total = 0;
+    for (int stripe = 0; stripe < 3; stripe++) {
+      EntriesSet striped = (EntriesSet) this.region.keySet();
+      striped.setStripe(stripe, 3);
+      for (Iterator it = striped.iterator(); it.hasNext();) {
+        keys.add(it.next());
+        total++;
+      }
+    }
+    assertEquals(ENTRIES, total);
+    assertEquals(ENTRIES, keys.size());
+  }
+
+  @Test
+  public void scanPoolIsShutDownWithTheCache() throws Exception {
+    evaluate("select * from /numbers n where n < 10");
+    ExecutorService pool = this.cache.getQueryScanPool(1);
+    assertFalse(pool.isShutdown());
+    this.cache.close();
+    assertTrue(pool.isShutdown());
+  }
+
+  @Test
+  public void stripedResultsMatchSerialResults() throws Exception {
+    assertSameResults("select * from /numbers n where n < 10");
+    assertSameResults("select distinct * from /numbers n where n < 10");
+  }
+
+  @Test
+  public void orderedResultsAreMerged() throws Exception {
+    SelectResults results = evaluate("select distinct n from /numbers n where n >= 90 order by n");
+    List expected = new ArrayList();
+    for (int i = 90; i < 100; i++) {
+      expected.add(i);
+    }
+    assertEquals(expected, results.asList());
+  }
+
+  @Test
+  public void limitIsAppliedToMergedResults() throws Exception {
+    assertEquals(15, evaluate("select * from /numbers n where n < 10 limit 15").size());
+    assertEquals(5,
+        evaluate("select distinct n from /numbers n where n < 10 order by n limit 5").size());
+  }
+
+  @Test
+  public void indexedRegionIsNotScanned() throws Exception {
+    this.cache.getQueryService().createIndex("numbers", "n", "/numbers n");
+    DefaultQuery query = (DefaultQuery) this.cache.getQueryService()
+        .newQuery("select * from /numbers n where n < 10");
+    assertNull(ParallelRegionScan.getRegionToScan(query,
+        new QueryExecutionContext(null, this.cache, query)));
+  }
+
+  private void assertSameResults(String queryString) throws Exception {
+    SelectResults serial =
+        (SelectResults) this.cache.getQueryService().newQuery(queryString).execute();
+    SelectResults striped = evaluate(queryString);
+    assertEquals(serial.size(), striped.size());
+    assertEquals(new HashSet(serial.asList()), new HashSet(striped.asList()));
+  }
+
+  private SelectResults evaluate(String queryString) throws Exception {
+    DefaultQuery query = (DefaultQuery) this.cache.getQueryService().newQuery(queryString);
+    CompiledSelect select = query.getSimpleSelect();
+    CompiledRegion compiledRegion =
+        (CompiledRegion) ((CompiledIteratorDef) select.getIterators().get(0)).getCollectionExpr();
+    ExecutionContext context = new QueryExecutionContext(null, this.cache, query);
+    select.computeDependencies(context);
+    return ParallelRegionScan.evaluate(query, context, compiledRegion, 4);
+  }
+}
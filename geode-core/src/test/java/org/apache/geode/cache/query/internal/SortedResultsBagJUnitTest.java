@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class SortedResultsBagJUnitTest {
+
+  private static final Comparator<Integer> ASCENDING = new Comparator<Integer>() {
+    @Override
+    public int compare(Integer o1, Integer o2) {
+      return o1.compareTo(o2);
+    }
+  };
+
+  @Test
+  public void removeLastDropsOneOccurrenceOfLargestElement() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(ASCENDING, true);
+    bag.add(3);
+    bag.add(1);
+    bag.add(3);
+    bag.add(2);
+
+    bag.removeLast();
+    assertEquals(3, bag.size());
+    assertEquals(Arrays.asList(1, 2, 3), bag.asList());
+
+    bag.removeLast();
+    assertEquals(Arrays.asList(1, 2), bag.asList());
+  }
+
+  @Test
+  public void removeLastDropsNullsEmittedAtEnd() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(ASCENDING, false);
+    bag.add(1);
+    bag.add(null);
+    bag.removeLast();
+    assertEquals(Arrays.asList(1), bag.asList());
+
+    SortedResultsBag<Integer> nullsFirst = new SortedResultsBag<Integer>(ASCENDING, true);
+    nullsFirst.add(1);
+    nullsFirst.add(null);
+    nullsFirst.removeLast();
+    assertEquals(Arrays.asList((Integer) null), nullsFirst.asList());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void removeLastIsNotSupportedForOrderedInput() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(true);
+    bag.add(1);
+    bag.removeLast();
+  }
+}
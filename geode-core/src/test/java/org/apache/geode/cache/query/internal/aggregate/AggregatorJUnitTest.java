@@ -202,4 +202,86 @@ public class AggregatorJUnitTest {
     assertEquals(1, ((Integer) min.terminate()).intValue());
   }
 
+  @Test
+  public void testCountDistinctEstimate() throws Exception {
+    CountDistinctEstimate count = new CountDistinctEstimate();
+    for (int i = 0; i < 10000; i++) {
+      count.accumulate(Integer.valueOf(i % 5000));
+    }
+    count.accumulate(null);
+    assertEquals(5000, ((Number) count.terminate()).intValue(), 250);
+
+    CountDistinctEstimateBucketNode bucket1 = new CountDistinctEstimateBucketNode();
+    CountDistinctEstimateBucketNode bucket2 = new CountDistinctEstimateBucketNode();
+    for (int i = 0; i < 3000; i++) {
+      bucket1.accumulate("key" + i);
+      bucket2.accumulate("key" + (i + 2000));
+    }
+    CountDistinctEstimateMemberNode member = new CountDistinctEstimateMemberNode();
+    member.accumulate(bucket1.terminate());
+    member.accumulate(bucket2.terminate());
+    assertTrue(member.terminate() instanceof byte[]);
+
+    CountDistinctEstimatePRQueryNode cdpr = new CountDistinctEstimatePRQueryNode();
+    cdpr.accumulate(member.terminate());
+    assertEquals(5000, ((Number) cdpr.terminate()).intValue(), 250);
+  }
+
+  @Test
+  public void testCountDistinctEstimateUsesEquality() throws Exception {
+    CountDistinctEstimate count = new CountDistinctEstimate();
+    for (int i = 0; i < 2000; i++) {
+      // values with the same toString but different ids are distinct
+      count.accumulate(new Value(i % 1000, "value"));
+      // equal values are counted once whatever their toString
+      count.accumulate(new Value(i % 1000, "value" + i));
+    }
+    assertEquals(1000, ((Number) count.terminate()).intValue(), 50);
+  }
+
+  @Test
+  public void testMemberNodes() throws Exception {
+    AvgMemberNode avg = new AvgMemberNode();
+    avg.accumulate(new Object[] {Integer.valueOf(2), Integer.valueOf(10)});
+    avg.accumulate(new Object[] {Integer.valueOf(3), Integer.valueOf(20)});
+    Object[] combined = (Object[]) avg.terminate();
+    assertEquals(5, ((Number) combined[0]).intValue());
+    assertEquals(30, ((Number) combined[1]).intValue());
+
+    DistinctMemberNode distinct = new DistinctMemberNode();
+    Set<Integer> set1 = new HashSet<Integer>();
+    set1.add(1);
+    set1.add(2);
+    Set<Integer> set2 = new HashSet<Integer>();
+    set2.add(2);
+    set2.add(3);
+    distinct.accumulate(set1);
+    distinct.accumulate(set2);
+    assertEquals(3, ((Set) distinct.terminate()).size());
+  }
+
+  private static class Value {
+    private final int id;
+    private final String description;
+
+    Value(int id, String description) {
+      this.id = id;
+      this.description = description;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Value && ((Value) other).id == this.id;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.id;
+    }
+
+    @Override
+    public String toString() {
+      return this.description;
+    }
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.AttributesFactory;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class AsyncIndexMaintenanceJUnitTest {
+
+  private Cache cache;
+  private Region region;
+
+  @Before
+  public void setUp() {
+    this.cache = new CacheFactory().set(MCAST_PORT, "0").create();
+    this.region = createRegion("portfolios");
+  }
+
+  private Region createRegion(String name) {
+    AttributesFactory factory = new AttributesFactory();
+    factory.setIndexMaintenanceSynchronous(false);
+    return this.cache.createRegion(name, factory.create());
+  }
+
+  @After
+  public void tearDown() {
+    IndexManager.COALESCE_ASYNC_UPDATES = false;
+    IndexManager.ASYNC_UPDATE_THREADS = 1;
+    IndexManager.testHook = null;
+    this.cache.close();
+  }
+
+  @Test
+  public void queryAfterWaitingForPendingUpdatesSeesWrites() throws Exception {
+    Index index = this.cache.getQueryService().createIndex("value", "p", "/portfolios p");
+    for (int i = 0; i < 500; i++) {
+      this.region.put(i, i % 10);
+    }
+    IndexManager indexManager = IndexUtils.getIndexManager(this.region, false);
+    assertTrue(indexManager.waitForPendingUpdates(30000));
+    assertTrue(indexManager.getUpdaterThread().isDone());
+    assertEquals(500, index.getStatistics().getNumberOfValues());
+    SelectResults results = (SelectResults) this.cache.getQueryService()
+        .newQuery("select * from /portfolios p where p = 3").execute();
+    assertEquals(50, results.size());
+  }
+
+  @Test
+  public void coalescedUpdatesIndexLatestValue() throws Exception {
+    IndexManager.COALESCE_ASYNC_UPDATES = true;
+    Index index = this.cache.getQueryService().createIndex("value", "p", "/portfolios p");
+    final CountDownLatch updaterBlocked = new CountDownLatch(1);
+    final CountDownLatch releaseUpdater = new CountDownLatch(1);
+    final AtomicInteger updatesApplied = new AtomicInteger();
+    IndexManager.testHook = new IndexManager.TestHook() {
+      public void hook(int spot) {
+        if (spot == 6 && updatesApplied.incrementAndGet() == 1) {
+          updaterBlocked.countDown();
+          try {
+            releaseUpdater.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+    this.region.put("key", 0);
+    assertTrue(updaterBlocked.await(30, TimeUnit.SECONDS));
+    // the first update is being applied, so only the second is queued and the rest coalesce
+    for (int i = 1; i < 100; i++) {
+      this.region.put("key", i);
+    }
+    releaseUpdater.countDown();
+    IndexManager indexManager = IndexUtils.getIndexManager(this.region, false);
+    assertTrue(indexManager.waitForPendingUpdates(30000));
+    assertEquals(2, updatesApplied.get());
+    assertEquals(1, index.getStatistics().getNumberOfValues());
+    SelectResults results = (SelectResults) this.cache.getQueryService()
+        .newQuery("select * from /portfolios p where p = 99").execute();
+    assertEquals(1, results.size());
+  }
+
+  @Test
+  public void indexesAreRecreatedOnceEveryUpdaterIsQuiet() throws Exception {
+    IndexManager.ASYNC_UPDATE_THREADS = 4;
+    Region numbers = createRegion("numbers");
+    Index index = this.cache.getQueryService().createIndex("number", "n", "/numbers n");
+    for (int i = 0; i < 500; i++) {
+      numbers.put(i, i % 10);
+    }
+    IndexManager indexManager = IndexUtils.getIndexManager(numbers, false);
+    indexManager.rerunIndexCreationQuery();
+    for (int i = 500; i < 1000; i++) {
+      numbers.put(i, i % 10);
+    }
+    assertTrue(indexManager.waitForPendingUpdates(30000));
+    assertEquals(1000, index.getStatistics().getNumberOfValues());
+    SelectResults results = (SelectResults) this.cache.getQueryService()
+        .newQuery("select * from /numbers n where n = 3").execute();
+    assertEquals(100, results.size());
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactIndexKeyMapJUnitTest {
+
+  private final Comparator comparator = TypeUtils.getExtendedNumericComparator();
+  private final CompactIndexKeyMap map = new CompactIndexKeyMap(this.comparator);
+  private final ConcurrentSkipListMap expected = new ConcurrentSkipListMap(this.comparator);
+
+  @Test
+  public void behavesLikeASkipListForRandomOperations() {
+    Random random = new Random(17);
+    for (int i = 0; i < 20000; i++) {
+      Object key = randomKey(random);
+      Object value = random.nextInt(3);
+      switch (random.nextInt(6)) {
+        case 0:
+          assertEquals(this.expected.put(key, value), this.map.put(key, value));
+          break;
+        case 1:
+          assertEquals(this.expected.putIfAbsent(key, value), this.map.putIfAbsent(key, value));
+          break;
+        case 2:
+          assertEquals(this.expected.remove(key), this.map.remove(key));
+          break;
+        case 3:
+          assertEquals(this.expected.remove(key, value), this.map.remove(key, value));
+          break;
+        case 4:
+          Object newValue = random.nextInt(3);
+          assertEquals(this.expected.replace(key, value, newValue),
+              this.map.replace(key, value, newValue));
+          break;
+        default:
+          assertEquals(this.expected.get(key), this.map.get(key));
+      }
+    }
+    assertEntries(this.expected, this.map);
+    for (int i = 0; i < 200; i++) {
+      Object lo = randomKey(random);
+      Object hi = randomKey(random);
+      if (this.comparator.compare(lo, hi) > 0) {
+        Object swap = lo;
+        lo = hi;
+        hi = swap;
+      }
+      boolean loInclusive = random.nextBoolean();
+      boolean hiInclusive = random.nextBoolean();
+      assertEntries(this.expected.subMap(lo, loInclusive, hi, hiInclusive),
+          this.map.subMap(lo, loInclusive, hi, hiInclusive));
+      assertEntries(this.expected.subMap(lo, loInclusive, hi, hiInclusive).descendingMap(),
+          this.map.subMap(lo, loInclusive, hi, hiInclusive).descendingMap());
+      assertEntries(this.expected.headMap(hi, hiInclusive).descendingMap(),
+          this.map.headMap(hi, hiInclusive).descendingMap());
+      assertEntries(this.expected.tailMap(lo, loInclusive), this.map.tailMap(lo, loInclusive));
+      assertEquals(this.expected.floorKey(lo), this.map.floorKey(lo));
+      assertEquals(this.expected.higherKey(hi), this.map.higherKey(hi));
+    }
+    assertEntries(this.expected.descendingMap(), this.map.descendingMap());
+  }
+
+  @Test
+  public void numericKeysOfDifferentClassesAreTheSameKey() {
+    this.map.put(5, "five");
+    assertEquals("five", this.map.get(5L));
+    assertEquals("five", this.map.putIfAbsent(5.0d, "other"));
+    this.map.put(7L, "seven");
+    this.map.put(6.5d, "six and a half");
+    assertEquals(3, this.map.size());
+    assertEquals(5, this.map.firstKey());
+    assertEquals(7L, this.map.lastKey());
+    assertEquals(6.5d, this.map.lowerKey(7));
+  }
+
+  @Test
+  public void nullAndUndefinedSortBeforeOtherKeys() {
+    for (int i = 0; i < 3 * CompactIndexKeyMap.MAX_PAGE_SIZE; i++) {
+      this.map.put(i, i);
+    }
+    this.map.put(IndexManager.NULL, "null");
+    this.map.put(QueryService.UNDEFINED, "undefined");
+    assertEquals(QueryService.UNDEFINED, this.map.firstKey());
+    assertEquals(IndexManager.NULL, this.map.higherKey(QueryService.UNDEFINED));
+    assertEquals(0, this.map.higherKey(IndexManager.NULL));
+    assertEquals("null", this.map.get(IndexManager.NULL));
+  }
+
+  @Test
+  public void pagesAreSplitAndDropped() {
+    int numKeys = CompactIndexKeyMap.MAX_PAGE_SIZE * 20;
+    for (int i = numKeys - 1; i >= 0; i--) {
+      this.map.put(i, i);
+    }
+    assertEquals(numKeys, this.map.size());
+    for (int i = 0; i < numKeys - 1; i++) {
+      assertEquals(i, this.map.remove(i));
+    }
+    assertEquals(1, this.map.size());
+    assertEquals(numKeys - 1, this.map.firstKey());
+    this.map.clear();
+    assertTrue(this.map.isEmpty());
+    assertNull(this.map.get(numKeys - 1));
+  }
+
+  @Test
+  public void iteratorRemoveRemovesTheLastKey() {
+    for (int i = 0; i < 200; i++) {
+      this.map.put(i, i);
+    }
+    for (Iterator it = this.map.entrySet().iterator(); it.hasNext();) {
+      if (((Integer) ((Map.Entry) it.next()).getKey()) % 2 == 0) {
+        it.remove();
+      }
+    }
+    assertEquals(100, this.map.size());
+    assertEquals(1, this.map.firstKey());
+    assertEquals(199, this.map.pollLastEntry().getKey());
+    assertEquals(99, this.map.size());
+  }
+
+  @Test
+  public void iteratorsSeeEachKeyOnceWhileKeysAreAddedConcurrently() throws Exception {
+    final int numKeys = 20000;
+    for (int i = 0; i < numKeys; i += 2) {
+      this.map.put(i, i);
+    }
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    final CountDownLatch started = new CountDownLatch(1);
+    Thread writer = new Thread(new Runnable() {
+      public void run() {
+        try {
+          started.countDown();
+          for (int i = 1; i < numKeys; i += 2) {
+            map.put(i, i);
+          }
+        } catch (Throwable t) {
+          failure.set(t);
+        } finally {
+          done.set(true);
+        }
+      }
+    });
+    writer.start();
+    started.await();
+    do {
+      assertIncreasingKeys(this.map, numKeys);
+      assertIncreasingKeys(this.map.descendingMap(), numKeys);
+    } while (!done.get());
+    writer.join();
+    assertNull(failure.get());
+    assertEquals(numKeys, this.map.size());
+    for (int i = 0; i < numKeys; i++) {
+      assertEquals(i, this.map.get(i));
+    }
+  }
+
+  @Test
+  public void concurrentWritersKeepAllTheirKeys() throws Exception {
+    final int numThreads = 4;
+    final int keysPerThread = 5000;
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < numThreads; t++) {
+      final int thread = t;
+      threads.add(new Thread(new Runnable() {
+        public void run() {
+          try {
+            for (int i = 0; i < keysPerThread; i++) {
+              map.put(i * numThreads + thread, thread);
+            }
+            // remove every other key again, dropping pages as they empty
+            for (int i = 0; i < keysPerThread; i += 2) {
+              assertTrue(map.remove(i * numThreads + thread, thread));
+            }
+          } catch (Throwable t) {
+            failure.set(t);
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(failure.get());
+    assertEquals(numThreads * keysPerThread / 2, this.map.size());
+    for (int i = 0; i < numThreads * keysPerThread; i++) {
+      int slot = i / numThreads;
+      assertEquals(slot % 2 == 1 ? (Object) (i % numThreads) : null, this.map.get(i));
+    }
+  }
+
+  /**
+   * Returns an Integer, Long or Double key from a small range, so that keys of different classes
+   * often compare equal
+   */
+  private Object randomKey(Random random) {
+    int key = random.nextInt(2000);
+    switch (random.nextInt(10)) {
+      case 0:
+        return (long) key;
+      case 1:
+        return key + 0.5d;
+      default:
+        return key;
+    }
+  }
+
+  private void assertEntries(NavigableMap expected, NavigableMap actual) {
+    assertEquals(new ArrayList(expected.entrySet()), new ArrayList(actual.entrySet()));
+  }
+
+  private void assertIncreasingKeys(ConcurrentNavigableMap map, int numKeys) {
+    Object last = null;
+    int count = 0;
+    for (Object key : map.keySet()) {
+      if (last != null) {
+        assertTrue(last + " then " + key, map.comparator().compare(last, key) < 0);
+      }
+      last = key;
+      count++;
+    }
+    assertTrue(count >= numKeys / 2 && count <= numKeys);
+  }
+}
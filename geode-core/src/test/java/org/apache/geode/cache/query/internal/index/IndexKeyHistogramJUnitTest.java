@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class IndexKeyHistogramJUnitTest {
+
+  private ConcurrentSkipListMap map;
+  private int size;
+
+  @Before
+  public void setUp() {
+    map = new ConcurrentSkipListMap(TypeUtils.getExtendedNumericComparator());
+    size = 0;
+  }
+
+  @Test
+  public void uniformKeysAreEstimatedLinearly() {
+    for (int i = 0; i < 1000; i++) {
+      addEntries(i, 1);
+    }
+    IndexKeyHistogram histogram = build();
+    assertTrue(histogram.isUsable());
+    assertEquals(1000, histogram.getTotal());
+    assertEquals(IndexKeyHistogram.MAX_BUCKETS, histogram.getNumBuckets());
+    assertEstimate(250, histogram.estimateLessThan(250));
+    assertEstimate(750, histogram.estimateGreaterThan(250));
+    assertEquals(0, histogram.estimateLessThan(-5));
+    assertEquals(1000, histogram.estimateLessThan(5000));
+  }
+
+  @Test
+  public void skewedKeysAreEstimatedFromBuckets() {
+    // 900 entries between 0 and 9, 100 entries spread up to 10000
+    for (int i = 0; i < 10; i++) {
+      addEntries(i, 90);
+    }
+    for (int i = 1; i <= 100; i++) {
+      addEntries(i * 100, 1);
+    }
+    IndexKeyHistogram histogram = build();
+    assertEquals(1000, histogram.getTotal());
+    // a linear interpolation between min and max would estimate about 500 entries here
+    assertEstimate(950, histogram.estimateLessThan(5000));
+    assertEstimate(50, histogram.estimateGreaterThan(5000));
+  }
+
+  @Test
+  public void nullAndUndefinedKeysAreIgnored() {
+    addEntries(IndexManager.NULL, 100);
+    addEntries(QueryService.UNDEFINED, 100);
+    for (int i = 0; i < 100; i++) {
+      addEntries(i, 1);
+    }
+    IndexKeyHistogram histogram = build();
+    assertTrue(histogram.isUsable());
+    assertEquals(100, histogram.getTotal());
+  }
+
+  @Test
+  public void nonNumericKeysMakeHistogramUnusable() {
+    ConcurrentSkipListMap strings = new ConcurrentSkipListMap();
+    strings.put("a", mock(RegionEntry.class));
+    strings.put("b", mock(RegionEntry.class));
+    assertFalse(IndexKeyHistogram.build(strings, 2, 0).isUsable());
+  }
+
+  @Test
+  public void emptyIndexHasUnusableHistogram() {
+    assertFalse(build().isUsable());
+  }
+
+  @Test
+  public void histogramBecomesStaleAfterEnoughUpdates() {
+    for (int i = 0; i < 5000; i++) {
+      addEntries(i, 1);
+    }
+    IndexKeyHistogram histogram = IndexKeyHistogram.build(map, size, 1000);
+    assertFalse(histogram.isStale(1000 + 500));
+    assertTrue(histogram.isStale(1000 + 501));
+  }
+
+  private void addEntries(Object key, int count) {
+    if (count == 1) {
+      map.put(key, mock(RegionEntry.class));
+    } else {
+      List entries = new ArrayList();
+      for (int i = 0; i < count; i++) {
+        entries.add(mock(RegionEntry.class));
+      }
+      map.put(key, entries);
+    }
+    size += count;
+  }
+
+  private IndexKeyHistogram build() {
+    return IndexKeyHistogram.build(map, size, 0);
+  }
+
+  private static void assertEstimate(long expected, long actual) {
+    assertTrue("expected about " + expected + " but was " + actual,
+        Math.abs(expected - actual) <= expected / 20 + 1);
+  }
+}
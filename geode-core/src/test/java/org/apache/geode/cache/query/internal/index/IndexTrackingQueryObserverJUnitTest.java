@@ -35,7 +35,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -161,4 +163,34 @@ public class IndexTrackingQueryObserverJUnitTest {
     assertEquals(results.size(), ((Integer) rslts).intValue());
   }
 
+  @Test
+  public void testFilterChosenByAndJunctionIsTraced() throws Exception {
+    AttributesFactory af = new AttributesFactory();
+    af.setScope(Scope.LOCAL);
+    region = CacheUtils.createRegion("portfolio", af.create(), false);
+    for (int i = 1; i <= 100; i++) {
+      region.put(Integer.toString(i), new Portfolio(i, i));
+    }
+    qs = CacheUtils.getQueryService();
+    qs.createIndex("idIndex", IndexType.FUNCTIONAL, "p.ID", "/portfolio p");
+    qs.createIndex("statusIndex", IndexType.FUNCTIONAL, "p.status", "/portfolio p");
+
+    final List<String> traced = new ArrayList<String>();
+    QueryObserverHolder.setInstance(new IndexTrackingQueryObserver() {
+      @Override
+      public void reset() {
+        traced.addAll(getFiltersChosen());
+        super.reset();
+      }
+    });
+    SelectResults results = (SelectResults) qs
+        .newQuery("<trace> select * from /portfolio p where p.ID > 90 and p.status = 'active'")
+        .execute();
+
+    assertEquals(5, results.size());
+    assertEquals(1, traced.size());
+    assertTrue(traced.get(0),
+        traced.get(0).matches("(idIndex|statusIndex)\\(Estimate: \\d+, Operands: 2\\)"));
+  }
+
 }
@@ -113,6 +113,20 @@ public class MemoryIndexStoreJUnitTest {
     assertEquals(151, numObjectsInStore(store));
   }
 
+  @Test
+  public void testMemorySizeIsAddedAndRemovedWithKeysAndValues() throws Exception {
+    long keySize = store.keyFootprint(1);
+    store.addMapping(1, mockEntries[0]);
+    store.addMapping(1, mockEntries[1]);
+    verify(mockStats).incMemorySize(keySize);
+    verify(mockStats, times(2)).incMemorySize(MemoryIndexStore.VALUE_OVERHEAD);
+
+    store.removeMapping(1, mockEntries[0]);
+    store.removeMapping(1, mockEntries[1]);
+    verify(mockStats).incMemorySize(-keySize);
+    verify(mockStats, times(2)).incMemorySize(-MemoryIndexStore.VALUE_OVERHEAD);
+  }
+
   @Test
   public void testCanAddObjectWithUndefinedKey() throws Exception {
     store.addMapping(QueryService.UNDEFINED, mockEntries[0]);
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class MemoryIndexStoreWithCompactKeysJUnitTest extends MemoryIndexStoreJUnitTest {
+
+  public void subclassPreSetup() {
+    IndexManager.USE_COMPACT_INDEX_KEYS = true;
+  }
+
+  @After
+  public void resetCompactKeys() {
+    IndexManager.USE_COMPACT_INDEX_KEYS = false;
+  }
+
+  @Test
+  public void testStoreUsesCompactKeys() {
+    assertTrue(store.valueToEntriesMap instanceof CompactIndexKeyMap);
+    assertTrue(store.keyFootprint(1) < MemoryIndexStore.KEY_OVERHEAD);
+    assertTrue(store.keyFootprint(1L) < MemoryIndexStore.KEY_OVERHEAD);
+  }
+
+  @Test
+  public void testRangeIteratorsSpanManyPages() throws Exception {
+    int numKeys = CompactIndexKeyMap.MAX_PAGE_SIZE * 10;
+    for (int i = 0; i < numKeys; i++) {
+      store.addMapping(i, mockEntries[i % numMockEntries]);
+    }
+    assertEquals(numKeys, store.size());
+    assertEquals(200, countEntries(store.iterator(100, true, 300, false, null)));
+    assertEquals(numKeys - 100, countEntries(store.iterator(100, false, null)));
+
+    Iterator iterator = store.descendingIterator(50, true, 250, true, null);
+    for (int i = 250; i >= 50; i--) {
+      assertTrue(iterator.hasNext());
+      assertEquals(i, ((IndexStore.IndexStoreEntry) iterator.next()).getDeserializedKey());
+    }
+    assertFalse(iterator.hasNext());
+
+    for (int i = 0; i < numKeys; i += 2) {
+      store.removeMapping(i, mockEntries[i % numMockEntries]);
+    }
+    assertEquals(numKeys / 2, store.size());
+    assertEquals(100, countEntries(store.iterator(100, true, 300, false, null)));
+  }
+
+  private int countEntries(Iterator iterator) {
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    return count;
+  }
+}
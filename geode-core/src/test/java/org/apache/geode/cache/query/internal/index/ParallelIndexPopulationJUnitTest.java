@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class ParallelIndexPopulationJUnitTest {
+
+  private static final int ENTRIES = 5000;
+
+  private Cache cache;
+  private int oldThreads;
+
+  @Before
+  public void setUp() {
+    this.oldThreads = IndexManager.INDEX_POPULATION_THREADS;
+    IndexManager.INDEX_POPULATION_THREADS = 4;
+    this.cache = new CacheFactory().set(MCAST_PORT, "0").create();
+  }
+
+  @After
+  public void tearDown() {
+    IndexManager.INDEX_POPULATION_THREADS = this.oldThreads;
+    this.cache.close();
+  }
+
+  @Test
+  public void definedIndexesArePopulatedFromReplicatedRegion() throws Exception {
+    assertIndexesPopulated(RegionShortcut.REPLICATE);
+  }
+
+  @Test
+  public void definedIndexesArePopulatedFromEveryBucket() throws Exception {
+    assertIndexesPopulated(RegionShortcut.PARTITION);
+  }
+
+  @Test
+  public void populationPoolIsShutDownWithTheCache() throws Exception {
+    assertIndexesPopulated(RegionShortcut.REPLICATE);
+    ForkJoinPool pool = IndexManager.getIndexPopulationPool(this.cache);
+    assertFalse(pool.isShutdown());
+    this.cache.close();
+    assertTrue(pool.isShutdown());
+  }
+
+  private void assertIndexesPopulated(RegionShortcut shortcut) throws Exception {
+    Region<Integer, Integer> region =
+        this.cache.<Integer, Integer>createRegionFactory(shortcut).create("numbers");
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, i % 100);
+    }
+    QueryService queryService = this.cache.getQueryService();
+    queryService.defineIndex("values", "n", "/numbers n");
+    queryService.defineKeyIndex("keys", "key", "/numbers");
+    queryService.defineHashIndex("hashed", "n", "/numbers n");
+    assertEquals(3, queryService.createDefinedIndexes().size());
+
+    SelectResults results =
+        (SelectResults) queryService.newQuery("select * from /numbers n where n = 7").execute();
+    assertEquals(ENTRIES / 100, results.size());
+    results = (SelectResults) queryService
+        .newQuery("select * from /numbers.keySet k where k = 7").execute();
+    assertEquals(1, results.size());
+  }
+}
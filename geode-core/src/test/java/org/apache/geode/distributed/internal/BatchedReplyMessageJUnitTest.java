@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInput;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.ByteArrayData;
+import org.apache.geode.test.junit.categories.MembershipTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+/**
+ * Tests {@link BatchedReplyMessage}.
+ */
+@Category({UnitTest.class, MembershipTest.class})
+public class BatchedReplyMessageJUnitTest {
+
+  @Test
+  public void testToDataAndFromData() throws Exception {
+    int[] processorIds = new int[] {1, 17, 42, Integer.MAX_VALUE};
+    BatchedReplyMessage message = new BatchedReplyMessage(processorIds);
+
+    ByteArrayData testStream = new ByteArrayData();
+    assertTrue(testStream.isEmpty());
+
+    DataOutputStream out = testStream.getDataOutput();
+    message.toData(out);
+    assertTrue(testStream.size() > 0);
+
+    DataInput in = testStream.getDataInput();
+    BatchedReplyMessage read = new BatchedReplyMessage();
+    read.fromData(in);
+    assertArrayEquals(processorIds, read.getProcessorIds());
+  }
+
+  @Test
+  public void testDSFID() {
+    assertEquals(BatchedReplyMessage.BATCHED_REPLY_MESSAGE, new BatchedReplyMessage().getDSFID());
+  }
+
+  @Test
+  public void testIsProcessedInline() {
+    assertTrue(new BatchedReplyMessage(new int[] {1}).getInlineProcess());
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.test.junit.categories.MembershipTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+/**
+ * Tests {@link ReplyBatcher}.
+ */
+@Category({UnitTest.class, MembershipTest.class})
+public class ReplyBatcherJUnitTest {
+
+  private final InternalDistributedMember member1 = new InternalDistributedMember("localhost", 1);
+  private final InternalDistributedMember member2 = new InternalDistributedMember("localhost", 2);
+
+  private final RecordingSender sender = new RecordingSender();
+  private final ManualExecutor executor = new ManualExecutor();
+  private final ReplyBatcher batcher = new ReplyBatcher(this.sender, this.executor);
+
+  @Test
+  public void acksQueuedBeforeTheFlushRunsAreSentTogether() {
+    assertTrue(this.batcher.add(this.member1, 1));
+    assertTrue(this.batcher.add(this.member1, 2));
+    assertTrue(this.batcher.add(this.member1, 3));
+    assertEquals(1, this.executor.tasks.size());
+    assertTrue(this.sender.messages.isEmpty());
+
+    this.executor.runAll();
+    assertEquals(1, this.sender.messages.size());
+    assertArrayEquals(new int[] {1, 2, 3}, processorIds(this.sender.messages.get(0)));
+
+    // the next ack schedules a new flush and goes out on its own
+    assertTrue(this.batcher.add(this.member1, 4));
+    assertEquals(1, this.executor.tasks.size());
+    this.executor.runAll();
+    assertEquals(2, this.sender.messages.size());
+    assertTrue(this.sender.messages.get(1) instanceof ReplyMessage);
+    assertEquals(4, this.sender.messages.get(1).getProcessorId());
+  }
+
+  @Test
+  public void batchesAreLimitedToMaxBatchSize() {
+    for (int i = 1; i <= ReplyBatcher.MAX_BATCH_SIZE + 1; i++) {
+      this.batcher.add(this.member1, i);
+    }
+    this.executor.runAll();
+
+    assertEquals(2, this.sender.messages.size());
+    assertEquals(ReplyBatcher.MAX_BATCH_SIZE, processorIds(this.sender.messages.get(0)).length);
+    assertTrue(this.sender.messages.get(1) instanceof ReplyMessage);
+    assertEquals(ReplyBatcher.MAX_BATCH_SIZE + 1, this.sender.messages.get(1).getProcessorId());
+  }
+
+  @Test
+  public void pendingAcksAreSentBeforeLaterMessagesToTheSameMember() {
+    this.batcher.add(this.member1, 1);
+    this.batcher.add(this.member1, 2);
+    this.batcher.add(this.member2, 3);
+
+    DistributionMessage later = new ReplyMessage();
+    later.setRecipient(this.member1);
+    this.batcher.flushBefore(later);
+
+    // only member1's acks were flushed, by the sending thread
+    assertEquals(1, this.sender.messages.size());
+    assertArrayEquals(new int[] {1, 2}, processorIds(this.sender.messages.get(0)));
+
+    this.executor.runAll();
+    assertEquals(2, this.sender.messages.size());
+    assertEquals(this.member2, this.sender.messages.get(1).getRecipients()[0]);
+    assertEquals(3, this.sender.messages.get(1).getProcessorId());
+  }
+
+  @Test
+  public void messageToAllMembersFlushesEveryMember() {
+    this.batcher.add(this.member1, 1);
+    this.batcher.add(this.member2, 2);
+
+    this.batcher.flushBefore(new ReplyMessage());
+    assertEquals(2, this.sender.messages.size());
+    this.executor.runAll();
+    assertEquals(2, this.sender.messages.size());
+  }
+
+  @Test
+  public void blockedMemberDoesNotDelayAcksToOtherMembers() throws Exception {
+    final CountDownLatch member1Blocked = new CountDownLatch(1);
+    final CountDownLatch releaseMember1 = new CountDownLatch(1);
+    final CountDownLatch member2Sent = new CountDownLatch(1);
+    ReplySender blockingSender = new ReplySender() {
+      public Set putOutgoing(DistributionMessage msg) {
+        if (msg.getRecipients()[0].equals(member1)) {
+          member1Blocked.countDown();
+          try {
+            releaseMember1.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        } else {
+          member2Sent.countDown();
+        }
+        return null;
+      }
+    };
+    ExecutorService flushers = Executors.newCachedThreadPool();
+    try {
+      ReplyBatcher batcher = new ReplyBatcher(blockingSender, flushers);
+      batcher.add(this.member1, 1);
+      assertTrue(member1Blocked.await(30, TimeUnit.SECONDS));
+      batcher.add(this.member2, 2);
+      assertTrue(member2Sent.await(30, TimeUnit.SECONDS));
+    } finally {
+      releaseMember1.countDown();
+      flushers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void acksAreNotQueuedOnceStopped() {
+    this.batcher.stop();
+    assertFalse(this.batcher.add(this.member1, 1));
+    assertTrue(this.executor.tasks.isEmpty());
+  }
+
+  private int[] processorIds(DistributionMessage message) {
+    assertTrue(message instanceof BatchedReplyMessage);
+    return ((BatchedReplyMessage) message).getProcessorIds();
+  }
+
+  private static class RecordingSender implements ReplySender {
+    final List<DistributionMessage> messages =
+        Collections.synchronizedList(new ArrayList<DistributionMessage>());
+
+    public Set putOutgoing(DistributionMessage msg) {
+      this.messages.add(msg);
+      return null;
+    }
+  }
+
+  private static class ManualExecutor implements Executor {
+    final Queue<Runnable> tasks = new LinkedList<Runnable>();
+
+    public void execute(Runnable command) {
+      this.tasks.add(command);
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = this.tasks.poll()) != null) {
+        task.run();
+      }
+    }
+  }
+}
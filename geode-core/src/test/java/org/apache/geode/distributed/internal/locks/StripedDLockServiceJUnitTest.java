@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal.locks;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.DistributedSystem;
+import org.apache.geode.distributed.internal.InternalDistributedSystem;
+import org.apache.geode.test.junit.categories.DLockTest;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category({IntegrationTest.class, DLockTest.class})
+public class StripedDLockServiceJUnitTest {
+
+  private static final String SERVICE_NAME = "StripedDLockServiceJUnitTest";
+
+  private InternalDistributedSystem system;
+  private StripedDLockService service;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    system = (InternalDistributedSystem) DistributedSystem.connect(props);
+    service = StripedDLockService.create(SERVICE_NAME, system, 4, true, true, false);
+  }
+
+  @After
+  public void tearDown() {
+    if (service != null) {
+      service.destroyAndRemove();
+    }
+    system.disconnect();
+  }
+
+  @Test
+  public void stripesAreRegisteredAsLockServices() {
+    assertEquals(4, service.getStripeCount());
+    for (int i = 0; i < 4; i++) {
+      assertNotNull(
+          DLockService.getServiceNamed(StripedDLockService.getStripeName(SERVICE_NAME, i)));
+    }
+    assertNull(DLockService.getServiceNamed(SERVICE_NAME));
+  }
+
+  @Test
+  public void existingStripesAreReused() {
+    StripedDLockService other = StripedDLockService.create(SERVICE_NAME, system, 4, true, true,
+        false);
+    for (int i = 0; i < 10; i++) {
+      assertSame(service.getStripe("key" + i), other.getStripe("key" + i));
+    }
+  }
+
+  @Test
+  public void lockIsGrantedByItsStripe() {
+    String name = "key";
+    assertTrue(service.lock(name, -1, -1));
+    try {
+      assertTrue(service.isHeldByCurrentThread(name));
+      assertTrue(service.getStripe(name).isHeldByCurrentThread(name));
+      for (int i = 0; i < 4; i++) {
+        DLockService stripe = DLockService
+            .getInternalServiceNamed(StripedDLockService.getStripeName(SERVICE_NAME, i));
+        if (stripe != service.getStripe(name)) {
+          assertFalse(stripe.isHeldByCurrentThread(name));
+        }
+      }
+    } finally {
+      service.unlock(name);
+    }
+    assertFalse(service.isHeldByCurrentThread(name));
+  }
+
+  @Test
+  public void suspendLockingSuspendsEveryStripe() {
+    assertTrue(service.suspendLocking(-1));
+    try {
+      assertTrue(service.isLockingSuspendedByCurrentThread());
+      for (int i = 0; i < 4; i++) {
+        assertTrue(DLockService
+            .getInternalServiceNamed(StripedDLockService.getStripeName(SERVICE_NAME, i))
+            .isLockingSuspendedByCurrentThread());
+      }
+    } finally {
+      service.resumeLocking();
+    }
+    assertFalse(service.isLockingSuspendedByCurrentThread());
+  }
+
+  @Test
+  public void becomeLockGrantorAppliesToEveryStripe() {
+    service.becomeLockGrantor();
+    assertTrue(service.isLockGrantor());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void stripeCountMustBePositive() {
+    StripedDLockService.create(SERVICE_NAME + "Invalid", system, 0, true, true, false);
+  }
+}
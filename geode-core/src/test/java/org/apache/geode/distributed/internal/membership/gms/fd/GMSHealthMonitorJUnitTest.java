@@ -138,6 +138,7 @@ public class GMSHealthMonitorJUnitTest {
 
   @After
   public void tearDown() {
+    GMSHealthMonitor.INDIRECT_CHECK_MEMBERS = 0;
     gmsHealthMonitor.stop();
     SocketCreatorFactory.close();
     // System.getProperties().remove("gemfire.bind-address");
@@ -590,6 +591,68 @@ public class GMSHealthMonitorJUnitTest {
     Assert.assertTrue(gmsHealthMonitor.getStats().getTcpFinalCheckResponsesSent() > 0);
   }
 
+  /**
+   * a heartbeat request for another member in the view asks this member to check on it
+   */
+  @Test
+  public void testIndirectCheckRequestChecksTargetMember() throws Exception {
+    installAView();
+    mockMembers.get(myAddressIndex).setVmViewId(2);
+
+    InternalDistributedMember target = mockMembers.get(myAddressIndex + 2);
+    HeartbeatRequestMessage req = new HeartbeatRequestMessage(target, 10);
+    req.setSender(mockMembers.get(0));
+    gmsHealthMonitor.processMessage(req);
+
+    Awaitility.await("waiting for the target member to be checked")
+        .atMost(3 * memberTimeout, TimeUnit.MILLISECONDS).until(() -> {
+          verify(messenger, atLeastOnce()).send(isA(HeartbeatRequestMessage.class));
+        });
+    Assert.assertEquals(1, gmsHealthMonitor.getStats().getIndirectCheckRequestsReceived());
+  }
+
+  /**
+   * a neighbor that only answers another member's check is not suspected
+   */
+  @Test
+  public void testIndirectCheckResponseClearsSuspicion() throws Exception {
+    GMSHealthMonitor.INDIRECT_CHECK_MEMBERS = 1;
+    final InternalDistributedMember me = mockMembers.get(myAddressIndex);
+    final InternalDistributedMember neighbor = mockMembers.get(myAddressIndex + 1);
+    final List<HeartbeatRequestMessage> indirectRequests = new ArrayList<>();
+    when(messenger.send(isA(HeartbeatRequestMessage.class))).thenAnswer(invocation -> {
+      HeartbeatRequestMessage request = (HeartbeatRequestMessage) invocation.getArguments()[0];
+      InternalDistributedMember recipient = request.getRecipients()[0];
+      if (!recipient.equals(request.getTarget())) {
+        // the neighbor answered the member we asked to check on it
+        synchronized (indirectRequests) {
+          indirectRequests.add(request);
+        }
+        HeartbeatMessage response = new HeartbeatMessage(request.getRequestId());
+        response.setSender(recipient);
+        gmsHealthMonitor.processMessage(response);
+      }
+      return null;
+    });
+    installAView();
+
+    Thread.sleep(3 * memberTimeout + 100);
+
+    synchronized (indirectRequests) {
+      assertFalse(indirectRequests.isEmpty());
+      for (HeartbeatRequestMessage request : indirectRequests) {
+        Assert.assertEquals(neighbor, request.getTarget());
+        Assert.assertEquals(1, request.getRecipients().length);
+        InternalDistributedMember helper = request.getRecipients()[0];
+        assertFalse(helper.equals(me));
+        assertFalse(helper.equals(neighbor));
+      }
+    }
+    assertFalse(gmsHealthMonitor.isSuspectMember(neighbor));
+    verify(messenger, never()).send(isA(SuspectMembersMessage.class));
+    Assert.assertTrue(gmsHealthMonitor.getStats().getIndirectCheckResponsesReceived() > 0);
+  }
+
   @Test
   public void testBeSickAndPlayDead() throws Exception {
     NetView v = new NetView(mockMembers.get(0), 2, mockMembers);
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.cache.tier.InterestType;
+import org.apache.geode.internal.cache.tier.sockets.UnregisterAllInterest;
+import org.apache.geode.test.junit.categories.ClientSubscriptionTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, ClientSubscriptionTest.class})
+public class FilterProfileKeyInterestIndexJUnitTest {
+
+  private static final Long CLIENT1 = 1L;
+  private static final Long CLIENT2 = 2L;
+
+  private FilterProfile profile;
+
+  @Before
+  public void setUp() {
+    FilterProfile.INDEX_KEYS_OF_INTEREST = true;
+    LocalRegion region = mock(LocalRegion.class);
+    GemFireCacheImpl cache = mock(GemFireCacheImpl.class);
+    when(cache.getCacheServers()).thenReturn(Collections.emptyList());
+    when(region.getGemFireCache()).thenReturn(cache);
+    this.profile = new FilterProfile(region);
+  }
+
+  @After
+  public void tearDown() {
+    FilterProfile.INDEX_KEYS_OF_INTEREST = false;
+  }
+
+  @Test
+  public void indexFollowsKeyRegistrations() {
+    this.profile.registerClientInterest(CLIENT1, "K1", InterestType.KEY, false);
+    this.profile.registerClientInterest(CLIENT2, "K1", InterestType.KEY, false);
+    this.profile.registerClientInterest(CLIENT2, "K2", InterestType.KEY, true);
+
+    assertEquals(new HashSet<>(Arrays.asList(CLIENT1, CLIENT2)),
+        this.profile.keysOfInterestIndex.getClients("K1"));
+    assertNull(this.profile.keysOfInterestIndex.getClients("K2"));
+    assertEquals(Collections.singleton(CLIENT2),
+        this.profile.keysOfInterestInvIndex.getClients("K2"));
+
+    this.profile.unregisterClientInterest(CLIENT1, "K1", InterestType.KEY);
+    assertEquals(Collections.singleton(CLIENT2),
+        this.profile.keysOfInterestIndex.getClients("K1"));
+
+    this.profile.clearInterestFor(CLIENT2);
+    assertNull(this.profile.keysOfInterestIndex.getClients("K1"));
+    assertNull(this.profile.keysOfInterestInvIndex.getClients("K2"));
+  }
+
+  @Test
+  public void indexFollowsKeyListRegistrations() {
+    this.profile.registerClientInterestList(CLIENT1, Arrays.asList("K1", "K2", "K3"), false);
+    this.profile.registerClientInterestList(CLIENT2, Arrays.asList("K3"), false);
+    assertEquals(Collections.singleton(CLIENT1), this.profile.keysOfInterestIndex.getClients("K2"));
+
+    this.profile.unregisterClientInterestList(CLIENT1, Arrays.asList("K2", "K3"));
+    assertEquals(Collections.singleton(CLIENT1), this.profile.keysOfInterestIndex.getClients("K1"));
+    assertNull(this.profile.keysOfInterestIndex.getClients("K2"));
+    assertEquals(Collections.singleton(CLIENT2), this.profile.keysOfInterestIndex.getClients("K3"));
+
+    this.profile.unregisterClientInterest(CLIENT1, UnregisterAllInterest.singleton(),
+        InterestType.KEY);
+    assertNull(this.profile.keysOfInterestIndex.getClients("K1"));
+  }
+}
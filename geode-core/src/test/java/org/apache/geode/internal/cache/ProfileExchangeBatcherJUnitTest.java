@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.geode.distributed.internal.DM;
+import org.apache.geode.distributed.internal.DistributionManager;
+import org.apache.geode.distributed.internal.DistributionMessage;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.ByteArrayData;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.CreateRegionProcessor.BatchedCreateRegionMessage;
+import org.apache.geode.internal.cache.CreateRegionProcessor.CreateRegionMessage;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class ProfileExchangeBatcherJUnitTest {
+
+  private DM dm;
+  private CachePerfStats stats;
+  private ProfileExchangeBatcher batcher;
+  private List<DistributionMessage> sent;
+  private InternalDistributedMember member1;
+  private InternalDistributedMember member2;
+
+  @Before
+  public void setUp() throws Exception {
+    dm = mock(DM.class);
+    stats = mock(CachePerfStats.class);
+    batcher = new ProfileExchangeBatcher(dm, stats);
+    sent = new ArrayList<DistributionMessage>();
+    member1 = new InternalDistributedMember("localhost", 1234);
+    member2 = new InternalDistributedMember("localhost", 1235);
+  }
+
+  @Test
+  public void loneMessageIsSentUnbatched() {
+    recordSentMessages();
+    CreateRegionMessage msg = createMessage("/region", member1, member2);
+    batcher.send(msg);
+    assertEquals(1, sent.size());
+    assertSame(msg, sent.get(0));
+    verify(stats, never()).incProfileExchangesBatched(anyInt());
+  }
+
+  @Test
+  public void messagesQueuedWhileSendingAreBatchedPerMember() {
+    final CreateRegionMessage first = createMessage("/first", member1, member2);
+    final CreateRegionMessage second = createMessage("/second", member1, member2);
+    final CreateRegionMessage third = createMessage("/third", member2);
+    when(dm.putOutgoing(any(DistributionMessage.class))).thenAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) {
+        DistributionMessage msg = (DistributionMessage) invocation.getArguments()[0];
+        sent.add(msg);
+        if (msg == first) {
+          // other regions start their exchange while the first message is being sent
+          batcher.send(second);
+          batcher.send(third);
+        }
+        return null;
+      }
+    });
+
+    batcher.send(first);
+
+    assertEquals(3, sent.size());
+    assertSame(first, sent.get(0));
+    int batchedForMember1 = 0;
+    int batchedForMember2 = 0;
+    for (DistributionMessage msg : sent.subList(1, 3)) {
+      BatchedCreateRegionMessage batch = (BatchedCreateRegionMessage) msg;
+      assertEquals(1, batch.getRecipients().length);
+      if (batch.getRecipients()[0].equals(member1)) {
+        batchedForMember1 = batch.getMessages().size();
+        assertEquals(Arrays.asList(second), batch.getMessages());
+      } else {
+        batchedForMember2 = batch.getMessages().size();
+        assertEquals(Arrays.asList(second, third), batch.getMessages());
+      }
+    }
+    assertEquals(1, batchedForMember1);
+    assertEquals(2, batchedForMember2);
+  }
+
+  @Test
+  public void messagesForOlderMembersAreSentUnchanged() {
+    final InternalDistributedMember oldMember =
+        new InternalDistributedMember("localhost", 1236, Version.GFE_90);
+    final CreateRegionMessage first = createMessage("/first", member1);
+    final CreateRegionMessage second = createMessage("/second", member1, oldMember);
+    final CreateRegionMessage third = createMessage("/third", member1);
+    when(dm.putOutgoing(any(DistributionMessage.class))).thenAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) {
+        DistributionMessage msg = (DistributionMessage) invocation.getArguments()[0];
+        sent.add(msg);
+        if (msg == first) {
+          batcher.send(second);
+          batcher.send(third);
+        }
+        return null;
+      }
+    });
+
+    batcher.send(first);
+
+    assertEquals(3, sent.size());
+    assertSame(second, sent.get(1));
+    assertEquals(Arrays.asList(member1, oldMember), Arrays.asList(second.getRecipients()));
+    BatchedCreateRegionMessage batch = (BatchedCreateRegionMessage) sent.get(2);
+    assertEquals(Arrays.asList(third), batch.getMessages());
+  }
+
+  @Test
+  public void carriedMessagesAreScheduledAsIfReceivedSeparately() {
+    CreateRegionMessage first = createMessage("/first", member1);
+    CreateRegionMessage second = createMessage("/second", member1);
+    BatchedCreateRegionMessage batch =
+        new BatchedCreateRegionMessage(Arrays.asList(first, second));
+    batch.setSender(member2);
+    DistributionManager distributionManager = mock(DistributionManager.class);
+
+    batch.process(distributionManager);
+
+    verify(distributionManager).handleIncomingDMsg(first);
+    verify(distributionManager).handleIncomingDMsg(second);
+    assertEquals(member2, first.getSender());
+    assertEquals(member2, second.getSender());
+  }
+
+  @Test
+  public void batchedMessageRoundTrips() throws Exception {
+    BatchedCreateRegionMessage batch = new BatchedCreateRegionMessage(
+        Arrays.asList(createMessage("/first", member1), createMessage("/second", member1)));
+
+    ByteArrayData testStream = new ByteArrayData();
+    DataOutputStream out = testStream.getDataOutput();
+    batch.toData(out);
+
+    DataInput in = testStream.getDataInput();
+    BatchedCreateRegionMessage read = new BatchedCreateRegionMessage();
+    read.fromData(in);
+    assertEquals(2, read.getMessages().size());
+    assertEquals("/first", read.getMessages().get(0).regionPath);
+    assertEquals("/second", read.getMessages().get(1).regionPath);
+    assertEquals(7, read.getMessages().get(1).getProcessorId());
+  }
+
+  private void recordSentMessages() {
+    when(dm.putOutgoing(any(DistributionMessage.class))).thenAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) {
+        sent.add((DistributionMessage) invocation.getArguments()[0]);
+        return null;
+      }
+    });
+  }
+
+  private CreateRegionMessage createMessage(String regionPath,
+      InternalDistributedMember... recipients) {
+    CreateRegionMessage msg = new CreateRegionMessage();
+    msg.regionPath = regionPath;
+    msg.processorId = 7;
+    msg.setRecipients(Arrays.asList(recipients));
+    return msg;
+  }
+}
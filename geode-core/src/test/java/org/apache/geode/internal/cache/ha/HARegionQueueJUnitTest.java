@@ -1634,6 +1634,63 @@ public class HARegionQueueJUnitTest {
     }
   }
 
+  /**
+   * Tests that peekAvailable peeks up to the given number of events in order, and that they are all
+   * removed by the next remove
+   */
+  @Test
+  public void testPeekAvailableWithRemoveForBlockingQueue() throws Exception {
+    HARegionQueueAttributes haa = new HARegionQueueAttributes();
+    haa.setExpiryTime(300);
+    HARegionQueue regionqueue = HARegionQueue.getHARegionQueueInstance("testing", cache, haa,
+        HARegionQueue.BLOCKING_HA_QUEUE, false);
+    for (int i = 0; i < 10; ++i) {
+      EventID ev1 = new EventID(new byte[] {1}, 1, i);
+      regionqueue.put(new ConflatableObject("key" + i, "value", ev1, false, "testing"));
+    }
+
+    List objs = regionqueue.peekAvailable(4);
+    assertEquals(4, objs.size());
+    for (int j = 0; j < objs.size(); j++) {
+      assertEquals(j, ((Conflatable) objs.get(j)).getEventId().getSequenceID());
+    }
+    regionqueue.remove();
+    assertEquals(6, regionqueue.size());
+
+    objs = regionqueue.peekAvailable(10);
+    assertEquals(6, objs.size());
+    assertEquals(4, ((Conflatable) objs.get(0)).getEventId().getSequenceID());
+    regionqueue.remove();
+    assertEquals(0, regionqueue.size());
+  }
+
+  /**
+   * Tests that events forgotten with unpeek are not removed by the next remove and are peeked again
+   */
+  @Test
+  public void testUnpeekedEventsAreNotRemoved() throws Exception {
+    HARegionQueueAttributes haa = new HARegionQueueAttributes();
+    haa.setExpiryTime(300);
+    HARegionQueue regionqueue = HARegionQueue.getHARegionQueueInstance("testing", cache, haa,
+        HARegionQueue.BLOCKING_HA_QUEUE, false);
+    for (int i = 0; i < 10; ++i) {
+      EventID ev1 = new EventID(new byte[] {1}, 1, i);
+      regionqueue.put(new ConflatableObject("key" + i, "value", ev1, false, "testing"));
+    }
+
+    assertEquals(4, regionqueue.peekAvailable(4).size());
+    regionqueue.unpeek(4);
+    assertFalse(regionqueue.isPeekInitialized());
+    regionqueue.remove();
+    assertEquals(10, regionqueue.size());
+
+    List objs = regionqueue.peekAvailable(4);
+    assertEquals(4, objs.size());
+    assertEquals(0, ((Conflatable) objs.get(0)).getEventId().getSequenceID());
+    regionqueue.remove();
+    assertEquals(6, regionqueue.size());
+  }
+
   /**
    * tests whether expiry of entry in the regin queue occurs as expected using system property to
    * set expiry
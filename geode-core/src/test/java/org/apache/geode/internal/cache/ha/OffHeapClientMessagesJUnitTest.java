@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.ha;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionAttributes;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.cache.CacheServerImpl;
+import org.apache.geode.internal.cache.EnumListenerEvent;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.CacheClientProxy;
+import org.apache.geode.internal.cache.tier.sockets.ClientProxyMembershipID;
+import org.apache.geode.internal.cache.tier.sockets.ClientUpdateMessageImpl;
+import org.apache.geode.internal.cache.tier.sockets.HAEventWrapper;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class OffHeapClientMessagesJUnitTest {
+
+  private GemFireCacheImpl cache;
+
+  @Before
+  public void setUp() {
+    this.cache = (GemFireCacheImpl) new CacheFactory().set(MCAST_PORT, "0")
+        .set(OFF_HEAP_MEMORY_SIZE, "2m").create();
+  }
+
+  @After
+  public void tearDown() {
+    HARegionQueue.OFF_HEAP_CLIENT_MESSAGES = false;
+    this.cache.close();
+  }
+
+  @Test
+  public void clientMessagesStayOnHeapByDefault() throws Exception {
+    assertFalse(clientMessagesAttributes().getOffHeap());
+  }
+
+  @Test
+  public void clientMessagesAreKeptOffHeapWhenEnabled() throws Exception {
+    HARegionQueue.OFF_HEAP_CLIENT_MESSAGES = true;
+    RegionAttributes attributes = clientMessagesAttributes();
+    assertTrue(attributes.getOffHeap());
+    assertNotNull(attributes.getEvictionAttributes());
+  }
+
+  @Test
+  public void cqAndInterestUpdatesSurviveInAnOffHeapContainer() throws Exception {
+    HARegionQueue.OFF_HEAP_CLIENT_MESSAGES = true;
+    Region messages = this.cache.getRegion(Region.SEPARATOR + CacheServerImpl.clientMessagesRegion(
+        this.cache, HARegionQueue.HA_EVICTION_POLICY_ENTRY, 100, 0, null, false));
+    assertTrue(messages.getAttributes().getOffHeap());
+    HAContainerRegion container = new HAContainerRegion(messages);
+    LocalRegion data =
+        (LocalRegion) this.cache.createRegionFactory(RegionShortcut.LOCAL).create("data");
+    EventID eventId = new EventID(new byte[] {1}, 1, 1);
+    ClientProxyMembershipID client1 = clientId(1);
+    ClientProxyMembershipID client2 = clientId(2);
+
+    ClientUpdateMessageImpl first = message(data, eventId, client1, "cq1");
+    HAEventWrapper wrapper = new HAEventWrapper(first);
+    assertNull(container.putIfAbsent(wrapper, first));
+
+    // the same event is then queued for a second client
+    CacheClientProxy proxy = mock(CacheClientProxy.class);
+    when(proxy.getProxyID()).thenReturn(client2);
+    container.putProxy("queue2", proxy);
+    ClientUpdateMessageImpl old = (ClientUpdateMessageImpl) container.get(wrapper);
+    assertNotSame(first, old);
+    HARegionQueue.addClientCQsAndInterestList(old,
+        new HAEventWrapper(message(data, eventId, client2, "cq2")), container, "queue2");
+
+    ClientUpdateMessageImpl stored = (ClientUpdateMessageImpl) container.get(wrapper);
+    assertTrue(stored.isClientInterestedInUpdates(client1));
+    assertTrue(stored.isClientInterestedInUpdates(client2));
+    assertArrayEquals(new String[] {"cq1"}, stored.getCqs(client1));
+    assertArrayEquals(new String[] {"cq2"}, stored.getCqs(client2));
+  }
+
+  @Test
+  public void concurrentQueuesKeepEachOthersClientsInAnOffHeapContainer() throws Exception {
+    HARegionQueue.OFF_HEAP_CLIENT_MESSAGES = true;
+    Region messages = this.cache.getRegion(Region.SEPARATOR + CacheServerImpl.clientMessagesRegion(
+        this.cache, HARegionQueue.HA_EVICTION_POLICY_ENTRY, 100, 0, null, false));
+    final HAContainerRegion container = new HAContainerRegion(messages);
+    final LocalRegion data =
+        (LocalRegion) this.cache.createRegionFactory(RegionShortcut.LOCAL).create("data");
+    final EventID eventId = new EventID(new byte[] {1}, 1, 1);
+    ClientProxyMembershipID client1 = clientId(1);
+    ClientUpdateMessageImpl first = message(data, eventId, client1, "cq1");
+    final HAEventWrapper original = new HAEventWrapper(first);
+    assertNull(container.putIfAbsent(original, first));
+
+    // two more queues add the same event at once, each with its own copy of the stored message
+    final CyclicBarrier copiesTaken = new CyclicBarrier(2);
+    ExecutorService queues = Executors.newFixedThreadPool(2);
+    try {
+      Future<?>[] adds = new Future<?>[2];
+      for (int i = 0; i < adds.length; i++) {
+        final int port = i + 2;
+        final String queueName = "queue" + port;
+        CacheClientProxy proxy = mock(CacheClientProxy.class);
+        when(proxy.getProxyID()).thenReturn(clientId(port));
+        container.putProxy(queueName, proxy);
+        adds[i] = queues.submit(new Callable<Object>() {
+          public Object call() throws Exception {
+            ClientUpdateMessageImpl msg = message(data, eventId, clientId(port), "cq" + port);
+            HAEventWrapper wrapper = new HAEventWrapper(msg);
+            ClientUpdateMessageImpl old =
+                (ClientUpdateMessageImpl) container.putIfAbsent(wrapper, msg);
+            assertNotNull(old);
+            copiesTaken.await(30, TimeUnit.SECONDS);
+            synchronized (original) {
+              HARegionQueue.addClientCQsAndInterestList(old, wrapper, container, queueName);
+            }
+            return null;
+          }
+        });
+      }
+      for (Future<?> add : adds) {
+        add.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      queues.shutdownNow();
+    }
+
+    ClientUpdateMessageImpl stored = (ClientUpdateMessageImpl) container.get(original);
+    for (int port = 1; port <= 3; port++) {
+      assertTrue(stored.isClientInterestedInUpdates(clientId(port)));
+      assertArrayEquals(new String[] {"cq" + port}, stored.getCqs(clientId(port)));
+    }
+  }
+
+  private ClientUpdateMessageImpl message(LocalRegion region, EventID eventId,
+      ClientProxyMembershipID client, String cqName) {
+    ClientUpdateMessageImpl message = new ClientUpdateMessageImpl(EnumListenerEvent.AFTER_UPDATE,
+        region, "key", "value".getBytes(), (byte) 0x01, null, clientId(3), eventId);
+    message.addClientCq(client, cqName, MessageType.LOCAL_UPDATE);
+    message.addClientInterestList(client, true);
+    return message;
+  }
+
+  private ClientProxyMembershipID clientId(int port) {
+    return new ClientProxyMembershipID(new InternalDistributedMember("localhost", port));
+  }
+
+  private RegionAttributes clientMessagesAttributes() {
+    return CacheServerImpl.getAttribFactoryForClientMessagesRegion(this.cache,
+        HARegionQueue.HA_EVICTION_POLICY_ENTRY, 100, null, false).create();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EnumListenerEvent;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, ClientServerTest.class})
+public class ClientUpdateMessageImplJUnitTest {
+
+  @After
+  public void tearDown() {
+    ClientUpdateMessageImpl.SHARE_SERIALIZED_PARTS = false;
+  }
+
+  @Test
+  public void sharedPartsAreSerializedOncePerVersion() throws Exception {
+    ClientUpdateMessageImpl.SHARE_SERIALIZED_PARTS = true;
+    LocalRegion region = mock(LocalRegion.class);
+    when(region.getFullPath()).thenReturn("/region");
+    EventID eventId = new EventID(new byte[] {1, 2, 3}, 1, 1);
+    ClientUpdateMessageImpl clientMessage = new ClientUpdateMessageImpl(
+        EnumListenerEvent.AFTER_DESTROY, region, 7, null, (byte) 0x01, null, null, eventId);
+
+    Message message = clientMessage.getGFE70Message(proxy(), null, false, Version.CURRENT);
+    byte[] key = message.getPart(1).getSerializedForm();
+    byte[] id = message.getPart(6).getSerializedForm();
+    assertEquals(7, message.getPart(1).getObject());
+    assertEquals(eventId, message.getPart(6).getObject());
+
+    message = clientMessage.getGFE70Message(proxy(), null, false, Version.CURRENT);
+    assertSame(key, message.getPart(1).getSerializedForm());
+    assertSame(id, message.getPart(6).getSerializedForm());
+    assertNull(message.getPart(2).getSerializedForm());
+  }
+
+  @Test
+  public void sharedPartsAreCountedInTheMessageSize() throws Exception {
+    ClientUpdateMessageImpl.SHARE_SERIALIZED_PARTS = true;
+    LocalRegion region = mock(LocalRegion.class);
+    when(region.getFullPath()).thenReturn("/region");
+    EventID eventId = new EventID(new byte[] {1, 2, 3}, 1, 1);
+    ClientUpdateMessageImpl clientMessage = new ClientUpdateMessageImpl(
+        EnumListenerEvent.AFTER_DESTROY, region, 7, null, (byte) 0x01, null, null, eventId);
+    int unsentSize = clientMessage.getSizeInBytes();
+
+    Message message = clientMessage.getGFE70Message(proxy(), null, false, Version.CURRENT);
+    int sentSize = clientMessage.getSizeInBytes();
+    assertTrue(sentSize >= unsentSize + message.getPart(1).getSerializedForm().length
+        + message.getPart(6).getSerializedForm().length);
+
+    // a second client of the same version reuses the parts
+    clientMessage.getGFE70Message(proxy(), null, false, Version.CURRENT);
+    assertEquals(sentSize, clientMessage.getSizeInBytes());
+  }
+
+  private CacheClientProxy proxy() {
+    CacheClientProxy proxy = mock(CacheClientProxy.class);
+    when(proxy.getProxyID()).thenReturn(mock(ClientProxyMembershipID.class));
+    return proxy;
+  }
+}
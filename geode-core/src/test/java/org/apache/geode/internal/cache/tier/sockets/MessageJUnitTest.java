@@ -17,6 +17,8 @@ package org.apache.geode.internal.cache.tier.sockets;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 
@@ -26,6 +28,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.test.junit.categories.UnitTest;
 
 @Category({UnitTest.class, ClientServerTest.class})
@@ -118,6 +121,47 @@ public class MessageJUnitTest {
     verify(mockPart1, times(2)).clear();
   }
 
+  @Test
+  public void bufferedMessagesAreReadBackInOrder() throws Exception {
+    ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    Socket sender = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    Socket receiver = serverSocket.accept();
+    try {
+      // a comm buffer smaller than the batch, so that it is written out while the batch is sent
+      ByteBuffer sendBuffer = ByteBuffer.allocate(64);
+      int count = 5;
+      for (int i = 0; i < count; i++) {
+        Message sent = new Message(2, Version.CURRENT);
+        sent.setMessageType(MessageType.LOCAL_UPDATE);
+        sent.setTransactionId(i);
+        sent.addStringPart("key" + i);
+        sent.addBytesPart(new byte[i * 20]);
+        sent.setComms(sender, sendBuffer, null);
+        sent.sendBuffered(i == 0);
+        if (i == count - 1) {
+          sent.flushBuffered();
+        }
+      }
+
+      ByteBuffer receiveBuffer = ByteBuffer.allocate(1000);
+      for (int i = 0; i < count; i++) {
+        Message received = new Message(2, Version.CURRENT);
+        received.setComms(receiver, receiveBuffer, null);
+        received.recv();
+        assertEquals(MessageType.LOCAL_UPDATE, received.getMessageType());
+        assertEquals(i, received.getTransactionId());
+        assertEquals(2, received.getNumberOfParts());
+        assertEquals("key" + i, received.getPart(0).getString());
+        assertEquals(i * 20, received.getPart(1).getSerializedForm().length);
+      }
+      assertEquals(0, receiver.getInputStream().available());
+    } finally {
+      sender.close();
+      receiver.close();
+      serverSocket.close();
+    }
+  }
+
   // TODO many more tests are needed
 
 }
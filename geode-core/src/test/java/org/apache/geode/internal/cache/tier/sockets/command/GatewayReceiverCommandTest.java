@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets.command;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.geode.distributed.internal.DM;
+import org.apache.geode.distributed.internal.InternalDistributedSystem;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.tier.Command;
+import org.apache.geode.internal.cache.tier.CachedRegionHelper;
+import org.apache.geode.internal.cache.tier.sockets.AcceptorImpl;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.cache.wan.BatchException70;
+import org.apache.geode.internal.cache.wan.GatewayReceiverStats;
+import org.apache.geode.internal.util.BlobHelper;
+import org.apache.geode.pdx.internal.PdxType;
+import org.apache.geode.pdx.internal.PeerTypeRegistration;
+import org.apache.geode.pdx.internal.TypeRegistry;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class GatewayReceiverCommandTest {
+
+  private static final String PARTITIONED_REGION = "/partitioned";
+  private static final String REPLICATED_REGION = "/replicated";
+  private static final String PDX_TYPE = "pdx";
+
+  private int oldApplyThreads;
+  private ExecutorService applyPool;
+  private ServerConnection serverConnection;
+  private Message errorMessage;
+  private PartitionedRegion partitionedRegion;
+  private LocalRegion replicatedRegion;
+
+  /** the keys and values applied, in the order they were applied */
+  private final List<Object> applied = Collections.synchronizedList(new ArrayList<Object>());
+  private final List<String> failingKeys = new ArrayList<String>();
+
+  private int sequenceId;
+
+  @Before
+  public void setUp() throws Exception {
+    this.oldApplyThreads = GatewayReceiverCommand.APPLY_THREADS;
+    GatewayReceiverCommand.APPLY_THREADS = 3;
+    this.applyPool = Executors.newFixedThreadPool(2);
+
+    Answer<Boolean> put = new Answer<Boolean>() {
+      public Boolean answer(InvocationOnMock invocation) {
+        Object key = invocation.getArguments()[0];
+        if (failingKeys.contains(key)) {
+          throw new IllegalStateException("failed to apply " + key);
+        }
+        applied.add(Arrays.asList(key, ((byte[]) invocation.getArguments()[1])[0]));
+        return true;
+      }
+    };
+    this.partitionedRegion = mock(PartitionedRegion.class);
+    when(this.partitionedRegion.getTotalNumberOfBuckets()).thenReturn(8);
+    when(this.partitionedRegion.basicBridgePut(any(), any(), any(byte[].class), anyBoolean(),
+        any(), any(), anyBoolean(), any())).thenAnswer(put);
+    this.replicatedRegion = mock(LocalRegion.class);
+    when(this.replicatedRegion.basicBridgePut(any(), any(), any(byte[].class), anyBoolean(),
+        any(), any(), anyBoolean(), any())).thenAnswer(put);
+
+    TypeRegistry typeRegistry = mock(TypeRegistry.class);
+    doAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) {
+        applied.add(PDX_TYPE);
+        return null;
+      }
+    }).when(typeRegistry).addRemoteType(anyInt(), any(PdxType.class));
+    InternalDistributedSystem system = mock(InternalDistributedSystem.class);
+    when(system.getDistributionManager()).thenReturn(mock(DM.class));
+    GemFireCacheImpl cache = mock(GemFireCacheImpl.class);
+    when(cache.getPdxRegistry()).thenReturn(typeRegistry);
+    when(cache.getDistributedSystem()).thenReturn(system);
+
+    CachedRegionHelper crHelper = mock(CachedRegionHelper.class);
+    when(crHelper.getCache()).thenReturn(cache);
+    when(crHelper.getRegion(PARTITIONED_REGION)).thenReturn(this.partitionedRegion);
+    when(crHelper.getRegion(REPLICATED_REGION)).thenReturn(this.replicatedRegion);
+    AcceptorImpl acceptor = mock(AcceptorImpl.class);
+    when(acceptor.getGatewayApplyPool(anyInt())).thenReturn(this.applyPool);
+
+    this.errorMessage = mock(Message.class);
+    this.serverConnection = mock(ServerConnection.class);
+    when(this.serverConnection.getCachedRegionHelper()).thenReturn(crHelper);
+    when(this.serverConnection.getCacheServerStats()).thenReturn(mock(GatewayReceiverStats.class));
+    when(this.serverConnection.getAcceptor()).thenReturn(acceptor);
+    when(this.serverConnection.getClientVersion()).thenReturn(Version.CURRENT);
+    when(this.serverConnection.getResponseMessage()).thenReturn(mock(Message.class));
+    when(this.serverConnection.getErrorResponseMessage()).thenReturn(this.errorMessage);
+  }
+
+  @After
+  public void tearDown() {
+    GatewayReceiverCommand.APPLY_THREADS = this.oldApplyThreads;
+    this.applyPool.shutdownNow();
+  }
+
+  @Test
+  public void eventsOfABucketAreAppliedInTheOrderTheyWereSent() throws Exception {
+    List<Object[]> events = new ArrayList<Object[]>();
+    for (int round = 0; round < 5; round++) {
+      for (int k = 0; k < 16; k++) {
+        events.add(new Object[] {PARTITIONED_REGION, "key" + k, round});
+      }
+    }
+    execute(events, false);
+
+    assertEquals(events.size(), this.applied.size());
+    Map<Object, List<Object>> rounds = new HashMap<Object, List<Object>>();
+    for (Object event : this.applied) {
+      List<?> keyAndRound = (List<?>) event;
+      List<Object> keyRounds = rounds.get(keyAndRound.get(0));
+      if (keyRounds == null) {
+        keyRounds = new ArrayList<Object>();
+        rounds.put(keyAndRound.get(0), keyRounds);
+      }
+      keyRounds.add(keyAndRound.get(1));
+    }
+    for (List<Object> keyRounds : rounds.values()) {
+      assertEquals(Arrays.<Object>asList((byte) 0, (byte) 1, (byte) 2, (byte) 3, (byte) 4),
+          keyRounds);
+    }
+    verify(this.serverConnection).setModificationInfo(eq(true), eq(PARTITIONED_REGION), any());
+    verify(this.errorMessage, never()).addObjPart(any());
+  }
+
+  @Test
+  public void exceptionsAreReportedInEventOrderWithoutCountingPdxTypes() throws Exception {
+    this.failingKeys.add("key4");
+    this.failingKeys.add("key1");
+    List<Object[]> events = new ArrayList<Object[]>();
+    events.add(new Object[] {PeerTypeRegistration.REGION_FULL_PATH, 1, 0});
+    for (int k = 0; k < 6; k++) {
+      events.add(new Object[] {REPLICATED_REGION, "key" + k, 0});
+    }
+    execute(events, true);
+
+    ArgumentCaptor<Object> exceptions = ArgumentCaptor.forClass(Object.class);
+    verify(this.errorMessage).addObjPart(exceptions.capture());
+    List<?> batchExceptions = (List<?>) exceptions.getValue();
+    assertEquals(2, batchExceptions.size());
+    assertEquals(1, ((BatchException70) batchExceptions.get(0)).getIndex());
+    assertEquals(4, ((BatchException70) batchExceptions.get(1)).getIndex());
+    // the other events are still applied when the sender removes failed events
+    assertEquals(5, this.applied.size());
+  }
+
+  @Test
+  public void pdxTypesAreAppliedBeforeTheOtherEvents() throws Exception {
+    List<Object[]> events = new ArrayList<Object[]>();
+    events.add(new Object[] {PeerTypeRegistration.REGION_FULL_PATH, 1, 0});
+    events.add(new Object[] {PeerTypeRegistration.REGION_FULL_PATH, 2, 0});
+    for (int k = 0; k < 8; k++) {
+      events.add(new Object[] {REPLICATED_REGION, "key" + k, 0});
+    }
+    execute(events, false);
+
+    assertEquals(events.size(), this.applied.size());
+    assertEquals(PDX_TYPE, this.applied.get(0));
+    assertEquals(PDX_TYPE, this.applied.get(1));
+    assertEquals(2, Collections.frequency(this.applied, PDX_TYPE));
+  }
+
+  @Test
+  public void batchWithALatePdxTypeIsAppliedInOrder() throws Exception {
+    List<Object[]> events = new ArrayList<Object[]>();
+    events.add(new Object[] {REPLICATED_REGION, "key0", 0});
+    events.add(new Object[] {PeerTypeRegistration.REGION_FULL_PATH, 1, 0});
+    events.add(new Object[] {REPLICATED_REGION, "key1", 0});
+    execute(events, false);
+
+    assertEquals(Arrays.<Object>asList(Arrays.asList("key0", (byte) 0), PDX_TYPE,
+        Arrays.asList("key1", (byte) 0)), this.applied);
+    verify(this.serverConnection, never()).getAcceptor();
+  }
+
+  /**
+   * Sends a batch of update events, each given as its region path, key and value byte.
+   */
+  private void execute(List<Object[]> events, boolean removeOnException) throws Exception {
+    Message sent = new Message(4 + events.size() * 8, Version.CURRENT);
+    sent.addIntPart(events.size());
+    sent.addIntPart(1);
+    sent.addIntPart(2);
+    sent.addBytesPart(new byte[] {(byte) (removeOnException ? 0x01 : 0x00)});
+    for (Object[] event : events) {
+      sent.addIntPart(1);
+      sent.addBytesPart(new byte[] {0x00});
+      sent.addStringPart((String) event[0]);
+      sent.addObjPart(new EventID(new byte[] {1, 2, 3}, 1, this.sequenceId++));
+      sent.addStringOrObjPart(event[1]);
+      if (event[0].equals(PeerTypeRegistration.REGION_FULL_PATH)) {
+        sent.addRawPart(BlobHelper.serializeToBlob(new PdxType("Type" + event[1], false)), true);
+      } else {
+        sent.addRawPart(new byte[] {((Integer) event[2]).byteValue()}, true);
+      }
+      sent.addBytesPart(new byte[] {0x00});
+      sent.addLongPart(0);
+    }
+
+    GatewayReceiverCommand command = (GatewayReceiverCommand) GatewayReceiverCommand.getCommand();
+    command.cmdExecute(receive(sent), this.serverConnection, 0);
+    verify(this.serverConnection, atLeastOnce()).setAsTrue(Command.RESPONDED);
+  }
+
+  /**
+   * Copies the parts of a sent message into a message as the receiver reads it.
+   */
+  private Message receive(Message sent) {
+    Message received = new Message(sent.getNumberOfParts(), Version.CURRENT);
+    for (int i = 0; i < sent.getNumberOfParts(); i++) {
+      Part part = sent.getPart(i);
+      ByteBuffer buffer = ByteBuffer.allocate(part.getLength());
+      part.writeTo(buffer);
+      received.addRawPart(buffer.array(), part.isObject());
+    }
+    return received;
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.wan;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.cache.EntryEvent;
+import org.apache.geode.cache.wan.GatewayEventFilter;
+import org.apache.geode.internal.cache.EnumListenerEvent;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AbstractGatewaySenderEventProcessorJUnitTest {
+
+  private int oldMaxInFlightBatches;
+  private AbstractGatewaySender sender;
+  private GatewaySenderStats stats;
+  /** the value of the batchesInFlight stat */
+  private final AtomicInteger batchesInFlight = new AtomicInteger();
+  private TestProcessor processor;
+
+  @Before
+  public void setUp() {
+    this.oldMaxInFlightBatches = AbstractGatewaySenderEventProcessor.MAX_IN_FLIGHT_BATCHES;
+    AbstractGatewaySenderEventProcessor.MAX_IN_FLIGHT_BATCHES = 2;
+    this.sender = mock(AbstractGatewaySender.class);
+    this.stats = mock(GatewaySenderStats.class);
+    when(this.stats.startTime()).thenReturn(1L);
+    doAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) {
+        batchesInFlight.incrementAndGet();
+        return null;
+      }
+    }).when(this.stats).incBatchesInFlight();
+    doAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) {
+        batchesInFlight.addAndGet(-(Integer) invocation.getArguments()[0]);
+        return null;
+      }
+    }).when(this.stats).decBatchesInFlight(anyInt());
+    when(this.sender.getStatistics()).thenReturn(this.stats);
+    when(this.sender.getStopper()).thenReturn(mock(CancelCriterion.class));
+    when(this.sender.getGatewayEventFilters())
+        .thenReturn(Collections.<GatewayEventFilter>emptyList());
+    this.processor = new TestProcessor(this.sender);
+  }
+
+  @After
+  public void tearDown() {
+    AbstractGatewaySenderEventProcessor.MAX_IN_FLIGHT_BATCHES = this.oldMaxInFlightBatches;
+  }
+
+  @Test
+  public void processorWaitsAtTheInFlightLimitUntilABatchIsAcked() throws Exception {
+    this.processor.addBatchInFlight(1, batch());
+    // below the limit the processor does not wait
+    this.processor.waitForInFlightBatches();
+    this.processor.addBatchInFlight(2, batch());
+    assertEquals(2, this.batchesInFlight.get());
+
+    final CountDownLatch waited = new CountDownLatch(1);
+    Thread peeker = new Thread(new Runnable() {
+      public void run() {
+        try {
+          processor.waitForInFlightBatches();
+          waited.countDown();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    peeker.setDaemon(true);
+    peeker.start();
+    assertFalse(waited.await(500, TimeUnit.MILLISECONDS));
+
+    this.processor.handleSuccessBatchAck(1);
+    assertTrue(waited.await(30, TimeUnit.SECONDS));
+    assertEquals(1, this.processor.getBatchIdToEventsMap().size());
+    assertEquals(1, this.processor.removed);
+    assertEquals(1, this.batchesInFlight.get());
+    verify(this.stats).endBatchAck(1L);
+  }
+
+  @Test
+  public void processorStopsWaitingWhenStopped() throws Exception {
+    this.processor.addBatchInFlight(1, batch());
+    this.processor.addBatchInFlight(2, batch());
+    this.processor.setIsStopped(true);
+    this.processor.waitForInFlightBatches();
+    verify(this.stats, never()).endBatchAck(anyLong());
+  }
+
+  @Test
+  public void processorsOfASenderAddUpTheirBatchesInFlight() throws Exception {
+    TestProcessor other = new TestProcessor(this.sender);
+    this.processor.addBatchInFlight(1, batch());
+    this.processor.addBatchInFlight(2, batch());
+    other.addBatchInFlight(1, batch());
+    assertEquals(3, this.batchesInFlight.get());
+
+    other.handleSuccessBatchAck(1);
+    assertEquals(2, this.batchesInFlight.get());
+    // a batch acked twice is only removed once
+    other.handleSuccessBatchAck(1);
+    assertEquals(2, this.batchesInFlight.get());
+
+    other.addBatchInFlight(3, batch());
+    this.processor.clearBatchesInFlight();
+    assertEquals(1, this.batchesInFlight.get());
+    assertTrue(this.processor.getBatchIdToEventsMap().isEmpty());
+    other.clearBatchesInFlight();
+    assertEquals(0, this.batchesInFlight.get());
+  }
+
+  private List<GatewaySenderEventImpl>[] batch() {
+    List<GatewaySenderEventImpl>[] eventsArr = (List<GatewaySenderEventImpl>[]) new List[2];
+    eventsArr[0] = new ArrayList<GatewaySenderEventImpl>();
+    eventsArr[0].add(mock(GatewaySenderEventImpl.class));
+    eventsArr[1] = new ArrayList<GatewaySenderEventImpl>();
+    return eventsArr;
+  }
+
+  private static class TestProcessor extends AbstractGatewaySenderEventProcessor {
+
+    int removed;
+
+    TestProcessor(AbstractGatewaySender sender) {
+      super(null, "Test Gateway Sender Event Processor", sender);
+    }
+
+    @Override
+    protected void eventQueueRemove(int size) {
+      this.removed += size;
+    }
+
+    @Override
+    protected void initializeMessageQueue(String id) {}
+
+    @Override
+    public void enqueueEvent(EnumListenerEvent operation, EntryEvent event,
+        Object substituteValue) {}
+
+    @Override
+    protected void rebalance() {}
+
+    @Override
+    public void initializeEventDispatcher() {}
+  }
+}
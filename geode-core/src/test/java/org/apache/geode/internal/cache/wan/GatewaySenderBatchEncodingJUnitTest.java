@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.wan;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.internal.util.BlobHelper;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class GatewaySenderBatchEncodingJUnitTest {
+
+  private static final byte[] MEMBER1 = new byte[] {1, 2, 3};
+  private static final byte[] MEMBER2 = new byte[] {4, 5, 6, 7};
+
+  @Test
+  public void regionPathsAndEventIdsAreSentByIndex() throws Exception {
+    EventID id1 = new EventID(MEMBER1, 1, 10, 3);
+    EventID id2 = new EventID(MEMBER2, 2, 20);
+    EventID id3 = new EventID(MEMBER1.clone(), 1, 11, 3);
+    GatewaySenderBatchEncoding sender = new GatewaySenderBatchEncoding(
+        Arrays.asList(event("/a", id1), event("/b", id2), event("/a", id3)));
+    GatewaySenderBatchEncoding receiver = GatewaySenderBatchEncoding
+        .read(objectPart(new String[] {"/a", "/b"}), objectPart(new byte[][] {MEMBER1, MEMBER2}));
+
+    Message message = new Message(2, Version.CURRENT);
+    sender.addRegionPathPart(message, "/b");
+    sender.addEventIdPart(message, id3);
+
+    assertEquals("/b", receiver.getRegionPath(message.getPart(0)));
+    EventID received = receiver.getEventID(message.getPart(1));
+    assertEquals(id3, received);
+    assertArrayEquals(MEMBER1, received.getMembershipID());
+    assertEquals(3, received.getBucketID());
+  }
+
+  @Test
+  public void largeValuesAreCompressed() throws Exception {
+    GatewaySenderBatchEncoding encoding =
+        new GatewaySenderBatchEncoding(Arrays.<GatewaySenderEventImpl>asList());
+    assertNull(encoding.compress(new byte[10]));
+
+    byte[] value = new byte[GatewaySenderBatchEncoding.COMPRESSION_THRESHOLD + 1000];
+    Arrays.fill(value, (byte) 7);
+    byte[] compressed = encoding.compress(value);
+    assertTrue(compressed.length < value.length);
+    assertEquals(value.length, encoding.getUncompressedBytes());
+    assertEquals(compressed.length, encoding.getCompressedBytes());
+
+    Part part = new Part();
+    part.setPartState(compressed, true);
+    encoding.decompress(part);
+    assertArrayEquals(value, part.getSerializedForm());
+    assertTrue(part.isObject());
+  }
+
+  private GatewaySenderEventImpl event(String regionPath, EventID eventId) {
+    GatewaySenderEventImpl event = mock(GatewaySenderEventImpl.class);
+    when(event.getAction()).thenReturn(1);
+    when(event.getRegionPath()).thenReturn(regionPath);
+    when(event.getEventId()).thenReturn(eventId);
+    return event;
+  }
+
+  private Part objectPart(Object value) throws Exception {
+    Part part = new Part();
+    part.setPartState(BlobHelper.serializeToBlob(value), true);
+    return part;
+  }
+}
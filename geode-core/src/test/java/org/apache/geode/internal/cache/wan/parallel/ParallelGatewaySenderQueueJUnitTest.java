@@ -18,8 +18,10 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,6 +41,8 @@ import org.apache.geode.cache.DataPolicy;
 import org.apache.geode.cache.PartitionAttributesFactory;
 import org.apache.geode.cache.Region;
 import org.apache.geode.internal.cache.AbstractBucketRegionQueue;
+import org.apache.geode.internal.cache.BucketAdvisor;
+import org.apache.geode.internal.cache.BucketRegion;
 import org.apache.geode.internal.cache.BucketRegionQueue;
 import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.cache.PartitionedRegion;
@@ -159,6 +163,46 @@ public class ParallelGatewaySenderQueueJUnitTest {
     assertEquals(3, queue.localSize());
   }
 
+  @Test
+  public void peekOnlyVisitsBucketsInTheReadyBucketIndex() throws Exception {
+    ParallelGatewaySenderQueueMetaRegion prQ = mock(ParallelGatewaySenderQueueMetaRegion.class);
+    PartitionedRegionDataStore dataStore = mock(PartitionedRegionDataStore.class);
+    when(prQ.getDataStore()).thenReturn(dataStore);
+    when(prQ.getFullPath()).thenReturn("/shadowPR");
+    when(metaRegionFactory.newMetataRegion(any(), any(), any(), any())).thenReturn(prQ);
+    when(cache.createVMRegion(any(), any(), any())).thenReturn(prQ);
+    queue.addShadowPartitionedRegionForUserPR(mockPR("region1"));
+
+    BucketRegionQueue bucket1 = mockBucket(dataStore, 1, true);
+    BucketRegionQueue bucket2 = mockBucket(dataStore, 2, false);
+    when(dataStore.getAllLocalBucketRegions())
+        .thenReturn(new HashSet<BucketRegion>(Arrays.asList(bucket1, bucket2)));
+
+    assertEquals(1, queue.getRandomPrimaryBucket(prQ));
+    assertEquals(1, queue.getRandomPrimaryBucket(prQ));
+
+    // bucket 2 was dropped from the index when it was found empty
+    when(bucket1.isReadyForPeek()).thenReturn(false);
+    when(bucket2.isReadyForPeek()).thenReturn(true);
+    assertEquals(-1, queue.getRandomPrimaryBucket(prQ));
+
+    queue.markBucketReady(2);
+    assertEquals(2, queue.getRandomPrimaryBucket(prQ));
+    verify(dataStore, times(1)).getAllLocalBucketRegions();
+  }
+
+  private BucketRegionQueue mockBucket(PartitionedRegionDataStore dataStore, int bucketId,
+      boolean readyForPeek) {
+    BucketRegionQueue bucket = mock(BucketRegionQueue.class);
+    BucketAdvisor advisor = mock(BucketAdvisor.class);
+    when(bucket.getId()).thenReturn(bucketId);
+    when(bucket.getBucketAdvisor()).thenReturn(advisor);
+    when(advisor.isPrimary()).thenReturn(true);
+    when(bucket.isReadyForPeek()).thenReturn(readyForPeek);
+    when(dataStore.getLocalBucketById(bucketId)).thenReturn(bucket);
+    return bucket;
+  }
+
   private PartitionedRegion mockPR(String name) {
     PartitionedRegion region = mock(PartitionedRegion.class);
     when(region.getFullPath()).thenReturn(name);
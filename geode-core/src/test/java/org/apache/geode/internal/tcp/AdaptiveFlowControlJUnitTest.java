@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.internal.DMStats;
+import org.apache.geode.test.junit.categories.MembershipTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, MembershipTest.class})
+public class AdaptiveFlowControlJUnitTest {
+
+  private DMStats stats;
+  private AdaptiveFlowControl flowControl;
+
+  @Before
+  public void setUp() {
+    stats = mock(DMStats.class);
+    flowControl = new AdaptiveFlowControl(stats);
+  }
+
+  @Test
+  public void configuredTimeoutIsUsedWhileReceiverKeepsUp() {
+    for (int i = 0; i < 100; i++) {
+      flowControl.recordWrite(0);
+    }
+    assertFalse(flowControl.isCongested());
+    assertEquals(5000, flowControl.getDistributionTimeout(5000));
+  }
+
+  @Test
+  public void queuingStartsImmediatelyForCongestedReceiver() {
+    stallUntilCongested();
+    assertEquals(1, flowControl.getDistributionTimeout(5000));
+    verify(stats).incAsyncCongestedReceivers(1);
+    verify(stats).incAsyncCongestionsDetected();
+  }
+
+  @Test
+  public void receiverThatDoesNotAllowQueuingIsNeverQueued() {
+    stallUntilCongested();
+    assertEquals(0, flowControl.getDistributionTimeout(0));
+  }
+
+  @Test
+  public void congestionClearsOnceReceiverCatchesUp() {
+    stallUntilCongested();
+    for (int i = 0; i < 100 && flowControl.isCongested(); i++) {
+      flowControl.recordWrite(0);
+    }
+    assertFalse(flowControl.isCongested());
+    assertEquals(5000, flowControl.getDistributionTimeout(5000));
+    verify(stats).incAsyncCongestedReceivers(-1);
+  }
+
+  @Test
+  public void queuedWritesDoNotClearCongestion() {
+    stallUntilCongested();
+    long smoothedStallMs = flowControl.getSmoothedStallMs();
+    for (int i = 0; i < 100; i++) {
+      flowControl.recordWrite(0, true);
+    }
+    assertTrue(flowControl.isCongested());
+    assertEquals(smoothedStallMs, flowControl.getSmoothedStallMs());
+    verify(stats, never()).incAsyncCongestedReceivers(-1);
+  }
+
+  @Test
+  public void queuedWritesAreRecordedWhileNotCongested() {
+    for (int i = 0; i < 100 && !flowControl.isCongested(); i++) {
+      flowControl.recordWrite(AdaptiveFlowControl.CONGESTION_THRESHOLD_MS * 4, true);
+    }
+    assertTrue(flowControl.isCongested());
+  }
+
+  @Test
+  public void closeReleasesCongestedReceiver() {
+    stallUntilCongested();
+    flowControl.close();
+    assertFalse(flowControl.isCongested());
+    verify(stats).incAsyncCongestedReceivers(-1);
+  }
+
+  private void stallUntilCongested() {
+    for (int i = 0; i < 100 && !flowControl.isCongested(); i++) {
+      flowControl.recordWrite(AdaptiveFlowControl.CONGESTION_THRESHOLD_MS * 4);
+    }
+    assertTrue(flowControl.isCongested());
+  }
+}
@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.cq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.geode.cache.query.internal.CompiledBindArgument;
+import org.apache.geode.cache.query.internal.CompiledComparison;
+import org.apache.geode.cache.query.internal.CompiledID;
+import org.apache.geode.cache.query.internal.CompiledIteratorDef;
+import org.apache.geode.cache.query.internal.CompiledJunction;
+import org.apache.geode.cache.query.internal.CompiledLiteral;
+import org.apache.geode.cache.query.internal.CompiledPath;
+import org.apache.geode.cache.query.internal.CompiledSelect;
+import org.apache.geode.cache.query.internal.CompiledValue;
+import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.cache.query.internal.PathUtils;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * An index of the CQs registered on a region by one of their equality or range conditions. For
+ * each CQ whose WHERE clause is a comparison of an attribute path of the iterator with a literal,
+ * or a conjunction containing one, the CQ is indexed under the path by the literal. An event value
+ * then only needs to be evaluated against the indexed CQs whose condition the value's attribute
+ * can satisfy, as returned by {@link #getCandidates}, and against the CQs that are not indexed.
+ * <p>
+ * The candidates are a superset of the CQs that match the value: numbers are compared as doubles,
+ * and all the CQs indexed under a path are candidates when the value's attribute cannot be read or
+ * is not a string, boolean or number of the same kind as their literals. An index is immutable and
+ * is rebuilt when the CQs on its region change.
+ *
+ * @since Geode 1.2
+ */
+class CqPredicateIndex {
+
+  /** All the CQs the index was built from */
+  private final Set<Object> cqs = newIdentitySet();
+
+  /** The CQs indexed by a condition */
+  private final Set<Object> indexedCqs = newIdentitySet();
+
+  private final Map<List<String>, PathIndex> pathIndexes = new HashMap<List<String>, PathIndex>();
+
+  /**
+   * Creates an index of the given CQs.
+   */
+  static CqPredicateIndex create(Collection<?> cqs) {
+    CqPredicateIndex index = new CqPredicateIndex();
+    for (Object cq : cqs) {
+      CompiledSelect select = null;
+      if (cq instanceof CqQueryImpl && ((CqQueryImpl) cq).getQuery() != null) {
+        select = ((DefaultQuery) ((CqQueryImpl) cq).getQuery()).getSelect();
+      }
+      index.add(cq, select);
+    }
+    return index;
+  }
+
+  /**
+   * Adds a CQ to this index, indexing it if its query has an indexable condition.
+   */
+  void add(Object cq, CompiledSelect select) {
+    this.cqs.add(cq);
+    if (select == null || select.getIterators().size() != 1 || select.getWhereClause() == null) {
+      return;
+    }
+    CompiledIteratorDef iterator = (CompiledIteratorDef) select.getIterators().get(0);
+    if (!(iterator.getCollectionExpr() instanceof CompiledBindArgument)) {
+      return;
+    }
+    Condition condition = getCondition(select.getWhereClause(), iterator.getName());
+    if (condition != null) {
+      PathIndex pathIndex = this.pathIndexes.get(condition.path);
+      if (pathIndex == null) {
+        pathIndex = new PathIndex(condition.path);
+        this.pathIndexes.put(condition.path, pathIndex);
+      }
+      pathIndex.add(cq, condition);
+      this.indexedCqs.add(cq);
+    }
+  }
+
+  /**
+   * Returns whether the index was built from the given CQ.
+   */
+  boolean contains(Object cq) {
+    return this.cqs.contains(cq);
+  }
+
+  /**
+   * Returns whether the given CQ is indexed. Only the indexed CQs that are in
+   * {@link #getCandidates} can match a value.
+   */
+  boolean isIndexed(Object cq) {
+    return this.indexedCqs.contains(cq);
+  }
+
+  /**
+   * Returns the indexed CQs whose condition may be satisfied by the given event value.
+   */
+  Set<Object> getCandidates(Object value) {
+    Set<Object> candidates = newIdentitySet();
+    for (PathIndex pathIndex : this.pathIndexes.values()) {
+      pathIndex.addCandidates(value, candidates);
+    }
+    return candidates;
+  }
+
+  /**
+   * Returns the first comparison of an attribute path with a literal in the where clause, or in
+   * the operands of an AND, preferring an equality, or null if there is none.
+   */
+  private static Condition getCondition(CompiledValue whereClause, String iteratorName) {
+    if (whereClause instanceof CompiledComparison) {
+      return getComparisonCondition((CompiledComparison) whereClause, iteratorName);
+    }
+    if (whereClause instanceof CompiledJunction
+        && ((CompiledJunction) whereClause).getOperator() == OQLLexerTokenTypes.LITERAL_and) {
+      Condition range = null;
+      for (Object operand : whereClause.getChildren()) {
+        if (operand instanceof CompiledComparison) {
+          Condition condition =
+              getComparisonCondition((CompiledComparison) operand, iteratorName);
+          if (condition != null && condition.operator == OQLLexerTokenTypes.TOK_EQ) {
+            return condition;
+          }
+          if (range == null) {
+            range = condition;
+          }
+        }
+      }
+      return range;
+    }
+    return null;
+  }
+
+  private static Condition getComparisonCondition(CompiledComparison comparison,
+      String iteratorName) {
+    if (comparison.getType() != CompiledValue.COMPARISON) {
+      // a LIKE is a comparison of its own kind
+      return null;
+    }
+    List children = comparison.getChildren();
+    CompiledValue left = (CompiledValue) children.get(0);
+    CompiledValue right = (CompiledValue) children.get(1);
+    int operator = comparison.getOperator();
+    if (left instanceof CompiledLiteral) {
+      CompiledValue swapped = left;
+      left = right;
+      right = swapped;
+      operator = reverse(operator);
+    }
+    if (!(right instanceof CompiledLiteral) || !isIndexable(operator)) {
+      return null;
+    }
+    List<String> path = getPath(left, iteratorName);
+    Object key = getKey(getLiteral((CompiledLiteral) right));
+    if (path == null || key == null
+        || (key instanceof Boolean && operator != OQLLexerTokenTypes.TOK_EQ)) {
+      return null;
+    }
+    return new Condition(path, operator, key);
+  }
+
+  private static boolean isIndexable(int operator) {
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_EQ:
+      case OQLLexerTokenTypes.TOK_LT:
+      case OQLLexerTokenTypes.TOK_LE:
+      case OQLLexerTokenTypes.TOK_GT:
+      case OQLLexerTokenTypes.TOK_GE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static int reverse(int operator) {
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_LT:
+        return OQLLexerTokenTypes.TOK_GT;
+      case OQLLexerTokenTypes.TOK_LE:
+        return OQLLexerTokenTypes.TOK_GE;
+      case OQLLexerTokenTypes.TOK_GT:
+        return OQLLexerTokenTypes.TOK_LT;
+      case OQLLexerTokenTypes.TOK_GE:
+        return OQLLexerTokenTypes.TOK_LE;
+      default:
+        return operator;
+    }
+  }
+
+  /**
+   * Returns the attributes to read from an element of the iterator to evaluate the value, or null
+   * if the value is not an attribute path of the iterator.
+   */
+  private static List<String> getPath(CompiledValue value, String iteratorName) {
+    if (value instanceof CompiledID) {
+      String id = ((CompiledID) value).getId();
+      if (id.equals(iteratorName)) {
+        return new ArrayList<String>();
+      }
+      List<String> path = new ArrayList<String>();
+      path.add(id);
+      return path;
+    }
+    if (value instanceof CompiledPath) {
+      List<String> path = getPath(((CompiledPath) value).getReceiver(), iteratorName);
+      if (path != null) {
+        path.add(((CompiledPath) value).getTailID());
+      }
+      return path;
+    }
+    return null;
+  }
+
+  private static Object getLiteral(CompiledLiteral literal) {
+    try {
+      return literal.evaluate(null);
+    } catch (Exception e) {
+      // a literal evaluates to its value without a context
+      return null;
+    }
+  }
+
+  /**
+   * Returns the key a value is indexed and looked up by, or null if it cannot be indexed.
+   */
+  private static Object getKey(Object value) {
+    if (value instanceof PdxString) {
+      return value.toString();
+    }
+    if (value instanceof String || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof Number) {
+      double number = ((Number) value).doubleValue();
+      return Double.isNaN(number) ? null : Double.valueOf(number);
+    }
+    return null;
+  }
+
+  private static Set<Object> newIdentitySet() {
+    return Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+  }
+
+  private static class Condition {
+    final List<String> path;
+    final int operator;
+    final Object key;
+
+    Condition(List<String> path, int operator, Object key) {
+      this.path = path;
+      this.operator = operator;
+      this.key = key;
+    }
+  }
+
+  /**
+   * The CQs indexed under one attribute path, by the class of their literal.
+   */
+  private static class PathIndex {
+
+    private final List<String> path;
+
+    private final Map<Class<?>, KeyIndex> keyIndexes = new HashMap<Class<?>, KeyIndex>();
+
+    PathIndex(List<String> path) {
+      this.path = path;
+    }
+
+    void add(Object cq, Condition condition) {
+      KeyIndex keyIndex = this.keyIndexes.get(condition.key.getClass());
+      if (keyIndex == null) {
+        keyIndex = new KeyIndex();
+        this.keyIndexes.put(condition.key.getClass(), keyIndex);
+      }
+      keyIndex.add(cq, condition);
+    }
+
+    void addCandidates(Object value, Set<Object> candidates) {
+      Object key = null;
+      try {
+        for (String attribute : this.path) {
+          if (value == null) {
+            break;
+          }
+          value = PathUtils.evaluateAttribute(value, attribute);
+        }
+        key = getKey(value);
+      } catch (Exception e) {
+        // the CQs evaluate the value themselves
+      }
+      for (Map.Entry<Class<?>, KeyIndex> entry : this.keyIndexes.entrySet()) {
+        if (key != null && entry.getKey() == key.getClass()) {
+          entry.getValue().addCandidates(key, candidates);
+        } else {
+          candidates.addAll(entry.getValue().all);
+        }
+      }
+    }
+  }
+
+  /**
+   * The CQs indexed under one attribute path whose literals are of the same class.
+   */
+  private static class KeyIndex {
+
+    final List<Object> all = new ArrayList<Object>();
+
+    private final Map<Object, List<Object>> equal = new HashMap<Object, List<Object>>();
+
+    /** CQs matching values greater than their key */
+    private final NavigableMap<Object, List<Object>> lowerBounds =
+        new TreeMap<Object, List<Object>>();
+
+    /** CQs matching values less than their key */
+    private final NavigableMap<Object, List<Object>> upperBounds =
+        new TreeMap<Object, List<Object>>();
+
+    void add(Object cq, Condition condition) {
+      this.all.add(cq);
+      switch (condition.operator) {
+        case OQLLexerTokenTypes.TOK_EQ:
+          add(this.equal, condition.key, cq);
+          break;
+        case OQLLexerTokenTypes.TOK_GT:
+        case OQLLexerTokenTypes.TOK_GE:
+          add(this.lowerBounds, condition.key, cq);
+          break;
+        default:
+          add(this.upperBounds, condition.key, cq);
+          break;
+      }
+    }
+
+    private static void add(Map<Object, List<Object>> map, Object key, Object cq) {
+      List<Object> cqs = map.get(key);
+      if (cqs == null) {
+        cqs = new ArrayList<Object>();
+        map.put(key, cqs);
+      }
+      cqs.add(cq);
+    }
+
+    void addCandidates(Object key, Set<Object> candidates) {
+      List<Object> cqs = this.equal.get(key);
+      if (cqs != null) {
+        candidates.addAll(cqs);
+      }
+      for (List<Object> bounded : this.lowerBounds.headMap(key, true).values()) {
+        candidates.addAll(bounded);
+      }
+      for (List<Object> bounded : this.upperBounds.tailMap(key, true).values()) {
+        candidates.addAll(bounded);
+      }
+    }
+  }
+}
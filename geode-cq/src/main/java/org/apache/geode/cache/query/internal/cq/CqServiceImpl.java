@@ -70,6 +70,13 @@ public final class CqServiceImpl implements CqService {
           .getProperty(DistributionConfig.GEMFIRE_PREFIX + "cq.EXECUTE_QUERY_DURING_INIT", "true"))
       .booleanValue();
 
+  /**
+   * System property to index the CQs on a region by their equality and range conditions, so that
+   * an event is only evaluated against the CQs its value may match.
+   */
+  public static boolean USE_PREDICATE_INDEX =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "cq.USE_PREDICATE_INDEX");
+
   private static final String CQ_NAME_PREFIX = "GfCq";
 
   private final Cache cache;
@@ -107,6 +114,13 @@ public final class CqServiceImpl implements CqService {
   // With query as key and Set of CQs as values.
   private final ConcurrentHashMap matchingCqMap;
 
+  /**
+   * The predicate indexes of the CQs in each filter profile, when {@link #USE_PREDICATE_INDEX} is
+   * set
+   */
+  private final Map<FilterProfile, CqPredicateIndex> cqPredicateIndexes =
+      Collections.synchronizedMap(new WeakHashMap<FilterProfile, CqPredicateIndex>());
+
   // CQ Service statistics
   public final CqServiceStatisticsImpl cqServiceStats;
   public final CqServiceVsdStats stats;
@@ -1509,6 +1523,18 @@ public final class CqServiceImpl implements CqService {
         }
       }
 
+      CqPredicateIndex cqIndex = null;
+      Set<Object> newValueCandidates = null;
+      Set<Object> oldValueCandidates = null;
+      boolean staleIndex = false;
+      if (USE_PREDICATE_INDEX) {
+        cqIndex = getCqPredicateIndex(pf);
+        if (!cqUnfilteredEventsSet_newValue.isEmpty()) {
+          newValueCandidates =
+              cqIndex.getCandidates(cqUnfilteredEventsSet_newValue.iterator().next());
+        }
+      }
+
       HashMap<Long, Integer> cqInfo = new HashMap<Long, Integer>();
       Iterator cqIter = cqs.entrySet().iterator();
 
@@ -1521,6 +1547,14 @@ public final class CqServiceImpl implements CqService {
         if (cQuery == null) {
           continue;
         }
+        // Only the candidates of an indexed CQ can match.
+        boolean indexed = false;
+        if (cqIndex != null) {
+          indexed = cqIndex.isIndexed(cQuery);
+          if (!indexed && !cqIndex.contains(cQuery)) {
+            staleIndex = true;
+          }
+        }
         String cqName = cQuery.getServerCqName();
         Long filterID = cQuery.getFilterID();
 
@@ -1551,7 +1585,8 @@ public final class CqServiceImpl implements CqService {
             try {
               synchronized (cQuery) {
                 // Apply query on new value.
-                if (!cqUnfilteredEventsSet_newValue.isEmpty()) {
+                if (!cqUnfilteredEventsSet_newValue.isEmpty()
+                    && (!indexed || newValueCandidates.contains(cQuery))) {
                   executionStartTime = this.stats.startCqQueryExecution();
 
                   b_cqResults_newValue =
@@ -1591,10 +1626,16 @@ public final class CqServiceImpl implements CqService {
                       cqUnfilteredEventsSet_oldValue.add(oldValue);
                     }
                   }
+                  if (indexed && oldValueCandidates == null
+                      && !cqUnfilteredEventsSet_oldValue.isEmpty()) {
+                    oldValueCandidates =
+                        cqIndex.getCandidates(cqUnfilteredEventsSet_oldValue.iterator().next());
+                  }
 
                   synchronized (cQuery) {
                     // Apply query on old value.
-                    if (!cqUnfilteredEventsSet_oldValue.isEmpty()) {
+                    if (!cqUnfilteredEventsSet_oldValue.isEmpty()
+                        && (!indexed || oldValueCandidates.contains(cQuery))) {
                       executionStartTime = this.stats.startCqQueryExecution();
                       b_cqResults_oldValue =
                           evaluateQuery(cQuery, new Object[] {cqUnfilteredEventsSet_oldValue});
@@ -1678,6 +1719,10 @@ public final class CqServiceImpl implements CqService {
           }
         }
       }
+      if (staleIndex) {
+        // Rebuild the index for the next event.
+        this.cqPredicateIndexes.remove(pf);
+      }
       if (cqInfo.size() > 0) {
         if (pf.isLocalProfile()) {
           if (isDebugEnabled) {
@@ -1978,6 +2023,18 @@ public final class CqServiceImpl implements CqService {
     return status;
   }
 
+  /**
+   * Returns the predicate index of the CQs in a filter profile, building it if needed.
+   */
+  private CqPredicateIndex getCqPredicateIndex(FilterProfile pf) {
+    CqPredicateIndex index = this.cqPredicateIndexes.get(pf);
+    if (index == null) {
+      index = CqPredicateIndex.create(pf.getCqMap().values());
+      this.cqPredicateIndexes.put(pf, index);
+    }
+    return index;
+  }
+
   @Override
   public UserAttributes getUserAttributes(String cqName) {
     return this.cqNameToUserAttributesMap.get(cqName);
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.cq;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.CompiledSelect;
+import org.apache.geode.cache.query.internal.QCompiler;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CqPredicateIndexJUnitTest {
+
+  private CqPredicateIndex index;
+
+  @Before
+  public void setUp() {
+    this.index = new CqPredicateIndex();
+    this.index.add("active", select("select * from $1 p where p.status = 'active'"));
+    this.index.add("above10", select("select * from $1 p where p.ID > 10"));
+    this.index.add("atMost5", select("select * from $1 p where 5 >= ID"));
+    this.index.add("inactiveAbove3",
+        select("select * from $1 p where p.ID > 3 and p.status = 'inactive'"));
+    this.index.add("like", select("select * from $1 p where p.status like 'act%'"));
+  }
+
+  @Test
+  public void onlyComparisonsWithLiteralsAreIndexed() {
+    assertTrue(this.index.isIndexed("active"));
+    assertTrue(this.index.isIndexed("atMost5"));
+    assertFalse(this.index.isIndexed("like"));
+    assertTrue(this.index.contains("like"));
+  }
+
+  @Test
+  public void candidatesAreTheCqsWhoseConditionTheValueSatisfies() {
+    assertEquals(new HashSet<Object>(Arrays.asList("active", "above10")),
+        new HashSet<Object>(this.index.getCandidates(new Portfolio(12))));
+    assertEquals(new HashSet<Object>(Arrays.asList("atMost5", "inactiveAbove3")),
+        new HashSet<Object>(this.index.getCandidates(new Portfolio(3))));
+  }
+
+  @Test
+  public void allCqsAreCandidatesForValuesWithoutTheAttribute() {
+    assertEquals(
+        new HashSet<Object>(Arrays.asList("active", "above10", "atMost5", "inactiveAbove3")),
+        new HashSet<Object>(this.index.getCandidates("value")));
+  }
+
+  private CompiledSelect select(String queryString) {
+    return (CompiledSelect) new QCompiler().compileQuery(queryString);
+  }
+}
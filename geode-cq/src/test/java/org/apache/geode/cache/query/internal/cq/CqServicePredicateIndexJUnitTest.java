@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.cq;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Operation;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.CqStateImpl;
+import org.apache.geode.cache.server.CacheServer;
+import org.apache.geode.distributed.internal.DistributionAdvisor.Profile;
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.FilterRoutingInfo;
+import org.apache.geode.internal.cache.FilterRoutingInfo.FilterInfo;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.sockets.CacheClientNotifier;
+import org.apache.geode.internal.cache.tier.sockets.ClientProxyMembershipID;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CqServicePredicateIndexJUnitTest {
+
+  private static final String[] QUERIES = {"select * from /portfolios p where p.ID > 10",
+      "select * from /portfolios p where p.status = 'active'",
+      "select * from /portfolios p where 5 >= p.ID", "select * from /portfolios p where p.ID = 7",
+      "select * from /portfolios p where p.ID > 3 and p.status = 'inactive'",
+      "select * from /portfolios p where p.status like 'act%'",
+      "select * from /portfolios p where p.ID > 10"};
+
+  private GemFireCacheImpl cache;
+  private LocalRegion region;
+  private CqServiceImpl cqService;
+
+  @Before
+  public void setUp() throws Exception {
+    this.cache = (GemFireCacheImpl) new CacheFactory().set(MCAST_PORT, "0").create();
+    CacheServer server = this.cache.addCacheServer();
+    server.setPort(0);
+    server.start();
+    this.region =
+        (LocalRegion) this.cache.createRegionFactory(RegionShortcut.REPLICATE).create("portfolios");
+    this.cqService = (CqServiceImpl) this.cache.getCqService();
+    ClientProxyMembershipID clientId =
+        new ClientProxyMembershipID(this.cache.getDistributedSystem().getDistributedMember());
+    for (int i = 0; i < QUERIES.length; i++) {
+      this.cqService.executeCq("cq" + i, QUERIES[i], CqStateImpl.RUNNING, clientId,
+          CacheClientNotifier.getInstance(), false, false, 0, null);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    CqServiceImpl.USE_PREDICATE_INDEX = false;
+    this.cache.close();
+  }
+
+  @Test
+  public void cqsMatchedThroughTheIndexAreTheCqsMatchedByEvaluation() throws Exception {
+    int matched = 0;
+    for (int i = 0; i < 20; i++) {
+      Portfolio value = new Portfolio(i);
+      Map<Long, Integer> evaluated = matchingCqs(i, value, false);
+      assertEquals("portfolio " + i, evaluated, matchingCqs(i, value, true));
+      if (evaluated != null) {
+        matched += evaluated.size();
+      }
+    }
+    assertTrue(matched > 0);
+  }
+
+  @Test
+  public void valuesWithoutTheIndexedAttributesAreEvaluatedByEveryCq() throws Exception {
+    assertEquals(matchingCqs(1, "value", false), matchingCqs(1, "value", true));
+  }
+
+  private Map<Long, Integer> matchingCqs(Object key, Object value, boolean usePredicateIndex)
+      throws Exception {
+    CqServiceImpl.USE_PREDICATE_INDEX = usePredicateIndex;
+    FilterRoutingInfo frInfo = new FilterRoutingInfo();
+    EntryEventImpl event = EntryEventImpl.create(this.region, Operation.CREATE, key, value, null,
+        false, this.cache.getMyId());
+    try {
+      this.cqService.processEvents(event, this.region.getFilterProfile().getLocalProfile(),
+          new Profile[0], frInfo);
+    } finally {
+      event.release();
+    }
+    FilterInfo info = frInfo.getLocalFilterInfo();
+    return info == null ? null : info.getCQs();
+  }
+}
@@ -23,9 +23,11 @@ import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
 import org.apache.geode.internal.cache.tier.sockets.Message;
 import org.apache.geode.internal.cache.tier.sockets.Part;
 import org.apache.geode.internal.cache.wan.BatchException70;
+import org.apache.geode.internal.cache.wan.GatewaySenderBatchEncoding;
 import org.apache.geode.internal.cache.wan.GatewaySenderEventImpl;
 import org.apache.geode.internal.cache.wan.GatewaySenderEventRemoteDispatcher;
 import org.apache.geode.internal.cache.wan.GatewaySenderEventRemoteDispatcher.GatewayAck;
+import org.apache.geode.internal.cache.wan.GatewaySenderStats;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
 
@@ -48,18 +50,23 @@ public class GatewaySenderBatchOp {
    * @param pool the pool to use to communicate with the server.
    * @param events list of gateway events
    * @param batchId the ID of this batch
+   * @param statistics the stats of the sender, used to record batch compression
    */
   public static void executeOn(Connection con, ExecutablePool pool, List events, int batchId,
-      boolean isRetry) {
+      boolean isRetry, GatewaySenderStats statistics) {
     AbstractOp op = null;
     // System.out.println("Version: "+con.getWanSiteVersion());
     // Is this check even needed anymore? It looks like we just create the same exact op impl with
     // the same parameters...
+    // older receivers cannot read compact batches
+    boolean compact = GatewaySenderBatchEncoding.useFor(con.getWanSiteVersion());
     if (Version.GFE_651.compareTo(con.getWanSiteVersion()) >= 0) {
-      op = new GatewaySenderGFEBatchOpImpl(events, batchId, con.getDistributedSystemId(), isRetry);
+      op = new GatewaySenderGFEBatchOpImpl(events, batchId, con.getDistributedSystemId(), isRetry,
+          compact, statistics);
     } else {
       // Default should create a batch of server version (ACCEPTOR.VERSION)
-      op = new GatewaySenderGFEBatchOpImpl(events, batchId, con.getDistributedSystemId(), isRetry);
+      op = new GatewaySenderGFEBatchOpImpl(events, batchId, con.getDistributedSystemId(), isRetry,
+          compact, statistics);
     }
     pool.executeOn(con, op, true/* timeoutFatal */);
   }
@@ -79,24 +86,45 @@ public class GatewaySenderBatchOp {
     /**
      * @throws org.apache.geode.SerializationException if serialization fails
      */
-    public GatewaySenderGFEBatchOpImpl(List events, int batchId, int dsId, boolean isRetry) {
-      super(MessageType.GATEWAY_RECEIVER_COMMAND, calcPartCount(events));
+    public GatewaySenderGFEBatchOpImpl(List events, int batchId, int dsId, boolean isRetry,
+        boolean compact, GatewaySenderStats statistics) {
+      super(MessageType.GATEWAY_RECEIVER_COMMAND, calcPartCount(events, compact));
       boolean removeFromQueueOnException = true;
       if (isRetry) {
         getMessage().setIsRetry();
       }
+      GatewaySenderBatchEncoding encoding =
+          compact ? new GatewaySenderBatchEncoding(events) : null;
+      byte flags = removeFromQueueOnException ? (byte) 1 : (byte) 0;
+      if (encoding != null) {
+        flags |= GatewaySenderBatchEncoding.COMPACT_BATCH;
+      }
       getMessage().addIntPart(events.size());
       getMessage().addIntPart(batchId);
       getMessage().addIntPart(dsId);
-      getMessage().addBytesPart(new byte[] {removeFromQueueOnException ? (byte) 1 : (byte) 0});
+      getMessage().addBytesPart(new byte[] {flags});
+      if (encoding != null) {
+        encoding.addDictionaryParts(getMessage());
+      }
       // Add each event
       for (Iterator i = events.iterator(); i.hasNext();) {
         GatewaySenderEventImpl event = (GatewaySenderEventImpl) i.next();
         // Add action
         int action = event.getAction();
         getMessage().addIntPart(action);
+        byte[] value = null;
+        byte[] compressedValue = null;
+        if (action < 2 /* it is 0 or 1 */) {
+          value = event.getSerializedValue();
+          if (encoding != null) {
+            compressedValue = encoding.compress(value);
+          }
+        }
         { // Add posDup flag
           byte posDupByte = (byte) (event.getPossibleDuplicate() ? 0x01 : 0x00);
+          if (compressedValue != null) {
+            posDupByte |= GatewaySenderBatchEncoding.VALUE_COMPRESSED;
+          }
           getMessage().addBytesPart(new byte[] {posDupByte});
         }
         if (action >= 0 && action <= 3) {
@@ -108,17 +136,22 @@ public class GatewaySenderBatchOp {
           Object key = event.getKey();
           Object callbackArg = event.getSenderCallbackArgument();
 
-          // Add region name
-          getMessage().addStringPart(regionName);
-          // Add event id
-          getMessage().addObjPart(eventId);
+          if (encoding != null) {
+            encoding.addRegionPathPart(getMessage(), regionName);
+            encoding.addEventIdPart(getMessage(), eventId);
+          } else {
+            // Add region name
+            getMessage().addStringPart(regionName);
+            // Add event id
+            getMessage().addObjPart(eventId);
+          }
           // Add key
           getMessage().addStringOrObjPart(key);
           if (action < 2 /* it is 0 or 1 */) {
-            byte[] value = event.getSerializedValue();
             byte valueIsObject = event.getValueIsObject();;
             // Add value (which is already a serialized byte[])
-            getMessage().addRawPart(value, (valueIsObject == 0x01));
+            getMessage().addRawPart(compressedValue != null ? compressedValue : value,
+                (valueIsObject == 0x01));
           }
           // Add callback arg if necessary
           if (callbackArg == null) {
@@ -130,6 +163,10 @@ public class GatewaySenderBatchOp {
           getMessage().addLongPart(event.getVersionTimeStamp());
         }
       }
+      if (encoding != null && encoding.getUncompressedBytes() > 0 && statistics != null) {
+        statistics.incValueBytesCompressed(encoding.getUncompressedBytes(),
+            encoding.getCompressedBytes());
+      }
     }
 
     public GatewaySenderGFEBatchOpImpl() {
@@ -210,8 +247,11 @@ public class GatewaySenderBatchOp {
     }
 
 
-    private static int calcPartCount(List events) {
+    private static int calcPartCount(List events, boolean compact) {
       int numberOfParts = 4; // for the number of events and the batchId
+      if (compact) {
+        numberOfParts += GatewaySenderBatchEncoding.DICTIONARY_PARTS;
+      }
       for (Iterator i = events.iterator(); i.hasNext();) {
         GatewaySenderEventImpl event = (GatewaySenderEventImpl) i.next();
         numberOfParts += event.getNumberOfParts();
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+
+import org.apache.geode.cache.client.internal.GatewaySenderBatchOp.GatewaySenderGFEBatchOpImpl;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.internal.cache.tier.sockets.command.GatewayReceiverCommand;
+import org.apache.geode.internal.cache.wan.GatewaySenderBatchEncoding;
+import org.apache.geode.internal.cache.wan.GatewaySenderEventImpl;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class GatewaySenderBatchOpJUnitTest {
+
+  /** the parts of an update event without a callback argument */
+  private static final int UPDATE_PARTS = 8;
+
+  private static final int FLAGS_PART = 3;
+
+  private final List<EventID> eventIds = Arrays.asList(new EventID(new byte[] {1, 2, 3}, 1, 10),
+      new EventID(new byte[] {4, 5, 6}, 2, 20, 7), new EventID(new byte[] {1, 2, 3}, 1, 11));
+
+  private final List<String> regionPaths = Arrays.asList("/a", "/b", "/a");
+
+  private final List<byte[]> values = new ArrayList<byte[]>();
+
+  private final List<GatewaySenderEventImpl> events = new ArrayList<GatewaySenderEventImpl>();
+
+  public GatewaySenderBatchOpJUnitTest() {
+    for (int i = 0; i < this.eventIds.size(); i++) {
+      // the second value is large enough to be compressed
+      int length = i == 1 ? GatewaySenderBatchEncoding.COMPRESSION_THRESHOLD + 1000 : 10;
+      byte[] value = new byte[length];
+      Arrays.fill(value, (byte) i);
+      this.values.add(value);
+      this.events.add(event(this.regionPaths.get(i), this.eventIds.get(i), "key" + i, value));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    GatewaySenderBatchEncoding.ENABLED = false;
+  }
+
+  @Test
+  public void compactBatchIsDecodedByTheReceiver() throws Exception {
+    Message sent = new GatewaySenderGFEBatchOpImpl(this.events, 1, 2, false, true, null)
+        .getMessage();
+    assertDecoded(receive(sent), true);
+  }
+
+  @Test
+  public void originalBatchIsDecodedByTheReceiver() throws Exception {
+    Message sent = new GatewaySenderGFEBatchOpImpl(this.events, 1, 2, false, false, null)
+        .getMessage();
+    assertDecoded(receive(sent), false);
+  }
+
+  @Test
+  public void olderReceiversAreSentTheOriginalEncoding() throws Exception {
+    GatewaySenderBatchEncoding.ENABLED = true;
+    assertDecoded(receive(execute(Version.GFE_90)), false);
+    assertDecoded(receive(execute(GatewaySenderBatchEncoding.MIN_RECEIVER_VERSION)), true);
+  }
+
+  @Test
+  public void receiversOfTheLastReleaseAreSentTheOriginalEncoding() throws Exception {
+    GatewaySenderBatchEncoding.ENABLED = true;
+    assertTrue(Version.GFE_91.compareTo(GatewaySenderBatchEncoding.MIN_RECEIVER_VERSION) < 0);
+    assertFalse(GatewaySenderBatchEncoding.useFor(Version.GFE_91.ordinal()));
+    assertDecoded(receive(execute(Version.GFE_91)), false);
+    assertTrue(GatewaySenderBatchEncoding.useFor(Version.CURRENT.ordinal()));
+  }
+
+  private Message execute(Version receiverVersion) {
+    Connection con = mock(Connection.class);
+    when(con.getWanSiteVersion()).thenReturn(receiverVersion.ordinal());
+    when(con.getDistributedSystemId()).thenReturn(2);
+    ExecutablePool pool = mock(ExecutablePool.class);
+    GatewaySenderBatchOp.executeOn(con, pool, this.events, 1, false, null);
+    ArgumentCaptor<Op> op = ArgumentCaptor.forClass(Op.class);
+    verify(pool).executeOn(same(con), op.capture(), eq(true));
+    return ((AbstractOp) op.getValue()).getMessage();
+  }
+
+  /**
+   * Reads the events of a received batch the way GatewayReceiverCommand does.
+   */
+  private void assertDecoded(Message msg, boolean compact) throws Exception {
+    assertEquals(this.events.size(), msg.getPart(0).getInt());
+    GatewaySenderBatchEncoding encoding =
+        GatewayReceiverCommand.readBatchEncoding(msg, FLAGS_PART);
+    assertEquals(compact, encoding != null);
+    int partNumber = FLAGS_PART + 1;
+    if (encoding != null) {
+      partNumber += GatewaySenderBatchEncoding.DICTIONARY_PARTS;
+    }
+    for (int i = 0; i < this.events.size(); i++) {
+      assertEquals(1, msg.getPart(partNumber).getInt());
+      byte[] possibleDuplicate = (byte[]) msg.getPart(partNumber + 1).getObject();
+      assertEquals(0, possibleDuplicate[0] & 0x01);
+      assertEquals(this.regionPaths.get(i),
+          GatewayReceiverCommand.readRegionPath(msg.getPart(partNumber + 2), encoding));
+      EventID eventId = GatewayReceiverCommand.readEventId(msg.getPart(partNumber + 3), encoding);
+      assertEquals(this.eventIds.get(i), eventId);
+      assertArrayEquals(this.eventIds.get(i).getMembershipID(), eventId.getMembershipID());
+      assertEquals("key" + i, msg.getPart(partNumber + 4).getStringOrObject());
+      Part valuePart = msg.getPart(partNumber + 5);
+      boolean compressed = GatewayReceiverCommand.isValueCompressed(possibleDuplicate, encoding);
+      assertEquals(compact && i == 1, compressed);
+      if (compressed) {
+        encoding.decompress(valuePart);
+      }
+      assertArrayEquals(this.values.get(i), valuePart.getSerializedForm());
+      assertTrue(valuePart.isObject());
+      partNumber += UPDATE_PARTS;
+    }
+    assertEquals(msg.getNumberOfParts(), partNumber);
+  }
+
+  /**
+   * Copies the parts of a sent message into a message as the receiver reads it.
+   */
+  private Message receive(Message sent) {
+    Message received = new Message(sent.getNumberOfParts(), Version.CURRENT);
+    for (int i = 0; i < sent.getNumberOfParts(); i++) {
+      Part part = sent.getPart(i);
+      ByteBuffer buffer = ByteBuffer.allocate(part.getLength());
+      part.writeTo(buffer);
+      received.addRawPart(buffer.array(), part.isObject());
+    }
+    return received;
+  }
+
+  private GatewaySenderEventImpl event(String regionPath, EventID eventId, String key,
+      byte[] value) {
+    GatewaySenderEventImpl event = mock(GatewaySenderEventImpl.class);
+    when(event.getAction()).thenReturn(1);
+    when(event.getRegionPath()).thenReturn(regionPath);
+    when(event.getEventId()).thenReturn(eventId);
+    when(event.getKey()).thenReturn(key);
+    when(event.getSerializedValue()).thenReturn(value);
+    when(event.getValueIsObject()).thenReturn((byte) 0x01);
+    when(event.getNumberOfParts()).thenReturn(UPDATE_PARTS);
+    return event;
+  }
+}